@@ -0,0 +1,115 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateFrom;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the operations of the deferred queue of an entity: the searches and counts with
+ * the standard predicates, looked up in the indexes of the queue, against the same searches with
+ * a custom predicate, matched event by event; and the arrival and processing of an event. The
+ * event searched for is the last one of the queue, with a tag and a source of its own.
+ *
+ * @since CloudSim Toolkit 7.0
+ * @see SimEntity#selectEvent(Predicate)
+ * @see SimEntity#waiting(Predicate)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DeferredQueueBenchmark {
+
+	private static final CloudSimTags[] TAGS = {
+			CloudActionTags.BLANK, CloudActionTags.VM_CREATE, CloudActionTags.VM_DESTROY,
+			CloudActionTags.CLOUDLET_SUBMIT, CloudActionTags.CLOUDLET_RETURN, CloudActionTags.VM_DATACENTER_EVENT };
+
+	@Param({ "16", "1024" })
+	public int size;
+
+	private DeferredQueue queue;
+
+	private long time;
+
+	private final Predicate byType = new PredicateType(CloudActionTags.VM_MIGRATE);
+
+	private final Predicate bySource = new PredicateFrom(99);
+
+	private final Predicate custom = new Predicate() {
+		@Override
+		public boolean match(SimEvent event) {
+			return event.getTag() == CloudActionTags.VM_MIGRATE;
+		}
+	};
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		queue = new DeferredQueue();
+		for (int i = 0; i < size - 1; i++) {
+			queue.add(newEvent(i % 4, TAGS[i % TAGS.length]));
+		}
+		queue.add(newEvent(99, CloudActionTags.VM_MIGRATE));
+	}
+
+	private SimEvent newEvent(int src, CloudSimTags tag) {
+		SimEvent ev = new SimEvent(SimEvent.SEND, time, src, 0, tag, null);
+		ev.setSerial(time++);
+		return ev;
+	}
+
+	@Benchmark
+	public SimEvent findByType() {
+		return queue.find(byType, false);
+	}
+
+	@Benchmark
+	public SimEvent findBySource() {
+		return queue.find(bySource, false);
+	}
+
+	@Benchmark
+	public SimEvent findByCustomPredicate() {
+		return queue.find(custom, false);
+	}
+
+	@Benchmark
+	public int countByType() {
+		return queue.count(byType);
+	}
+
+	@Benchmark
+	public int countByCustomPredicate() {
+		return queue.count(custom);
+	}
+
+	/** An event arrives and the oldest one is processed, the queue keeping its size. */
+	@Benchmark
+	public SimEvent addAndPoll() {
+		queue.add(newEvent((int) (time & 3), TAGS[(int) (time % TAGS.length)]));
+		return queue.poll();
+	}
+}
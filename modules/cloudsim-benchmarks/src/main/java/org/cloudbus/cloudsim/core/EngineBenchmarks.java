@@ -0,0 +1,117 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import org.cloudbus.cloudsim.Log;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks of the event engine, and writes their results as JSON to
+ * <tt>jmh-result.json</tt>, so that the changes of the engine can be compared run to run. It
+ * takes the usual JMH options, e.g. to run the benchmarks of the event queue only and write
+ * their results elsewhere:
+ *
+ * <pre>
+ * java -jar modules/cloudsim-benchmarks/target/benchmarks.jar EventQueueBenchmark -rff queue.json
+ * </pre>
+ *
+ * The benchmarks live in the package of the engine, so that they reach the events and queues as
+ * the engine itself does.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public final class EngineBenchmarks {
+
+	/** The file the results are written to, unless another one is given. */
+	public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+	private EngineBenchmarks() {
+	}
+
+	/** An entity ignoring its events, to send events from and to. */
+	static final class IdleEntity extends SimEntity {
+		IdleEntity(String name) {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+	/**
+	 * Creates a simulation context with idle entities, and starts it on the calling thread without
+	 * running its loop, so that events can be sent and polled as from within the simulation.
+	 *
+	 * @param entities the number of idle entities
+	 * @return the context, whose entities are numbered from {@link #firstEntityId(SimulationContext)}
+	 */
+	static SimulationContext startedContext(int entities) throws Exception {
+		Log.disable();
+		SimulationContext ctx = new SimulationContext();
+		ctx.call(() -> {
+			CloudSim.init(0, null, false);
+			for (int i = 0; i < entities; i++) {
+				new IdleEntity("Idle" + i);
+			}
+			return null;
+		});
+		CloudSim.bindSimulationContext(ctx);
+		ctx.runStart();
+		return ctx;
+	}
+
+	/**
+	 * Gets the id of the first idle entity of a context.
+	 *
+	 * @param ctx the context, as created by {@link #startedContext(int)}
+	 * @return the id
+	 */
+	static int firstEntityId(SimulationContext ctx) {
+		return ctx.getEntityId("Idle0");
+	}
+
+	/**
+	 * Runs the benchmarks.
+	 *
+	 * @param args the JMH options
+	 */
+	public static void main(String[] args) throws Exception {
+		CommandLineOptions cli = new CommandLineOptions(args);
+		if (cli.shouldHelp()) {
+			cli.showHelp();
+			return;
+		}
+		if (cli.shouldList()) {
+			new Runner(cli).list();
+			return;
+		}
+
+		ChainedOptionsBuilder options = new OptionsBuilder().parent(cli);
+		if (!cli.getResultFormat().hasValue()) {
+			options.resultFormat(ResultFormatType.JSON);
+		}
+		if (!cli.getResult().hasValue()) {
+			options.result(DEFAULT_RESULT_FILE);
+		}
+		new Runner(options.build()).run();
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link EventQueue} with the classic <i>hold model</i>: the queue holds
+ * <tt>size</tt> events, and each operation polls the first event and adds a new one at its time
+ * plus a random increment, for each future event list and several increment distributions.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventQueueBenchmark {
+
+	@Param({ "1000", "100000" })
+	public int size;
+
+	@Param({ "exponential", "uniform", "bimodal", "interval" })
+	public String distribution;
+
+	@Param({ "BINARY_HEAP", "CALENDAR_QUEUE", "LADDER_QUEUE" })
+	public String futureEventList;
+
+	private EventQueue queue;
+
+	private DoubleSupplier increment;
+
+	/**
+	 * Creates the random increment generator of a distribution.
+	 *
+	 * @param name the distribution name
+	 * @param random the random generator
+	 * @return the increment generator
+	 */
+	static DoubleSupplier increments(String name, Random random) {
+		return switch (name) {
+			case "exponential" -> () -> -Math.log(1 - random.nextDouble());
+			case "uniform" -> () -> random.nextDouble() * 2;
+			// many short delays (e.g. network hops) mixed with a few long ones (e.g. cloudlet lengths)
+			case "bimodal" -> () -> random.nextDouble() < 0.95 ? random.nextDouble() * 0.001 : 100 * random.nextDouble();
+			// lock-step entities waking up every scheduling interval
+			case "interval" -> () -> 300.0 * (1 + random.nextInt(3));
+			default -> throw new IllegalArgumentException(name);
+		};
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		// the queue only gives its events while the simulation runs
+		EngineBenchmarks.startedContext(0);
+		increment = increments(distribution, new Random(42));
+		queue = new EventQueue(FutureEventList.Type.valueOf(futureEventList));
+		for (int i = 0; i < size; i++) {
+			queue.addEvent(new SimEvent(SimEvent.SEND, increment.getAsDouble(), 0, 0, CloudActionTags.BLANK, null));
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		CloudSim.bindSimulationContext(null);
+	}
+
+	@Benchmark
+	public SimEvent hold() {
+		SimEvent first = queue.poll();
+		queue.addEvent(new SimEvent(SimEvent.SEND, first.eventTime() + increment.getAsDouble(), 0, 0,
+				CloudActionTags.BLANK, null));
+		return first;
+	}
+}
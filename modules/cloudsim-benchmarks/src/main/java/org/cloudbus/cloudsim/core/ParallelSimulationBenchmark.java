@@ -0,0 +1,134 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.Log;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how a parallel simulation scales with the number of threads. Each of the 16
+ * datacenter-like entities updates its hosts every 10 time units (some busy work per update) and
+ * sends a message to a random other datacenter over a link with a latency of 5 time units, which
+ * is the lookahead of the parallel runs. The datacenters are either in their own logical process
+ * or dispatched in parallel within each clock tick; 0 threads runs the simulation sequentially.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ParallelSimulationBenchmark {
+
+	private static final int DATACENTERS = 16;
+
+	private static final double LATENCY = 5;
+
+	private static final int UPDATES = 2_000;
+
+	private static final int HOSTS = 2_000;
+
+	@Param({ "0", "1", "2", "4", "8", "16" })
+	public int threads;
+
+	@Param({ "logicalProcesses", "parallelDispatch" })
+	public String mode;
+
+	/** A datacenter that updates the processing of its hosts and notifies its peers. */
+	private static final class DatacenterEntity extends SimEntity {
+		private final List<DatacenterEntity> peers;
+		private final Random random;
+		private final double[] hostLoad = new double[HOSTS];
+		private int updates = 0;
+		private long checksum = 0;
+
+		DatacenterEntity(String name, long seed, List<DatacenterEntity> peers) {
+			super(name);
+			this.peers = peers;
+			random = new Random(seed);
+		}
+
+		@Override
+		public void startEntity() {
+			schedule(getId(), 0, CloudActionTags.VM_DATACENTER_EVENT);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (ev.getTag() != CloudActionTags.VM_DATACENTER_EVENT) {
+				checksum = checksum * 31 + ev.getSourceId();
+				return;
+			}
+			double now = CloudSim.clock();
+			for (int i = 0; i < HOSTS; i++) {
+				hostLoad[i] = hostLoad[i] * 0.9 + Math.sqrt(i + now);
+			}
+			if (++updates < UPDATES) {
+				schedule(getId(), 10, CloudActionTags.VM_DATACENTER_EVENT);
+				schedule(peers.get(random.nextInt(peers.size())).getId(), LATENCY, CloudActionTags.BLANK);
+			}
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Log.disable();
+	}
+
+	/**
+	 * Runs the scenario.
+	 *
+	 * @return the checksum of the messages received, in order
+	 */
+	@Benchmark
+	public long run() throws Exception {
+		return new SimulationContext().call(() -> {
+			CloudSim.init(0, null, false);
+			List<DatacenterEntity> datacenters = new ArrayList<>();
+			for (int i = 0; i < DATACENTERS; i++) {
+				datacenters.add(new DatacenterEntity("Datacenter" + i, i, datacenters));
+			}
+			if (threads == 0) {
+				CloudSim.startSimulation();
+			} else if (mode.equals("parallelDispatch")) {
+				CloudSim.setParallelDispatch(threads);
+				CloudSim.startSimulation();
+			} else {
+				for (int i = 0; i < DATACENTERS; i++) {
+					CloudSim.setLogicalProcess(datacenters.get(i).getId(), i);
+				}
+				CloudSim.startParallelSimulation(threads, LATENCY);
+			}
+
+			long checksum = 0;
+			for (DatacenterEntity datacenter : datacenters) {
+				checksum = checksum * 17 + datacenter.checksum;
+			}
+			return checksum;
+		});
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.Log;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the whole engine, in events per second, with two entities sending
+ * an event back and forth until a number of events have been processed: each event goes through
+ * the future queue, the deferred queue and the event handler.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PingPongBenchmark {
+
+	/** The number of events processed per simulation. */
+	private static final int EVENTS = 100_000;
+
+	@Param({ "false", "true" })
+	public boolean eventPooling;
+
+	@Param({ "BINARY_HEAP", "LADDER_QUEUE" })
+	public String futureEventList;
+
+	/** An entity sending each event it receives back to its sender, until no hop is left. */
+	private static final class Player extends SimEntity {
+		private int peer = -1;
+
+		Player(String name) {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+			if (peer >= 0) {
+				send(peer, 1, CloudActionTags.BLANK, EVENTS, 0, 0);
+			}
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			int hops = ev.getIntData(0);
+			if (hops > 1) {
+				send(ev.getSourceId(), 1, CloudActionTags.BLANK, hops - 1, 0, 0);
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Log.disable();
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EVENTS)
+	public double pingPong() throws Exception {
+		SimulationContext ctx = new SimulationContext();
+		return ctx.call(() -> {
+			ctx.init(0, null, false, FutureEventList.Type.valueOf(futureEventList));
+			ctx.setEventPoolingEnabled(eventPooling);
+			Player ping = new Player("Ping");
+			Player pong = new Player("Pong");
+			ping.peer = pong.getId();
+			return CloudSim.startSimulation();
+		});
+	}
+}
@@ -0,0 +1,104 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link CloudSim#send(int, int, double, CloudSimTags, Object)} followed by the
+ * cancellation of the events sent, as the entities do with their timers, while the future queue
+ * holds a backlog of events of other entities. The times are per event.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SendCancelBenchmark {
+
+	/** The number of events sent, then cancelled, per invocation. */
+	private static final int BATCH = 1000;
+
+	@Param({ "0", "100000" })
+	public int backlog;
+
+	private int src;
+
+	private int dst;
+
+	private final SimEvent[] sent = new SimEvent[BATCH];
+
+	private final Predicate timers = new PredicateType(CloudActionTags.VM_DATACENTER_EVENT);
+
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		SimulationContext ctx = EngineBenchmarks.startedContext(3);
+		src = EngineBenchmarks.firstEntityId(ctx);
+		dst = src + 1;
+		for (int i = 0; i < backlog; i++) {
+			CloudSim.send(src + 2, dst, i, CloudActionTags.BLANK, null);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		CloudSim.bindSimulationContext(null);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public boolean sendThenCancelAllByTag() {
+		for (int i = 0; i < BATCH; i++) {
+			CloudSim.send(src, dst, 1 + i, CloudActionTags.VM_DATACENTER_EVENT, null);
+		}
+		return CloudSim.cancelAll(src, CloudActionTags.VM_DATACENTER_EVENT);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public boolean sendThenCancelAllByPredicate() {
+		for (int i = 0; i < BATCH; i++) {
+			CloudSim.send(src, dst, 1 + i, CloudActionTags.VM_DATACENTER_EVENT, null);
+		}
+		return CloudSim.cancelAll(src, timers);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(BATCH)
+	public boolean sendThenCancelEach() {
+		for (int i = 0; i < BATCH; i++) {
+			sent[i] = CloudSim.send(src, dst, 1 + i, CloudActionTags.VM_DATACENTER_EVENT, null);
+		}
+		boolean cancelled = true;
+		for (SimEvent ev : sent) {
+			cancelled &= CloudSim.getSimulationContext().cancel(ev);
+		}
+		return cancelled;
+	}
+}
@@ -9,10 +9,11 @@
 package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.lists.CloudletIndexedList;
 import org.cloudbus.cloudsim.lists.CloudletList;
 
 /**
@@ -58,6 +59,9 @@ public abstract class CloudletScheduler {
 	/** Buffer list of the latest finished cloudlets. */
 	protected List<Cloudlet> cloudletJustFinishedList;
 
+	/** The schedulers with finished cloudlets, that this one joins when a cloudlet finishes, or <tt>null</tt>. */
+	private Set<CloudletScheduler> completionQueue;
+
 	/**
 	 * Creates a new CloudletScheduler object. 
 	 * A CloudletScheduler must be created before starting the actual simulation.
@@ -68,11 +72,11 @@ public abstract class CloudletScheduler {
 	public CloudletScheduler() {
 		setPreviousTime(0.0);
 
-		cloudletWaitingList = new LinkedList<>();
-		cloudletExecList = new LinkedList<>();
-		cloudletPausedList = new LinkedList<>();
-		cloudletFinishedList = new LinkedList<>();
-		cloudletFailedList = new LinkedList<>();
+		cloudletWaitingList = new CloudletIndexedList<>();
+		cloudletExecList = new CloudletIndexedList<>();
+		cloudletPausedList = new CloudletIndexedList<>();
+		cloudletFinishedList = new CloudletIndexedList<>();
+		cloudletFailedList = new CloudletIndexedList<>();
 		cloudletJustFinishedList = new ArrayList<>();
 	}
 
@@ -179,15 +183,14 @@ public abstract class CloudletScheduler {
 	 */
 	public Cloudlet cloudletCancel(final int cloudletId) {
 		// First, looks in the finished queue
-		int position = CloudletList.getPositionById(getCloudletFinishedList(), cloudletId);
-		if (position >= 0) {
-			return getCloudletFinishedList().remove(position);
+		Cloudlet cl = CloudletList.removeById(getCloudletFinishedList(), cloudletId);
+		if (cl != null) {
+			return cl;
 		}
 
 		// Then searches in the exec list
-		position = CloudletList.getPositionById(getCloudletExecList(), cloudletId);
-		if (position >= 0) {
-			Cloudlet cl = getCloudletExecList().remove(position);
+		cl = CloudletList.removeById(getCloudletExecList(), cloudletId);
+		if (cl != null) {
 			if (cl.getRemainingCloudletLength() == 0) {
 				cloudletFinish(cl);
 			} else {
@@ -197,17 +200,13 @@ public abstract class CloudletScheduler {
 		}
 
 		// Now, looks in the paused queue
-		position = CloudletList.getPositionById(getCloudletPausedList(), cloudletId);
-		if (position >= 0) {
-			return getCloudletPausedList().remove(position);
+		cl = CloudletList.removeById(getCloudletPausedList(), cloudletId);
+		if (cl != null) {
+			return cl;
 		}
 
 		// Finally, looks in the waiting list
-		position = CloudletList.getPositionById(getCloudletWaitingList(), cloudletId);
-		if (position >= 0) {
-			return getCloudletWaitingList().remove(position);
-		}
-		return null;
+		return CloudletList.removeById(getCloudletWaitingList(), cloudletId);
 	}
 
 	/**
@@ -220,10 +219,9 @@ public abstract class CloudletScheduler {
 	 */
 	public boolean cloudletPause(int cloudletId) {
 		// first, looks for the cloudlet in the exec list
-		int position = CloudletList.getPositionById(getCloudletExecList(), cloudletId);
-		if (position >= 0) {
+		Cloudlet cl = CloudletList.removeById(getCloudletExecList(), cloudletId);
+		if (cl != null) {
 			// moves to the paused list
-			Cloudlet cl = getCloudletExecList().remove(position);
 			if (cl.getRemainingCloudletLength() == 0) {
 				cloudletFinish(cl);
 			} else {
@@ -234,10 +232,9 @@ public abstract class CloudletScheduler {
 		}
 
 		// now, look for the cloudlet in the waiting list
-		position = CloudletList.getPositionById(getCloudletWaitingList(), cloudletId);
-		if (position >= 0) {
+		cl = CloudletList.removeById(getCloudletWaitingList(), cloudletId);
+		if (cl != null) {
 			// moves to the paused list
-			Cloudlet cl = getCloudletWaitingList().remove(position);
 			if (cl.getRemainingCloudletLength() == 0) {
 				cloudletFinish(cl);
 			} else {
@@ -270,6 +267,9 @@ public abstract class CloudletScheduler {
 		cl.updateStatus(Cloudlet.CloudletStatus.SUCCESS);
 		cl.finalizeCloudlet();
 		getCloudletFinishedList().add(cl);
+		if (completionQueue != null) {
+			completionQueue.add(this);
+		}
 	}
 
 	/**
@@ -282,19 +282,15 @@ public abstract class CloudletScheduler {
 	 *
 	 */
 	public Cloudlet.CloudletStatus getCloudletStatus(final int cloudletId) {
-		int position = CloudletList.getPositionById(getCloudletExecList(), cloudletId);
-		if (position >= 0) {
-			return getCloudletExecList().get(position).getStatus();
+		Cloudlet cl = CloudletList.getById(getCloudletExecList(), cloudletId);
+		if (cl == null) {
+			cl = CloudletList.getById(getCloudletPausedList(), cloudletId);
 		}
-
-		position = CloudletList.getPositionById(getCloudletPausedList(), cloudletId);
-		if (position >= 0) {
-			return getCloudletPausedList().get(position).getStatus();
+		if (cl == null) {
+			cl = CloudletList.getById(getCloudletWaitingList(), cloudletId);
 		}
-
-		position = CloudletList.getPositionById(getCloudletWaitingList(), cloudletId);
-		if (position >= 0) {
-			return getCloudletWaitingList().get(position).getStatus();
+		if (cl != null) {
+			return cl.getStatus();
 		}
 
 		throw new RuntimeException("cloudlet doesn't not exist");
@@ -520,15 +516,8 @@ public abstract class CloudletScheduler {
 			capacity += mips;
 		}
 
-		int pesInUse = 0;
-		for (Cloudlet cl : getCloudletExecList()) {
-			if (cl.getRemainingCloudletLength() > 0) {
-				pesInUse += cl.getNumberOfPes();
-			}
-		}
-
 		int cpus = currentMipsShare.size();
-		capacity /= Math.max(pesInUse, cpus);
+		capacity /= Math.max(getPesInUse(), cpus);
 
 
 		currentCapacity = capacity;
@@ -536,6 +525,21 @@ public abstract class CloudletScheduler {
 		return capacity;
 	}
 
+	/**
+	 * Gets the number of PEs used by the cloudlets being executed, and not finished yet.
+	 *
+	 * @return the number of PEs
+	 */
+	protected int getPesInUse() {
+		int pesInUse = 0;
+		for (Cloudlet cl : getCloudletExecList()) {
+			if (cl.getRemainingCloudletLength() > 0) {
+				pesInUse += cl.getNumberOfPes();
+			}
+		}
+		return pesInUse;
+	}
+
 	@Deprecated
 	protected double getCapacity(List<Double> mipsShare) {
 		setCurrentMipsShare(mipsShare);
@@ -625,6 +629,27 @@ public abstract class CloudletScheduler {
 		this.cloudletFinishedList = cloudletFinishedList;
 	}
 
+	/**
+	 * Gets the queue notified of the finished cloudlets.
+	 *
+	 * @return the schedulers with finished cloudlets, or <tt>null</tt>
+	 * @see #setCompletionQueue(Set)
+	 */
+	public Set<CloudletScheduler> getCompletionQueue() {
+		return completionQueue;
+	}
+
+	/**
+	 * Sets the queue notified of the finished cloudlets: {@link #cloudletFinish(Cloudlet)} adds
+	 * this scheduler to it, so that the datacenter running the guest only drains the schedulers
+	 * with finished cloudlets, rather than asking each of them.
+	 *
+	 * @param completionQueue the schedulers with finished cloudlets, or <tt>null</tt>
+	 */
+	public void setCompletionQueue(Set<CloudletScheduler> completionQueue) {
+		this.completionQueue = completionQueue;
+	}
+
 	/**
 	 * Gets the cloudlet failed list.
 	 * 
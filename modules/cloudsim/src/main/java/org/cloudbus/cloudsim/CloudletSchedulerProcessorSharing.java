@@ -0,0 +1,310 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.lists.CloudletList;
+
+/**
+ * CloudletSchedulerProcessorSharing shares the capacity of the VM equally among its cloudlets,
+ * as {@link CloudletSchedulerTimeShared} does, but without going through all the cloudlets on
+ * each update. It keeps a virtual time, the MIs run so far by a PE of a cloudlet that would have
+ * run since the start: every cloudlet runs at the same pace, so a cloudlet finishes once the
+ * virtual time reaches the finish tag computed when it started, i.e. the virtual time at the
+ * start plus its remaining length per PE. The cloudlets are held in a heap by finish tag, so
+ * that an update without finished cloudlets is constant time, and each finished cloudlet
+ * logarithmic.
+ * <p>
+ * The progress of the cloudlets being executed is only written to them when they leave the
+ * execution, e.g. when they finish, are paused, cancelled or migrated, or when
+ * {@link #updateCloudletsProgress()} is called before reading it. The cloudlets aren't
+ * {@link Cloudlet#updateCloudlet(Object) updated} on each update either: the scheduler doesn't
+ * suit the cloudlets running stages, such as the network ones.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class CloudletSchedulerProcessorSharing extends CloudletScheduler {
+
+	/** The virtual time, in MIs run per PE of a cloudlet. */
+	private double virtualTime;
+
+	/** The simulation time up to which the virtual time has been advanced. */
+	private double virtualTimeClock;
+
+	/** The number of PEs used by the cloudlets being executed. */
+	private int pesInUse;
+
+	/** The number of cloudlets that started, ordering those of the same finish tag. */
+	private long started;
+
+	/** The finish tags of the cloudlets being executed, including the ones of cloudlets gone. */
+	private final PriorityQueue<FinishTag> finishTags = new PriorityQueue<>();
+
+	/** The finish tag of each cloudlet being executed. */
+	private final Map<Cloudlet, FinishTag> tags = new IdentityHashMap<>();
+
+	/** The finish tag of a cloudlet being executed. */
+	private static final class FinishTag implements Comparable<FinishTag> {
+		/** The cloudlet. */
+		private final Cloudlet cloudlet;
+
+		/** The virtual time at which the cloudlet finishes. */
+		private final double finish;
+
+		/** The order in which the cloudlet started. */
+		private final long order;
+
+		/** The virtual time up to which the progress of the cloudlet has been written to it. */
+		private double progressTime;
+
+		/** Whether the cloudlet isn't executed anymore. */
+		private boolean gone;
+
+		FinishTag(Cloudlet cloudlet, double start, double finish, long order) {
+			this.cloudlet = cloudlet;
+			this.progressTime = start;
+			this.finish = finish;
+			this.order = order;
+		}
+
+		@Override
+		public int compareTo(FinishTag other) {
+			int result = Double.compare(finish, other.finish);
+			return result != 0 ? result : Long.compare(order, other.order);
+		}
+	}
+
+	/**
+	 * Creates a new CloudletSchedulerProcessorSharing object.
+	 */
+	public CloudletSchedulerProcessorSharing() {
+		super();
+	}
+
+	/**
+	 * Updates the processing of the cloudlets: advances the virtual time at the pace of the
+	 * previous update, and finishes the cloudlets whose finish tag it reached.
+	 */
+	@Override
+	public double updateCloudletsProcessing(double currentTime, List<Double> mipsShare) {
+		advanceVirtualTime(currentTime);
+		setCurrentMipsShare(mipsShare);
+
+		FinishTag next;
+		while ((next = nextFinishTag()) != null && isReached(next)) {
+			finishTags.poll();
+			stop(next);
+			getCloudletExecList().remove(next.cloudlet);
+			next.cloudlet.setCloudletFinishedSoFar(next.cloudlet.getCloudletTotalLength() * Consts.MILLION);
+			cloudletFinish(next.cloudlet);
+		}
+		setPreviousTime(currentTime);
+
+		if (next == null) {
+			return 0.0;
+		}
+		if (getCurrentCapacity() <= 0) {
+			return Double.MAX_VALUE;
+		}
+		return Math.max(currentTime + (next.finish - virtualTime) / getCurrentCapacity(),
+				currentTime + CloudSim.getMinTimeBetweenEvents());
+	}
+
+	@Override
+	public double cloudletSubmit(Cloudlet cl, double fileTransferTime) {
+		advanceVirtualTime(CloudSim.clock());
+		cl.updateStatus(Cloudlet.CloudletStatus.INEXEC);
+
+		// use the current capacity to estimate the extra amount of
+		// time to file transferring. It must be added to the cloudlet length
+		double extraSize = getCurrentCapacity() * fileTransferTime;
+		long length = (long) (cl.getCloudletLength() + extraSize);
+		cl.setCloudletLength(length);
+
+		FinishTag tag = start(cl);
+		return (tag.finish - virtualTime) / getCurrentCapacity();
+	}
+
+	@Override
+	public double cloudletResume(int cloudletId) {
+		Cloudlet cl = CloudletList.removeById(getCloudletPausedList(), cloudletId);
+		if (cl == null) {
+			return 0.0;
+		}
+		advanceVirtualTime(CloudSim.clock());
+		cl.updateStatus(Cloudlet.CloudletStatus.INEXEC);
+		start(cl);
+		return getEstimatedFinishTime(cl, CloudSim.clock());
+	}
+
+	@Override
+	public Cloudlet cloudletCancel(int cloudletId) {
+		Cloudlet cl = updateCloudletProgress(cloudletId);
+		Cloudlet canceled = super.cloudletCancel(cloudletId);
+		stopIfGone(cl);
+		return canceled;
+	}
+
+	@Override
+	public boolean cloudletPause(int cloudletId) {
+		Cloudlet cl = updateCloudletProgress(cloudletId);
+		boolean paused = super.cloudletPause(cloudletId);
+		stopIfGone(cl);
+		return paused;
+	}
+
+	@Override
+	public Cloudlet migrateCloudlet() {
+		advanceVirtualTime(CloudSim.clock());
+		Cloudlet first = getCloudletExecList().getFirst();
+		writeProgress(tags.get(first));
+		Cloudlet cl = super.migrateCloudlet();
+		stopIfGone(first);
+		return cl;
+	}
+
+	@Override
+	public double getEstimatedFinishTime(Cloudlet cl, double time) {
+		FinishTag tag = tags.get(cl);
+		if (tag == null) {
+			return super.getEstimatedFinishTime(cl, time);
+		}
+		double virtualTimeThen = virtualTime + (time - virtualTimeClock) * getCurrentCapacity();
+		return time + (tag.finish - virtualTimeThen) / getCurrentCapacity();
+	}
+
+	/**
+	 * Writes the progress of the cloudlets being executed to them, up to the current time. It
+	 * goes through all of them, and is meant to be called before reading their progress.
+	 */
+	public void updateCloudletsProgress() {
+		advanceVirtualTime(CloudSim.clock());
+		for (FinishTag tag : tags.values()) {
+			writeProgress(tag);
+		}
+	}
+
+	@Override
+	protected int getPesInUse() {
+		return pesInUse;
+	}
+
+	// Simple policy, there is no real scheduling involved
+	@Override
+	public double getTotalCurrentAvailableMipsForCloudlet(Cloudlet cl, List<Double> mipsShare) {
+		return getCurrentCapacity() * cl.getNumberOfPes();
+	}
+
+	@Override
+	public double getTotalCurrentAllocatedMipsForCloudlet(Cloudlet cl, double time) {
+		return getTotalCurrentAvailableMipsForCloudlet(cl, getCurrentMipsShare());
+	}
+
+	@Override
+	public double getTotalCurrentRequestedMipsForCloudlet(Cloudlet cl, double time) {
+		return getTotalCurrentAvailableMipsForCloudlet(cl, getCurrentMipsShare());
+	}
+
+	/**
+	 * Advances the virtual time up to a simulation time, at the current capacity per PE.
+	 */
+	private void advanceVirtualTime(double time) {
+		if (time > virtualTimeClock) {
+			if (getCurrentMipsShare() != null) {
+				virtualTime += (time - virtualTimeClock) * getCurrentCapacity();
+			}
+			virtualTimeClock = time;
+		}
+	}
+
+	/**
+	 * Adds a cloudlet to the execution, with a finish tag for its remaining length.
+	 */
+	private FinishTag start(Cloudlet cl) {
+		double remaining = (double) (cl.getCloudletTotalLength() * Consts.MILLION - cl.getCloudletFinishedSoFar())
+				/ Consts.MILLION / cl.getNumberOfPes();
+		FinishTag tag = new FinishTag(cl, virtualTime, virtualTime + Math.max(remaining, 0), started++);
+		finishTags.add(tag);
+		tags.put(cl, tag);
+		getCloudletExecList().add(cl);
+		pesInUse += cl.getNumberOfPes();
+		if (getCurrentMipsShare() != null) {
+			updateCurrentCapacity();
+		}
+		return tag;
+	}
+
+	/**
+	 * Removes a cloudlet from the cloudlets being executed, its tag being discarded from the heap
+	 * when it reaches its top.
+	 */
+	private void stop(FinishTag tag) {
+		tag.gone = true;
+		tags.remove(tag.cloudlet);
+		pesInUse -= tag.cloudlet.getNumberOfPes();
+		if (getCurrentMipsShare() != null) {
+			updateCurrentCapacity();
+		}
+	}
+
+	/**
+	 * Stops a cloudlet that was being executed, if it isn't anymore.
+	 */
+	private void stopIfGone(Cloudlet cl) {
+		if (cl != null && !getCloudletExecList().contains(cl)) {
+			stop(tags.get(cl));
+		}
+	}
+
+	/**
+	 * Writes the progress of a cloudlet being executed to it, up to the current time.
+	 *
+	 * @return the cloudlet, or <tt>null</tt> if not being executed
+	 */
+	private Cloudlet updateCloudletProgress(int cloudletId) {
+		Cloudlet cl = CloudletList.getById(getCloudletExecList(), cloudletId);
+		if (cl != null) {
+			advanceVirtualTime(CloudSim.clock());
+			writeProgress(tags.get(cl));
+		}
+		return cl;
+	}
+
+	private void writeProgress(FinishTag tag) {
+		double progress = Math.min(virtualTime, tag.finish) - tag.progressTime;
+		if (progress > 0) {
+			tag.cloudlet.updateCloudletFinishedSoFar((long) (progress * tag.cloudlet.getNumberOfPes() * Consts.MILLION));
+			tag.progressTime += progress;
+		}
+	}
+
+	/**
+	 * Gets the finish tag of the next cloudlet to finish, discarding the ones of cloudlets gone.
+	 */
+	private FinishTag nextFinishTag() {
+		FinishTag tag = finishTags.peek();
+		while (tag != null && tag.gone) {
+			finishTags.poll();
+			tag = finishTags.peek();
+		}
+		return tag;
+	}
+
+	/**
+	 * Checks if a cloudlet has finished, i.e. less than an instruction remains.
+	 */
+	private boolean isReached(FinishTag tag) {
+		return (tag.finish - virtualTime) * tag.cloudlet.getNumberOfPes() * Consts.MILLION < 1;
+	}
+}
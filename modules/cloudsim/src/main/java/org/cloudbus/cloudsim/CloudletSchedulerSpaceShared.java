@@ -68,9 +68,8 @@ public class CloudletSchedulerSpaceShared extends CloudletScheduler {
 	@Override
 	public double cloudletResume(int cloudletId) {
 		// look for the cloudlet in the paused list
-		int position = CloudletList.getPositionById(getCloudletPausedList(), cloudletId);
-		if (position >= 0) {
-			Cloudlet cl = getCloudletPausedList().remove(position);
+		Cloudlet cl = CloudletList.removeById(getCloudletPausedList(), cloudletId);
+		if (cl != null) {
 
 			// it can go to the exec list
 			if ((getCurrentPEs() - usedPes) >= cl.getNumberOfPes()) {
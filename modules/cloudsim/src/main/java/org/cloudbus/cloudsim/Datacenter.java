@@ -8,11 +8,21 @@
 package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 
 import org.cloudbus.cloudsim.VmAllocationPolicy.GuestMapping;
 import org.cloudbus.cloudsim.core.*;
+import org.cloudbus.cloudsim.jfr.CloudletProcessingEvent;
+import org.cloudbus.cloudsim.jfr.VmCreationEvent;
+import org.cloudbus.cloudsim.jfr.VmMigrationEvent;
 
 /**
  * Datacenter class is a CloudResource whose hostList are virtualized. It deals with processing of
@@ -53,6 +63,44 @@ public class Datacenter extends SimEntity {
 	/** The scheduling delay to process each datacenter received event. */
 	private double schedulingInterval;
 
+	/** Whether the events of the clock tick are processed as a batch. */
+	private boolean processingBatch;
+
+	/** Whether the cloudlets have been processed during the batch. */
+	private boolean batchProcessed;
+
+	/** Whether the processing of the cloudlets has been requested again during the batch. */
+	private boolean batchProcessingPending;
+
+	/** Whether the completion of the cloudlets has to be checked at the end of the batch. */
+	private boolean batchCompletionPending;
+
+	/** Whether only the hosts that changed or have cloudlets due to finish are updated. */
+	private boolean incrementalProcessing;
+
+	/** The hosts that changed since they were last updated, in the order they changed. */
+	private final Set<HostEntity> changedHosts = new LinkedHashSet<>();
+
+	/** The predicted time of the next completion of each host, as of its last update. */
+	private final Map<HostEntity, Double> hostCompletions = new IdentityHashMap<>();
+
+	/** The schedulers of the guests with finished cloudlets, in the order they got them. */
+	private final Set<CloudletScheduler> completionQueue = new LinkedHashSet<>();
+
+	/** The ids of the users that submitted cloudlets in batches, to which they are returned in batches. */
+	private final Set<Integer> batchUsers = new HashSet<>();
+
+	/** The hosts by predicted time of their next completion, including outdated entries. */
+	private final PriorityQueue<HostCompletion> completionIndex = new PriorityQueue<>();
+
+	/** The predicted time of the next completion of a host. */
+	private record HostCompletion(double time, HostEntity host) implements Comparable<HostCompletion> {
+		@Override
+		public int compareTo(HostCompletion other) {
+			return Double.compare(time, other.time);
+		}
+	}
+
 	/**
 	 * Allocates a new Datacenter object.
 	 * 
@@ -120,6 +168,58 @@ public class Datacenter extends SimEntity {
 		// empty. This should be override by a child class
 	}
 
+	/**
+	 * Processes the events of the clock tick. When the simulation has a
+	 * {@link CloudSim#setTimeQuantum(double) time quantum}, they are processed as a batch: the
+	 * processing of the cloudlets is only done the first time an event requests it, and the
+	 * completion of the cloudlets only checked by {@link #processBatchEnd()}, so that a burst of
+	 * submissions doesn't sweep all the hosts for each of them.
+	 */
+	@Override
+	public void run() {
+		if (CloudSim.getTimeQuantum() == 0) {
+			super.run();
+			return;
+		}
+		processingBatch = true;
+		try {
+			super.run();
+		} finally {
+			processingBatch = false;
+		}
+		processBatchEnd();
+	}
+
+	/**
+	 * Ends the batch of events of a clock tick, when the simulation has a time quantum: processes
+	 * the cloudlets again if the events requested it after the first processing of the batch,
+	 * then checks the completion of the cloudlets once for all the events. A subclass deferring
+	 * work to the end of the batch overrides it, and calls this implementation.
+	 *
+	 * @see #isProcessingBatch()
+	 */
+	protected void processBatchEnd() {
+		batchProcessed = false;
+		if (batchProcessingPending) {
+			batchProcessingPending = false;
+			recordCloudletProcessing();
+		}
+		if (batchCompletionPending) {
+			batchCompletionPending = false;
+			checkCloudletCompletion();
+		}
+	}
+
+	/**
+	 * Checks if the events of the clock tick are being processed as a batch.
+	 *
+	 * @return true, if the events are processed as a batch
+	 * @see #run()
+	 */
+	protected boolean isProcessingBatch() {
+		return processingBatch;
+	}
+
 	@Override
 	public void processEvent(SimEvent ev) {
 		int srcId = -1;
@@ -151,6 +251,10 @@ public class Datacenter extends SimEntity {
         } else if (tag == CloudActionTags.CLOUDLET_SUBMIT_ACK) {
             processCloudletSubmit(ev, true);
 
+            // A list of Cloudlets arrives
+        } else if (tag == CloudActionTags.CLOUDLET_SUBMIT_BATCH) {
+            processCloudletSubmitBatch(ev);
+
             // Cancels a previously submitted Cloudlet
         } else if (tag == CloudActionTags.CLOUDLET_CANCEL) {
             processCloudlet(ev, CloudActionTags.CLOUDLET_CANCEL);
@@ -189,17 +293,17 @@ public class Datacenter extends SimEntity {
         } else if (tag == CloudActionTags.INFOPKT_SUBMIT) {
             processPingRequest(ev);
         } else if (tag == CloudActionTags.VM_CREATE) {
-            processVmCreate(ev, false);
+            recordVmCreate(ev, false);
         } else if (tag == CloudActionTags.VM_CREATE_ACK) {
-            processVmCreate(ev, true);
+            recordVmCreate(ev, true);
         } else if (tag == CloudActionTags.VM_DESTROY) {
             processVmDestroy(ev, false);
         } else if (tag == CloudActionTags.VM_DESTROY_ACK) {
             processVmDestroy(ev, true);
         } else if (tag == CloudActionTags.VM_MIGRATE) {
-            processVmMigrate(ev, false);
+            recordVmMigrate(ev, false);
         } else if (tag == CloudActionTags.VM_MIGRATE_ACK) {
-            processVmMigrate(ev, true);
+            recordVmMigrate(ev, true);
         } else if (tag == CloudActionTags.VM_DATA_ADD) {
             processDataAdd(ev, false);
         } else if (tag == CloudActionTags.VM_DATA_ADD_ACK) {
@@ -209,8 +313,8 @@ public class Datacenter extends SimEntity {
         } else if (tag == CloudActionTags.VM_DATA_DEL_ACK) {
             processDataDelete(ev, true);
         } else if (tag == CloudActionTags.VM_DATACENTER_EVENT) {
-            updateCloudletProcessing();
-            checkCloudletCompletion();
+            recordCloudletProcessing();
+            requestCloudletCompletionCheck();
 
             // other unknown tags are processed by this method
         } else {
@@ -358,12 +462,7 @@ public class Datacenter extends SimEntity {
 			return;
 		}
 
-		int[] array = new int[3];
-		array[0] = getId();
-		array[1] = cloudletId;
-		array[2] = status.ordinal();
-
-		sendNow(userId, CloudActionTags.CLOUDLET_STATUS, array);
+		sendNow(userId, CloudActionTags.CLOUDLET_STATUS, getId(), cloudletId, status.ordinal());
 	}
 
 	/**
@@ -406,11 +505,8 @@ public class Datacenter extends SimEntity {
 		}
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = guest.getId();
-			data[2] = result ? CloudSimTags.TRUE : CloudSimTags.FALSE;
-			send(guest.getUserId(), CloudSim.getMinTimeBetweenEvents(), CloudActionTags.VM_CREATE_ACK, data);
+			send(guest.getUserId(), CloudSim.getMinTimeBetweenEvents(), CloudActionTags.VM_CREATE_ACK,
+					getId(), guest.getId(), result ? CloudSimTags.TRUE : CloudSimTags.FALSE);
 		}
 
 		if (result) {
@@ -422,11 +518,33 @@ public class Datacenter extends SimEntity {
 
 			guest.updateCloudletsProcessing(CloudSim.clock(), getVmAllocationPolicy().getHost(guest).getGuestScheduler()
 					.getAllocatedMipsForGuest(guest));
+			joinCompletionQueue(guest);
+			setHostChanged(getVmAllocationPolicy().getHost(guest));
 		} else {
 			Log.printlnConcat(CloudSim.clock(), ": Datacenter.guestAllocator: Couldn't find a host for ", guest.getClassName(), " #", guest.getId());
 		}
 	}
 
+	/**
+	 * Processes the creation of a VM as a {@link VmCreationEvent} of the flight recorder.
+	 *
+	 * @see #processVmCreate(SimEvent, boolean)
+	 */
+	private void recordVmCreate(SimEvent ev, boolean ack) {
+		VmCreationEvent recorded = new VmCreationEvent();
+		recorded.begin();
+		processVmCreate(ev, ack);
+		recorded.end();
+		if (recorded.shouldCommit()) {
+			GuestEntity guest = (GuestEntity) ev.getData();
+			recorded.clock = CloudSim.clock();
+			recorded.datacenter = getName();
+			recorded.guest = guest.getId();
+			recorded.host = guest.getHost() != null ? guest.getHost().getId() : -1;
+			recorded.commit();
+		}
+	}
+
 	/**
 	 * Process the event for an User/Broker who wants to destroy a VM previously created in this
 	 * Datacenter. This Datacenter may send, upon request, the status back to the
@@ -441,15 +559,13 @@ public class Datacenter extends SimEntity {
 	 */
 	protected void processVmDestroy(SimEvent ev, boolean ack) {
 		GuestEntity vm = (GuestEntity) ev.getData();
+		setHostChanged(getVmAllocationPolicy().getHost(vm));
 		getVmAllocationPolicy().deallocateHostForGuest(vm);
+		// the cloudlets left on a destroyed guest aren't returned
+		completionQueue.remove(vm.getCloudletScheduler());
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = vm.getId();
-			data[2] = CloudSimTags.TRUE;
-
-			sendNow(vm.getUserId(), CloudActionTags.VM_DESTROY_ACK, data);
+			sendNow(vm.getUserId(), CloudActionTags.VM_DESTROY_ACK, getId(), vm.getId(), CloudSimTags.TRUE);
 		}
 
 		getVmList().remove(vm);
@@ -476,6 +592,8 @@ public class Datacenter extends SimEntity {
 		HostEntity host = migrate.host();
 		
 		//destroy VM in src host
+		setHostChanged(getVmAllocationPolicy().getHost(vm));
+		setHostChanged(host);
 		getVmAllocationPolicy().deallocateHostForGuest(vm);
 		host.removeMigratingInGuest(vm);
 
@@ -488,11 +606,7 @@ public class Datacenter extends SimEntity {
 		}
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = vm.getId();
-			data[2] = CloudSimTags.TRUE;
-			sendNow(ev.getSourceId(), CloudActionTags.VM_CREATE_ACK, data);
+			sendNow(ev.getSourceId(), CloudActionTags.VM_CREATE_ACK, getId(), vm.getId(), CloudSimTags.TRUE);
 		}
 
 		Log.formatLine(
@@ -503,6 +617,25 @@ public class Datacenter extends SimEntity {
 		vm.setInMigration(false);
 	}
 
+	/**
+	 * Processes the migration of a VM as a {@link VmMigrationEvent} of the flight recorder.
+	 *
+	 * @see #processVmMigrate(SimEvent, boolean)
+	 */
+	private void recordVmMigrate(SimEvent ev, boolean ack) {
+		VmMigrationEvent recorded = new VmMigrationEvent();
+		recorded.begin();
+		processVmMigrate(ev, ack);
+		recorded.end();
+		if (recorded.shouldCommit() && ev.getData() instanceof GuestMapping migrate) {
+			recorded.clock = CloudSim.clock();
+			recorded.datacenter = getName();
+			recorded.guest = migrate.vm().getId();
+			recorded.host = migrate.host().getId();
+			recorded.commit();
+		}
+	}
+
 	/**
 	 * Processes a Cloudlet based on the event type.
 	 *
@@ -552,6 +685,7 @@ public class Datacenter extends SimEntity {
 			default -> {
 			}
 		}
+		setGuestChanged(vmId, userId);
 
 	}
 
@@ -565,17 +699,22 @@ public class Datacenter extends SimEntity {
 	 * @post $none
 	 */
 	protected void processCloudletMove(int[] receivedData, CloudActionTags tag) {
-		updateCloudletProcessing();
-
         int cloudletId = receivedData[0];
 		int userId = receivedData[1];
 		int vmId = receivedData[2];
 		int vmDestId = receivedData[3];
 		int destId = receivedData[4];
 
+		setGuestChanged(vmId, userId);
+		if (destId == getId()) {
+			setGuestChanged(vmDestId, userId);
+		}
+		recordCloudletProcessing();
+
 		// get the cloudlet
 		Cloudlet cl = getVmAllocationPolicy().getHost(vmId, userId).getGuest(vmId,userId)
 				.getCloudletScheduler().cloudletCancel(cloudletId);
+		setGuestChanged(vmId, userId);
 
 		boolean failed = false;
 		if (cl == null) {// cloudlet doesn't exist
@@ -583,11 +722,7 @@ public class Datacenter extends SimEntity {
 		} else {
 			// has the cloudlet already finished?
 			if (cl.getStatus() == Cloudlet.CloudletStatus.SUCCESS) {// if yes, send it back to user
-				int[] data = new int[3];
-				data[0] = getId();
-				data[1] = cloudletId;
-				data[2] = 0;
-				sendNow(cl.getUserId(), CloudActionTags.CLOUDLET_SUBMIT_ACK, data);
+				sendNow(cl.getUserId(), CloudActionTags.CLOUDLET_SUBMIT_ACK, getId(), cloudletId, 0);
 				sendNow(cl.getUserId(), CloudActionTags.CLOUDLET_RETURN, cl);
 			}
 
@@ -602,7 +737,9 @@ public class Datacenter extends SimEntity {
 				} else {
 					// time to transfer the files
 					double fileTransferTime = predictFileTransferTime(cl.getRequiredFiles());
+					joinCompletionQueue(vm);
 					vm.getCloudletScheduler().cloudletSubmit(cl, fileTransferTime);
+					setGuestChanged(vmDestId, userId);
 				}
 			} else {// the cloudlet will migrate from one resource to another
 				CloudActionTags newTag = ((tag == CloudActionTags.CLOUDLET_MOVE_ACK) ? CloudActionTags.CLOUDLET_SUBMIT_ACK
@@ -612,15 +749,7 @@ public class Datacenter extends SimEntity {
 		}
 
 		if (tag == CloudActionTags.CLOUDLET_MOVE_ACK) {// send ACK if requested
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = cloudletId;
-			if (failed) {
-				data[2] = 0;
-			} else {
-				data[2] = 1;
-			}
-			sendNow(cl.getUserId(), CloudActionTags.CLOUDLET_SUBMIT_ACK, data);
+			sendNow(cl.getUserId(), CloudActionTags.CLOUDLET_SUBMIT_ACK, getId(), cloudletId, failed ? 0 : 1);
 		}
 	}
 
@@ -635,7 +764,10 @@ public class Datacenter extends SimEntity {
 	 * @post $none
 	 */
 	protected void processCloudletSubmit(SimEvent ev, boolean ack) {
-		updateCloudletProcessing();
+		if (ev.getData() instanceof Cloudlet cl) {
+			setGuestChanged(cl.getGuestId(), cl.getUserId());
+		}
+		recordCloudletProcessing();
 
 		try {
 			// gets the Cloudlet object
@@ -655,12 +787,7 @@ public class Datacenter extends SimEntity {
 				// Hence, this might cause CloudSim to be hanged since waiting
 				// for this Cloudlet back.
 				if (ack) {
-					int[] data = new int[3];
-					data[0] = getId();
-					data[1] = cl.getCloudletId();
-					data[2] = CloudSimTags.FALSE;
-
-					sendNow(cl.getUserId(), CloudActionTags.CLOUDLET_SUBMIT_ACK, data);
+					sendNow(cl.getUserId(), CloudActionTags.CLOUDLET_SUBMIT_ACK, getId(), cl.getCloudletId(), CloudSimTags.FALSE);
 				}
 
 				sendNow(cl.getUserId(), CloudActionTags.CLOUDLET_RETURN, cl);
@@ -681,7 +808,9 @@ public class Datacenter extends SimEntity {
 			HostEntity host = getVmAllocationPolicy().getHost(vmId, userId);
 			GuestEntity vm = host.getGuest(vmId, userId);
 			CloudletScheduler scheduler = vm.getCloudletScheduler();
+			joinCompletionQueue(vm);
 			double estimatedFinishTime = scheduler.cloudletSubmit(cl, fileTransferTime);
+			setHostChanged(host);
 
 			// if this cloudlet is in the exec queue
 			if (estimatedFinishTime > 0.0 && !Double.isInfinite(estimatedFinishTime)) {
@@ -694,12 +823,7 @@ public class Datacenter extends SimEntity {
 			}*/
 
 			if (ack) {
-				int[] data = new int[3];
-				data[0] = getId();
-				data[1] = cl.getCloudletId();
-				data[2] = CloudSimTags.TRUE;
-
-				sendNow(cl.getUserId(), CloudActionTags.CLOUDLET_SUBMIT_ACK, data);
+				sendNow(cl.getUserId(), CloudActionTags.CLOUDLET_SUBMIT_ACK, getId(), cl.getCloudletId(), CloudSimTags.TRUE);
 			}
 		} catch (ClassCastException c) {
 			Log.printlnConcat(getName(), ".processCloudletSubmit(): ", "ClassCastException error.");
@@ -709,7 +833,7 @@ public class Datacenter extends SimEntity {
 			e.printStackTrace();
 		}
 
-		checkCloudletCompletion();
+		requestCloudletCompletionCheck();
 	}
 
 	/**
@@ -759,11 +883,7 @@ public class Datacenter extends SimEntity {
 		}
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = cloudletId;
-			data[2] = status ? CloudSimTags.TRUE : CloudSimTags.FALSE;
-			sendNow(userId, CloudActionTags.CLOUDLET_RESUME_ACK, data);
+			sendNow(userId, CloudActionTags.CLOUDLET_RESUME_ACK, getId(), cloudletId, status ? CloudSimTags.TRUE : CloudSimTags.FALSE);
 		}
 	}
 
@@ -784,11 +904,7 @@ public class Datacenter extends SimEntity {
 				.getCloudletScheduler().cloudletPause(cloudletId);
 
 		if (ack) {
-			int[] data = new int[3];
-			data[0] = getId();
-			data[1] = cloudletId;
-			data[2] = status ? CloudSimTags.TRUE : CloudSimTags.FALSE;
-			sendNow(userId, CloudActionTags.CLOUDLET_PAUSE_ACK, data);
+			sendNow(userId, CloudActionTags.CLOUDLET_PAUSE_ACK, getId(), cloudletId, status ? CloudSimTags.TRUE : CloudSimTags.FALSE);
 		}
 	}
 
@@ -808,6 +924,60 @@ public class Datacenter extends SimEntity {
 		sendNow(userId, CloudActionTags.CLOUDLET_CANCEL, cl);
 	}
 
+	/**
+	 * Processes the submission of a list of cloudlets as a batch, like the events of a clock tick
+	 * with a time quantum: each cloudlet is submitted by {@link #processCloudletSubmit(SimEvent, boolean)},
+	 * but the cloudlets are processed and their completion checked once for all of them. The
+	 * finished cloudlets of their users are returned with {@link CloudActionTags#CLOUDLET_RETURN_BATCH}
+	 * from then on.
+	 *
+	 * @param ev the event carrying the list of cloudlets
+	 * @see #processBatchEnd()
+	 */
+	@SuppressWarnings("unchecked")
+	protected void processCloudletSubmitBatch(SimEvent ev) {
+		List<? extends Cloudlet> cloudlets = (List<? extends Cloudlet>) ev.getData();
+		boolean nested = processingBatch;
+		processingBatch = true;
+		try {
+			for (Cloudlet cl : cloudlets) {
+				batchUsers.add(cl.getUserId());
+				processCloudletSubmit(ev.withData(cl), false);
+			}
+		} finally {
+			processingBatch = nested;
+		}
+		if (!nested) {
+			processBatchEnd();
+		}
+	}
+
+	/**
+	 * Updates the processing of the cloudlets as a {@link CloudletProcessingEvent} of the flight
+	 * recorder. In a batch of events, only the first request is served right away, and the next
+	 * ones once at the end of the batch.
+	 *
+	 * @see #updateCloudletProcessing()
+	 */
+	private void recordCloudletProcessing() {
+		if (processingBatch) {
+			if (batchProcessed) {
+				batchProcessingPending = true;
+				return;
+			}
+			batchProcessed = true;
+		}
+		CloudletProcessingEvent recorded = new CloudletProcessingEvent();
+		recorded.begin();
+		updateCloudletProcessing();
+		recorded.end();
+		if (recorded.shouldCommit()) {
+			recorded.clock = CloudSim.clock();
+			recorded.datacenter = getName();
+			recorded.commit();
+		}
+	}
+
 	/**
 	 * Updates processing of each cloudlet running in this Datacenter. It is necessary because
 	 * Hosts and VirtualMachines are simple objects, not sim entities. So, they don't receive events and
@@ -822,12 +992,16 @@ public class Datacenter extends SimEntity {
 		// simulation step is skipped and schedulers are not properly initialized
 		if (CloudSim.clock() < 0.111 || CloudSim.clock() >= getLastProcessTime() + CloudSim.getMinTimeBetweenEvents()) {
 			double smallerTime = Double.MAX_VALUE;
-			for (HostEntity host : getVmAllocationPolicy().getHostList()) {
-				// inform VMs to update processing
-				double time = host.updateCloudletsProcessing(CloudSim.clock());
-				// what time do we expect that the next cloudlet will finish?
-				if (time < smallerTime) {
-					smallerTime = time;
+			if (isIncrementalProcessing()) {
+				smallerTime = updateChangedAndDueHosts();
+			} else {
+				for (HostEntity host : getVmAllocationPolicy().getHostList()) {
+					// inform VMs to update processing
+					double time = host.updateCloudletsProcessing(CloudSim.clock());
+					// what time do we expect that the next cloudlet will finish?
+					if (time < smallerTime) {
+						smallerTime = time;
+					}
 				}
 			}
 			// gurantees a minimal interval before scheduling the event
@@ -841,6 +1015,145 @@ public class Datacenter extends SimEntity {
 		}
 	}
 
+	/**
+	 * Updates the processing of the hosts that changed since their last update, and of those
+	 * whose next cloudlet is due to finish, then indexes their next completion.
+	 *
+	 * @return the predicted time of the next completion in the datacenter, or
+	 *         {@link Double#MAX_VALUE} if none
+	 * @see #setIncrementalProcessing(boolean)
+	 */
+	private double updateChangedAndDueHosts() {
+		double currentTime = CloudSim.clock();
+		// a completion within the minimal interval would be processed now by a full sweep
+		while (!completionIndex.isEmpty()
+				&& completionIndex.peek().time() <= currentTime + CloudSim.getMinTimeBetweenEvents()) {
+			HostCompletion due = completionIndex.poll();
+			if (isCurrent(due)) {
+				changedHosts.add(due.host());
+			}
+		}
+
+		for (HostEntity host : changedHosts) {
+			double time = host.updateCloudletsProcessing(currentTime);
+			if (hasFinishedCloudlets(host)) {
+				// the prediction still counts the finished cloudlets, the host is updated again soon
+				time = currentTime;
+			}
+			hostCompletions.put(host, time);
+			if (time != Double.MAX_VALUE) {
+				completionIndex.add(new HostCompletion(time, host));
+			}
+		}
+		changedHosts.clear();
+
+		// drops the outdated entries, at the head or once they outnumber the hosts
+		if (completionIndex.size() > 2 * hostCompletions.size() + 16) {
+			completionIndex.removeIf(completion -> !isCurrent(completion));
+		}
+		while (!completionIndex.isEmpty() && !isCurrent(completionIndex.peek())) {
+			completionIndex.poll();
+		}
+		return completionIndex.isEmpty() ? Double.MAX_VALUE : completionIndex.peek().time();
+	}
+
+	/**
+	 * Checks if the guests of a host have finished cloudlets not returned yet.
+	 */
+	private static boolean hasFinishedCloudlets(HostEntity host) {
+		for (GuestEntity guest : host.getGuestList()) {
+			if (guest.getCloudletScheduler().isFinishedCloudlets()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks if an entry of the completion index is the prediction of the last update of its host.
+	 */
+	private boolean isCurrent(HostCompletion completion) {
+		Double time = hostCompletions.get(completion.host());
+		return time != null && time == completion.time();
+	}
+
+	/**
+	 * Notes that the cloudlets or the guests of a host changed, so that the host is updated by the
+	 * next processing of the cloudlets. It only matters to the incremental processing, and
+	 * is to be called by the subclasses changing a host outside of the handlers of this class.
+	 *
+	 * @param host the host, or <tt>null</tt>
+	 * @see #setIncrementalProcessing(boolean)
+	 */
+	protected void setHostChanged(HostEntity host) {
+		if (incrementalProcessing && host != null) {
+			changedHosts.add(host);
+		}
+	}
+
+	/**
+	 * Notes that the cloudlets of a guest changed.
+	 *
+	 * @see #setHostChanged(HostEntity)
+	 */
+	private void setGuestChanged(int guestId, int userId) {
+		if (incrementalProcessing) {
+			setHostChanged(getVmAllocationPolicy().getHost(guestId, userId));
+		}
+	}
+
+	/**
+	 * Checks if the processing of the cloudlets only updates the hosts that changed or have
+	 * cloudlets due to finish.
+	 *
+	 * @return true, if the processing is incremental
+	 * @see #setIncrementalProcessing(boolean)
+	 */
+	public boolean isIncrementalProcessing() {
+		return incrementalProcessing;
+	}
+
+	/**
+	 * Sets whether the processing of the cloudlets only updates the hosts that changed, i.e. that
+	 * got or lost a guest, or whose guests got, lost, paused or resumed a cloudlet, and those whose
+	 * next cloudlet is due to finish, as predicted by their last update and kept in a priority
+	 * index. The other hosts aren't swept at each event of the datacenter, and the next
+	 * {@link CloudActionTags#VM_DATACENTER_EVENT} is the head of the index.
+	 * <p>
+	 * The progress of a cloudlet is then accumulated over fewer, longer intervals, which only
+	 * gives the same results as the full sweeps when the cloudlets of a host progress at a
+	 * constant rate between its changes, e.g. with the {@link CloudletSchedulerTimeShared} and
+	 * {@link CloudletSchedulerSpaceShared} schedulers, and up to the rounding of the instructions
+	 * processed. The hosts recording their utilization at each update, the cloudlets following a
+	 * varying utilization model and the network cloudlets need the full sweeps, the default.
+	 *
+	 * @param incrementalProcessing whether the processing is incremental
+	 */
+	public void setIncrementalProcessing(boolean incrementalProcessing) {
+		this.incrementalProcessing = incrementalProcessing;
+		changedHosts.clear();
+		hostCompletions.clear();
+		completionIndex.clear();
+		if (incrementalProcessing) {
+			// none of the hosts has been updated yet
+			changedHosts.addAll(getVmAllocationPolicy().getHostList());
+		}
+	}
+
+	/**
+	 * Checks the completion of the cloudlets, or requests the check at the end of the batch of
+	 * events being processed.
+	 *
+	 * @see #processBatchEnd()
+	 */
+	private void requestCloudletCompletionCheck() {
+		if (processingBatch) {
+			batchCompletionPending = true;
+		} else {
+			checkCloudletCompletion();
+		}
+	}
+
 	/**
 	 * Verifies if some cloudlet inside this Datacenter already finished. 
          * If yes, send it to the User/Broker
@@ -849,16 +1162,47 @@ public class Datacenter extends SimEntity {
 	 * @post $none
 	 */
 	protected void checkCloudletCompletion() {
-		for (HostEntity host : getVmAllocationPolicy().getHostList()) {
-			for (GuestEntity vm : host.getGuestList()) {
-				while (vm.getCloudletScheduler().isFinishedCloudlets()) {
-					Cloudlet cl = vm.getCloudletScheduler().getNextFinishedCloudlet();
-					if (cl != null) {
-						sendNow(cl.getUserId(), CloudActionTags.CLOUDLET_RETURN, cl);
+		Map<Integer, List<Cloudlet>> batches = null;
+		// only the schedulers of the guests that had cloudlets finish since the last check
+		for (Iterator<CloudletScheduler> it = completionQueue.iterator(); it.hasNext();) {
+			CloudletScheduler scheduler = it.next();
+			it.remove();
+			while (scheduler.isFinishedCloudlets()) {
+				Cloudlet cl = scheduler.getNextFinishedCloudlet();
+				if (cl == null) {
+					continue;
+				}
+				if (batchUsers.contains(cl.getUserId())) {
+					if (batches == null) {
+						batches = new LinkedHashMap<>();
 					}
+					batches.computeIfAbsent(cl.getUserId(), userId -> new ArrayList<>()).add(cl);
+				} else {
+					sendNow(cl.getUserId(), CloudActionTags.CLOUDLET_RETURN, cl);
 				}
 			}
 		}
+		if (batches != null) {
+			for (Map.Entry<Integer, List<Cloudlet>> batch : batches.entrySet()) {
+				sendNow(batch.getKey(), CloudActionTags.CLOUDLET_RETURN_BATCH, batch.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Makes the scheduler of a guest of this datacenter notify it of the finished cloudlets, if the
+	 * guest runs on a host rather than nested in another guest. The handlers of this class call it
+	 * when a guest is created or gets a cloudlet; a subclass giving cloudlets to the guests
+	 * otherwise calls it too.
+	 *
+	 * @param guest the guest
+	 * @see #checkCloudletCompletion()
+	 */
+	protected void joinCompletionQueue(GuestEntity guest) {
+		HostEntity host = guest.getHost();
+		if (host != null && !(host instanceof GuestEntity) && host.getDatacenter() == this) {
+			guest.getCloudletScheduler().setCompletionQueue(completionQueue);
+		}
 	}
 
 	/**
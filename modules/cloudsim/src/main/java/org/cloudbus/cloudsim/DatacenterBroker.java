@@ -10,6 +10,8 @@ package org.cloudbus.cloudsim;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -76,6 +78,9 @@ public class DatacenterBroker extends SimEntity {
 	/** Next guest to which send the cloudlet */
 	private int guestIndex = 0;
 
+	/** Whether the cloudlets are sent to each datacenter as a single batch. */
+	private boolean batchSubmission;
+
 	/**
 	 * Created a new DatacenterBroker object.
 	 * 
@@ -165,6 +170,10 @@ public class DatacenterBroker extends SimEntity {
         } else if (tag == CloudActionTags.CLOUDLET_RETURN) {
             processCloudletReturn(ev);
 
+            // A list of finished cloudlets returned
+        } else if (tag == CloudActionTags.CLOUDLET_RETURN_BATCH) {
+            processCloudletReturnBatch(ev);
+
             // if the simulation finishes
         } else if (tag == CloudActionTags.END_OF_SIMULATION) {
             shutdownEntity();
@@ -221,10 +230,9 @@ public class DatacenterBroker extends SimEntity {
 	 * @post $none
 	 */
 	protected void processVmCreateAck(SimEvent ev) {
-		int[] data = (int[]) ev.getData();
-		int datacenterId = data[0];
-		int vmId = data[1];
-		int result = data[2];
+		int datacenterId = ev.getIntData(0);
+		int vmId = ev.getIntData(1);
+		int result = ev.getIntData(2);
 
 		GuestEntity guest = VmList.getById(getGuestList(), vmId);
 
@@ -296,6 +304,21 @@ public class DatacenterBroker extends SimEntity {
 		}
 	}
 
+	/**
+	 * Processes the return of a list of cloudlets finished at the same time, as the return of each
+	 * of them, so that the brokers overriding {@link #processCloudletReturn(SimEvent)} still see
+	 * every cloudlet.
+	 *
+	 * @param ev the event carrying the list of cloudlets
+	 * @see #setBatchSubmission(boolean)
+	 */
+	@SuppressWarnings("unchecked")
+	protected void processCloudletReturnBatch(SimEvent ev) {
+		for (Cloudlet cloudlet : (List<? extends Cloudlet>) ev.getData()) {
+			processCloudletReturn(ev.withData(cloudlet));
+		}
+	}
+
 	/**
 	 * Process non-default received events that aren't processed by
          * the {@link #processEvent(org.cloudbus.cloudsim.core.SimEvent)} method.
@@ -353,6 +376,7 @@ public class DatacenterBroker extends SimEntity {
 	 */
 	protected void submitCloudlets() {
 		List<Cloudlet> successfullySubmitted = new ArrayList<>();
+		Map<Integer, List<Cloudlet>> batches = new LinkedHashMap<>();
 		for (Cloudlet cloudlet : getCloudletList()) {
 			GuestEntity vm;
 			// if user didn't bind this cloudlet and it has not been executed yet
@@ -382,15 +406,45 @@ public class DatacenterBroker extends SimEntity {
 			}
 			
 			cloudlet.setGuestId(vm.getId());
-			sendNow(getVmsToDatacentersMap().get(vm.getId()), CloudActionTags.CLOUDLET_SUBMIT, cloudlet);
+			int datacenterId = getVmsToDatacentersMap().get(vm.getId());
+			if (batchSubmission) {
+				batches.computeIfAbsent(datacenterId, id -> new ArrayList<>()).add(cloudlet);
+			} else {
+				sendNow(datacenterId, CloudActionTags.CLOUDLET_SUBMIT, cloudlet);
+			}
 			cloudletsSubmitted++;
 			guestIndex = (guestIndex + 1) % getGuestsCreatedList().size();
 			getCloudletSubmittedList().add(cloudlet);
 			successfullySubmitted.add(cloudlet);
 		}
 
+		for (Map.Entry<Integer, List<Cloudlet>> batch : batches.entrySet()) {
+			sendNow(batch.getKey(), CloudActionTags.CLOUDLET_SUBMIT_BATCH, batch.getValue());
+		}
+
 		// remove submitted cloudlets from waiting list
-		getCloudletList().removeAll(successfullySubmitted);
+		getCloudletList().removeAll(new HashSet<>(successfullySubmitted));
+	}
+
+	/**
+	 * Checks if the cloudlets are sent to each datacenter as a single batch.
+	 *
+	 * @return true, if the cloudlets are sent in batches
+	 */
+	public boolean isBatchSubmission() {
+		return batchSubmission;
+	}
+
+	/**
+	 * Sets whether the cloudlets are sent to each datacenter as a single
+	 * {@link CloudActionTags#CLOUDLET_SUBMIT_BATCH}, rather than one event each. The datacenter then
+	 * processes its hosts once for the whole batch, and returns the cloudlets finished at the same
+	 * time in a single {@link CloudActionTags#CLOUDLET_RETURN_BATCH}.
+	 *
+	 * @param batchSubmission true to send the cloudlets in batches
+	 */
+	public void setBatchSubmission(boolean batchSubmission) {
+		this.batchSubmission = batchSubmission;
 	}
 
 	/**
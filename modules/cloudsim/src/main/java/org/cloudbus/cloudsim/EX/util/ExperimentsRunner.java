@@ -1,6 +1,7 @@
 package org.cloudbus.cloudsim.EX.util;
 
 import org.apache.commons.lang3.SystemUtils;
+import org.cloudbus.cloudsim.core.SimulationContext;
 
 import java.io.File;
 import java.io.IOException;
@@ -21,6 +22,14 @@ import java.util.concurrent.Future;
  * 
  * <br>
  * <br>
+ * Alternatively, {@link #runExperimentsInProcess(List, int)} runs each
+ * experiment in a thread of the current JVM, bound to its own
+ * {@link SimulationContext}. This avoids the JVM startup and warm-up costs, but
+ * requires the experiments not to share any other static state (e.g. the
+ * {@link CustomLog} output).
+ * 
+ * <br>
+ * <br>
  * Each experiment is specified by a class with a main method and an output
  * file, where the output from the CustomLog is stored. Each class's main method
  * should take two parameters - the output file and the config file for the
@@ -99,6 +108,62 @@ public class ExperimentsRunner {
         System.err.println("All experiments are finished");
     }
 
+    /**
+     * Runs a set of experiments in the current process, each of them in a
+     * separate thread and with its own {@link SimulationContext}. The main
+     * method of each experiment is invoked with the non-JVM arguments of its
+     * definition; JVM arguments and heap sizes are ignored.
+     * 
+     * @param experimentsDefs
+     *            - the experiments' definitions.
+     * @param numFreeCPUs
+     *            - number of processors to leave unused.
+     * 
+     * @throws Exception
+     *             - if something goes wrong.
+     */
+    public static synchronized void runExperimentsInProcess(final List<ExperimentDefinition> experimentsDefs,
+            final int numFreeCPUs) throws Exception {
+
+        if (!experimentsDefs.isEmpty()) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            int coresToUse = cores <= numFreeCPUs ? 1 : cores - numFreeCPUs;
+
+            ExecutorService pool = Executors.newFixedThreadPool(coresToUse);
+            Collection<Future<?>> futures = new ArrayList<>();
+
+            for (final ExperimentDefinition def : experimentsDefs) {
+                Runnable runnable = () -> {
+                    List<String> appParams = new ArrayList<>();
+                    for (String param : def.getArguements()) {
+                        if (!param.startsWith("-X") && !param.startsWith("-D")) {
+                            appParams.add(param);
+                        }
+                    }
+                    try {
+                        new SimulationContext().call(() -> def.getMainClass()
+                                .getMethod("main", String[].class)
+                                .invoke(null, (Object) appParams.toArray(new String[0])));
+                    } catch (Exception e) {
+                        System.err.println("!!! Experiment " + def.getMainClass().getCanonicalName()
+                                + " has failed!!!");
+                        e.printStackTrace();
+                    }
+                };
+                futures.add(pool.submit(runnable));
+            }
+
+            // Wait until all are finished
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            pool.shutdown();
+        }
+        System.err.println();
+        System.err.println("All experiments are finished");
+    }
+
     private static int[] getHeapArgs() {
         RuntimeMXBean runtimeMxBean = ManagementFactory.getRuntimeMXBean();
         List<String> arguments = runtimeMxBean.getInputArguments();
@@ -13,6 +13,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
 import org.cloudbus.cloudsim.network.DelayMatrix_Float;
 import org.cloudbus.cloudsim.network.GraphReaderBrite;
 import org.cloudbus.cloudsim.network.TopologicalGraph;
@@ -30,44 +32,52 @@ import org.cloudbus.cloudsim.network.TopologicalNode;
  * Nevertheless, each CloudSim entity must be mapped to one (and only one) BRITE node to allow
  * proper work of the network simulation. Each BRITE node can be mapped to only one entity at a
  * time.
+ * <p>
+ * Each {@link SimulationContext} owns its own topology. The static methods of this class act on
+ * the topology of the context bound to the calling thread (see {@link CloudSim#getSimulationContext()}).
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 1.0
- * 
- * //@TODO The class only have static methods, that indicates it doesn't have to be instantiated.
- * In fact, it doesn't appear it is being instantiated anywhere.
- * A private default constructor would be created to avoid instantiation.
  */
 public class NetworkTopology {
         /**
          * The BRITE id to use for the next node to be created in the network.
          */
-	protected static int nextIdx = 0;
+	protected int nextIdx = 0;
 
-	private static boolean networkEnabled = false;
+	private boolean networkEnabled = false;
 
         /**
          * A matrix containing the delay between every pair of nodes in the network.
          */
-	protected static DelayMatrix_Float delayMatrix = null;
+	protected DelayMatrix_Float delayMatrix = null;
 
         /**
          * A matrix containing the bandwidth between every pair of nodes in the network.
          */
-	protected static double[][] bwMatrix = null;
+	protected double[][] bwMatrix = null;
 
         /**
          * The Topological Graph of the network.
          */
-	protected static TopologicalGraph graph = null;
+	protected TopologicalGraph graph = null;
 
 	/**
          * The map between CloudSim entities and BRITE entities.
          * Each key is a CloudSim entity ID and each value the corresponding
          * BRITE entity ID.
          */
-        protected static Map<Integer, Integer> map = null;
+        protected Map<Integer, Integer> map = null;
+
+	/**
+	 * Gets the topology of the simulation context bound to the calling thread.
+	 *
+	 * @return the current topology
+	 */
+	private static NetworkTopology current() {
+		return CloudSim.getSimulationContext().getNetworkTopology();
+	}
 
 	/**
 	 * Creates the network topology if the file exists and can be successfully parsed. File is
@@ -82,11 +92,12 @@ public class NetworkTopology {
 
 		// try to find the file
 		GraphReaderBrite reader = new GraphReaderBrite();
+		NetworkTopology topology = current();
 
 		try {
-			graph = reader.readGraphFile(fileName);
-			map = new HashMap<>();
-			generateMatrices();
+			topology.graph = reader.readGraphFile(fileName);
+			topology.map = new HashMap<>();
+			topology.generateMatrices();
 		} catch (IOException e) {
 			// problem with the file. Does not simulate network
 			Log.printlnConcat("Problem in processing BRITE file. Network simulation is disabled. Error: ",
@@ -98,7 +109,7 @@ public class NetworkTopology {
 	/**
 	 * Generates the matrices used internally to set latency and bandwidth between elements.
 	 */
-	private static void generateMatrices() {
+	private void generateMatrices() {
 		// creates the delay matrix
 		delayMatrix = new DelayMatrix_Float(graph, false);
 
@@ -122,32 +133,33 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void addLink(int srcId, int destId, double bw, double lat) {
+		NetworkTopology topology = current();
 
-		if (graph == null) {
-			graph = new TopologicalGraph();
+		if (topology.graph == null) {
+			topology.graph = new TopologicalGraph();
 		}
 
-		if (map == null) {
-			map = new HashMap<>();
+		if (topology.map == null) {
+			topology.map = new HashMap<>();
 		}
 
 		// maybe add the nodes
-		if (!map.containsKey(srcId)) {
-			graph.addNode(new TopologicalNode(nextIdx));
-			map.put(srcId, nextIdx);
-			nextIdx++;
+		if (!topology.map.containsKey(srcId)) {
+			topology.graph.addNode(new TopologicalNode(topology.nextIdx));
+			topology.map.put(srcId, topology.nextIdx);
+			topology.nextIdx++;
 		}
 
-		if (!map.containsKey(destId)) {
-			graph.addNode(new TopologicalNode(nextIdx));
-			map.put(destId, nextIdx);
-			nextIdx++;
+		if (!topology.map.containsKey(destId)) {
+			topology.graph.addNode(new TopologicalNode(topology.nextIdx));
+			topology.map.put(destId, topology.nextIdx);
+			topology.nextIdx++;
 		}
 
 		// generate a new link
-		graph.addLink(new TopologicalLink(map.get(srcId), map.get(destId), (float) lat, (float) bw));
+		topology.graph.addLink(new TopologicalLink(topology.map.get(srcId), topology.map.get(destId), (float) lat, (float) bw));
 
-		generateMatrices();
+		topology.generateMatrices();
 
 	}
 
@@ -194,7 +206,9 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void mapNode(int cloudSimEntityID, int briteID) {
-		if (networkEnabled) {
+		NetworkTopology topology = current();
+		Map<Integer, Integer> map = topology.map;
+		if (topology.networkEnabled) {
 			try {
 				// this CloudSim entity was already mapped?
 				if (!map.containsKey(cloudSimEntityID)) {
@@ -222,9 +236,10 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static void unmapNode(int cloudSimEntityID) {
-		if (networkEnabled) {
+		NetworkTopology topology = current();
+		if (topology.networkEnabled) {
 			try {
-				map.remove(cloudSimEntityID);
+				topology.map.remove(cloudSimEntityID);
 			} catch (Exception e) {
 				Log.printlnConcat("Error in network unmapping. CloudSim node: ", cloudSimEntityID);
 			}
@@ -242,10 +257,11 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static double getDelay(int srcID, int destID) {
-		if (networkEnabled) {
+		NetworkTopology topology = current();
+		if (topology.networkEnabled) {
 			try {
 				// add the network latency
-				double delay = delayMatrix.getDelay(map.get(srcID), map.get(destID));
+				double delay = topology.delayMatrix.getDelay(topology.map.get(srcID), topology.map.get(destID));
 
 				return delay;
 			} catch (Exception e) {
@@ -265,7 +281,7 @@ public class NetworkTopology {
 	 * @post $none
 	 */
 	public static boolean isNetworkEnabled() {
-		return networkEnabled;
+		return current().networkEnabled;
 	}
 
 }
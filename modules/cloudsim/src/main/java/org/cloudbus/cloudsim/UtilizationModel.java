@@ -28,4 +28,17 @@ public interface UtilizationModel {
 	 */
 	double getUtilization(double time);
 
+	/**
+	 * Gets the time until which the utilization stays the one at a given time: the utilization
+	 * is the same at any time from the given one up to, but not including, the returned one.
+	 * The power datacenters use it to skip the scheduling intervals in which nothing changes.
+	 * 
+	 * @param time the time to get the resource usage from
+	 * @return the time the utilization may change at, not after the given time if it may change
+	 *         at any time, or {@link Double#POSITIVE_INFINITY} if it never changes
+	 */
+	default double getNextChangeTime(double time) {
+		return time;
+	}
+
 }
\ No newline at end of file
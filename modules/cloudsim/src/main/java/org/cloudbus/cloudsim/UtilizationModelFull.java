@@ -30,4 +30,15 @@ public class UtilizationModelFull implements UtilizationModel {
 		return 1;
 	}
 
+	/**
+	 * Gets the time until which the utilization stays the one at a given time.
+	 * 
+	 * @param time the time to get the resource usage from
+	 * @return always {@link Double#POSITIVE_INFINITY}, as the utilization never changes
+	 */
+	@Override
+	public double getNextChangeTime(double time) {
+		return Double.POSITIVE_INFINITY;
+	}
+
 }
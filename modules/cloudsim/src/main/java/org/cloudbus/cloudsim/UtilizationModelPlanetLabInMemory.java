@@ -76,6 +76,26 @@ public class UtilizationModelPlanetLabInMemory implements UtilizationModel {
 
 	}
 
+	/**
+	 * Gets the time until which the utilization stays the one at a given time. The utilization
+	 * is interpolated between the samples, so it stays the same while the samples do.
+	 * 
+	 * @param time the time to get the resource usage from
+	 * @return the time of the last sample equal to the one before the given time
+	 */
+	@Override
+	public double getNextChangeTime(double time) {
+		int sample = (int) Math.floor(time / getSchedulingInterval());
+		if (sample >= data.length) {
+			return time;
+		}
+		int next = sample + 1;
+		while (next < data.length && data[next] == data[sample]) {
+			next++;
+		}
+		return (next - 1) * getSchedulingInterval();
+	}
+
 	/**
 	 * Sets the scheduling interval.
 	 * 
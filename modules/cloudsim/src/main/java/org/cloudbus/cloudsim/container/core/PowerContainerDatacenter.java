@@ -112,7 +112,7 @@ public class PowerContainerDatacenter extends ContainerDatacenter {
     protected void updateCloudletProcessing() {
 //        Log.printLine("Power data center is Updating the cloudlet processing");
         if (getCloudletSubmitted() == -1 || getCloudletSubmitted() == CloudSim.clock()) {
-            CloudSim.cancelAll(getId(), new PredicateType(CloudActionTags.VM_DATACENTER_EVENT));
+            CloudSim.cancelAll(getId(), CloudActionTags.VM_DATACENTER_EVENT);
             schedule(getId(), getSchedulingInterval(), CloudActionTags.VM_DATACENTER_EVENT);
             return;
         }
@@ -175,7 +175,7 @@ public class PowerContainerDatacenter extends ContainerDatacenter {
 
             // schedules an event to the next time
             if (minTime != Double.MAX_VALUE) {
-                CloudSim.cancelAll(getId(), new PredicateType(CloudActionTags.VM_DATACENTER_EVENT));
+                CloudSim.cancelAll(getId(), CloudActionTags.VM_DATACENTER_EVENT);
                 send(getId(), getSchedulingInterval(), CloudActionTags.VM_DATACENTER_EVENT);
             }
 
@@ -11,7 +11,6 @@ import org.cloudbus.cloudsim.*;
 import org.cloudbus.cloudsim.VmAllocationPolicy.GuestMapping;
 import org.cloudbus.cloudsim.container.utils.CustomCSVWriter;
 import org.cloudbus.cloudsim.core.*;
-import org.cloudbus.cloudsim.core.predicates.PredicateType;
 import org.cloudbus.cloudsim.power.PowerHost;
 
 import java.io.IOException;
@@ -56,7 +55,7 @@ public class PowerContainerDatacenterCM extends PowerContainerDatacenter {
     protected void updateCloudletProcessing() {
         //        Log.printLine("Power data center is Updating the cloudlet processing");
         if (getCloudletSubmitted() == -1 || getCloudletSubmitted() == CloudSim.clock()) {
-            CloudSim.cancelAll(getId(), new PredicateType(CloudActionTags.VM_DATACENTER_EVENT));
+            CloudSim.cancelAll(getId(), CloudActionTags.VM_DATACENTER_EVENT);
             schedule(getId(), getSchedulingInterval(), CloudActionTags.VM_DATACENTER_EVENT);
             return;
         }
@@ -221,7 +220,7 @@ public class PowerContainerDatacenterCM extends PowerContainerDatacenter {
 
             // schedules an event to the next time
             if (minTime != Double.MAX_VALUE) {
-                CloudSim.cancelAll(getId(), new PredicateType(CloudActionTags.VM_DATACENTER_EVENT));
+                CloudSim.cancelAll(getId(), CloudActionTags.VM_DATACENTER_EVENT);
                 send(getId(), getSchedulingInterval(), CloudActionTags.VM_DATACENTER_EVENT);
             }
 
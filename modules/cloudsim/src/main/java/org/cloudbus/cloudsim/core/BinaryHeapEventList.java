@@ -0,0 +1,65 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+
+/**
+ * A future event list backed by a binary heap. This is the default implementation.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class BinaryHeapEventList implements FutureEventList {
+
+	/** The heap. */
+	private final PriorityQueue<SimEvent> heap;
+
+	/**
+	 * Creates a heap ordering the events by {@link SimEvent#compareTo(SimEvent)}.
+	 */
+	public BinaryHeapEventList() {
+		heap = new PriorityQueue<>();
+	}
+
+	/**
+	 * Creates a heap ordering the events with the given comparator.
+	 *
+	 * @param order the event order
+	 */
+	BinaryHeapEventList(Comparator<SimEvent> order) {
+		heap = new PriorityQueue<>(order);
+	}
+
+	@Override
+	public void add(SimEvent event) {
+		heap.add(event);
+	}
+
+	@Override
+	public SimEvent poll() {
+		return heap.poll();
+	}
+
+	@Override
+	public SimEvent peek() {
+		return heap.peek();
+	}
+
+	@Override
+	public int size() {
+		return heap.size();
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return heap.iterator();
+	}
+}
@@ -0,0 +1,343 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A future event list implemented as a calendar queue, as described in:
+ * <br/>R. Brown, "Calendar queues: a fast O(1) priority queue implementation for the simulation
+ * event set problem", Communications of the ACM 31(10), 1988.
+ * <p>
+ * Events are hashed by time into an array of buckets ("days"), each holding a sorted list, and the
+ * array is scanned one "year" at a time. The number of buckets doubles or halves with the size of
+ * the list, and the bucket width is re-estimated from the separation of the first events every time
+ * the calendar is resized.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class CalendarEventList implements FutureEventList {
+
+	/** The minimal number of buckets. */
+	private static final int MIN_BUCKETS = 2;
+
+	/** The number of events sampled to estimate the bucket width. */
+	private static final int SAMPLE_SIZE = 25;
+
+	/** A node of a bucket list. */
+	private static final class Node {
+		private final SimEvent event;
+		private Node next;
+
+		private Node(SimEvent event) {
+			this.event = event;
+		}
+	}
+
+	/** The buckets; their number is always a power of two. */
+	private Node[] buckets;
+
+	/** The last node of each bucket, so that events later than a whole bucket are appended in O(1). */
+	private Node[] tails;
+
+	/** The number of buckets minus one. */
+	private int mask;
+
+	/** The time span covered by a bucket. */
+	private double width = 1.0;
+
+	/** The bucket where the search for the next event starts. */
+	private int lastBucket;
+
+	/** The virtual bucket (time / width) the search for the next event starts from. */
+	private long currentVirtualBucket;
+
+	/** The number of events. */
+	private int size;
+
+	/** The size above which the number of buckets is doubled. */
+	private int growThreshold;
+
+	/** The size below which the number of buckets is halved. */
+	private int shrinkThreshold;
+
+	/** Disables resizing while the width is being sampled. */
+	private boolean resizeEnabled = true;
+
+	/**
+	 * Creates an empty calendar queue.
+	 */
+	public CalendarEventList() {
+		setup(MIN_BUCKETS, 1.0);
+	}
+
+	/**
+	 * Resets the calendar to an empty one with the given geometry.
+	 *
+	 * @param numBuckets the number of buckets (a power of two)
+	 * @param bucketWidth the bucket width
+	 */
+	private void setup(int numBuckets, double bucketWidth) {
+		buckets = new Node[numBuckets];
+		tails = new Node[numBuckets];
+		mask = numBuckets - 1;
+		width = bucketWidth;
+		lastBucket = 0;
+		currentVirtualBucket = Long.MAX_VALUE;
+		size = 0;
+		growThreshold = 2 * numBuckets;
+		shrinkThreshold = numBuckets / 2 - 2;
+	}
+
+	private long virtualBucket(double time) {
+		return (long) Math.floor(time / width);
+	}
+
+	@Override
+	public void add(SimEvent event) {
+		insert(new Node(event));
+		if (resizeEnabled && size > growThreshold) {
+			resize(buckets.length * 2);
+		}
+	}
+
+	/**
+	 * Inserts a node in its bucket, keeping the bucket sorted.
+	 *
+	 * @param node the node to insert
+	 */
+	private void insert(Node node) {
+		long vb = virtualBucket(node.event.eventTime());
+		int i = (int) (vb & mask);
+
+		Node tail = tails[i];
+		if (tail == null) {
+			node.next = null;
+			buckets[i] = tails[i] = node;
+		} else if (tail.event.compareTo(node.event) < 0) {
+			node.next = null;
+			tail.next = node;
+			tails[i] = node;
+		} else {
+			Node prev = null;
+			Node cur = buckets[i];
+			while (cur.event.compareTo(node.event) < 0) {
+				prev = cur;
+				cur = cur.next;
+			}
+			node.next = cur;
+			if (prev == null) {
+				buckets[i] = node;
+			} else {
+				prev.next = node;
+			}
+		}
+		size++;
+
+		// an event earlier than the current position moves the search back
+		if (vb < currentVirtualBucket) {
+			currentVirtualBucket = vb;
+			lastBucket = i;
+		}
+	}
+
+	/**
+	 * Finds the bucket whose head is the first event of the list. The list must not be empty.
+	 *
+	 * @return the bucket index
+	 */
+	private int locate() {
+		int i = lastBucket;
+		long vb = currentVirtualBucket;
+		for (int k = 0; k <= mask; k++) {
+			Node head = buckets[i];
+			if (head != null && virtualBucket(head.event.eventTime()) <= vb) {
+				lastBucket = i;
+				currentVirtualBucket = vb;
+				return i;
+			}
+			i = (i + 1) & mask;
+			vb++;
+		}
+
+		// no event in the whole year: direct search of the minimum
+		int min = -1;
+		for (int j = 0; j <= mask; j++) {
+			if (buckets[j] != null && (min == -1 || buckets[j].event.compareTo(buckets[min].event) < 0)) {
+				min = j;
+			}
+		}
+		lastBucket = min;
+		currentVirtualBucket = virtualBucket(buckets[min].event.eventTime());
+		return min;
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+
+		int i = locate();
+		Node head = buckets[i];
+		buckets[i] = head.next;
+		if (head.next == null) {
+			tails[i] = null;
+		}
+		size--;
+
+		if (size == 0) {
+			currentVirtualBucket = Long.MAX_VALUE;
+		} else if (resizeEnabled && size < shrinkThreshold && buckets.length > MIN_BUCKETS) {
+			resize(buckets.length / 2);
+		}
+		return head.event;
+	}
+
+	@Override
+	public SimEvent peek() {
+		if (size == 0) {
+			return null;
+		}
+		return buckets[locate()].event;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Estimates a new bucket width from the average separation of the first events,
+	 * ignoring the separations larger than twice the average.
+	 *
+	 * @return the new bucket width
+	 */
+	private double sampleWidth() {
+		int n = Math.min(size, SAMPLE_SIZE);
+		if (n < 2) {
+			return width;
+		}
+
+		resizeEnabled = false;
+		SimEvent[] sample = new SimEvent[n];
+		for (int k = 0; k < n; k++) {
+			sample[k] = poll();
+		}
+		for (SimEvent ev : sample) {
+			insert(new Node(ev));
+		}
+		resizeEnabled = true;
+
+		double average = (sample[n - 1].eventTime() - sample[0].eventTime()) / (n - 1);
+		double total = 0;
+		int count = 0;
+		for (int k = 1; k < n; k++) {
+			double separation = sample[k].eventTime() - sample[k - 1].eventTime();
+			if (separation <= 2 * average) {
+				total += separation;
+				count++;
+			}
+		}
+
+		double newWidth = count > 0 ? 3 * total / count : 0;
+		return newWidth > 0 ? newWidth : width;
+	}
+
+	/**
+	 * Redistributes the events into a new array of buckets.
+	 *
+	 * @param numBuckets the new number of buckets
+	 */
+	private void resize(int numBuckets) {
+		double newWidth = sampleWidth();
+		Node[] old = buckets;
+		setup(numBuckets, newWidth);
+		for (Node head : old) {
+			while (head != null) {
+				Node next = head.next;
+				insert(head);
+				head = next;
+			}
+		}
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new Iterator<>() {
+			/** The bucket of the last returned node. */
+			private int bucket = 0;
+			/** The node before the last returned one in its bucket, if any. */
+			private Node prev;
+			/** The last returned node, or <tt>null</tt> if it has been removed. */
+			private Node current;
+
+			/** The node following the last returned one in the same bucket. */
+			private Node following() {
+				if (current != null) {
+					return current.next;
+				}
+				return prev != null ? prev.next : buckets[bucket];
+			}
+
+			private int nextBucket() {
+				int b = bucket + 1;
+				while (b <= mask && buckets[b] == null) {
+					b++;
+				}
+				return b;
+			}
+
+			@Override
+			public boolean hasNext() {
+				return following() != null || nextBucket() <= mask;
+			}
+
+			@Override
+			public SimEvent next() {
+				Node c = following();
+				if (c != null) {
+					if (current != null) {
+						prev = current;
+					}
+					current = c;
+				} else {
+					bucket = nextBucket();
+					if (bucket > mask) {
+						throw new NoSuchElementException();
+					}
+					prev = null;
+					current = buckets[bucket];
+				}
+				return current.event;
+			}
+
+			@Override
+			public void remove() {
+				if (current == null) {
+					throw new IllegalStateException();
+				}
+				if (prev == null) {
+					buckets[bucket] = current.next;
+				} else {
+					prev.next = current.next;
+				}
+				if (current.next == null) {
+					tails[bucket] = prev;
+				}
+				current = null;
+				size--;
+				if (size == 0) {
+					currentVirtualBucket = Long.MAX_VALUE;
+				}
+			}
+		};
+	}
+}
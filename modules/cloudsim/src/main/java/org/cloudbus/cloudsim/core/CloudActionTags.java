@@ -253,5 +253,18 @@ public enum CloudActionTags implements CloudSimTags {
 
 	NETWORK_PKT_DOWN,
 
-    NETWORK_PKT_REACHED_HOST
+    NETWORK_PKT_REACHED_HOST,
+
+	/**
+	 * Denotes the submission of a list of Cloudlets, processed by a {@link Datacenter} as a
+	 * whole. The Cloudlets of their users are then returned in lists, with
+	 * {@link #CLOUDLET_RETURN_BATCH}.
+	 */
+	CLOUDLET_SUBMIT_BATCH,
+
+	/**
+	 * Denotes the return of a list of the Cloudlets finished at the same time back to a user
+	 * that submitted Cloudlets with {@link #CLOUDLET_SUBMIT_BATCH}.
+	 */
+	CLOUDLET_RETURN_BATCH
 }
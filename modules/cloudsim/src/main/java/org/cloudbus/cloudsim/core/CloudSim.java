@@ -8,16 +8,10 @@
 
 package org.cloudbus.cloudsim.core;
 
-import java.util.ArrayList;
+import java.nio.file.Path;
 import java.util.Calendar;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 
-import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
 import org.cloudbus.cloudsim.core.predicates.PredicateAny;
 import org.cloudbus.cloudsim.core.predicates.PredicateNone;
@@ -27,6 +21,10 @@ import org.cloudbus.cloudsim.core.predicates.PredicateNone;
  * The main class of the simulation.
  * It provides all the methods to start, pause and stop simulated entities.
  * It stores and dispatches all the discrete events to be processed at run-time by the entities.
+ * <p>
+ * The simulation state is owned by a {@link SimulationContext}. The static methods of this class
+ * act on the context bound to the calling thread (see {@link SimulationContext#call}), or on the
+ * default context if none is bound, so that existing single-simulation code keeps working unchanged.
  * 
  * @author Rodrigo N. Calheiros
  * @author Anton Beloglazov
@@ -38,58 +36,54 @@ public class CloudSim {
 	/** The Constant CLOUDSIM_VERSION_STRING. */
 	private static final String CLOUDSIM_VERSION_STRING = "7.0";
 
-	/** The id of CIS entity. */
-	private static int cisId = -1;
+	/** The context used when no context is bound to the calling thread. */
+	private static final SimulationContext defaultContext = new SimulationContext();
 
-	/** The id of CloudSimShutdown entity. */
-	private static int shutdownId = -1;
+	/** The context bound to each thread, if any. */
+	private static final ThreadLocal<SimulationContext> boundContext = new ThreadLocal<>();
 
-	/** The CIS object. */
-	private static CloudInformationService cis = null;
-
-	/** The Constant NOT_FOUND. */
-	private static final int NOT_FOUND = -1;
-
-	/** The trace flag. */
-	private static boolean traceFlag = false;
-
-	/** The calendar. */
-	private static Calendar calendar = null;
-
-	/** The termination time. */
-	private static double terminateAt = -1;
+	/**
+	 * Gets the simulation context the static API refers to from the calling thread.
+	 *
+	 * @return the context bound to the calling thread, or the default context
+	 */
+	public static SimulationContext getSimulationContext() {
+		SimulationContext ctx = boundContext.get();
+		return ctx != null ? ctx : defaultContext;
+	}
 
-	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
-	private static double minTimeBetweenEvents = 0.01;
-	
 	/**
-	 * Initialises all the common attributes.
-	 * 
-	 * @param _calendar the _calendar
-	 * @param _traceFlag the _trace flag
-	 * @param numUser number of users
-	 * @throws Exception This happens when creating this entity before initialising CloudSim package
-	 *             or this entity name is <tt>null</tt> or empty
-	 * @pre $none
-	 * @post $none
+	 * Gets the default simulation context, used by threads that didn't bind any context.
+	 *
+	 * @return the default context
 	 */
-	private static void initCommonVariable(Calendar _calendar, boolean _traceFlag, int numUser)
-			throws Exception {
-		initialize();
-		// NOTE: the order for the below 3 lines are important
-		traceFlag = _traceFlag;
+	public static SimulationContext getDefaultSimulationContext() {
+		return defaultContext;
+	}
 
-		// Set the current Wall clock time as the starting time of
-		// simulation
-		if (_calendar == null) {
-			calendar = Calendar.getInstance();
+	/**
+	 * Binds a context to the calling thread.
+	 *
+	 * @param ctx the context to bind, or <tt>null</tt> to fall back to the default context
+	 * @return the context previously bound to the calling thread, possibly <tt>null</tt>
+	 */
+	static SimulationContext bindSimulationContext(SimulationContext ctx) {
+		SimulationContext previous = boundContext.get();
+		if (ctx == null) {
+			boundContext.remove();
 		} else {
-			calendar = _calendar;
+			boundContext.set(ctx);
 		}
+		return previous;
+	}
 
-		// creates a CloudSimShutdown object
-		CloudSimShutdown shutdown = new CloudSimShutdown("CloudSimShutdown", numUser);
-		shutdownId = shutdown.getId();
+	/**
+	 * Gets the CloudSim version.
+	 *
+	 * @return the version string
+	 */
+	public static String getVersion() {
+		return CLOUDSIM_VERSION_STRING;
 	}
 
 	/**
@@ -114,18 +108,7 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void init(int numUser, Calendar cal, boolean traceFlag) {
-		try {
-			initCommonVariable(cal, traceFlag, numUser);
-
-			// create a GIS object
-			cis = new CloudInformationService("CloudInformationService");
-
-			// set all the above entity IDs
-			cisId = cis.getId();
-		} catch (Exception s) {
-			Log.println("CloudSim.init(): The simulation has been terminated due to an unexpected error");
-			Log.println(s.getMessage());
-		}
+		getSimulationContext().init(numUser, cal, traceFlag);
 	}
 
 	/**
@@ -152,15 +135,26 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void init(int numUser, Calendar cal, boolean traceFlag, double minTimeBetweenEvents) {
-	    if (minTimeBetweenEvents <= 0) {
-		throw new IllegalArgumentException("The minimal time between events should be positive, but is:" + minTimeBetweenEvents);
-	    }
-	    
-	    init(numUser, cal, traceFlag);
-	    CloudSim.minTimeBetweenEvents = minTimeBetweenEvents;
+		getSimulationContext().init(numUser, cal, traceFlag, minTimeBetweenEvents);
+	}
+
+	/**
+	 * Initialises CloudSim parameters, choosing the data structure of the future event queue.
+	 * This method should be called before creating any entities.
+	 *
+	 * @param numUser the number of User Entities created
+	 * @param cal starting time for this simulation. If it is <tt>null</tt>, then the time will be
+	 *            taken from <tt>Calendar.getInstance()</tt>
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param futureEventListType the future event list implementation, e.g.
+	 *            {@link FutureEventList.Type#LADDER_QUEUE} for large queues with skewed event times
+	 * @see #init(int, Calendar, boolean)
+	 * @pre numUser >= 0
+	 * @post $none
+	 */
+	public static void init(int numUser, Calendar cal, boolean traceFlag, FutureEventList.Type futureEventListType) {
+		getSimulationContext().init(numUser, cal, traceFlag, futureEventListType);
 	}
-	
-	
 	
 	/**
 	 * Starts the execution of CloudSim simulation. It waits for complete execution of all entities,
@@ -177,23 +171,34 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static double startSimulation() throws NullPointerException {
-		Log.printlnConcat("Starting CloudSim version ", CLOUDSIM_VERSION_STRING);
-		try {
-			double clock = run();
-
-			// reset all static variables
-			cisId = -1;
-			shutdownId = -1;
-			cis = null;
-			calendar = null;
-			traceFlag = false;
-
-			return clock;
-		} catch (IllegalArgumentException e) {
-			e.printStackTrace();
-			throw new NullPointerException("CloudSim.startCloudSimulation() :"
-					+ " Error - you haven't initialized CloudSim.");
-		}
+		return getSimulationContext().startSimulation();
+	}
+
+	/**
+	 * Starts the execution of CloudSim simulation as a parallel simulation, with one thread per
+	 * logical process. The entities process the same events in the same order as with
+	 * {@link #startSimulation()}.
+	 *
+	 * @param numThreads the number of threads
+	 * @param lookahead the minimum delay of the events exchanged by logical processes, or 0 to
+	 *            run the logical processes in lock-step
+	 * @return the last clock time
+	 * @throws NullPointerException if CloudSim hasn't been initialised
+	 * @see SimulationContext#startParallelSimulation(int, double)
+	 */
+	public static double startParallelSimulation(int numThreads, double lookahead) throws NullPointerException {
+		return getSimulationContext().startParallelSimulation(numThreads, lookahead);
+	}
+
+	/**
+	 * Assigns an entity to a logical process of the parallel simulation.
+	 *
+	 * @param entityId the entity id
+	 * @param logicalProcess the index of the logical process
+	 * @see SimulationContext#setLogicalProcess(int, int)
+	 */
+	public static void setLogicalProcess(int entityId, int logicalProcess) {
+		getSimulationContext().setLogicalProcess(entityId, logicalProcess);
 	}
 
 	/**
@@ -208,22 +213,14 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static void stopSimulation() throws NullPointerException {
-		try {
-			runStop();
-		} catch (IllegalArgumentException e) {
-			throw new NullPointerException("CloudSim.stopCloudSimulation() : "
-					+ "Error - can't stop Cloud Simulation.");
-		}
+		getSimulationContext().stopSimulation();
 	}
 
 	/**
 	 * This method is called if one wants to terminate the simulation.
-	 * 
-	 * @return true, if successful; false otherwise.
 	 */
 	public static void terminateSimulation() {
-		running = false;
-		printMessage("Simulation: Reached termination time.");
+		getSimulationContext().terminateSimulation();
 	}
 
 	/**
@@ -233,21 +230,15 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean terminateSimulation(double time) {
-		if (time <= clock) {
-			return false;
-		} else {
-			terminateAt = time;
-		}
-		return true;
+		return getSimulationContext().terminateSimulation(time);
 	}
-
 	
 	/**
 	 * Returns the minimum time between events. Events within shorter periods after the last event are discarded. 
 	 * @return the minimum time between events.
 	 */
 	public static double getMinTimeBetweenEvents() {
-	    return minTimeBetweenEvents;
+		return getSimulationContext().getMinTimeBetweenEvents();
 	}
 
 	/**
@@ -258,13 +249,7 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static Calendar getSimulationCalendar() {
-		// make a new copy
-		Calendar clone = calendar;
-		if (calendar != null) {
-			clone = (Calendar) calendar.clone();
-		}
-
-		return clone;
+		return getSimulationContext().getSimulationCalendar();
 	}
 
 	/**
@@ -275,7 +260,7 @@ public class CloudSim {
 	 * @post $result >= -1
 	 */
 	public static int getCloudInfoServiceEntityId() {
-		return cisId;
+		return getSimulationContext().getCloudInfoServiceEntityId();
 	}
 
 	/**
@@ -288,58 +273,17 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static List<Integer> getCloudResourceList() {
-		if (cis == null) {
-			return null;
-		}
-
-		return cis.getList();
+		return getSimulationContext().getCloudResourceList();
 	}
 
 	// ======== SIMULATION METHODS ===============//
 
-	/** The entities. */
-	private static List<SimEntity> entities;
-
-	/** The future event queue. */
-	protected static EventQueue future;
-
-
-	/** 
-         * The current simulation clock.
-         */
-	private static double clock;
-
-	/** Flag for checking if the simulation is running. */
-	private static boolean running;
-
-	/** The entities by name. */
-	private static Map<String, SimEntity> entitiesByName;
-
-	// The predicates used in entity wait methods
-	/** The wait predicates. */
-	private static Map<Integer, Predicate> waitPredicates;
-
-	/** The paused. */
-	private static boolean paused = false;
-
-	/** The pause at. */
-	private static long pauseAt = -1;
-
-	/** The abrupt terminate. */
-	private static boolean abruptTerminate = false;
-
 	/**
 	 * Initialise the simulation for stand alone simulations. This function should be called at the
 	 * start of the simulation.
 	 */
 	protected static void initialize() {
-		Log.println("Initialising...");
-		entities = new ArrayList<>();
-		entitiesByName = new LinkedHashMap<>();
-		future = new EventQueue();
-		waitPredicates = new HashMap<>();
-		clock = 0;
-		running = false;
+		getSimulationContext().initialize();
 	}
 
 	// The two standard predicates
@@ -358,7 +302,7 @@ public class CloudSim {
 	 * @return the simulation time
 	 */
 	public static double clock() {
-		return clock;
+		return getSimulationContext().clock();
 	}
 
 	/**
@@ -367,7 +311,7 @@ public class CloudSim {
 	 * @return The number of entities
 	 */
 	public static int getNumEntities() {
-		return entities.size();
+		return getSimulationContext().getNumEntities();
 	}
 
 	/**
@@ -377,7 +321,7 @@ public class CloudSim {
 	 * @return The entity, or if it could not be found
 	 */
 	public static SimEntity getEntity(int id) {
-		return entities.get(id);
+		return getSimulationContext().getEntity(id);
 	}
 
 	/**
@@ -387,7 +331,7 @@ public class CloudSim {
 	 * @return The entity
 	 */
 	public static SimEntity getEntity(String name) {
-		return entitiesByName.get(name);
+		return getSimulationContext().getEntity(name);
 	}
 
 	/**
@@ -397,12 +341,7 @@ public class CloudSim {
 	 * @return The entity's unique id number
 	 */
 	public static int getEntityId(String name) {
-		SimEntity obj = entitiesByName.get(name);
-		if (obj == null) {
-			return NOT_FOUND;
-		} else {
-			return obj.getId();
-		}
+		return getSimulationContext().getEntityId(name);
 	}
 
 	/**
@@ -414,11 +353,7 @@ public class CloudSim {
 	 * @post $none
 	 */
 	public static String getEntityName(int entityID) {
-		try {
-			return getEntity(entityID).getName();
-		} catch (Exception e) {
-			return null;
-		}
+		return getSimulationContext().getEntityName(entityID);
 	}
 
 	/**
@@ -442,10 +377,7 @@ public class CloudSim {
 	 * @return the entity iterator
 	 */
 	public static List<SimEntity> getEntityList() {
-		// create a new list to prevent the user from changing
-		// the list of entities used by Simulation
-		List<SimEntity> list = new LinkedList<>(entities);
-		return list;
+		return getSimulationContext().getEntityList();
 	}
 
 	// Public update methods
@@ -457,18 +389,7 @@ public class CloudSim {
 	 * @param e The new entity
 	 */
 	public static void addEntity(SimEntity e) {
-		SimEvent evt;
-		if (running) {
-			// Post an event to make this entity
-			evt = new SimEvent(SimEvent.CREATE, clock, 1, 0, CloudActionTags.BLANK, e);
-			future.addEvent(evt);
-		}
-		if (e.getId() == -1) { // Only add once!
-			int id = entities.size();
-			e.setId(id);
-			entities.add(e);
-			entitiesByName.put(e.getName(), e);
-		}
+		getSimulationContext().addEntity(e);
 	}
 
 	/**
@@ -478,48 +399,14 @@ public class CloudSim {
 	 * @param e The new entity
 	 */
 	protected static void addEntityDynamically(SimEntity e) {
-		if (e == null) {
-			throw new IllegalArgumentException("Adding null entity.");
-		} else {
-			printMessage("Adding: " + e.getName());
-		}
-		e.startEntity();
-	}
-
-	/**
-	 * Internal method used to run one tick of the simulation. This method should <b>not</b> be
-	 * called in simulations.
-	 * 
-	 * @return true if there are events to be processed, false if event queue is empty
-	 */
-	private static boolean runClockTick() {
-		SimEntity ent;
-		for (int i = 0; i < entities.size(); i++) {
-			ent = entities.get(i);
-			if (ent.getState() == SimEntity.EntityStatus.RUNNABLE) {
-				ent.run();
-			}
-		}
-
-		if (future.isEmpty()) {
-			running = false;
-			printMessage(CloudSim.clock()+": Simulation: No more future events");
-			return false;
-		}
-
-		double clk = future.peek().eventTime();
-		while (!future.isEmpty() && future.peek().eventTime() == clk) {
-			dispatchEvent(future.poll());
-		}
-
-		return true;
+		getSimulationContext().addEntityDynamically(e);
 	}
 
 	/**
 	 * Internal method used to stop the simulation. This method should <b>not</b> be used directly.
 	 */
 	public static void runStop() {
-		printMessage("Simulation completed.");
+		getSimulationContext().runStop();
 	}
 
 	/**
@@ -529,9 +416,7 @@ public class CloudSim {
 	 * @param delay the delay
 	 */
 	public static void pause(int srcId, double delay) {
-		SimEvent e = new SimEvent(SimEvent.HOLD_DONE, clock + delay, srcId);
-		future.addEvent(e);
-		entities.get(srcId).setState(SimEntity.EntityStatus.HOLDING);
+		getSimulationContext().pause(srcId, delay);
 	}
 
 	/**
@@ -542,17 +427,10 @@ public class CloudSim {
 	 * @param delay the delay
 	 * @param tag the tag
 	 * @param data the data
+	 * @return the scheduled event, which can be used to cancel it
 	 */
-	public static void send(int srcId, int dstId, double delay, CloudSimTags tag, Object data) {
-		if (delay < 0) {
-			throw new IllegalArgumentException("Send delay can't be negative.");
-		}
-		if(delay >= Double.MAX_VALUE) {
-			throw new RuntimeException("Send delay can't be infinite.");
-		}
-
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, srcId, dstId, tag, data);
-		future.addEvent(e);
+	public static SimEvent send(int srcId, int dstId, double delay, CloudSimTags tag, Object data) {
+		return getSimulationContext().send(srcId, dstId, delay, tag, data);
 	}
 
 	/**
@@ -563,14 +441,10 @@ public class CloudSim {
 	 * @param delay the delay
 	 * @param tag the tag
 	 * @param data the data
+	 * @return the scheduled event, which can be used to cancel it
 	 */
-	public static void sendFirst(int srcId, int dstId, double delay, CloudSimTags tag, Object data) {
-		if (delay < 0) {
-			throw new IllegalArgumentException("Send delay can't be negative.");
-		}
-
-		SimEvent e = new SimEvent(SimEvent.SEND, clock + delay, srcId, dstId, tag, data);
-		future.addEventFirst(e);
+	public static SimEvent sendFirst(int srcId, int dstId, double delay, CloudSimTags tag, Object data) {
+		return getSimulationContext().sendFirst(srcId, dstId, delay, tag, data);
 	}
 
 	/**
@@ -582,11 +456,7 @@ public class CloudSim {
 	 * @param p the p
 	 */
 	public static void wait(int srcId, Predicate p) {
-		entities.get(srcId).setState(SimEntity.EntityStatus.WAITING);
-		if (p != SIM_ANY) {
-			// If a predicate has been used store it in order to check it
-			waitPredicates.put(srcId, p);
-		}
+		getSimulationContext().wait(srcId, p);
 	}
 
 	/**
@@ -597,16 +467,7 @@ public class CloudSim {
 	 * @return the sim event
 	 */
 	public static SimEvent cancel(int srcId, Predicate p) {
-		SimEvent ev;
-		Iterator<SimEvent> iter = future.iterator();
-		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSourceId() == srcId && p.match(ev)) {
-				iter.remove();
-				return ev;
-			}
-		}
-		return null;
+		return getSimulationContext().cancel(srcId, p);
 	}
 
 	/**
@@ -618,59 +479,108 @@ public class CloudSim {
 	 * @return true, if successful
 	 */
 	public static boolean cancelAll(int srcId, Predicate p) {
-		SimEvent ev;
-		int previousSize = future.size();
-		Iterator<SimEvent> iter = future.iterator();
-		while (iter.hasNext()) {
-			ev = iter.next();
-			if (ev.getSourceId() == srcId && p.match(ev)) {
-				iter.remove();
-			}
-		}
-		return previousSize < future.size();
+		return getSimulationContext().cancelAll(srcId, p);
 	}
 
-	//
-	// Private internal methods
-	//
+	/**
+	 * Enables or disables the recycling of the events of the current simulation.
+	 *
+	 * @param enabled <tt>true</tt> to recycle the events
+	 * @see SimulationContext#setEventPoolingEnabled(boolean)
+	 */
+	public static void setEventPoolingEnabled(boolean enabled) {
+		getSimulationContext().setEventPoolingEnabled(enabled);
+	}
 
 	/**
-	 * Dispatch event to destination entity
-	 * 
-	 * @param e the e
+	 * Sets the time window within which the events of the current simulation are dispatched
+	 * together.
+	 *
+	 * @param timeQuantum the time quantum, or 0
+	 * @see SimulationContext#setTimeQuantum(double)
 	 */
-	private static void dispatchEvent(SimEvent e) {
-		int dstId = e.getDestinationId();
-		int srcId = e.getSourceId();
-		SimEntity destEnt = entities.get(dstId);
+	public static void setTimeQuantum(double timeQuantum) {
+		getSimulationContext().setTimeQuantum(timeQuantum);
+	}
 
-		// Update the system's clock
-		if (e.eventTime() < clock) {
-			throw new IllegalArgumentException("Past event detected.");
-		}
-		clock = e.eventTime();
-
-		// Ok now process it
-		switch (e.getType()) {
-			case SimEvent.ENULL -> throw new IllegalArgumentException("Event has a null type.");
-			case SimEvent.CREATE -> {
-				addEntityDynamically((SimEntity) e.getData());
-			}
-			case SimEvent.SEND -> {
-                if (destEnt.getState() == SimEntity.EntityStatus.WAITING) { // NOTE: this branch is never used
-                    Predicate p = waitPredicates.get(dstId);
-
-                    if ((p == null) || (p.match(e))) {
-                        destEnt.setState(SimEntity.EntityStatus.RUNNABLE);
-                        waitPredicates.remove(dstId);
-                    }
-                }
-				destEnt.getIncomingEvents().add(e);
-            }
-			case SimEvent.HOLD_DONE -> entities.get(srcId).setState(SimEntity.EntityStatus.RUNNABLE);
-			default -> {
-			}
-		}
+	/**
+	 * Gets the time window within which the events of the current simulation are dispatched
+	 * together.
+	 *
+	 * @return the time quantum, or 0
+	 * @see SimulationContext#getTimeQuantum()
+	 */
+	public static double getTimeQuantum() {
+		return getSimulationContext().getTimeQuantum();
+	}
+
+	/**
+	 * Adds a store of events scheduled ahead to the current simulation.
+	 *
+	 * @param store the store
+	 * @see SimulationContext#addEventStore(OffHeapEventStore)
+	 */
+	public static void addEventStore(OffHeapEventStore<?> store) {
+		getSimulationContext().addEventStore(store);
+	}
+
+	/**
+	 * Sets the number of threads running the entities that process events at the same time in
+	 * the current simulation.
+	 *
+	 * @param numThreads the number of threads, or 1 to run the entities in turn
+	 * @see SimulationContext#setParallelDispatch(int)
+	 */
+	public static void setParallelDispatch(int numThreads) {
+		getSimulationContext().setParallelDispatch(numThreads);
+	}
+
+	/**
+	 * Requests a checkpoint of the current simulation, written to a file once all the events up
+	 * to the given time are processed.
+	 *
+	 * @param time the simulation time of the checkpoint
+	 * @param file the file to write
+	 * @param stop whether to stop the simulation once the checkpoint is written
+	 * @see SimulationContext#setCheckpoint(double, Path, boolean)
+	 * @see SimulationContext#restoreCheckpoint(Path)
+	 */
+	public static void setCheckpoint(double time, Path file, boolean stop) {
+		getSimulationContext().setCheckpoint(time, file, stop);
+	}
+
+	/**
+	 * Records the events dispatched by the current simulation in a trace.
+	 *
+	 * @param trace the trace, or <tt>null</tt> to stop recording
+	 * @see SimulationContext#setEventTrace(EventTraceWriter)
+	 * @see EventTraceReader
+	 */
+	public static void setEventTrace(EventTraceWriter trace) {
+		getSimulationContext().setEventTrace(trace);
+	}
+
+	/**
+	 * Removes all events sent by an entity with a given tag from the future event queue. This
+	 * takes a time proportional to the number of removed events, whatever the size of the queue.
+	 *
+	 * @param srcId the entity source id
+	 * @param tag the tag
+	 * @return true, if at least one event has been cancelled
+	 */
+	public static boolean cancelAll(int srcId, CloudSimTags tag) {
+		return getSimulationContext().cancelAll(srcId, tag);
+	}
+
+	/**
+	 * Removes an event from the future event queue.
+	 *
+	 * @param ev the event, as returned by {@link #send(int, int, double, CloudSimTags, Object)}
+	 * @return true if the event was still waiting in the queue; false if it has already been
+	 *         delivered or cancelled
+	 */
+	public static boolean cancel(SimEvent ev) {
+		return getSimulationContext().cancel(ev);
 	}
 
 	/**
@@ -678,13 +588,7 @@ public class CloudSim {
 	 * simulations.
 	 */
 	public static void runStart() {
-		running = true;
-		// Start all the entities
-		for (SimEntity ent : entities) {
-			ent.startEntity();
-		}
-
-		printMessage("Entities started.");
+		getSimulationContext().runStart();
 	}
 
 	/**
@@ -694,7 +598,7 @@ public class CloudSim {
 	 * @return if the simulation is still running, otherwise
 	 */
 	public static boolean running() {
-		return running;
+		return getSimulationContext().running();
 	}
 
 	/**
@@ -703,8 +607,7 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation() {
-		paused = true;
-		return paused;
+		return getSimulationContext().pauseSimulation();
 	}
 
 	/**
@@ -714,12 +617,18 @@ public class CloudSim {
 	 * @return true, if successful otherwise.
 	 */
 	public static boolean pauseSimulation(long time) {
-		if (time <= clock) {
-			return false;
-		} else {
-			pauseAt = time;
-		}
-		return true;
+		return getSimulationContext().pauseSimulation(time);
+	}
+
+	/**
+	 * This method is called if one wants to pause the simulation at a given time.
+	 *
+	 * @param time the time at which the simulation has to be paused
+	 * @return true, if successful otherwise.
+	 * @see SimulationController
+	 */
+	public static boolean pauseSimulation(double time) {
+		return getSimulationContext().pauseSimulation(time);
 	}
 
 	/**
@@ -728,13 +637,7 @@ public class CloudSim {
 	 * @return if the simulation has been restarted or or otherwise.
 	 */
 	public static boolean resumeSimulation() {
-		paused = false;
-
-		if (pauseAt <= clock) {
-			pauseAt = -1;
-		}
-
-		return !paused;
+		return getSimulationContext().resumeSimulation();
 	}
 
 	/**
@@ -744,91 +647,14 @@ public class CloudSim {
 	 * @return the last clock value
 	 */
 	public static double run() {
-		if (!running) {
-			runStart();
-		}
-		while (true) {
-			if (!runClockTick() || abruptTerminate) {
-				break;
-			}
-
-			// this block allows termination of simulation at a specific time
-			if (terminateAt > 0.0 && clock >= terminateAt) {
-				terminateSimulation();
-				clock = terminateAt;
-				break;
-			}
-
-			if (pauseAt != -1
-					&& ((!future.isEmpty() && clock <= pauseAt && pauseAt <= future.peek()
-							.eventTime()) || future.isEmpty() && pauseAt <= clock)) {
-				pauseSimulation();
-				clock = pauseAt;
-			}
-
-			while (paused) {
-				try {
-					Thread.sleep(100);
-				} catch (InterruptedException e) {
-					e.printStackTrace();
-				}
-			}
-		}
-
-		double clock = clock();
-
-		finishSimulation();
-		runStop();
-
-		return clock;
-	}
-
-	/**
-	 * Internal method that allows the entities to terminate. This method should <b>not</b> be used
-	 * in user simulations.
-	 */
-	private static void finishSimulation() {
-		// Allow all entities to exit their body method
-		if (!abruptTerminate) {
-			for (SimEntity ent : entities) {
-				if (ent.getState() != SimEntity.EntityStatus.FINISHED) {
-					ent.run();
-				}
-			}
-		}
-
-		for (SimEntity ent : entities) {
-			ent.shutdownEntity();
-		}
-
-		// reset all static variables
-		// Private data members
-		entities = null;
-		entitiesByName = null;
-		future = null;
-		clock = 0L;
-		running = false;
-
-		waitPredicates = null;
-		paused = false;
-		pauseAt = -1;
-		abruptTerminate = false;
+		return getSimulationContext().run();
 	}
 
 	/**
 	 * Abruptally terminate.
 	 */
 	public static void abruptallyTerminate() {
-		abruptTerminate = true;
-	}
-
-	/**
-	 * Prints a message about the progress of the simulation.
-	 * 
-	 * @param message the message
-	 */
-	private static void printMessage(String message) {
-		Log.println(message);
+		getSimulationContext().abruptallyTerminate();
 	}
 
 	/**
@@ -837,7 +663,7 @@ public class CloudSim {
 	 * @return true, if is paused
 	 */
 	public static boolean isPaused() {
-		return paused;
+		return getSimulationContext().isPaused();
 	}
 
 }
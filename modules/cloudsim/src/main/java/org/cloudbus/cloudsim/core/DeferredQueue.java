@@ -0,0 +1,434 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
+import org.cloudbus.cloudsim.core.predicates.PredicateFrom;
+import org.cloudbus.cloudsim.core.predicates.PredicateNone;
+import org.cloudbus.cloudsim.core.predicates.PredicateNotFrom;
+import org.cloudbus.cloudsim.core.predicates.PredicateNotType;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+
+/**
+ * The deferred queue of a {@link SimEntity}: the events delivered to the entity and not processed
+ * yet, in arrival order.
+ * <p>
+ * The events are dispatched in time order, so the queue needs no sorting and is kept in a ring
+ * buffer. An event selected out of the middle of the queue is only marked as removed and skipped
+ * when the head reaches it. The first time the queue is searched with a {@link PredicateType}
+ * or a {@link PredicateNotType}, it starts keeping a sub-queue of events per tag, so that the
+ * following searches only look at the oldest event of each wanted tag; likewise with a sub-queue
+ * per source entity for {@link PredicateFrom} and {@link PredicateNotFrom}. Only the other
+ * predicates, their subclasses included, are matched against the events one by one.
+ *
+ * @since CloudSim Toolkit 7.0
+ * @see SimEntity#getIncomingEvents()
+ */
+public class DeferredQueue implements Iterable<SimEvent> {
+
+	/** The initial capacity of the ring buffer (a power of two). */
+	private static final int INITIAL_CAPACITY = 8;
+
+	/** The ring buffer, holding removed events too until the head passes them. */
+	private SimEvent[] buffer = new SimEvent[INITIAL_CAPACITY];
+
+	/** The position of the head in {@link #buffer}. */
+	private int head = 0;
+
+	/** The number of slots of {@link #buffer} in use, removed events included. */
+	private int used = 0;
+
+	/** The number of events in the queue. */
+	private int size = 0;
+
+	/** The events by tag, in arrival order, or <tt>null</tt> until the first search by tag. */
+	private Map<CloudSimTags, ArrayDeque<SimEvent>> byTag;
+
+	/** The events by source id, in arrival order, or <tt>null</tt> until the first search by source. */
+	private Map<Integer, ArrayDeque<SimEvent>> bySource;
+
+	/**
+	 * Appends an event to the queue.
+	 *
+	 * @param event the event
+	 */
+	public void add(SimEvent event) {
+		if (used == buffer.length) {
+			grow();
+		}
+		buffer[(head + used) & (buffer.length - 1)] = event;
+		used++;
+		size++;
+		event.setQueue(this);
+		if (byTag != null) {
+			byTag.computeIfAbsent(event.getTag(), tag -> new ArrayDeque<>()).addLast(event);
+		}
+		if (bySource != null) {
+			bySource.computeIfAbsent(event.getSourceId(), src -> new ArrayDeque<>()).addLast(event);
+		}
+	}
+
+	/**
+	 * Makes room for one more event in the ring buffer: drops the removed events if they fill at
+	 * least half of it, or else doubles its capacity.
+	 */
+	private void grow() {
+		if (used - size >= buffer.length / 2) {
+			compact();
+			return;
+		}
+		SimEvent[] larger = new SimEvent[buffer.length * 2];
+		for (int i = 0; i < used; i++) {
+			larger[i] = buffer[(head + i) & (buffer.length - 1)];
+		}
+		buffer = larger;
+		head = 0;
+	}
+
+	/**
+	 * Drops the removed events from the ring buffer and from the sub-queues.
+	 */
+	private void compact() {
+		int live = 0;
+		for (int i = 0; i < used; i++) {
+			int slot = (head + i) & (buffer.length - 1);
+			SimEvent ev = buffer[slot];
+			buffer[slot] = null;
+			if (ev.getQueue() == this) {
+				buffer[(head + live++) & (buffer.length - 1)] = ev;
+			}
+		}
+		used = live;
+		if (byTag != null) {
+			byTag = null;
+			tagIndex();
+		}
+		if (bySource != null) {
+			bySource = null;
+			sourceIndex();
+		}
+	}
+
+	/**
+	 * Gets the number of slots of the ring buffer.
+	 *
+	 * @return the capacity
+	 */
+	int capacity() {
+		return buffer.length;
+	}
+
+	/**
+	 * Removes and returns the oldest event of the queue.
+	 *
+	 * @return the oldest event, or <tt>null</tt> if the queue is empty
+	 */
+	public SimEvent poll() {
+		while (used > 0) {
+			SimEvent event = buffer[head];
+			buffer[head] = null;
+			head = (head + 1) & (buffer.length - 1);
+			used--;
+			if (event.getQueue() == this) {
+				remove(event);
+				// the oldest event is also the oldest one of its tag and of its source
+				if (byTag != null) {
+					pollUpTo(byTag.get(event.getTag()), event);
+				}
+				if (bySource != null) {
+					pollUpTo(bySource.get(event.getSourceId()), event);
+				}
+				return event;
+			}
+		}
+		return null;
+	}
+
+	private static void pollUpTo(ArrayDeque<SimEvent> events, SimEvent event) {
+		SimEvent older = events.pollFirst();
+		while (older != null && older != event) {
+			older = events.pollFirst();
+		}
+	}
+
+	/**
+	 * Marks an event as removed.
+	 *
+	 * @param event the event
+	 */
+	private void remove(SimEvent event) {
+		event.setQueue(null);
+		size--;
+	}
+
+	/**
+	 * Gets the number of events in the queue.
+	 *
+	 * @return the number of events
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the queue is empty.
+	 *
+	 * @return <tt>true</tt> if there are no events in the queue
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Finds the oldest event matching a predicate.
+	 *
+	 * @param p the predicate
+	 * @param remove whether to remove the event from the queue
+	 * @return the event, or <tt>null</tt> if none matches
+	 */
+	public SimEvent find(Predicate p, boolean remove) {
+		// a subclass of a standard predicate may match other events, it isn't looked up in the indexes
+		Class<?> kind = p.getClass();
+		SimEvent found = null;
+		if (kind == PredicateType.class) {
+			found = oldestOf(tagIndex(), ((PredicateType) p).getTags(), false);
+		} else if (kind == PredicateNotType.class) {
+			found = oldestOf(tagIndex(), ((PredicateNotType) p).getTags(), true);
+		} else if (kind == PredicateFrom.class) {
+			found = oldestOf(sourceIndex(), boxed(((PredicateFrom) p).getSourceIds()), false);
+		} else if (kind == PredicateNotFrom.class) {
+			found = oldestOf(sourceIndex(), boxed(((PredicateNotFrom) p).getSourceIds()), true);
+		} else if (kind != PredicateNone.class) {
+			for (SimEvent ev : this) {
+				if (p.match(ev)) {
+					found = ev;
+					break;
+				}
+			}
+		}
+
+		if (found != null && remove) {
+			remove(found);
+		}
+		return found;
+	}
+
+	/**
+	 * Counts the events matching a predicate.
+	 *
+	 * @param p the predicate
+	 * @return the number of matching events
+	 */
+	public int count(Predicate p) {
+		Class<?> kind = p.getClass();
+		if (kind == PredicateType.class) {
+			return countOf(tagIndex(), ((PredicateType) p).getTags());
+		} else if (kind == PredicateNotType.class) {
+			return size - countOf(tagIndex(), ((PredicateNotType) p).getTags());
+		} else if (kind == PredicateFrom.class) {
+			return countOf(sourceIndex(), boxed(((PredicateFrom) p).getSourceIds()));
+		} else if (kind == PredicateNotFrom.class) {
+			return size - countOf(sourceIndex(), boxed(((PredicateNotFrom) p).getSourceIds()));
+		} else if (kind == PredicateAny.class) {
+			return size;
+		} else if (kind == PredicateNone.class) {
+			return 0;
+		}
+
+		int count = 0;
+		for (SimEvent ev : this) {
+			if (p.match(ev)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the oldest event among the sub-queues of some keys, or of all the other keys.
+	 *
+	 * @param index the sub-queues
+	 * @param keys the keys
+	 * @param others whether to look in the sub-queues of all the keys but the given ones
+	 * @return the event, or <tt>null</tt> if there is none
+	 */
+	private <K> SimEvent oldestOf(Map<K, ArrayDeque<SimEvent>> index, K[] keys, boolean others) {
+		SimEvent found = null;
+		if (others) {
+			for (Map.Entry<K, ArrayDeque<SimEvent>> entry : index.entrySet()) {
+				if (!contains(keys, entry.getKey())) {
+					found = older(first(entry.getValue()), found);
+				}
+			}
+		} else {
+			for (K key : keys) {
+				found = older(first(index.get(key)), found);
+			}
+		}
+		return found;
+	}
+
+	private static SimEvent older(SimEvent first, SimEvent found) {
+		// events are delivered in time order, so the oldest event is the smallest one
+		return first != null && (found == null || first.compareTo(found) < 0) ? first : found;
+	}
+
+	/**
+	 * Counts the events of the sub-queues of some keys.
+	 *
+	 * @param index the sub-queues
+	 * @param keys the keys, possibly repeated
+	 * @return the number of events
+	 */
+	private <K> int countOf(Map<K, ArrayDeque<SimEvent>> index, K[] keys) {
+		int count = 0;
+		for (int i = 0; i < keys.length; i++) {
+			ArrayDeque<SimEvent> events = index.get(keys[i]);
+			if (events == null || contains(keys, i, keys[i])) {
+				continue;
+			}
+			for (SimEvent ev : events) {
+				if (ev.getQueue() == this) {
+					count++;
+				}
+			}
+		}
+		return count;
+	}
+
+	private static <K> boolean contains(K[] keys, K key) {
+		return contains(keys, keys.length, key);
+	}
+
+	/**
+	 * Checks if one of the first keys of an array is a given key.
+	 *
+	 * @param keys the keys
+	 * @param length the number of keys to look at
+	 * @param key the key
+	 * @return <tt>true</tt> if the key is found
+	 */
+	private static <K> boolean contains(K[] keys, int length, K key) {
+		for (int i = 0; i < length; i++) {
+			if (Objects.equals(keys[i], key)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Integer[] boxed(int[] ids) {
+		Integer[] boxed = new Integer[ids.length];
+		for (int i = 0; i < ids.length; i++) {
+			boxed[i] = ids[i];
+		}
+		return boxed;
+	}
+
+	/**
+	 * Gets the oldest event of a sub-queue, dropping the removed events in front of it.
+	 *
+	 * @param events the sub-queue, or <tt>null</tt>
+	 * @return the event, or <tt>null</tt> if there is none
+	 */
+	private SimEvent first(ArrayDeque<SimEvent> events) {
+		if (events == null) {
+			return null;
+		}
+		SimEvent first;
+		while ((first = events.peekFirst()) != null && first.getQueue() != this) {
+			events.pollFirst();
+		}
+		return first;
+	}
+
+	/**
+	 * Gets the sub-queues of events per tag, starting to keep them if not done yet.
+	 *
+	 * @return the sub-queues
+	 */
+	private Map<CloudSimTags, ArrayDeque<SimEvent>> tagIndex() {
+		if (byTag == null) {
+			byTag = new IdentityHashMap<>();
+			for (SimEvent ev : this) {
+				byTag.computeIfAbsent(ev.getTag(), tag -> new ArrayDeque<>()).addLast(ev);
+			}
+		}
+		return byTag;
+	}
+
+	/**
+	 * Gets the sub-queues of events per source entity, starting to keep them if not done yet.
+	 *
+	 * @return the sub-queues
+	 */
+	private Map<Integer, ArrayDeque<SimEvent>> sourceIndex() {
+		if (bySource == null) {
+			bySource = new HashMap<>();
+			for (SimEvent ev : this) {
+				bySource.computeIfAbsent(ev.getSourceId(), src -> new ArrayDeque<>()).addLast(ev);
+			}
+		}
+		return bySource;
+	}
+
+	/**
+	 * Returns an iterator over the events, in arrival order.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<SimEvent> iterator() {
+		return new Iterator<>() {
+			/** The offset from the head of the next slot to inspect. */
+			private int offset = 0;
+			private SimEvent next;
+			private SimEvent last;
+
+			@Override
+			public boolean hasNext() {
+				while (next == null && offset < used) {
+					SimEvent ev = buffer[(head + offset++) & (buffer.length - 1)];
+					if (ev.getQueue() == DeferredQueue.this) {
+						next = ev;
+					}
+				}
+				return next != null;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				last = next;
+				next = null;
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null || last.getQueue() != DeferredQueue.this) {
+					throw new IllegalStateException();
+				}
+				DeferredQueue.this.remove(last);
+				last = null;
+			}
+		};
+	}
+}
@@ -9,48 +9,542 @@
 package org.cloudbus.cloudsim.core;
 
 import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
+import org.cloudbus.cloudsim.core.predicates.PredicateFrom;
+import org.cloudbus.cloudsim.core.predicates.PredicateNone;
+import org.cloudbus.cloudsim.core.predicates.PredicateNotFrom;
+import org.cloudbus.cloudsim.core.predicates.PredicateNotType;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
-import java.util.PriorityQueue;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * This class implements the event queue used by {@link CloudSim}.
+ * The events are kept in a {@link FutureEventList}, whose implementation can be chosen
+ * at construction time.
+ * <p>
+ * The queue also indexes its events by source entity and tag, so that the events an entity
+ * sent with a given tag can be cancelled without scanning the whole queue. A removed event
+ * is not taken out of the future event list: it is only marked (a <i>tombstone</i>) and
+ * discarded when it reaches the head of the list, or when the tombstones outnumber the
+ * events still queued.
  *
  * @author Remo Andreoli
  * @since CloudSim Toolkit 7.0
  *
  */
-public class EventQueue extends PriorityQueue<SimEvent> {
+public class EventQueue implements Iterable<SimEvent> {
+	/** The number of tombstones below which the future event list is never purged. */
+	private static final int MIN_PURGE = 64;
+
+	/** The number of stale entries below which an index entry is never compacted. */
+	private static final int MIN_COMPACT = 16;
+
+	/** The events sent by an entity with a tag, in insertion order. */
+	static final class Bucket {
+		/** The events; those no longer listing this bucket have left the queue. */
+		private final List<SimEvent> events = new ArrayList<>();
+		/** The number of events of {@link #events} that have left the queue. */
+		private int stale;
+	}
+
 	/** A incremental number used for event attribute */
 	private long serial = 0;
 
+	/** The structure holding the events. */
+	private final FutureEventList events;
+
+	/** The order of the events, as kept by {@link #events}. */
+	private final Comparator<SimEvent> order;
+
+	/** The number of removed events still held by {@link #events}. */
+	private int tombstones = 0;
+
+	/** The index of the queued events, by source entity id and tag. */
+	private final List<Map<CloudSimTags, Bucket>> index = new ArrayList<>();
+
+	/**
+	 * Creates an event queue backed by a binary heap.
+	 */
+	public EventQueue() {
+		this(FutureEventList.Type.BINARY_HEAP);
+	}
+
+	/**
+	 * Creates an event queue backed by the given type of future event list.
+	 *
+	 * @param type the type of future event list
+	 */
+	public EventQueue(FutureEventList.Type type) {
+		this(type.create(), Comparator.naturalOrder());
+	}
+
+	/**
+	 * Creates an event queue backed by the given future event list.
+	 *
+	 * @param events the empty future event list
+	 * @param order the order of the events kept by the list
+	 */
+	EventQueue(FutureEventList events, Comparator<SimEvent> order) {
+		this.events = events;
+		this.order = order;
+	}
+
 	/**
 	 * Adds a new event to the queue. Adding a new event to the queue preserves the temporal order of
 	 * the events in the queue.
-	 * 
+	 *
 	 * @param newEvent The event to be put in the queue.
 	 */
 	public void addEvent(SimEvent newEvent) {
 		newEvent.setSerial(serial++);
-		this.add(newEvent);
+		insert(newEvent);
 	}
 
 	/**
 	 * Adds a new event to the head of the queue.
-	 * 
+	 *
 	 * @param newEvent The event to be put in the queue.
 	 */
 	public void addEventFirst(SimEvent newEvent) {
 		newEvent.setSerial(0);
-		this.add(newEvent);
+		insert(newEvent);
 	}
 
-	@Override
+	/**
+	 * Reserves the serial numbers of events added later on with {@link #add(SimEvent)}, so that
+	 * they come after the events already added and before those added afterwards.
+	 *
+	 * @param count the number of events
+	 * @return the first serial number
+	 */
+	long reserveSerials(long count) {
+		long first = serial;
+		serial += count;
+		return first;
+	}
+
+	/**
+	 * Adds an event to the queue, keeping its serial number.
+	 *
+	 * @param event The event to be put in the queue.
+	 * @return always <tt>true</tt>
+	 */
+	public boolean add(SimEvent event) {
+		insert(event);
+		return true;
+	}
+
+	private void insert(SimEvent event) {
+		event.setQueue(this);
+		if (event.getSourceId() >= 0) {
+			Bucket bucket = bucket(event.getSourceId(), event.getTag(), true);
+			bucket.events.add(event);
+			event.setBucket(bucket);
+		}
+		events.add(event);
+	}
+
+	/**
+	 * Gets the index entry of a source and a tag.
+	 *
+	 * @param srcId the source entity id
+	 * @param tag the tag
+	 * @param create whether to create the entry if it doesn't exist
+	 * @return the entry, or <tt>null</tt> if it doesn't exist and <tt>create</tt> is false
+	 */
+	private Bucket bucket(int srcId, CloudSimTags tag, boolean create) {
+		Map<CloudSimTags, Bucket> tags = tags(srcId, create);
+		if (tags == null) {
+			return null;
+		}
+		Bucket bucket = tags.get(tag);
+		if (bucket == null && create) {
+			bucket = new Bucket();
+			tags.put(tag, bucket);
+		}
+		return bucket;
+	}
+
+	private Map<CloudSimTags, Bucket> tags(int srcId, boolean create) {
+		if (srcId < 0) {
+			return null;
+		}
+		if (srcId >= index.size()) {
+			if (!create) {
+				return null;
+			}
+			while (index.size() <= srcId) {
+				index.add(null);
+			}
+		}
+		Map<CloudSimTags, Bucket> tags = index.get(srcId);
+		if (tags == null && create) {
+			tags = new IdentityHashMap<>();
+			index.set(srcId, tags);
+		}
+		return tags;
+	}
+
+	/**
+	 * Takes an event that leaves the queue out of the index.
+	 *
+	 * @param event the event
+	 */
+	private void unindex(SimEvent event) {
+		Bucket bucket = event.getBucket();
+		if (bucket == null) {
+			return;
+		}
+		event.setBucket(null);
+		if (++bucket.stale >= MIN_COMPACT && 2 * bucket.stale > bucket.events.size()) {
+			bucket.events.removeIf(ev -> ev.getBucket() != bucket);
+			bucket.stale = 0;
+		}
+	}
+
+	/**
+	 * Removes a queued event, leaving a tombstone in the future event list.
+	 *
+	 * @param event the event
+	 */
+	private void remove(SimEvent event) {
+		event.setQueue(null);
+		unindex(event);
+		tombstones++;
+	}
+
+	/**
+	 * Drops the tombstones from the future event list if they outnumber the queued events.
+	 */
+	private void purge() {
+		if (tombstones < MIN_PURGE || tombstones <= size()) {
+			return;
+		}
+		Iterator<SimEvent> iter = events.iterator();
+		while (iter.hasNext()) {
+			if (iter.next().getQueue() != this) {
+				iter.remove();
+			}
+		}
+		tombstones = 0;
+	}
+
+	/**
+	 * Removes and returns the first event of the queue.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty or the simulation isn't running
+	 */
 	public SimEvent poll() {
 		if (!CloudSim.running()) {
 			return null;
 		}
-		return super.poll();
+		SimEvent event;
+		while ((event = events.poll()) != null && event.getQueue() != this) {
+			tombstones--;
+		}
+		if (event != null) {
+			event.setQueue(null);
+			unindex(event);
+		}
+		return event;
+	}
+
+	/**
+	 * Returns the first event of the queue without removing it.
+	 *
+	 * @return the first event, or <tt>null</tt> if the queue is empty
+	 */
+	public SimEvent peek() {
+		SimEvent event;
+		while ((event = events.peek()) != null && event.getQueue() != this) {
+			events.poll();
+			tombstones--;
+		}
+		return event;
+	}
+
+	/**
+	 * Gets the number of events in the queue.
+	 *
+	 * @return the number of events
+	 */
+	public int size() {
+		return events.size() - tombstones;
+	}
+
+	/**
+	 * Checks if the queue is empty.
+	 *
+	 * @return <tt>true</tt> if there are no events in the queue
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Cancels a queued event.
+	 *
+	 * @param event the event to cancel
+	 * @return <tt>true</tt> if the event was in the queue; <tt>false</tt> if it had
+	 *         already been delivered or cancelled
+	 */
+	public boolean cancel(SimEvent event) {
+		if (event == null || event.getQueue() != this) {
+			return false;
+		}
+		event.setCancelled();
+		remove(event);
+		purge();
+		return true;
+	}
+
+	/**
+	 * Cancels all the queued events sent by an entity with a given tag, in a time proportional to
+	 * the number of cancelled events.
+	 *
+	 * @param srcId the source entity id
+	 * @param tag the tag
+	 * @return the number of cancelled events
+	 */
+	public int cancelAll(int srcId, CloudSimTags tag) {
+		if (srcId < 0) {
+			return cancelAll(srcId, new PredicateType(tag));
+		}
+		Bucket bucket = bucket(srcId, tag, false);
+		if (bucket == null) {
+			return 0;
+		}
+		int cancelled = 0;
+		for (SimEvent ev : bucket.events) {
+			if (ev.getBucket() == bucket) {
+				ev.setBucket(null);
+				ev.setCancelled();
+				ev.setQueue(null);
+				tombstones++;
+				cancelled++;
+			}
+		}
+		bucket.events.clear();
+		bucket.stale = 0;
+		purge();
+		return cancelled;
+	}
+
+	/**
+	 * Cancels all the queued events sent by an entity that match a predicate. Only the events of the
+	 * entity are inspected. The events of the standard predicates, which select by tag or by
+	 * source, are cancelled a tag at a time without matching them.
+	 *
+	 * @param srcId the source entity id
+	 * @param p the predicate
+	 * @return the number of cancelled events
+	 */
+	public int cancelAll(int srcId, Predicate p) {
+		List<CloudSimTags> matching = matchingTags(srcId, p);
+		if (matching != null) {
+			int cancelled = 0;
+			for (CloudSimTags tag : matching) {
+				cancelled += cancelAll(srcId, tag);
+			}
+			return cancelled;
+		}
+
+		int cancelled = 0;
+		for (SimEvent ev : candidates(srcId, p)) {
+			if (ev.getQueue() == this && p.match(ev)) {
+				ev.setCancelled();
+				remove(ev);
+				cancelled++;
+			}
+		}
+		purge();
+		return cancelled;
+	}
+
+	/**
+	 * Cancels the first queued event sent by an entity that matches a predicate.
+	 *
+	 * @param srcId the source entity id
+	 * @param p the predicate
+	 * @return the cancelled event, or <tt>null</tt> if no event matches
+	 */
+	public SimEvent cancelFirst(int srcId, Predicate p) {
+		SimEvent first = findFirst(srcId, p);
+		cancel(first);
+		return first;
+	}
+
+	/**
+	 * Finds the first queued event sent by an entity that matches a predicate.
+	 *
+	 * @param srcId the source entity id
+	 * @param p the predicate
+	 * @return the event, or <tt>null</tt> if no event matches
+	 */
+	SimEvent findFirst(int srcId, Predicate p) {
+		SimEvent first = null;
+		for (SimEvent ev : candidates(srcId, p)) {
+			if (p.match(ev) && (first == null || order.compare(ev, first) < 0)) {
+				first = ev;
+			}
+		}
+		return first;
+	}
+
+	/**
+	 * Lists the queued events sent by an entity that may match a predicate.
+	 *
+	 * @param srcId the source entity id
+	 * @param p the predicate
+	 * @return the candidate events
+	 */
+	private List<SimEvent> candidates(int srcId, Predicate p) {
+		List<SimEvent> candidates = new ArrayList<>();
+		if (srcId < 0) {
+			// events of negative sources aren't indexed
+			for (SimEvent ev : this) {
+				if (ev.getSourceId() == srcId) {
+					candidates.add(ev);
+				}
+			}
+			return candidates;
+		}
+
+		List<Bucket> buckets = new ArrayList<>();
+		List<CloudSimTags> matching = matchingTags(srcId, p);
+		if (matching != null) {
+			for (CloudSimTags tag : matching) {
+				Bucket bucket = bucket(srcId, tag, false);
+				if (bucket != null) {
+					buckets.add(bucket);
+				}
+			}
+		} else {
+			Map<CloudSimTags, Bucket> tags = tags(srcId, false);
+			if (tags != null) {
+				buckets.addAll(tags.values());
+			}
+		}
+
+		for (Bucket bucket : buckets) {
+			for (SimEvent ev : bucket.events) {
+				if (ev.getBucket() == bucket) {
+					candidates.add(ev);
+				}
+			}
+		}
+		return candidates;
+	}
+
+	/**
+	 * Lists the tags whose events sent by an entity all match a predicate, when the predicate is one
+	 * of the standard ones depending only on the tag and the source of the events.
+	 *
+	 * @param srcId the source entity id, not negative
+	 * @param p the predicate
+	 * @return the tags, or <tt>null</tt> if the events have to be matched one by one
+	 */
+	private List<CloudSimTags> matchingTags(int srcId, Predicate p) {
+		if (srcId < 0) {
+			return null;
+		}
+		// a subclass of a standard predicate may match other events
+		Class<?> kind = p.getClass();
+		if (kind == PredicateType.class) {
+			return Arrays.asList(((PredicateType) p).getTags());
+		}
+
+		boolean all;
+		CloudSimTags[] excluded = {};
+		if (kind == PredicateNotType.class) {
+			all = true;
+			excluded = ((PredicateNotType) p).getTags();
+		} else if (kind == PredicateFrom.class) {
+			all = contains(((PredicateFrom) p).getSourceIds(), srcId);
+		} else if (kind == PredicateNotFrom.class) {
+			all = !contains(((PredicateNotFrom) p).getSourceIds(), srcId);
+		} else if (kind == PredicateAny.class) {
+			all = true;
+		} else if (kind == PredicateNone.class) {
+			all = false;
+		} else {
+			return null;
+		}
+
+		List<CloudSimTags> matching = new ArrayList<>();
+		Map<CloudSimTags, Bucket> tags = tags(srcId, false);
+		if (all && tags != null) {
+			List<CloudSimTags> others = Arrays.asList(excluded);
+			for (CloudSimTags tag : tags.keySet()) {
+				if (!others.contains(tag)) {
+					matching.add(tag);
+				}
+			}
+		}
+		return matching;
+	}
+
+	private static boolean contains(int[] ids, int id) {
+		for (int i : ids) {
+			if (i == id) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns an iterator over the queued events, in no particular order. Removing an event through
+	 * the iterator takes it out of the queue without cancelling it.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<SimEvent> iterator() {
+		Iterator<SimEvent> iter = events.iterator();
+		return new Iterator<>() {
+			private SimEvent next;
+			private SimEvent last;
+
+			@Override
+			public boolean hasNext() {
+				while (next == null && iter.hasNext()) {
+					SimEvent ev = iter.next();
+					if (ev.getQueue() == EventQueue.this) {
+						next = ev;
+					}
+				}
+				return next != null;
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				last = next;
+				next = null;
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null || last.getQueue() != EventQueue.this) {
+					throw new IllegalStateException();
+				}
+				EventQueue.this.remove(last);
+				last = null;
+			}
+		};
 	}
 
 	public void print() {
@@ -61,4 +555,4 @@ public class EventQueue extends PriorityQueue<SimEvent> {
 			i++;
 		}
 	}
-}
\ No newline at end of file
+}
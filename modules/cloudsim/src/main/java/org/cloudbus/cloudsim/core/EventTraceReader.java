@@ -0,0 +1,202 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads a trace written by {@link EventTraceWriter}, and replays it.
+ * <p>
+ * An entity can be run in isolation on the events it received in the traced simulation with
+ * {@link #replay(SimEntity, int, Function)}, e.g. to profile or debug it without running the
+ * whole scenario again.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public final class EventTraceReader implements Iterable<TracedEvent>, Closeable {
+
+	/** The segments, in order. */
+	private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+	/** The number of records of each segment. */
+	private final List<Integer> counts = new ArrayList<>();
+
+	/** The tags, by index. */
+	private final List<CloudSimTags> tags = new ArrayList<>();
+
+	/** The data types, by index. */
+	private final List<String> dataTypes = new ArrayList<>();
+
+	/** The number of records. */
+	private long size;
+
+	/**
+	 * Opens a trace.
+	 *
+	 * @param directory the directory of the trace
+	 * @throws IOException if the trace can't be read
+	 */
+	public EventTraceReader(Path directory) throws IOException {
+		readDictionary(directory.resolve(EventTraceWriter.DICTIONARY));
+		for (int i = 0; Files.exists(directory.resolve(EventTraceWriter.segmentName(i))); i++) {
+			Path file = directory.resolve(EventTraceWriter.segmentName(i));
+			MappedByteBuffer segment;
+			try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			}
+			if (segment.capacity() < EventTraceWriter.HEADER_SIZE || segment.getInt(0) != EventTraceWriter.MAGIC) {
+				throw new StreamCorruptedException(file + " isn't a segment of an event trace");
+			}
+			if (segment.getInt(4) != EventTraceWriter.VERSION) {
+				throw new StreamCorruptedException("Unsupported event trace version " + segment.getInt(4));
+			}
+			long count = segment.getLong(EventTraceWriter.COUNT_OFFSET);
+			if (count < 0 || EventTraceWriter.HEADER_SIZE + count * EventTraceWriter.RECORD_SIZE > segment.capacity()) {
+				throw new StreamCorruptedException(file + " is truncated");
+			}
+			segments.add(segment);
+			counts.add((int) count);
+			size += count;
+		}
+	}
+
+	private void readDictionary(Path file) throws IOException {
+		for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+			String[] entry = line.split(" ");
+			if (entry.length == 4 && entry[0].equals("tag") && Integer.parseInt(entry[1]) == tags.size()) {
+				tags.add(tag(entry[2], entry[3]));
+			} else if (entry.length == 3 && entry[0].equals("type") && Integer.parseInt(entry[1]) == dataTypes.size()) {
+				dataTypes.add(entry[2]);
+			} else {
+				throw new StreamCorruptedException("Unexpected entry in the event trace dictionary: " + line);
+			}
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static CloudSimTags tag(String className, String name) throws IOException {
+		try {
+			Class<?> type = Class.forName(className, false, Thread.currentThread().getContextClassLoader());
+			if (!type.isEnum() || !CloudSimTags.class.isAssignableFrom(type)) {
+				throw new StreamCorruptedException(className + " isn't an enum of tags");
+			}
+			return (CloudSimTags) Enum.valueOf((Class) type, name);
+		} catch (ClassNotFoundException | IllegalArgumentException e) {
+			throw new IOException("Unknown tag " + className + "." + name, e);
+		}
+	}
+
+	/**
+	 * Gets the number of events in the trace.
+	 *
+	 * @return the number of records
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Iterates over the events of the trace, in the order they have been dispatched.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	public Iterator<TracedEvent> iterator() {
+		return new Iterator<>() {
+			private int segment = 0;
+			private int record = 0;
+
+			@Override
+			public boolean hasNext() {
+				while (segment < segments.size() && record == counts.get(segment)) {
+					segment++;
+					record = 0;
+				}
+				return segment < segments.size();
+			}
+
+			@Override
+			public TracedEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return read(segments.get(segment), EventTraceWriter.HEADER_SIZE + record++ * EventTraceWriter.RECORD_SIZE);
+			}
+		};
+	}
+
+	/**
+	 * Streams the events of the trace, in the order they have been dispatched.
+	 *
+	 * @return the stream
+	 */
+	public Stream<TracedEvent> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	private TracedEvent read(MappedByteBuffer segment, int position) {
+		short type = segment.getShort(position + 26);
+		return new TracedEvent(segment.getDouble(position), segment.getLong(position + 8), segment.get(position + 28),
+				segment.getInt(position + 16), segment.getInt(position + 20), tags.get(segment.getShort(position + 24)),
+				type >= 0 ? dataTypes.get(type) : null, (segment.get(position + 29) & EventTraceWriter.INT_DATA) != 0,
+				segment.getInt(position + 32), segment.getInt(position + 36), segment.getInt(position + 40),
+				segment.getLong(position + 48), segment.getDouble(position + 56));
+	}
+
+	/**
+	 * Makes an entity process the events sent to an entity of the traced simulation, as it did
+	 * during that simulation. The entity should belong to an initialised simulation that isn't
+	 * running, e.g. one set up as the traced one but not started; the clock of that simulation
+	 * follows the replayed events. The entity isn't started, and the events it sends are dropped.
+	 * <p>
+	 * As the trace only tells the type of the data objects, the data of the events are given by
+	 * a function, e.g. to rebuild them from the primitive payload or to look them up in the
+	 * scenario. Their primitive payload is restored as it was.
+	 *
+	 * @param entity the entity to run
+	 * @param tracedId the id of the destination entity of the events to replay
+	 * @param payload gives the data object of an event, or <tt>null</tt> if none
+	 * @return the number of events replayed
+	 * @throws IllegalStateException if the simulation of the entity isn't initialised, or is
+	 *             running
+	 */
+	public int replay(SimEntity entity, int tracedId, Function<TracedEvent, Object> payload) {
+		Iterator<SimEvent> events = stream()
+				.filter(ev -> ev.type() == SimEvent.SEND && ev.destination() == tracedId)
+				.map(ev -> ev.toSimEvent(entity.getId(), payload.apply(ev)))
+				.iterator();
+		return entity.getSimulationContext().replay(entity, events);
+	}
+
+	/**
+	 * Closes the trace. The memory mapping of the segments is released once they are garbage
+	 * collected.
+	 */
+	@Override
+	public void close() {
+		segments.clear();
+		counts.clear();
+		size = 0;
+	}
+}
@@ -0,0 +1,266 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records the events dispatched by a simulation in a compact binary trace, to be read back with
+ * {@link EventTraceReader}. Set it with {@link SimulationContext#setEventTrace(EventTraceWriter)}.
+ * <p>
+ * The trace is a directory of memory-mapped segment files, each holding a fixed number of
+ * fixed-width records: the time, serial number, type, source, destination and tag of the event,
+ * the type of its data object and its primitive payload. The data objects themselves aren't
+ * recorded. The tags and the data types are numbered in a text dictionary written alongside the
+ * segments. Each segment keeps the number of its records up to date, so that the trace of a
+ * simulation that crashed can still be read up to its last event.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public final class EventTraceWriter implements Closeable {
+
+	/** The first bytes of a segment. */
+	static final int MAGIC = 0x43535452;
+
+	/** The version of the trace format. */
+	static final int VERSION = 1;
+
+	/** The size of the header of a segment, in bytes. */
+	static final int HEADER_SIZE = 64;
+
+	/** The offset of the number of records in the header of a segment. */
+	static final int COUNT_OFFSET = 16;
+
+	/** The size of a record, in bytes. */
+	static final int RECORD_SIZE = 64;
+
+	/** The flag of the records of the events carrying int values. */
+	static final byte INT_DATA = 1;
+
+	/** The name of the dictionary file. */
+	static final String DICTIONARY = "dictionary.txt";
+
+	/** The default number of records of a segment, i.e. 4 MB segments. */
+	public static final int DEFAULT_SEGMENT_RECORDS = 1 << 16;
+
+	/** The directory of the trace. */
+	private final Path directory;
+
+	/** The number of records of a segment. */
+	private final int recordsPerSegment;
+
+	/** The dictionary. */
+	private final BufferedWriter dictionary;
+
+	/** The indexes of the tags recorded so far. */
+	private final Map<CloudSimTags, Short> tags = new HashMap<>();
+
+	/** The indexes of the data types recorded so far. */
+	private final Map<Class<?>, Short> dataTypes = new HashMap<>();
+
+	/** The segment being written, or <tt>null</tt> if it is full. */
+	private MappedByteBuffer segment;
+
+	/** The number of segments created so far. */
+	private int numSegments;
+
+	/** The number of records of the current segment. */
+	private int segmentCount;
+
+	/** The number of records written. */
+	private long count;
+
+	/** Whether the trace has been closed. */
+	private boolean closed;
+
+	/**
+	 * Creates a trace with segments of {@link #DEFAULT_SEGMENT_RECORDS} records.
+	 *
+	 * @param directory the directory of the trace, created if needed
+	 * @throws IOException if the trace can't be created, e.g. if the directory already holds one
+	 */
+	public EventTraceWriter(Path directory) throws IOException {
+		this(directory, DEFAULT_SEGMENT_RECORDS);
+	}
+
+	/**
+	 * Creates a trace.
+	 *
+	 * @param directory the directory of the trace, created if needed
+	 * @param recordsPerSegment the number of records of a segment
+	 * @throws IOException if the trace can't be created, e.g. if the directory already holds one
+	 */
+	public EventTraceWriter(Path directory, int recordsPerSegment) throws IOException {
+		if (recordsPerSegment < 1) {
+			throw new IllegalArgumentException("The number of records of a segment should be positive, but is:" + recordsPerSegment);
+		}
+		this.directory = directory;
+		this.recordsPerSegment = recordsPerSegment;
+		Files.createDirectories(directory);
+		dictionary = Files.newBufferedWriter(directory.resolve(DICTIONARY), StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+	}
+
+	/**
+	 * Gets the name of a segment file.
+	 *
+	 * @param index the index of the segment
+	 * @return the name of the file
+	 */
+	static String segmentName(int index) {
+		return String.format("events-%05d.seg", index);
+	}
+
+	/**
+	 * Records an event. The logical processes of a parallel simulation record the events they
+	 * deliver concurrently.
+	 *
+	 * @param e the event
+	 */
+	synchronized void record(SimEvent e) {
+		if (closed) {
+			throw new IllegalStateException("The event trace is closed");
+		}
+		try {
+			if (segment == null) {
+				newSegment();
+			}
+			int position = HEADER_SIZE + segmentCount * RECORD_SIZE;
+			Object data = e.hasIntData() ? null : e.getData();
+			segment.putDouble(position, e.eventTime());
+			segment.putLong(position + 8, e.getSerial());
+			segment.putInt(position + 16, e.getSourceId());
+			segment.putInt(position + 20, e.getDestinationId());
+			segment.putShort(position + 24, tagIndex(e.getTag()));
+			segment.putShort(position + 26, data != null ? dataTypeIndex(data.getClass()) : -1);
+			segment.put(position + 28, (byte) e.getType());
+			segment.put(position + 29, e.hasIntData() ? INT_DATA : 0);
+			if (e.hasIntData()) {
+				segment.putInt(position + 32, e.getIntData(0));
+				segment.putInt(position + 36, e.getIntData(1));
+				segment.putInt(position + 40, e.getIntData(2));
+			} else {
+				segment.putLong(position + 32, 0);
+				segment.putInt(position + 40, 0);
+			}
+			segment.putLong(position + 48, e.getLongData());
+			segment.putDouble(position + 56, e.getDoubleData());
+			// the record is complete before it is counted
+			segment.putLong(COUNT_OFFSET, ++segmentCount);
+			count++;
+			if (segmentCount == recordsPerSegment) {
+				segment.force();
+				segment = null;
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Can't write the event trace " + directory, ex);
+		}
+	}
+
+	private void newSegment() throws IOException {
+		try (FileChannel channel = FileChannel.open(directory.resolve(segmentName(numSegments)),
+				StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) recordsPerSegment * RECORD_SIZE);
+		}
+		segment.putInt(0, MAGIC);
+		segment.putInt(4, VERSION);
+		segment.putInt(8, recordsPerSegment);
+		segment.putInt(12, numSegments);
+		segment.putLong(COUNT_OFFSET, 0);
+		numSegments++;
+		segmentCount = 0;
+	}
+
+	private short tagIndex(CloudSimTags tag) throws IOException {
+		Short index = tags.get(tag);
+		if (index == null) {
+			if (!(tag instanceof Enum<?> constant)) {
+				throw new IllegalArgumentException("Only the enum tags can be recorded, not:" + tag);
+			}
+			index = newIndex(tags.size());
+			tags.put(tag, index);
+			addEntry("tag " + index + " " + constant.getDeclaringClass().getName() + " " + constant.name());
+		}
+		return index;
+	}
+
+	private short dataTypeIndex(Class<?> type) throws IOException {
+		Short index = dataTypes.get(type);
+		if (index == null) {
+			index = newIndex(dataTypes.size());
+			dataTypes.put(type, index);
+			addEntry("type " + index + " " + type.getName());
+		}
+		return index;
+	}
+
+	private static short newIndex(int size) {
+		if (size > Short.MAX_VALUE) {
+			throw new IllegalStateException("Too many distinct tags or data types to record");
+		}
+		return (short) size;
+	}
+
+	/**
+	 * Adds an entry to the dictionary, flushed at once so that the records never refer to a
+	 * missing entry.
+	 */
+	private void addEntry(String entry) throws IOException {
+		dictionary.write(entry);
+		dictionary.newLine();
+		dictionary.flush();
+	}
+
+	/**
+	 * Gets the number of events recorded so far.
+	 *
+	 * @return the number of records
+	 */
+	public synchronized long getRecordCount() {
+		return count;
+	}
+
+	/**
+	 * Gets the directory of the trace.
+	 *
+	 * @return the directory
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Flushes the trace and closes it. The events dispatched afterwards can't be recorded.
+	 *
+	 * @throws IOException if the trace can't be flushed
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		if (segment != null) {
+			segment.force();
+			segment = null;
+		}
+		dictionary.close();
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Iterator;
+
+/**
+ * The priority structure behind an {@link EventQueue}. Implementations must return the events
+ * in the order defined by {@link SimEvent#compareTo(SimEvent)}, i.e. by time and, for events
+ * happening at the same time, by serial number.
+ *
+ * @since CloudSim Toolkit 7.0
+ * @see EventQueue
+ */
+public interface FutureEventList extends Iterable<SimEvent> {
+
+	/** The available future event list implementations. */
+	enum Type {
+		/** A binary heap ({@link java.util.PriorityQueue}), O(log n) per operation. */
+		BINARY_HEAP,
+		/** A calendar queue, O(1) on average when the event times are evenly spread. */
+		CALENDAR_QUEUE,
+		/** A ladder queue, amortised O(1) also for skewed event time distributions. */
+		LADDER_QUEUE;
+
+		/**
+		 * Creates an empty event list of this type.
+		 *
+		 * @return the new event list
+		 */
+		public FutureEventList create() {
+			return switch (this) {
+				case BINARY_HEAP -> new BinaryHeapEventList();
+				case CALENDAR_QUEUE -> new CalendarEventList();
+				case LADDER_QUEUE -> new LadderEventList();
+			};
+		}
+	}
+
+	/**
+	 * Adds an event to the list.
+	 *
+	 * @param event the event to add
+	 */
+	void add(SimEvent event);
+
+	/**
+	 * Removes and returns the first event of the list.
+	 *
+	 * @return the first event, or <tt>null</tt> if the list is empty
+	 */
+	SimEvent poll();
+
+	/**
+	 * Returns the first event of the list without removing it.
+	 *
+	 * @return the first event, or <tt>null</tt> if the list is empty
+	 */
+	SimEvent peek();
+
+	/**
+	 * Gets the number of events in the list.
+	 *
+	 * @return the number of events
+	 */
+	int size();
+
+	/**
+	 * Checks if the list is empty.
+	 *
+	 * @return <tt>true</tt> if there are no events in the list
+	 */
+	default boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Returns an iterator over the events of the list, in no particular order.
+	 * The iterator supports {@link Iterator#remove()}.
+	 *
+	 * @return the iterator
+	 */
+	@Override
+	Iterator<SimEvent> iterator();
+}
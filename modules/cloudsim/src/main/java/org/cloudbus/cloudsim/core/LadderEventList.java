@@ -0,0 +1,423 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A future event list implemented as a ladder queue, as described in:
+ * <br/>W. T. Tang, R. S. M. Goh, I. L.-J. Thng, "Ladder queue: An O(1) priority queue structure for
+ * large-scale discrete event simulation", ACM TOMACS 15(3), 2005.
+ * <p>
+ * Far-future events are appended unsorted to the <i>top</i> list. When the events closer in time
+ * run out, the top list is spread over the buckets of a <i>rung</i>; a bucket holding too many
+ * events is spread over a finer rung, and only small buckets are sorted into the <i>bottom</i>
+ * list the events are polled from. When events keep being added in front of the rungs, the
+ * bottom list growing too large is itself spread over a new rung, unless all its events have the
+ * same time. Each event is therefore moved a bounded number of times, whatever the distribution of
+ * the event times. The bottom list has room at both ends, so that an event is inserted by moving
+ * the events on the shorter side of it: the events of the same time are appended in O(1).
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class LadderEventList implements FutureEventList {
+
+	/** The number of events above which a bucket is spread over a new rung instead of being sorted. */
+	private static final int THRESHOLD = 50;
+
+	/** The maximum number of rungs. */
+	private static final int MAX_RUNGS = 8;
+
+	/** Orders the events by time and serial, as {@link SimEvent#compareTo(SimEvent)} does. */
+	private static final Comparator<SimEvent> ORDER =
+			Comparator.comparingDouble(SimEvent::eventTime).thenComparingLong(SimEvent::getSerial);
+
+	/** A rung of the ladder: an array of unsorted buckets of equal width. */
+	private static final class Rung {
+		private final List<SimEvent>[] buckets;
+		private final double start;
+		private final double width;
+		/** The first bucket that has not been moved down the ladder yet. */
+		private int current;
+
+		@SuppressWarnings("unchecked")
+		private Rung(int numBuckets, double start, double width) {
+			this.buckets = (List<SimEvent>[]) new List<?>[numBuckets];
+			this.start = start;
+			this.width = width;
+		}
+
+		private int index(double time) {
+			double k = Math.floor((time - start) / width);
+			if (k < 0) {
+				return 0;
+			}
+			return k >= buckets.length ? buckets.length - 1 : (int) k;
+		}
+
+		private void add(int index, SimEvent event) {
+			List<SimEvent> bucket = buckets[index];
+			if (bucket == null) {
+				bucket = buckets[index] = new ArrayList<>();
+			}
+			bucket.add(event);
+		}
+	}
+
+	/** A sorted list of events, with room at both ends to insert events. */
+	private static final class SortedEvents extends AbstractList<SimEvent> {
+		private SimEvent[] events = new SimEvent[16];
+		/** The position of the first event in {@link #events}. */
+		private int head = 8;
+		/** The position after the last event in {@link #events}. */
+		private int tail = 8;
+
+		@Override
+		public SimEvent get(int index) {
+			return events[head + index];
+		}
+
+		@Override
+		public int size() {
+			return tail - head;
+		}
+
+		private SimEvent first() {
+			return events[head];
+		}
+
+		private SimEvent last() {
+			return events[tail - 1];
+		}
+
+		private SimEvent pollFirst() {
+			SimEvent event = events[head];
+			events[head++] = null;
+			return event;
+		}
+
+		/**
+		 * Inserts an event after the events that don't come after it.
+		 *
+		 * @param event the event to insert
+		 */
+		private void insert(SimEvent event) {
+			int lo = head;
+			int hi = tail;
+			if (lo < hi && ORDER.compare(events[hi - 1], event) <= 0) {
+				lo = hi;
+			}
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (ORDER.compare(events[mid], event) <= 0) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+
+			boolean front = lo - head < tail - lo;
+			if (front ? head == 0 : tail == events.length) {
+				int offset = head;
+				recenter(size() + 1);
+				lo += head - offset;
+			}
+			if (front) {
+				System.arraycopy(events, head, events, head - 1, lo - head);
+				head--;
+				events[lo - 1] = event;
+			} else {
+				System.arraycopy(events, lo, events, lo + 1, tail - lo);
+				tail++;
+				events[lo] = event;
+			}
+			modCount++;
+		}
+
+		/**
+		 * Replaces the (no) events of the list with some events, sorted.
+		 *
+		 * @param list the events
+		 */
+		private void fill(List<SimEvent> list) {
+			recenter(list.size());
+			int start = head;
+			for (SimEvent ev : list) {
+				events[tail++] = ev;
+			}
+			Arrays.sort(events, start, tail, ORDER);
+			modCount++;
+		}
+
+		/**
+		 * Moves the events to the middle of the array, growing it if it would be more than half full.
+		 *
+		 * @param capacity the number of events the array must have room for
+		 */
+		private void recenter(int capacity) {
+			int n = size();
+			SimEvent[] to = capacity * 2 > events.length
+					? new SimEvent[Math.max(events.length * 2, Integer.highestOneBit(capacity) * 4)]
+					: events;
+			int start = (to.length - n) / 2;
+			System.arraycopy(events, head, to, start, n);
+			if (to == events) {
+				Arrays.fill(events, 0, start, null);
+				Arrays.fill(events, start + n, events.length, null);
+			}
+			events = to;
+			head = start;
+			tail = start + n;
+		}
+
+		@Override
+		public SimEvent remove(int index) {
+			int i = head + index;
+			SimEvent event = events[i];
+			System.arraycopy(events, i + 1, events, i, tail - i - 1);
+			events[--tail] = null;
+			modCount++;
+			return event;
+		}
+
+		@Override
+		public void clear() {
+			Arrays.fill(events, head, tail, null);
+			head = tail = events.length / 2;
+			modCount++;
+		}
+	}
+
+	/** The unsorted far-future events. */
+	private final List<SimEvent> top = new ArrayList<>();
+
+	/** The minimum time of the events in {@link #top}. */
+	private double topMin = Double.POSITIVE_INFINITY;
+
+	/** The maximum time of the events in {@link #top}. */
+	private double topMax = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Events after this time go to {@link #top}. Those at this time go down the ladder, where the
+	 * events of the same time may be, so that the ones of a lower serial are polled first.
+	 */
+	private double topStart = Double.NEGATIVE_INFINITY;
+
+	/** The rungs, from the coarsest to the finest. */
+	private final Rung[] rungs = new Rung[MAX_RUNGS];
+
+	/** The number of rungs in use. */
+	private int numRungs;
+
+	/** The closest events, sorted. */
+	private final SortedEvents bottom = new SortedEvents();
+
+	/** The number of events. */
+	private int size;
+
+	@Override
+	public void add(SimEvent event) {
+		size++;
+		double time = event.eventTime();
+		if (time > topStart) {
+			top.add(event);
+			topMin = Math.min(topMin, time);
+			topMax = Math.max(topMax, time);
+			return;
+		}
+
+		for (int r = 0; r < numRungs; r++) {
+			Rung rung = rungs[r];
+			int k = rung.index(time);
+			if (k >= rung.current) {
+				rung.add(k, event);
+				return;
+			}
+		}
+
+		bottom.insert(event);
+		// the bottom list is sorted: its width is known without scanning it
+		if (bottom.size() > THRESHOLD && numRungs < MAX_RUNGS
+				&& spread(bottom, bottom.first().eventTime(), bottom.last().eventTime())) {
+			bottom.clear();
+		}
+	}
+
+	/**
+	 * Spreads events over a new finest rung spanning their times, unless they all have the same time.
+	 *
+	 * @param events the events
+	 * @return <tt>true</tt> if a rung was added
+	 */
+	private boolean spread(List<SimEvent> events) {
+		double min = Double.POSITIVE_INFINITY;
+		double max = Double.NEGATIVE_INFINITY;
+		for (SimEvent ev : events) {
+			min = Math.min(min, ev.eventTime());
+			max = Math.max(max, ev.eventTime());
+		}
+		return spread(events, min, max);
+	}
+
+	/**
+	 * Spreads events over a new finest rung spanning their times, unless they all have the same time.
+	 *
+	 * @param events the events
+	 * @param min the minimum time of the events
+	 * @param max the maximum time of the events
+	 * @return <tt>true</tt> if a rung was added
+	 */
+	private boolean spread(List<SimEvent> events, double min, double max) {
+		if (!(max > min)) {
+			return false;
+		}
+		int n = events.size();
+		double width = (max - min) / n;
+		if (!(width > 0)) {
+			return false;
+		}
+		// the last bucket also takes the later events added before the rung is done
+		Rung rung = new Rung(n + 1, min, width);
+		for (SimEvent ev : events) {
+			rung.add(rung.index(ev.eventTime()), ev);
+		}
+		rungs[numRungs++] = rung;
+		return true;
+	}
+
+	/**
+	 * Moves events down the ladder until the bottom list isn't empty. The list must not be empty.
+	 */
+	private void refill() {
+		while (bottom.isEmpty()) {
+			if (numRungs == 0) {
+				topStart = topMax;
+				if (top.size() <= THRESHOLD || !spread(top)) {
+					bottom.fill(top);
+				}
+				top.clear();
+				topMin = Double.POSITIVE_INFINITY;
+				topMax = Double.NEGATIVE_INFINITY;
+				continue;
+			}
+
+			Rung rung = rungs[numRungs - 1];
+			while (rung.current < rung.buckets.length && rung.buckets[rung.current] == null) {
+				rung.current++;
+			}
+			if (rung.current == rung.buckets.length) {
+				rungs[--numRungs] = null;
+				continue;
+			}
+
+			int k = rung.current++;
+			List<SimEvent> bucket = rung.buckets[k];
+			rung.buckets[k] = null;
+			if (rung.current == rung.buckets.length) {
+				// nothing is left in the rung: a rung spread from the bucket takes its place
+				rungs[--numRungs] = null;
+			}
+
+			if (bucket.size() > THRESHOLD && numRungs < MAX_RUNGS && spread(bucket)) {
+				continue;
+			}
+			bottom.fill(bucket);
+		}
+	}
+
+	@Override
+	public SimEvent poll() {
+		if (size == 0) {
+			return null;
+		}
+		if (bottom.isEmpty()) {
+			refill();
+		}
+		size--;
+		return bottom.pollFirst();
+	}
+
+	@Override
+	public SimEvent peek() {
+		if (size == 0) {
+			return null;
+		}
+		if (bottom.isEmpty()) {
+			refill();
+		}
+		return bottom.first();
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the number of events in the sorted bottom list, which the insertions are linear in.
+	 *
+	 * @return the number of events in the bottom list
+	 */
+	int bottomSize() {
+		return bottom.size();
+	}
+
+	@Override
+	public Iterator<SimEvent> iterator() {
+		List<List<SimEvent>> lists = new ArrayList<>();
+		lists.add(bottom);
+		for (int r = 0; r < numRungs; r++) {
+			for (List<SimEvent> bucket : rungs[r].buckets) {
+				if (bucket != null) {
+					lists.add(bucket);
+				}
+			}
+		}
+		lists.add(top);
+
+		return new Iterator<>() {
+			private int list = 0;
+			private Iterator<SimEvent> current = lists.get(0).iterator();
+			private Iterator<SimEvent> last;
+
+			@Override
+			public boolean hasNext() {
+				while (!current.hasNext() && list < lists.size() - 1) {
+					current = lists.get(++list).iterator();
+				}
+				return current.hasNext();
+			}
+
+			@Override
+			public SimEvent next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				last = current;
+				return current.next();
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				last.remove();
+				last = null;
+				size--;
+			}
+		};
+	}
+}
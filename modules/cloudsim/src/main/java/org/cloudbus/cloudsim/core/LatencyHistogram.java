@@ -0,0 +1,159 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations in nanoseconds, with buckets of logarithmic width as in the HDR
+ * histograms: each power of two is split into 16 buckets, so that the values read back are
+ * within about 6% of the recorded ones, whatever their magnitude. Recording a value takes
+ * constant time and memory, and can be done from several threads.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public final class LatencyHistogram {
+
+	/** The number of bits of precision of the values. */
+	private static final int PRECISION_BITS = 5;
+
+	/** The number of buckets of the values below 2^{@link #PRECISION_BITS}, one per value. */
+	private static final int SUB_BUCKETS = 1 << PRECISION_BITS;
+
+	/** The number of buckets of each power of two above. */
+	private static final int SUB_BUCKETS_HALF = SUB_BUCKETS / 2;
+
+	/** The number of buckets covering all the positive longs. */
+	private static final int BUCKETS = SUB_BUCKETS + (63 - PRECISION_BITS) * SUB_BUCKETS_HALF;
+
+	/** The number of values recorded in each bucket. */
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	/** The number of values recorded. */
+	private final LongAdder count = new LongAdder();
+
+	/** The sum of the values recorded. */
+	private final LongAdder total = new LongAdder();
+
+	/** The greatest value recorded. */
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Records a duration.
+	 *
+	 * @param nanos the duration, negative values being counted as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		counts.incrementAndGet(bucket(value));
+		count.increment();
+		total.add(value);
+		if (value > max.get()) {
+			max.accumulateAndGet(value, Math::max);
+		}
+	}
+
+	private static int bucket(long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - PRECISION_BITS + 1;
+		int top = (int) (value >>> shift);
+		return SUB_BUCKETS + (shift - 1) * SUB_BUCKETS_HALF + top - SUB_BUCKETS_HALF;
+	}
+
+	/**
+	 * Gets the greatest value of a bucket.
+	 */
+	private static long highestValue(int bucket) {
+		if (bucket < SUB_BUCKETS) {
+			return bucket;
+		}
+		int offset = bucket - SUB_BUCKETS;
+		int shift = offset / SUB_BUCKETS_HALF + 1;
+		long top = offset % SUB_BUCKETS_HALF + SUB_BUCKETS_HALF;
+		return ((top + 1) << shift) - 1;
+	}
+
+	/**
+	 * Gets the number of values recorded.
+	 *
+	 * @return the number of values
+	 */
+	public long getCount() {
+		return count.sum();
+	}
+
+	/**
+	 * Gets the sum of the values recorded.
+	 *
+	 * @return the sum, in nanoseconds
+	 */
+	public long getTotal() {
+		return total.sum();
+	}
+
+	/**
+	 * Gets the mean of the values recorded.
+	 *
+	 * @return the mean, in nanoseconds, or 0 if no value has been recorded
+	 */
+	public double getMean() {
+		long n = count.sum();
+		return n == 0 ? 0 : (double) total.sum() / n;
+	}
+
+	/**
+	 * Gets the greatest value recorded.
+	 *
+	 * @return the greatest value, in nanoseconds
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Gets the value below which a given percentage of the recorded values fall.
+	 *
+	 * @param percentile the percentage, between 0 and 100
+	 * @return the value, in nanoseconds, or 0 if no value has been recorded
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (percentile < 0 || percentile > 100) {
+			throw new IllegalArgumentException("The percentile should be between 0 and 100, but is:" + percentile);
+		}
+		long n = count.sum();
+		if (n == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(highestValue(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Forgets the values recorded so far.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		count.reset();
+		total.reset();
+		max.set(0);
+	}
+}
@@ -0,0 +1,224 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A partition of the entities of a parallel simulation, with its own future event list and clock.
+ * The logical processes of a {@link SimulationContext} advance concurrently, one thread each,
+ * and only exchange events at the barriers between two rounds of
+ * {@link SimulationContext#startParallelSimulation(int, double)}.
+ * <p>
+ * In a sequential run, the events with the same time are delivered in the order they have been
+ * sent. That order is recovered here without a global counter: each event is stamped with the
+ * time at which it has been created, the number of clock ticks already run at that time, the id
+ * of the entity that created it and the number of events that entity already created during the
+ * tick. Ticks run in the same time order in every logical process, and the entities of a tick run
+ * in ascending id order, so sorting by this key gives the sequential order.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+final class LogicalProcess {
+
+	/** The number of bits of the serial number holding the creator id. */
+	private static final int CREATOR_BITS = 20;
+
+	/** The number of bits of the serial number holding the events created by an entity in a tick. */
+	private static final int SEQUENCE_BITS = 28;
+
+	/** The number of bits of the serial number holding the ticks run at the same time. */
+	private static final int PHASE_BITS = 64 - CREATOR_BITS - SEQUENCE_BITS;
+
+	/** The order of the events of a parallel simulation, which is also the sequential order. */
+	static final Comparator<SimEvent> ORDER = (a, b) -> {
+		int result = Double.compare(a.eventTime(), b.eventTime());
+		if (result == 0) {
+			result = Double.compare(a.getCreationTime(), b.getCreationTime());
+		}
+		if (result == 0) {
+			result = Long.compareUnsigned(a.getSerial(), b.getSerial());
+		}
+		return result;
+	};
+
+	/** The index of this logical process. */
+	final int index;
+
+	/** The context this logical process belongs to. */
+	private final SimulationContext context;
+
+	/** The entities of this logical process, in ascending id order. */
+	final List<SimEntity> entities = new ArrayList<>();
+
+	/** The events to deliver to the entities of this logical process. */
+	final EventQueue future = new EventQueue(new BinaryHeapEventList(ORDER), ORDER);
+
+	/** The events sent to the other logical processes since the last barrier. */
+	final EventQueue outbox = new EventQueue(new BinaryHeapEventList(ORDER), ORDER);
+
+	/** The ids of the entities that may have deferred events to process in the next tick. */
+	final BitSet activeEntities = new BitSet();
+
+	/** The recycler of the events, or <tt>null</tt> if the events aren't pooled. */
+	final SimEventPool eventPool;
+
+	/** The local clock. */
+	double clock = 0;
+
+	/** The number of ticks already run at the current clock. */
+	private int phase = 0;
+
+	/** The id of the entity that is running, or <tt>-1</tt>. */
+	private int creator = -1;
+
+	/** The number of events created by the running entity in the current tick. */
+	private int sequence;
+
+	/** The number of events delivered, used to order the deferred events. */
+	private long delivered = 0;
+
+	/**
+	 * Creates a logical process.
+	 *
+	 * @param index the index of the logical process
+	 * @param context the context
+	 * @param pooled whether the events are pooled
+	 */
+	LogicalProcess(int index, SimulationContext context, boolean pooled) {
+		this.index = index;
+		this.context = context;
+		eventPool = pooled ? new SimEventPool() : null;
+	}
+
+	/**
+	 * Gets the time of the next event to deliver.
+	 *
+	 * @return the event time, or {@link Double#POSITIVE_INFINITY} if there are no events
+	 */
+	double nextEventTime() {
+		SimEvent first = future.peek();
+		return first == null ? Double.POSITIVE_INFINITY : first.eventTime();
+	}
+
+	/**
+	 * Starts the entities.
+	 */
+	void start() {
+		for (SimEntity ent : entities) {
+			creator = ent.getId();
+			sequence = 0;
+			ent.startEntity();
+		}
+		creator = -1;
+	}
+
+	/**
+	 * Runs all the ticks before a time, as long as no event can come from another logical process.
+	 *
+	 * @param end the end of the window (exclusive)
+	 */
+	void runWindow(double end) {
+		double time;
+		while ((time = nextEventTime()) < end) {
+			runTick(time, time == clock ? phase + 1 : 0);
+		}
+	}
+
+	/**
+	 * Runs a tick of the synchronous mode, if this logical process has events at that time.
+	 *
+	 * @param time the time of the tick
+	 * @param phase the number of ticks already run at that time in the whole simulation
+	 */
+	void runStep(double time, int phase) {
+		if (nextEventTime() == time) {
+			runTick(time, phase);
+		}
+	}
+
+	/**
+	 * Delivers the events of a time, then lets the entities process them.
+	 */
+	private void runTick(double time, int phase) {
+		if (phase >= 1 << PHASE_BITS) {
+			throw new IllegalStateException("Too many clock ticks at time " + time);
+		}
+		clock = time;
+		this.phase = phase;
+
+		SimEvent ev;
+		while ((ev = future.peek()) != null && ev.eventTime() == time) {
+			future.poll();
+			// the deferred queues compare the events by serial number
+			ev.setSerial(delivered++);
+			context.deliver(ev, activeEntities);
+		}
+
+		for (int i = activeEntities.nextSetBit(0); i >= 0; i = activeEntities.nextSetBit(i + 1)) {
+			activeEntities.clear(i);
+			SimEntity ent = context.getEntity(i);
+			if (ent.getState() == SimEntity.EntityStatus.RUNNABLE) {
+				creator = i;
+				sequence = 0;
+				ent.run();
+			}
+		}
+		creator = -1;
+	}
+
+	/**
+	 * Stamps and queues an event created by the running entity.
+	 *
+	 * @param ev the event
+	 * @param destination the logical process of the destination entity
+	 * @param first whether the event goes before the events already sent for the same time
+	 */
+	void send(SimEvent ev, LogicalProcess destination, boolean first) {
+		if (creator < 0) {
+			throw new IllegalStateException("Only the running entities can send events in a parallel simulation");
+		}
+		if (first) {
+			ev.setCreationTime(Double.NEGATIVE_INFINITY);
+			ev.setSerial(0);
+		} else {
+			if (sequence == 1 << SEQUENCE_BITS) {
+				throw new IllegalStateException("Too many events sent by entity #" + creator + " at time " + clock);
+			}
+			ev.setCreationTime(clock);
+			ev.setSerial(((long) phase << (CREATOR_BITS + SEQUENCE_BITS))
+					| ((long) creator << SEQUENCE_BITS) | sequence++);
+		}
+		(destination == this ? future : outbox).add(ev);
+	}
+
+	/**
+	 * Queues an event created before the simulation started.
+	 *
+	 * @param ev the event, whose serial number keeps the sending order
+	 */
+	void schedule(SimEvent ev) {
+		ev.setCreationTime(-Double.MAX_VALUE);
+		future.add(ev);
+	}
+
+	/**
+	 * Checks that an entity id fits in the serial numbers.
+	 *
+	 * @param id the entity id
+	 */
+	static void checkEntityId(int id) {
+		if (id >= 1 << CREATOR_BITS) {
+			throw new IllegalStateException("Too many entities for a parallel simulation");
+		}
+	}
+}
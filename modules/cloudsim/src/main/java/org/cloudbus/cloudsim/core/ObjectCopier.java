@@ -0,0 +1,342 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+
+import org.cloudbus.cloudsim.core.ObjectGraph.Layout;
+
+/**
+ * Copies an object graph in memory, as {@link SnapshotWriter} and {@link SnapshotReader} would
+ * through a file, except for the objects of the shared types, which the copy refers to as they
+ * are.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+final class ObjectCopier {
+
+	/** An object whose copy hasn't been filled yet. */
+	private record Pending(Object original, Object copy, Layout layout, Object backing) {
+	}
+
+	/** The types whose objects are not copied. */
+	private final Collection<Class<?>> sharedTypes;
+
+	/** Whether the objects of a class are shared, by class. */
+	private final Map<Class<?>, Boolean> shared = new HashMap<>();
+
+	/** The copies made so far, by original. */
+	private final Map<Object, Object> copies = new IdentityHashMap<>();
+
+	/** The copies to fill, in the order they have been created. */
+	private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+
+	/** The collections and maps to fill once all the objects are copied. */
+	private final List<Runnable> fills = new ArrayList<>();
+
+	/** The field being copied, to locate the objects that can't be copied. */
+	private Field location;
+
+	/**
+	 * Creates a copier.
+	 *
+	 * @param sharedTypes the types whose objects are not copied
+	 */
+	ObjectCopier(Collection<Class<?>> sharedTypes) {
+		this.sharedTypes = sharedTypes;
+	}
+
+	/**
+	 * Copies an object and everything it refers to.
+	 *
+	 * @param root the object
+	 * @return the copy
+	 * @throws IllegalStateException if an object can't be copied
+	 */
+	@SuppressWarnings("unchecked")
+	<T> T copy(T root) {
+		Object copy = copyValue(root);
+		Pending next;
+		while ((next = pending.poll()) != null) {
+			fill(next);
+		}
+		// the inner collections are created after the outer ones, and filled first
+		for (int i = fills.size() - 1; i >= 0; i--) {
+			fills.get(i).run();
+		}
+		return (T) copy;
+	}
+
+	private Object copyValue(Object value) {
+		if (value == null) {
+			return null;
+		}
+		Object copy = copies.get(value);
+		if (copy != null) {
+			return copy;
+		}
+		for (Object constant : ObjectGraph.CONSTANTS) {
+			if (constant == value) {
+				return value;
+			}
+		}
+		if (isShared(value.getClass())) {
+			return value;
+		}
+
+		Layout layout = ObjectGraph.layout(value.getClass());
+		switch (layout.kind) {
+			case STRING, BOXED, ENUM, CLASS -> {
+				return value;
+			}
+			case RECORD -> {
+				Object[] components = new Object[layout.fields.length];
+				for (int i = 0; i < components.length; i++) {
+					location = layout.fields[i];
+					components[i] = copyValue(get(layout.fields[i], value));
+				}
+				copy = layout.newInstance(components);
+			}
+			case SERIALIZED -> copy = reserialize(value);
+			case THREAD_LOCAL -> copy = new ThreadLocal<>();
+			case UNSUPPORTED -> throw new IllegalStateException("Can't copy " + value.getClass().getName() + ", which is "
+					+ layout.reason + (location != null ? " (referred to by " + location + ")" : ""));
+			default -> {
+				return newCopy(value, layout);
+			}
+		}
+		copies.put(value, copy);
+		return copy;
+	}
+
+	/**
+	 * Checks if the objects of a class are shared rather than copied: the instances of the
+	 * shared types, and the lambdas that capture nothing.
+	 */
+	boolean isShared(Class<?> type) {
+		return shared.computeIfAbsent(type, t -> {
+			if (t.isHidden()) {
+				return Arrays.stream(t.getDeclaredFields()).allMatch(field -> Modifier.isStatic(field.getModifiers()));
+			}
+			for (Class<?> sharedType : sharedTypes) {
+				if (sharedType.isAssignableFrom(t)) {
+					return true;
+				}
+			}
+			return false;
+		});
+	}
+
+	/**
+	 * Creates the empty copy of an object whose content is copied later.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Object newCopy(Object value, Layout layout) {
+		Object copy;
+		Object backing = null;
+		switch (layout.kind) {
+			case OBJECT, EXTENDED_COLLECTION -> copy = layout.newInstance();
+			case ARRAY -> {
+				if (layout.type.getComponentType().isPrimitive()) {
+					copy = switch (value) {
+						case double[] a -> a.clone();
+						case int[] a -> a.clone();
+						case long[] a -> a.clone();
+						case boolean[] a -> a.clone();
+						case byte[] a -> a.clone();
+						case float[] a -> a.clone();
+						case short[] a -> a.clone();
+						default -> ((char[]) value).clone();
+					};
+					copies.put(value, copy);
+					return copy;
+				}
+				copy = Array.newInstance(layout.type.getComponentType(), Array.getLength(value));
+			}
+			case FIXED_LIST -> {
+				Object[] array = new Object[((Collection<?>) value).size()];
+				backing = array;
+				copy = Arrays.asList(array);
+			}
+			case SORTED_COLLECTION -> copy = layout.newInstance(copyValue(ObjectGraph.comparator(value)));
+			case SORTED_MAP -> copy = layout.newInstance((Comparator<?>) copyValue(((SortedMap<?, ?>) value).comparator()));
+			case ENUM_MAP -> {
+				// the copy constructor keeps the key type, even of an empty map
+				EnumMap map = new EnumMap((EnumMap) value);
+				map.clear();
+				copy = map;
+			}
+			case COLLECTION -> copy = layout.type == HashSet.class ? newHashSet((Collection<?>) value) : layout.newInstance();
+			case MAP -> copy = layout.type == HashMap.class ? newHashMap(((Map<?, ?>) value).keySet()) : layout.newInstance();
+			case UNMODIFIABLE_LIST -> {
+				backing = new ArrayList<>();
+				copy = Collections.unmodifiableList((List<?>) backing);
+			}
+			case UNMODIFIABLE_SET -> {
+				backing = new LinkedHashSet<>();
+				copy = Collections.unmodifiableSet((Set<?>) backing);
+			}
+			case UNMODIFIABLE_MAP -> {
+				backing = new LinkedHashMap<>();
+				copy = Collections.unmodifiableMap((Map<?, ?>) backing);
+			}
+			case SYNCHRONIZED_LIST -> {
+				backing = new ArrayList<>();
+				copy = Collections.synchronizedList((List<?>) backing);
+			}
+			case SYNCHRONIZED_SET -> {
+				backing = new LinkedHashSet<>();
+				copy = Collections.synchronizedSet((Set<?>) backing);
+			}
+			case SYNCHRONIZED_MAP -> {
+				backing = new LinkedHashMap<>();
+				copy = Collections.synchronizedMap((Map<?, ?>) backing);
+			}
+			default -> throw new IllegalStateException("Unexpected class " + layout.type.getName());
+		}
+		copies.put(value, copy);
+		pending.add(new Pending(value, copy, layout, backing != null ? backing : copy));
+		return copy;
+	}
+
+	/**
+	 * Creates the copy of a {@link HashSet}, to be filled in the same order: a linked one if its
+	 * keys use the identity hash code, which is different in the copy.
+	 */
+	private static Set<?> newHashSet(Collection<?> keys) {
+		return ObjectGraph.identityHashed(keys) ? new LinkedHashSet<>() : new HashSet<>(ObjectGraph.hashCapacity(keys));
+	}
+
+	/**
+	 * Creates the copy of a {@link HashMap}, to be filled in the same order: a linked one if its
+	 * keys use the identity hash code, which is different in the copy.
+	 */
+	private static Map<?, ?> newHashMap(Collection<?> keys) {
+		return ObjectGraph.identityHashed(keys) ? new LinkedHashMap<>() : new HashMap<>(ObjectGraph.hashCapacity(keys));
+	}
+
+	/**
+	 * Copies the content of an object.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void fill(Pending next) {
+		switch (next.layout.kind) {
+			case OBJECT -> fillFields(next);
+			case EXTENDED_COLLECTION -> {
+				fillFields(next);
+				fillElements(next);
+			}
+			case ARRAY -> {
+				Object[] original = (Object[]) next.original;
+				Object[] copy = (Object[]) next.copy;
+				for (int i = 0; i < original.length; i++) {
+					copy[i] = copyValue(original[i]);
+				}
+			}
+			case FIXED_LIST -> {
+				Object[] array = (Object[]) next.backing;
+				int i = 0;
+				for (Object element : (Collection<?>) next.original) {
+					array[i++] = copyValue(element);
+				}
+			}
+			case MAP, SORTED_MAP, ENUM_MAP, UNMODIFIABLE_MAP, SYNCHRONIZED_MAP -> {
+				Map<?, ?> original = (Map<?, ?>) next.original;
+				Object[] entries = new Object[2 * original.size()];
+				int i = 0;
+				for (Map.Entry<?, ?> entry : original.entrySet()) {
+					entries[i++] = copyValue(entry.getKey());
+					entries[i++] = copyValue(entry.getValue());
+				}
+				Map map = (Map) next.backing;
+				fills.add(() -> {
+					for (int j = 0; j < entries.length; j += 2) {
+						map.put(entries[j], entries[j + 1]);
+					}
+				});
+			}
+			default -> fillElements(next);
+		}
+	}
+
+	private void fillFields(Pending next) {
+		for (Field field : next.layout.fields) {
+			location = field;
+			Object value = get(field, next.original);
+			set(field, next.copy, field.getType().isPrimitive() ? value : copyValue(value));
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void fillElements(Pending next) {
+		// the priority queues are iterated in heap order, and rebuilt as they were
+		Collection<?> original = (Collection<?>) next.original;
+		Object[] elements = new Object[original.size()];
+		int i = 0;
+		for (Object element : original) {
+			elements[i++] = copyValue(element);
+		}
+		Collection collection = (Collection) next.backing;
+		fills.add(() -> Collections.addAll(collection, elements));
+	}
+
+	private Object reserialize(Object value) {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+				out.writeObject(value);
+			}
+			try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+				return in.readObject();
+			}
+		} catch (IOException | ClassNotFoundException e) {
+			throw new IllegalStateException("Can't copy " + value.getClass().getName()
+					+ (location != null ? " (referred to by " + location + ")" : ""), e);
+		}
+	}
+
+	private static Object get(Field field, Object obj) {
+		try {
+			return field.get(obj);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void set(Field field, Object obj, Object value) {
+		try {
+			field.set(obj, value);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,531 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.Serializable;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.function.Predicate;
+
+/**
+ * The reflective description of the objects of a simulation, used to copy the whole state of a
+ * simulation: every entity, host, guest, cloudlet, scheduler and event reachable from a
+ * {@link SimulationContext}.
+ * <p>
+ * The classes of the simulation are handled field by field, whatever their visibility. Their
+ * objects are created without running their constructors, as Java serialization does, then their
+ * fields are set; only when the JDK doesn't provide the <tt>jdk.unsupported</tt> module needed
+ * for this are they created with their no-arg constructor, and the classes without one can't be
+ * copied. The classes of the JDK can't be inspected that way, so they are rebuilt from their
+ * public API: the collections and maps from their elements, the other serializable classes (e.g.
+ * {@link java.util.Random} or {@link java.util.Calendar}) with Java serialization. The
+ * collections of the simulation built on a skeleton such as {@link java.util.AbstractList} are
+ * rebuilt from their elements too, and so are the ones extending a collection of the JDK (e.g.
+ * {@link java.util.ArrayDeque}) once their own fields are set: their <tt>add</tt> method must not
+ * update these fields.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+final class ObjectGraph {
+
+	/** How the objects of a class are copied. */
+	enum Kind {
+		/** A string. */
+		STRING,
+		/** A boxed primitive value. */
+		BOXED,
+		/** An enum constant. */
+		ENUM,
+		/** A class object. */
+		CLASS,
+		/** An array. */
+		ARRAY,
+		/** An object copied field by field. */
+		OBJECT,
+		/** A record, built with its canonical constructor. */
+		RECORD,
+		/** A collection built with its no-arg constructor. */
+		COLLECTION,
+		/**
+		 * A collection of the simulation extending one of the JDK, built with its no-arg
+		 * constructor: its own fields are set before its elements are added back.
+		 */
+		EXTENDED_COLLECTION,
+		/** A sorted collection or a priority queue, built with its comparator. */
+		SORTED_COLLECTION,
+		/** A fixed-size list, as returned by {@link java.util.Arrays#asList(Object...)}. */
+		FIXED_LIST,
+		/** An unmodifiable or immutable list. */
+		UNMODIFIABLE_LIST,
+		/** An unmodifiable or immutable set. */
+		UNMODIFIABLE_SET,
+		/** A synchronized list. */
+		SYNCHRONIZED_LIST,
+		/** A synchronized set. */
+		SYNCHRONIZED_SET,
+		/** A map built with its no-arg constructor. */
+		MAP,
+		/** A sorted map, built with its comparator. */
+		SORTED_MAP,
+		/** An {@link EnumMap}. */
+		ENUM_MAP,
+		/** An unmodifiable or immutable map. */
+		UNMODIFIABLE_MAP,
+		/** A synchronized map. */
+		SYNCHRONIZED_MAP,
+		/** A thread local variable, whose values are not copied. */
+		THREAD_LOCAL,
+		/** A class of the JDK copied with Java serialization. */
+		SERIALIZED,
+		/** A class that can't be copied. */
+		UNSUPPORTED
+	}
+
+	/** How the objects of a class are copied, and the members needed to do so. */
+	static final class Layout {
+		/** The class. */
+		final Class<?> type;
+
+		/** How the objects are copied. */
+		final Kind kind;
+
+		/**
+		 * The instance fields of an {@link Kind#OBJECT} or an {@link Kind#EXTENDED_COLLECTION}, or
+		 * the components of a {@link Kind#RECORD}.
+		 */
+		final Field[] fields;
+
+		/** The constructor creating the objects. */
+		private final Constructor<?> constructor;
+
+		/** Why the objects can't be copied, for an {@link Kind#UNSUPPORTED} class. */
+		final String reason;
+
+		private Layout(Class<?> type, Kind kind, Field[] fields, Constructor<?> constructor, String reason) {
+			this.type = type;
+			this.kind = kind;
+			this.fields = fields;
+			this.constructor = constructor;
+			this.reason = reason;
+		}
+
+		/**
+		 * Creates an empty object: an object whose fields are to be set, or an empty collection or
+		 * map.
+		 *
+		 * @param args the constructor arguments: the comparator of a sorted collection or map
+		 * @return the object
+		 */
+		Object newInstance(Object... args) {
+			try {
+				return constructor.newInstance(args);
+			} catch (ReflectiveOperationException e) {
+				throw new IllegalStateException("Can't create an instance of " + type.getName(), e);
+			}
+		}
+	}
+
+	/** The layouts, by class. */
+	private static final ClassValue<Layout> LAYOUTS = new ClassValue<>() {
+		@Override
+		protected Layout computeValue(Class<?> type) {
+			return createLayout(type);
+		}
+	};
+
+	/**
+	 * Creates the constructors that build an object without running the constructors of its
+	 * class, or <tt>null</tt> if the JDK has no <tt>jdk.unsupported</tt> module. The module is
+	 * looked up at run time, as the serialization libraries do.
+	 */
+	private static final Method SERIALIZATION_CONSTRUCTOR;
+
+	/** The object whose {@link #SERIALIZATION_CONSTRUCTOR} method is called. */
+	private static final Object REFLECTION_FACTORY;
+
+	static {
+		Method method;
+		Object factory;
+		try {
+			Class<?> type = Class.forName("sun.reflect.ReflectionFactory");
+			factory = type.getMethod("getReflectionFactory").invoke(null);
+			method = type.getMethod("newConstructorForSerialization", Class.class, Constructor.class);
+		} catch (ReflectiveOperationException | LinkageError e) {
+			factory = null;
+			method = null;
+		}
+		SERIALIZATION_CONSTRUCTOR = method;
+		REFLECTION_FACTORY = factory;
+	}
+
+	/** Whether the objects of a class use the identity hash code, by class. */
+	private static final ClassValue<Boolean> IDENTITY_HASHED = new ClassValue<>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			try {
+				return type.getMethod("hashCode").getDeclaringClass() == Object.class;
+			} catch (NoSuchMethodException e) {
+				return true;
+			}
+		}
+	};
+
+	/** The objects stored in static fields, which are referred to rather than copied. */
+	static final List<Object> CONSTANTS = List.of(CloudSim.SIM_ANY, CloudSim.SIM_NONE);
+
+	private ObjectGraph() {
+	}
+
+	/**
+	 * Gets how the objects of a class are copied.
+	 *
+	 * @param type the class
+	 * @return the layout
+	 */
+	static Layout layout(Class<?> type) {
+		return LAYOUTS.get(type);
+	}
+
+	/** An object to look into, and the field it was found in. */
+	private record Reached(Object object, Field location) {
+	}
+
+	/**
+	 * Checks that all the objects reachable from a root can be copied, so that a copy requested for
+	 * later fails right away rather than once the simulation has run up to it. The serializable
+	 * objects of the JDK are assumed to be copyable.
+	 *
+	 * @param root the object
+	 * @param shared whether the objects of a class are referred to rather than copied
+	 * @throws IllegalStateException if an object can't be copied
+	 */
+	static void check(Object root, Predicate<Class<?>> shared) {
+		Set<Object> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+		ArrayDeque<Reached> pending = new ArrayDeque<>();
+		reach(root, null, shared, seen, pending);
+		Reached next;
+		while ((next = pending.poll()) != null) {
+			Object obj = next.object();
+			Layout layout = layout(obj.getClass());
+			if (layout.fields != null) {
+				for (Field field : layout.fields) {
+					if (!field.getType().isPrimitive()) {
+						try {
+							reach(field.get(obj), field, shared, seen, pending);
+						} catch (IllegalAccessException e) {
+							throw new IllegalStateException(e);
+						}
+					}
+				}
+			}
+			if (obj instanceof Object[] array) {
+				for (Object element : array) {
+					reach(element, next.location(), shared, seen, pending);
+				}
+			} else if (obj instanceof Map<?, ?> map) {
+				for (Map.Entry<?, ?> entry : map.entrySet()) {
+					reach(entry.getKey(), next.location(), shared, seen, pending);
+					reach(entry.getValue(), next.location(), shared, seen, pending);
+				}
+			} else if (obj instanceof Collection<?> collection) {
+				for (Object element : collection) {
+					reach(element, next.location(), shared, seen, pending);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that an object can be copied, and queues it to be looked into if it refers to others.
+	 */
+	private static void reach(Object value, Field location, Predicate<Class<?>> shared, Set<Object> seen,
+			ArrayDeque<Reached> pending) {
+		if (value == null || CONSTANTS.contains(value) || shared.test(value.getClass()) || !seen.add(value)) {
+			return;
+		}
+		Layout layout = layout(value.getClass());
+		switch (layout.kind) {
+			case STRING, BOXED, ENUM, CLASS, SERIALIZED, THREAD_LOCAL -> {
+			}
+			case UNSUPPORTED -> throw new IllegalStateException("Can't copy " + value.getClass().getName() + ", which is "
+					+ layout.reason + (location != null ? " (referred to by " + location + ")" : ""));
+			default -> pending.add(new Reached(value, location));
+		}
+	}
+
+	/**
+	 * Checks if a class belongs to the JDK, whose private members can't be accessed.
+	 */
+	private static boolean isJdk(Class<?> type) {
+		String name = type.getName();
+		return name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.")
+				|| name.startsWith("sun.") || name.startsWith("com.sun.");
+	}
+
+	private static Layout createLayout(Class<?> type) {
+		if (type == String.class) {
+			return new Layout(type, Kind.STRING, null, null, null);
+		}
+		if (type == Integer.class || type == Long.class || type == Double.class || type == Float.class
+				|| type == Boolean.class || type == Short.class || type == Byte.class || type == Character.class) {
+			return new Layout(type, Kind.BOXED, null, null, null);
+		}
+		if (type == Class.class) {
+			return new Layout(type, Kind.CLASS, null, null, null);
+		}
+		if (type.isArray()) {
+			return new Layout(type, Kind.ARRAY, null, null, null);
+		}
+		if (Enum.class.isAssignableFrom(type)) {
+			return new Layout(type, Kind.ENUM, null, null, null);
+		}
+		if (type.isHidden()) {
+			// lambdas can only be rebuilt from their serialized form
+			return Serializable.class.isAssignableFrom(type)
+					? new Layout(type, Kind.SERIALIZED, null, null, null)
+					: unsupported(type, "a lambda that isn't serializable");
+		}
+		if (type.isRecord()) {
+			return recordLayout(type);
+		}
+		if (isJdk(type)) {
+			return jdkLayout(type);
+		}
+		return objectLayout(type);
+	}
+
+	private static Layout unsupported(Class<?> type, String reason) {
+		return new Layout(type, Kind.UNSUPPORTED, null, null, reason);
+	}
+
+	private static Layout recordLayout(Class<?> type) {
+		RecordComponent[] components = type.getRecordComponents();
+		Field[] fields = new Field[components.length];
+		Class<?>[] types = new Class<?>[components.length];
+		try {
+			for (int i = 0; i < components.length; i++) {
+				fields[i] = type.getDeclaredField(components[i].getName());
+				fields[i].setAccessible(true);
+				types[i] = components[i].getType();
+			}
+			Constructor<?> constructor = type.getDeclaredConstructor(types);
+			constructor.setAccessible(true);
+			return new Layout(type, Kind.RECORD, fields, constructor, null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			return unsupported(type, "a record whose canonical constructor can't be accessed");
+		}
+	}
+
+	private static Layout jdkLayout(Class<?> type) {
+		String name = type.getName();
+		if (type == Object.class) {
+			return new Layout(type, Kind.OBJECT, new Field[0], publicConstructor(type), null);
+		}
+		if (type == ThreadLocal.class || type == InheritableThreadLocal.class) {
+			return new Layout(type, Kind.THREAD_LOCAL, null, null, null);
+		}
+		boolean wrapper = name.contains("Unmodifiable") || name.contains("Immutable")
+				|| name.contains("Empty") || name.contains("Singleton") || name.contains("Checked");
+
+		if (Collection.class.isAssignableFrom(type)) {
+			if (EnumSet.class.isAssignableFrom(type)) {
+				return new Layout(type, Kind.SERIALIZED, null, null, null);
+			}
+			if (name.equals("java.util.Arrays$ArrayList")) {
+				return new Layout(type, Kind.FIXED_LIST, null, null, null);
+			}
+			if (wrapper) {
+				return new Layout(type, Set.class.isAssignableFrom(type) ? Kind.UNMODIFIABLE_SET : Kind.UNMODIFIABLE_LIST, null, null, null);
+			}
+			if (name.contains("Synchronized")) {
+				return new Layout(type, Set.class.isAssignableFrom(type) ? Kind.SYNCHRONIZED_SET : Kind.SYNCHRONIZED_LIST, null, null, null);
+			}
+			if (SortedSet.class.isAssignableFrom(type) || PriorityQueue.class.isAssignableFrom(type)
+					|| PriorityBlockingQueue.class.isAssignableFrom(type)) {
+				Constructor<?> constructor = publicConstructor(type, Comparator.class);
+				return constructor != null ? new Layout(type, Kind.SORTED_COLLECTION, null, constructor, null)
+						: unsupported(type, "a sorted collection without a comparator constructor");
+			}
+			Constructor<?> constructor = publicConstructor(type);
+			return constructor != null ? new Layout(type, Kind.COLLECTION, null, constructor, null)
+					: unsupported(type, "a collection without a no-arg constructor");
+		}
+
+		if (Map.class.isAssignableFrom(type)) {
+			if (type == EnumMap.class) {
+				return new Layout(type, Kind.ENUM_MAP, null, null, null);
+			}
+			if (wrapper) {
+				return new Layout(type, Kind.UNMODIFIABLE_MAP, null, null, null);
+			}
+			if (name.contains("Synchronized")) {
+				return new Layout(type, Kind.SYNCHRONIZED_MAP, null, null, null);
+			}
+			if (SortedMap.class.isAssignableFrom(type)) {
+				Constructor<?> constructor = publicConstructor(type, Comparator.class);
+				return constructor != null ? new Layout(type, Kind.SORTED_MAP, null, constructor, null)
+						: unsupported(type, "a sorted map without a comparator constructor");
+			}
+			Constructor<?> constructor = publicConstructor(type);
+			return constructor != null ? new Layout(type, Kind.MAP, null, constructor, null)
+					: unsupported(type, "a map without a no-arg constructor");
+		}
+
+		if (Serializable.class.isAssignableFrom(type)) {
+			return new Layout(type, Kind.SERIALIZED, null, null, null);
+		}
+		return unsupported(type, "a class of the JDK that isn't serializable");
+	}
+
+	private static Layout objectLayout(Class<?> type) {
+		List<Field> fields = new ArrayList<>();
+		for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+			if (isJdk(c)) {
+				if (Collection.class.isAssignableFrom(type) && c.getName().startsWith("java.util.Abstract")) {
+					// built on a skeleton of java.util, and rebuilt from its elements as the collections of the JDK
+					Constructor<?> constructor = publicConstructor(type);
+					return constructor != null ? new Layout(type, Kind.COLLECTION, null, constructor, null)
+							: unsupported(type, "a collection without a no-arg constructor");
+				}
+				if (Collection.class.isAssignableFrom(c) && layout(c).kind == Kind.COLLECTION) {
+					// the state of the JDK superclass is rebuilt from the elements
+					Constructor<?> constructor = constructor(type, c);
+					return constructor != null
+							? new Layout(type, Kind.EXTENDED_COLLECTION, fields.toArray(new Field[0]), constructor, null)
+							: unsupported(type, "a class without a no-arg constructor");
+				}
+				return unsupported(type, "a subclass of " + c.getName());
+			}
+			for (Field field : c.getDeclaredFields()) {
+				if (!Modifier.isStatic(field.getModifiers())) {
+					field.setAccessible(true);
+					fields.add(field);
+				}
+			}
+		}
+		Constructor<?> constructor = constructor(type, Object.class);
+		return constructor != null ? new Layout(type, Kind.OBJECT, fields.toArray(new Field[0]), constructor, null)
+				: unsupported(type, "a class without a no-arg constructor");
+	}
+
+	/**
+	 * Gets a constructor that creates an object only running the no-arg constructor of a
+	 * superclass, or else the no-arg constructor of the class, whatever its visibility.
+	 *
+	 * @param type the class
+	 * @param base the superclass, whose no-arg constructor is public
+	 * @return the constructor, or <tt>null</tt> if there is none
+	 */
+	private static Constructor<?> constructor(Class<?> type, Class<?> base) {
+		try {
+			if (SERIALIZATION_CONSTRUCTOR != null) {
+				return (Constructor<?>) SERIALIZATION_CONSTRUCTOR.invoke(REFLECTION_FACTORY, type, base.getConstructor());
+			}
+			Constructor<?> constructor = type.getDeclaredConstructor();
+			constructor.setAccessible(true);
+			return constructor;
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Gets the comparator of a {@link Kind#SORTED_COLLECTION}.
+	 *
+	 * @param collection the collection
+	 * @return the comparator, or <tt>null</tt> for the natural order
+	 */
+	static Comparator<?> comparator(Object collection) {
+		if (collection instanceof SortedSet<?> set) {
+			return set.comparator();
+		}
+		if (collection instanceof PriorityQueue<?> queue) {
+			return queue.comparator();
+		}
+		return ((PriorityBlockingQueue<?>) collection).comparator();
+	}
+
+	private static Constructor<?> publicConstructor(Class<?> type, Class<?>... parameters) {
+		try {
+			return type.getConstructor(parameters);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Checks if some keys of a {@link HashMap} or {@link HashSet} use the identity hash code,
+	 * whose values are different in a copy: the copy can't iterate in the same order unless it is
+	 * a {@link java.util.LinkedHashMap} or {@link java.util.LinkedHashSet} filled in that order.
+	 *
+	 * @param keys the keys
+	 * @return <tt>true</tt> if a key uses the identity hash code
+	 */
+	static boolean identityHashed(Collection<?> keys) {
+		for (Object key : keys) {
+			if (key != null && IDENTITY_HASHED.get(key.getClass())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the capacity to give to a copy of a {@link HashMap} or {@link HashSet} so that it
+	 * iterates in the same order, which the simulation results may depend on. The capacity of
+	 * the original can't be read, so the smallest one where the entries are in bucket order is
+	 * chosen.
+	 *
+	 * @param keys the keys, in iteration order
+	 * @return the capacity
+	 */
+	static int hashCapacity(Collection<?> keys) {
+		int capacity = 16;
+		while (capacity * 3 / 4 < keys.size()) {
+			capacity *= 2;
+		}
+		for (; capacity < 1 << 30; capacity *= 2) {
+			int previous = 0;
+			boolean ordered = true;
+			for (Object key : keys) {
+				int h = key == null ? 0 : key.hashCode();
+				int bucket = (h ^ (h >>> 16)) & (capacity - 1);
+				if (bucket < previous) {
+					ordered = false;
+					break;
+				}
+				previous = bucket;
+			}
+			if (ordered) {
+				return capacity;
+			}
+		}
+		return capacity;
+	}
+}
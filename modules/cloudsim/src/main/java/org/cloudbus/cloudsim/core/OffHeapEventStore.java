@@ -0,0 +1,245 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A store of the events scheduled ahead of a simulation, e.g. the arrivals of the jobs of a
+ * workload trace, kept off the heap in fixed-size records sorted by time. Once the store is added
+ * to a simulation with {@link SimulationContext#addEventStore(OffHeapEventStore)}, its events are
+ * moved to the future events as the clock gets near them: only those within the
+ * {@link #getHorizon() horizon} of the next event of the simulation are {@link SimEvent} objects,
+ * and their data is decoded by a {@link Codec} at that time. The heap taken by a trace of
+ * millions of arrivals thus doesn't grow with its length, and the memory of the records already
+ * moved is released chunk by chunk.
+ * <p>
+ * The events are added in time order. They are delivered as if they had been sent when they
+ * were added to a store already added to a simulation, or else when the store was added to it:
+ * the events of the same time are delivered in that order, among those sent by the entities.
+ * Their times are absolute, and aren't delayed by the {@link NetworkTopology}. An event can only
+ * be cancelled once it is in the future events, and a simulation holding stored events can't be
+ * checkpointed, forked nor run in parallel.
+ *
+ * @param <T> the type of the data of the events
+ * @since CloudSim Toolkit 7.0
+ */
+public class OffHeapEventStore<T> {
+
+	/**
+	 * Encodes the data of the events in the records of a store, and decodes it back.
+	 *
+	 * @param <T> the type of the data
+	 */
+	public interface Codec<T> {
+		/**
+		 * Gets the number of bytes of the encoded data, the same for every event.
+		 *
+		 * @return the number of bytes
+		 */
+		int size();
+
+		/**
+		 * Encodes the data of an event.
+		 *
+		 * @param data the data
+		 * @param buffer the buffer to write
+		 * @param offset the index of the first byte to write, with {@link #size()} bytes available
+		 */
+		void write(T data, ByteBuffer buffer, int offset);
+
+		/**
+		 * Decodes the data of an event.
+		 *
+		 * @param buffer the buffer to read
+		 * @param offset the index of the first byte written by {@link #write(Object, ByteBuffer, int)}
+		 * @return the data
+		 */
+		T read(ByteBuffer buffer, int offset);
+	}
+
+	/** The number of records of a chunk is <tt>1 &lt;&lt; CHUNK_SHIFT</tt>. */
+	private static final int CHUNK_SHIFT = 16;
+
+	/** The mask giving the index of a record in its chunk. */
+	private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+	/** The offsets of the fields of a record. */
+	private static final int TIME = 0, SERIAL = 8, SOURCE = 16, DESTINATION = 20, TAG = 24, DATA = 28;
+
+	/** The codec of the data of the events. */
+	private final Codec<T> codec;
+
+	/** The number of bytes of a record. */
+	private final int recordSize;
+
+	/** How far beyond the next event of the simulation the events are moved to the future events. */
+	private final double horizon;
+
+	/** The direct buffers holding the records, <tt>null</tt> once all their events are moved. */
+	private final List<ByteBuffer> chunks = new ArrayList<>();
+
+	/** The tags of the events, by the index held in the records. */
+	private final List<CloudSimTags> tags = new ArrayList<>();
+
+	/** The indexes of the tags. */
+	private final Map<CloudSimTags, Integer> tagIndexes = new HashMap<>();
+
+	/** The number of events added. */
+	private long added = 0;
+
+	/** The number of events moved to the future events. */
+	private long moved = 0;
+
+	/** The time of the last event added. */
+	private double lastTime = 0;
+
+	/** The simulation the store has been added to, or <tt>null</tt>. */
+	private SimulationContext context = null;
+
+	/**
+	 * Creates an empty store.
+	 *
+	 * @param codec the codec of the data of the events
+	 * @param horizon how far beyond the next event of the simulation the stored events are moved to
+	 *            the future events, at least 0
+	 * @throws IllegalArgumentException if the horizon is negative or the encoded data too large
+	 */
+	public OffHeapEventStore(Codec<T> codec, double horizon) {
+		if (!(horizon >= 0)) {
+			throw new IllegalArgumentException("The horizon should not be negative, but is:" + horizon);
+		}
+		if (codec.size() < 0 || codec.size() > (Integer.MAX_VALUE >> CHUNK_SHIFT) - DATA) {
+			throw new IllegalArgumentException("Can't store " + codec.size() + " bytes of data per event");
+		}
+		this.codec = codec;
+		this.horizon = horizon;
+		recordSize = DATA + codec.size();
+	}
+
+	/**
+	 * Adds an event.
+	 *
+	 * @param time the simulation time at which the event is delivered
+	 * @param srcId the id of the entity sending the event
+	 * @param dstId the id of the entity receiving the event
+	 * @param tag the tag of the event
+	 * @param data the data of the event
+	 * @throws IllegalArgumentException if the time is before the one of the last event added, or
+	 *             before the clock of the simulation the store has been added to
+	 */
+	public void add(double time, int srcId, int dstId, CloudSimTags tag, T data) {
+		Objects.requireNonNull(tag);
+		if (!(time >= lastTime) || time >= Double.MAX_VALUE) {
+			throw new IllegalArgumentException("The events should be added in time order, but " + time
+					+ " comes after " + lastTime);
+		}
+		if (context != null && time < context.clock()) {
+			throw new IllegalArgumentException("The event time " + time + " is in the past");
+		}
+
+		int index = (int) (added & CHUNK_MASK);
+		if (index == 0) {
+			chunks.add(ByteBuffer.allocateDirect(recordSize << CHUNK_SHIFT));
+		}
+		ByteBuffer chunk = chunks.get(chunks.size() - 1);
+		int offset = index * recordSize;
+		chunk.putDouble(offset + TIME, time);
+		chunk.putLong(offset + SERIAL, context != null ? context.reserveSerials(1) : -1);
+		chunk.putInt(offset + SOURCE, srcId);
+		chunk.putInt(offset + DESTINATION, dstId);
+		chunk.putInt(offset + TAG, tagIndexes.computeIfAbsent(tag, t -> {
+			tags.add(t);
+			return tags.size() - 1;
+		}));
+		codec.write(data, chunk, offset + DATA);
+		lastTime = time;
+		added++;
+		if (context != null && added - moved == 1) {
+			// a drained store is dropped by the simulation until it has events again
+			context.resumeEventStore(this);
+		}
+	}
+
+	/**
+	 * Gets the number of events not moved to the future events yet.
+	 *
+	 * @return the number of events
+	 */
+	public long size() {
+		return added - moved;
+	}
+
+	/**
+	 * Gets how far beyond the next event of the simulation the stored events are moved to the
+	 * future events.
+	 *
+	 * @return the horizon
+	 */
+	public double getHorizon() {
+		return horizon;
+	}
+
+	/**
+	 * Adds the store to a simulation, whose events sent afterwards come after the stored ones of
+	 * the same time.
+	 *
+	 * @param context the simulation
+	 * @param firstSerial the first of the {@link #size()} serial numbers reserved for the events
+	 * @throws IllegalStateException if the store has already been added to a simulation
+	 */
+	void bind(SimulationContext context, long firstSerial) {
+		if (this.context != null) {
+			throw new IllegalStateException("The store has already been added to a simulation");
+		}
+		this.context = context;
+		for (long i = moved; i < added; i++) {
+			chunks.get((int) (i >>> CHUNK_SHIFT)).putLong((int) (i & CHUNK_MASK) * recordSize + SERIAL,
+					firstSerial + i - moved);
+		}
+	}
+
+	/**
+	 * Gets the time of the next stored event.
+	 *
+	 * @return the time, or {@link Double#POSITIVE_INFINITY} if there is no more event
+	 */
+	double nextTime() {
+		if (moved == added) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return chunks.get((int) (moved >>> CHUNK_SHIFT)).getDouble((int) (moved & CHUNK_MASK) * recordSize + TIME);
+	}
+
+	/**
+	 * Takes the next stored event out of the store, as a {@link SimEvent}.
+	 *
+	 * @return the event, with the serial number reserved for it
+	 */
+	SimEvent poll() {
+		int chunkIndex = (int) (moved >>> CHUNK_SHIFT);
+		ByteBuffer chunk = chunks.get(chunkIndex);
+		int offset = (int) (moved & CHUNK_MASK) * recordSize;
+		SimEvent ev = new SimEvent(SimEvent.SEND, chunk.getDouble(offset + TIME), chunk.getInt(offset + SOURCE),
+				chunk.getInt(offset + DESTINATION), tags.get(chunk.getInt(offset + TAG)),
+				codec.read(chunk, offset + DATA));
+		ev.setSerial(chunk.getLong(offset + SERIAL));
+		moved++;
+		if ((moved & CHUNK_MASK) == 0) {
+			// the chunk is full and all its events moved, its memory can be freed
+			chunks.set(chunkIndex, null);
+		}
+		return ev;
+	}
+}
@@ -0,0 +1,265 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.concurrent.locks.LockSupport;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+
+/**
+ * An entity written as a sequential process rather than as an event handler. Its
+ * {@link #body()} runs from the start of the simulation and blocks in {@link #hold(double)} to
+ * let simulation time pass, and in {@link #await(Predicate)} to wait for an event, e.g.:
+ *
+ * <pre>
+ * protected void body() {
+ * 	sendNow(datacenterId, CloudActionTags.RESOURCE_CHARACTERISTICS, getId());
+ * 	SimEvent reply = await(new PredicateType(CloudActionTags.RESOURCE_CHARACTERISTICS));
+ * 	hold(10);
+ * 	...
+ * }
+ * </pre>
+ *
+ * The body runs on a virtual thread of its own, so that a simulation can hold hundreds of
+ * thousands of processes. The thread running the simulation hands the control over to the
+ * process when it starts, when its hold is over and when an event it waits for arrives, and
+ * waits until the process blocks again: a single thread runs at a time, and the simulation is as
+ * deterministic as with event handlers. The hold is the engine's own {@link SimEvent#HOLD_DONE},
+ * and the events the process doesn't wait for stay in its deferred queue until it does.
+ * <p>
+ * A process still blocked when the simulation finishes is unwound by an error thrown from the
+ * blocking call, that the body must not catch. An exception thrown by the body ends the
+ * simulation. The processes can't be checkpointed nor forked.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public abstract class ProcessEntity extends SimEntity {
+
+	/** Thrown from the blocking calls of a process to unwind it when the simulation finishes. */
+	private static final class ProcessTerminated extends Error {
+		private static final long serialVersionUID = 1L;
+
+		ProcessTerminated() {
+			super(null, null, false, false);
+		}
+	}
+
+	/** The virtual thread running the body. */
+	private Thread process;
+
+	/** The thread running the simulation, waiting for the process to block. */
+	private Thread engine;
+
+	/** Whether the process runs, rather than the simulation. */
+	private volatile boolean processTurn;
+
+	/** The state of the thread running the simulation, taken over by the process. */
+	private SimulationContext.EntityThreadState threadState;
+
+	/** Whether the process holds until its {@link SimEvent#HOLD_DONE}. */
+	private boolean holding;
+
+	/** The predicate of the events the process waits for, or <tt>null</tt> if it doesn't. */
+	private Predicate awaited;
+
+	/** The event the process was waiting for. */
+	private SimEvent received;
+
+	/** Whether the body has returned. */
+	private boolean finished;
+
+	/** Whether the simulation finishes while the process is blocked. */
+	private boolean terminated;
+
+	/** The exception thrown by the body. */
+	private Throwable failure;
+
+	/**
+	 * Creates a new process entity.
+	 *
+	 * @param name the name to be associated with the entity
+	 */
+	public ProcessEntity(String name) {
+		super(name);
+	}
+
+	/**
+	 * The process of the entity, started with the simulation.
+	 */
+	protected abstract void body();
+
+	/**
+	 * Lets a time period of the simulation pass.
+	 *
+	 * @param delay the time period
+	 * @throws IllegalStateException if not called by the body of the process
+	 */
+	protected void hold(double delay) {
+		checkProcess();
+		pause(delay);
+		holding = true;
+		switchToEngine();
+	}
+
+	/**
+	 * Waits for an event matching a predicate. An event already in the deferred queue of the
+	 * entity is returned right away.
+	 *
+	 * @param p the predicate to match
+	 * @return the event, removed from the deferred queue
+	 * @throws IllegalStateException if not called by the body of the process
+	 */
+	protected SimEvent await(Predicate p) {
+		checkProcess();
+		SimEvent ev = selectEvent(p);
+		if (ev != null) {
+			return ev;
+		}
+		awaited = p;
+		switchToEngine();
+		return received;
+	}
+
+	/**
+	 * Waits for the next event.
+	 *
+	 * @return the event
+	 * @throws IllegalStateException if not called by the body of the process
+	 */
+	protected SimEvent await() {
+		return await(CloudSim.SIM_ANY);
+	}
+
+	/**
+	 * Checks if the body has returned, or thrown an exception.
+	 *
+	 * @return true, if the process is over; false if it hasn't or has been unwound
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	@Override
+	public void startEntity() {
+		super.startEntity();
+		process = Thread.ofVirtual().name(getName()).unstarted(this::runBody);
+		switchToProcess();
+	}
+
+	/**
+	 * Hands the control over to the process when its hold is over or when events it waits for
+	 * have arrived.
+	 */
+	@Override
+	public void run() {
+		if (holding) {
+			// made runnable again by the end of the hold
+			holding = false;
+			received = null;
+			switchToProcess();
+		}
+		while (!finished && !holding && awaited != null && getSimulationContext().running()) {
+			SimEvent ev = selectEvent(awaited);
+			if (ev == null) {
+				break;
+			}
+			awaited = null;
+			received = ev;
+			switchToProcess();
+		}
+	}
+
+	/**
+	 * Defers the event for the process, which only gets events through {@link #await(Predicate)}.
+	 *
+	 * @param ev the event
+	 */
+	@Override
+	public final void processEvent(SimEvent ev) {
+		getIncomingEvents().add(ev);
+		run();
+	}
+
+	@Override
+	public void shutdownEntity() {
+		if (process != null && process.isAlive() && !finished) {
+			terminated = true;
+			switchToProcess();
+		}
+		super.shutdownEntity();
+	}
+
+	private void runBody() {
+		CloudSim.bindSimulationContext(getSimulationContext());
+		getSimulationContext().restoreEntityThreadState(threadState);
+		try {
+			body();
+		} catch (ProcessTerminated e) {
+			// unwound by the end of the simulation
+		} catch (Throwable e) {
+			failure = e;
+		}
+		finished = !terminated;
+		processTurn = false;
+		LockSupport.unpark(engine);
+	}
+
+	/**
+	 * Runs the process from the thread running the simulation, until it blocks or returns.
+	 */
+	private void switchToProcess() {
+		engine = Thread.currentThread();
+		threadState = getSimulationContext().captureEntityThreadState();
+		processTurn = true;
+		if (process.getState() == Thread.State.NEW) {
+			process.start();
+		} else {
+			LockSupport.unpark(process);
+		}
+		while (processTurn) {
+			LockSupport.park(this);
+		}
+
+		if (failure != null) {
+			Throwable e = failure;
+			failure = null;
+			if (e instanceof RuntimeException re) {
+				throw re;
+			} else if (e instanceof Error error) {
+				throw error;
+			}
+			throw new IllegalStateException("The process of " + getName() + " failed", e);
+		}
+	}
+
+	/**
+	 * Blocks the process, and gives the control back to the thread running the simulation.
+	 */
+	private void switchToEngine() {
+		processTurn = false;
+		LockSupport.unpark(engine);
+		while (!processTurn) {
+			LockSupport.park(this);
+		}
+
+		if (terminated) {
+			throw new ProcessTerminated();
+		}
+		getSimulationContext().restoreEntityThreadState(threadState);
+	}
+
+	private void checkProcess() {
+		if (Thread.currentThread() != process) {
+			throw new IllegalStateException("Only the body of " + getName() + " can block");
+		}
+		if (terminated) {
+			throw new ProcessTerminated();
+		}
+	}
+}
@@ -1,6 +1,5 @@
 package org.cloudbus.cloudsim.core;
 
-import org.cloudbus.cloudsim.core.predicates.PredicateType;
 import org.cloudbus.cloudsim.Log;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -65,7 +64,7 @@ public class ScheduledResource extends SimEntity {
     }
 
     private void scheduleNext() {
-        CloudSim.cancelAll(getId(), new PredicateType(CloudActionTags.NETWORK_PKT_FORWARD));
+        CloudSim.cancelAll(getId(), CloudActionTags.NETWORK_PKT_FORWARD);
         if (amountsLeft.isEmpty())
             return;
         double delay = amountsLeft.getFirst().amountLeft / capacity * amountsLeft.size();
@@ -11,8 +11,7 @@ package org.cloudbus.cloudsim.core;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.NetworkTopology;
 import org.cloudbus.cloudsim.core.predicates.Predicate;
-
-import java.util.Iterator;
+import org.cloudbus.cloudsim.jfr.EventDispatchEvent;
 
 /**
  * This class represents a simulation entity. An entity handles events and can send events to other
@@ -43,7 +42,10 @@ public abstract class SimEntity implements Cloneable {
 	private String name;
 	private int id;
 	private EntityStatus state;
-	protected EventQueue incomingEvents;
+	protected DeferredQueue incomingEvents;
+
+	/** The simulation context this entity belongs to. */
+	private final SimulationContext context;
 
 	/**
 	 * Creates a new entity.
@@ -57,9 +59,10 @@ public abstract class SimEntity implements Cloneable {
 		this.name = name;
 		id = -1;
 		state = EntityStatus.RUNNABLE;
-		incomingEvents = new EventQueue();
+		incomingEvents = new DeferredQueue();
 
-		CloudSim.addEntity(this);
+		context = CloudSim.getSimulationContext();
+		context.addEntity(this);
 	}
 
 	/**
@@ -80,10 +83,19 @@ public abstract class SimEntity implements Cloneable {
 		return id;
 	}
 
-	public EventQueue getIncomingEvents() {
+	public DeferredQueue getIncomingEvents() {
 		return incomingEvents;
 	}
 
+	/**
+	 * Gets the simulation context this entity was created in.
+	 *
+	 * @return the simulation context
+	 */
+	public SimulationContext getSimulationContext() {
+		return context;
+	}
+
 	/** Handle incoming event functions */
 	/**
 	 * Checks if events for a specific entity are present in the deferred event queue.
@@ -92,13 +104,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @return the int
 	 */
 	public int waiting(Predicate p) {
-		int count = 0;
-		for (SimEvent event : incomingEvents) {
-			if ((event.getDestinationId() == id) && (p.match(event))) {
-				count++;
-			}
-		}
-		return count;
+		return incomingEvents.count(p);
 	}
 
 	/**
@@ -108,20 +114,11 @@ public abstract class SimEntity implements Cloneable {
 	 * @return the sim event
 	 */
 	public SimEvent selectEvent(Predicate p) {
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return null;
 		}
 
-		SimEvent ev;
-		Iterator<SimEvent> iterator = incomingEvents.iterator();
-		while (iterator.hasNext()) {
-			ev = iterator.next();
-			if (ev.getDestinationId() == id && p.match(ev)) {
-				iterator.remove();
-				return ev;
-			}
-		}
-		return null;
+		return incomingEvents.find(p, true);
 	}
 
 	/**
@@ -131,14 +128,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @return the sim event
 	 */
 	public SimEvent findFirstDeferred(Predicate p) {
-		SimEvent ev;
-		for (SimEvent simEvent : incomingEvents) {
-			ev = simEvent;
-			if (ev.getDestinationId() == id && p.match(ev)) {
-				return ev;
-			}
-		}
-		return null;
+		return incomingEvents.find(p, false);
 	}
 
 	/** Schedule event functions */
@@ -149,12 +139,13 @@ public abstract class SimEntity implements Cloneable {
 	 * @param delay How long from the current simulation time the event should be sent
 	 * @param tag event type.
 	 * @param data The data to be sent with the event.
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	public void schedule(int dstId, double delay, CloudSimTags tag, Object data) {
-		if (!CloudSim.running()) {
-			return;
+	public SimEvent schedule(int dstId, double delay, CloudSimTags tag, Object data) {
+		if (!context.running()) {
+			return null;
 		}
-		CloudSim.send(id, dstId, delay, tag, data);
+		return context.send(id, dstId, delay, tag, data);
 	}
 
 	/**
@@ -163,9 +154,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param dstId The unique id number of the destination entity
 	 * @param delay How long from the current simulation time the event should be sent
 	 * @param tag event type.
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	public void schedule(int dstId, double delay, CloudSimTags tag) {
-		schedule(dstId, delay, tag, null);
+	public SimEvent schedule(int dstId, double delay, CloudSimTags tag) {
+		return schedule(dstId, delay, tag, null);
 	}
 
 	/**
@@ -175,9 +167,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param delay How long from the current simulation time the event should be sent
 	 * @param tag event type.
 	 * @param data The data to be sent with the event.
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	public void schedule(String dstName, double delay, CloudSimTags tag, Object data) {
-		schedule(CloudSim.getEntityId(dstName), delay, tag, data);
+	public SimEvent schedule(String dstName, double delay, CloudSimTags tag, Object data) {
+		return schedule(context.getEntityId(dstName), delay, tag, data);
 	}
 
 	/**
@@ -186,9 +179,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param dstName The name of the port to send the event through
 	 * @param delay How long from the current simulation time the event should be sent
 	 * @param tag event type.
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	public void schedule(String dstName, double delay, CloudSimTags tag) {
-		schedule(dstName, delay, tag, null);
+	public SimEvent schedule(String dstName, double delay, CloudSimTags tag) {
+		return schedule(dstName, delay, tag, null);
 	}
 
 	/**
@@ -197,9 +191,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param dstId The unique id number of the destination entity
 	 * @param tag event type.
 	 * @param data The data to be sent with the event.
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	public void scheduleNow(int dstId, CloudSimTags tag, Object data) {
-		schedule(dstId, 0, tag, data);
+	public SimEvent scheduleNow(int dstId, CloudSimTags tag, Object data) {
+		return schedule(dstId, 0, tag, data);
 	}
 
 	/**
@@ -208,9 +203,10 @@ public abstract class SimEntity implements Cloneable {
 	 * 
 	 * @param dstId The unique id number of the destination entity
 	 * @param tag event type.
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	public void scheduleNow(int dstId, CloudSimTags tag) {
-		schedule(dstId, 0, tag, null);
+	public SimEvent scheduleNow(int dstId, CloudSimTags tag) {
+		return schedule(dstId, 0, tag, null);
 	}
 
 	/**
@@ -220,9 +216,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param dstName The name of the port to send the event through
 	 * @param tag event type.
 	 * @param data The data to be sent with the event.
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	public void scheduleNow(String dstName, CloudSimTags tag, Object data) {
-		schedule(CloudSim.getEntityId(dstName), 0, tag, data);
+	public SimEvent scheduleNow(String dstName, CloudSimTags tag, Object data) {
+		return schedule(context.getEntityId(dstName), 0, tag, data);
 	}
 
 	/**
@@ -231,9 +228,10 @@ public abstract class SimEntity implements Cloneable {
 	 * 
 	 * @param dstName The name of the port to send the event through
 	 * @param tag event type.
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	public void scheduleNow(String dstName, CloudSimTags tag) {
-		schedule(dstName, 0, tag, null);
+	public SimEvent scheduleNow(String dstName, CloudSimTags tag) {
+		return schedule(dstName, 0, tag, null);
 	}
 
 	/**
@@ -243,12 +241,13 @@ public abstract class SimEntity implements Cloneable {
 	 * @param delay How long from the current simulation time the event should be sent
 	 * @param tag event type.
 	 * @param data The data to be sent with the event.
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	public void scheduleFirst(int dstId, double delay, CloudSimTags tag, Object data) {
-		if (!CloudSim.running()) {
-			return;
+	public SimEvent scheduleFirst(int dstId, double delay, CloudSimTags tag, Object data) {
+		if (!context.running()) {
+			return null;
 		}
-		CloudSim.sendFirst(id, dstId, delay, tag, data);
+		return context.sendFirst(id, dstId, delay, tag, data);
 	}
 
 	/**
@@ -257,9 +256,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param dstId The unique id number of the destination entity
 	 * @param delay How long from the current simulation time the event should be sent
 	 * @param tag event type.
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	public void scheduleFirst(int dstId, double delay, CloudSimTags tag) {
-		scheduleFirst(dstId, delay, tag, null);
+	public SimEvent scheduleFirst(int dstId, double delay, CloudSimTags tag) {
+		return scheduleFirst(dstId, delay, tag, null);
 	}
 
 	/**
@@ -269,9 +269,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param delay How long from the current simulation time the event should be sent
 	 * @param tag event type.
 	 * @param data The data to be sent with the event.
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	public void scheduleFirst(String dstName, double delay, CloudSimTags tag, Object data) {
-		scheduleFirst(CloudSim.getEntityId(dstName), delay, tag, data);
+	public SimEvent scheduleFirst(String dstName, double delay, CloudSimTags tag, Object data) {
+		return scheduleFirst(context.getEntityId(dstName), delay, tag, data);
 	}
 
 	/**
@@ -281,9 +282,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param dstName The name of the port to send the event through
 	 * @param delay How long from the current simulation time the event should be sent
 	 * @param tag event type.
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	public void scheduleFirst(String dstName, double delay, CloudSimTags tag) {
-		scheduleFirst(dstName, delay, tag, null);
+	public SimEvent scheduleFirst(String dstName, double delay, CloudSimTags tag) {
+		return scheduleFirst(dstName, delay, tag, null);
 	}
 
 	/**
@@ -293,9 +295,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param dstId The unique id number of the destination entity
 	 * @param tag event type.
 	 * @param data The data to be sent with the event.
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	public void scheduleFirstNow(int dstId, CloudSimTags tag, Object data) {
-		scheduleFirst(dstId, 0, tag, data);
+	public SimEvent scheduleFirstNow(int dstId, CloudSimTags tag, Object data) {
+		return scheduleFirst(dstId, 0, tag, data);
 	}
 
 	/**
@@ -304,9 +307,10 @@ public abstract class SimEntity implements Cloneable {
 	 * 
 	 * @param dstId The unique id number of the destination entity
 	 * @param tag event type.
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	public void scheduleFirstNow(int dstId, CloudSimTags tag) {
-		scheduleFirst(dstId, 0, tag, null);
+	public SimEvent scheduleFirstNow(int dstId, CloudSimTags tag) {
+		return scheduleFirst(dstId, 0, tag, null);
 	}
 
 	/**
@@ -316,9 +320,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @param dstName The name of the port to send the event through
 	 * @param tag event type.
 	 * @param data The data to be sent with the event.
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	public void scheduleFirstNow(String dstName, CloudSimTags tag, Object data) {
-		scheduleFirst(CloudSim.getEntityId(dstName), 0, tag, data);
+	public SimEvent scheduleFirstNow(String dstName, CloudSimTags tag, Object data) {
+		return scheduleFirst(context.getEntityId(dstName), 0, tag, data);
 	}
 
 	/**
@@ -327,9 +332,10 @@ public abstract class SimEntity implements Cloneable {
 	 * 
 	 * @param dstName The name of the port to send the event through
 	 * @param tag event type.
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	public void scheduleFirstNow(String dstName, CloudSimTags tag) {
-		scheduleFirst(dstName, 0, tag, null);
+	public SimEvent scheduleFirstNow(String dstName, CloudSimTags tag) {
+		return scheduleFirst(dstName, 0, tag, null);
 	}
 
 	/**
@@ -341,10 +347,10 @@ public abstract class SimEntity implements Cloneable {
 		if (delay < 0) {
 			throw new IllegalArgumentException("Negative delay supplied.");
 		}
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return;
 		}
-		CloudSim.pause(id, delay);
+		context.pause(id, delay);
 	}
 
 	/**
@@ -375,11 +381,26 @@ public abstract class SimEntity implements Cloneable {
 	 * @return The number of events cancelled (0 or 1)
 	 */
 	public SimEvent cancelEvent(Predicate p) {
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return null;
 		}
 
-		return CloudSim.cancel(id, p);
+		return context.cancel(id, p);
+	}
+
+	/**
+	 * Cancels an event previously sent by the entity, if it is still waiting in the future queue.
+	 *
+	 * @param ev the event, as returned by the <tt>schedule</tt> and <tt>send</tt> methods
+	 * @return <tt>true</tt> if the event has been cancelled; <tt>false</tt> if it has already been
+	 *         delivered or cancelled
+	 */
+	public boolean cancelEvent(SimEvent ev) {
+		if (!context.running()) {
+			return false;
+		}
+
+		return context.cancel(ev);
 	}
 
 	/**
@@ -390,7 +411,7 @@ public abstract class SimEntity implements Cloneable {
 	 * @return the simulation event
 	 */
 	public SimEvent getNextEvent(Predicate p) {
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return null;
 		}
 		return selectEvent(p);
@@ -403,11 +424,11 @@ public abstract class SimEntity implements Cloneable {
 	 * @param p The predicate to match
 	 */
 	public void waitForEvent(Predicate p) {
-		if (!CloudSim.running()) {
+		if (!context.running()) {
 			return;
 		}
 
-		CloudSim.wait(id, p);
+		context.wait(id, p);
 		state = EntityStatus.WAITING;
 	}
 
@@ -416,7 +437,7 @@ public abstract class SimEntity implements Cloneable {
 	 * It should be responsible for starting the entity up.
 	 */
 	public void startEntity() {
-		Log.printlnConcat(CloudSim.clock(), ": ", getName(), " is starting...");
+		Log.printlnConcat(context.clock(), ": ", getName(), " is starting...");
 	}
 
 	/**
@@ -434,7 +455,7 @@ public abstract class SimEntity implements Cloneable {
 	 * to save data in log files this is the method in which the corresponding code would be placed.
 	 */
 	public void shutdownEntity() {
-		Log.printlnConcat(CloudSim.clock(), ": ", getName(), " is shutting down...");
+		Log.printlnConcat(context.clock(), ": ", getName(), " is shutting down...");
 		incomingEvents = null;
 		state = EntityStatus.FINISHED;
 	}
@@ -443,18 +464,39 @@ public abstract class SimEntity implements Cloneable {
 	 * The run loop to process events fired during the simulation.
 	 * The events that will be processed are defined
 	 * in the {@link #processEvent(org.cloudbus.cloudsim.core.SimEvent)} method.
+	 * It is only invoked in the clock ticks in which the entity is runnable and has received
+	 * events or has just become runnable again.
 	 *
 	 * @see #processEvent(org.cloudbus.cloudsim.core.SimEvent)
 	 */
 	public void run() {
-		SimEvent ev =  incomingEvents.poll();
-
-		while (ev != null) {
-			processEvent(ev);
+		while (context.running()) {
+			SimEvent ev = incomingEvents.poll();
+			if (ev == null) {
+				break;
+			}
+			EventDispatchEvent dispatch = new EventDispatchEvent();
+			dispatch.begin();
+			if (SimulationMetrics.ENABLED && context.getMetrics() != null) {
+				long start = System.nanoTime();
+				processEvent(ev);
+				context.getMetrics().recordHandler(this, ev.getTag(), System.nanoTime() - start);
+			} else {
+				processEvent(ev);
+			}
+			dispatch.end();
+			if (dispatch.shouldCommit()) {
+				dispatch.clock = context.clock();
+				dispatch.entity = name;
+				dispatch.entityClass = getClass();
+				dispatch.tag = String.valueOf(ev.getTag());
+				dispatch.source = ev.getSourceId();
+				dispatch.commit();
+			}
+			context.recycle(ev);
 			if (state != EntityStatus.RUNNABLE) {
 				break;
 			}
-			ev = incomingEvents.poll();
 		}
 	}
 
@@ -502,6 +544,10 @@ public abstract class SimEntity implements Cloneable {
 	 */
 	protected void setState(EntityStatus state) {
 		this.state = state;
+		if (state == EntityStatus.RUNNABLE) {
+			// deferred events left by a previous run can be processed again
+			context.activate(id);
+		}
 	}
 
 	/**
@@ -528,10 +574,11 @@ public abstract class SimEntity implements Cloneable {
 	 * @pre delay >= 0.0
 	 * @pre data != null
 	 * @post $none
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	protected void send(int dstId, double delay, CloudSimTags cloudSimTag, Object data) {
+	protected SimEvent send(int dstId, double delay, CloudSimTags cloudSimTag, Object data) {
 		if (dstId < 0) {
-			return;
+			return null;
 		}
 
 		// if delay is -ve, then it doesn't make sense. So resets to 0.0
@@ -545,7 +592,7 @@ public abstract class SimEntity implements Cloneable {
 
 		if (dstId < 0) {
 			Log.printlnConcat(getName(), ".send(): Error - invalid entity id ", dstId);
-			return;
+			return null;
 		}
 
 		int srcId = getId();
@@ -553,7 +600,7 @@ public abstract class SimEntity implements Cloneable {
 			delay += getNetworkDelay(srcId, dstId);
 		}
 
-		schedule(dstId, delay, cloudSimTag, data);
+		return schedule(dstId, delay, cloudSimTag, data);
 	}
 
 	/**
@@ -567,9 +614,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @pre dstId > 0
 	 * @pre delay >= 0.0
 	 * @post $none
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	protected void send(int dstId, double delay, CloudSimTags tag) {
-		send(dstId, delay, tag, null);
+	protected SimEvent send(int dstId, double delay, CloudSimTags tag) {
+		return send(dstId, delay, tag, null);
 	}
 
 	/**
@@ -585,9 +633,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @pre delay >= 0.0
 	 * @pre data != null
 	 * @post $none
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	protected void send(String dstName, double delay, CloudSimTags tag, Object data) {
-		send(CloudSim.getEntityId(dstName), delay, tag, data);
+	protected SimEvent send(String dstName, double delay, CloudSimTags tag, Object data) {
+		return send(context.getEntityId(dstName), delay, tag, data);
 	}
 
 	/**
@@ -601,9 +650,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @pre entityName != null
 	 * @pre delay >= 0.0
 	 * @post $none
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	protected void send(String dstName, double delay, CloudSimTags tag) {
-		send(dstName, delay, tag, null);
+	protected SimEvent send(String dstName, double delay, CloudSimTags tag) {
+		return send(dstName, delay, tag, null);
 	}
 
 	/**
@@ -616,9 +666,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @pre delay >= 0.0
 	 * @pre data != null
 	 * @post $none
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	protected void sendNow(int dstId, CloudSimTags tag, Object data) {
-		send(dstId, 0, tag, data);
+	protected SimEvent sendNow(int dstId, CloudSimTags tag, Object data) {
+		return send(dstId, 0, tag, data);
 	}
 
 	/**
@@ -629,9 +680,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @pre dstId > 0
 	 * @pre delay >= 0.0
 	 * @post $none
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	protected void sendNow(int dstId, CloudSimTags tag) {
-		send(dstId, 0, tag, null);
+	protected SimEvent sendNow(int dstId, CloudSimTags tag) {
+		return send(dstId, 0, tag, null);
 	}
 
 	/**
@@ -644,9 +696,10 @@ public abstract class SimEntity implements Cloneable {
 	 * @pre delay >= 0.0
 	 * @pre data != null
 	 * @post $none
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
 	 */
-	protected void sendNow(String dstId, CloudSimTags tag, Object data) {
-		send(CloudSim.getEntityId(dstId), 0, tag, data);
+	protected SimEvent sendNow(String dstId, CloudSimTags tag, Object data) {
+		return send(context.getEntityId(dstId), 0, tag, data);
 	}
 
 	/**
@@ -657,9 +710,67 @@ public abstract class SimEntity implements Cloneable {
 	 * @pre entityName != null
 	 * @pre delay >= 0.0
 	 * @post $none
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
+	 */
+	protected SimEvent sendNow(String dstName, CloudSimTags tag) {
+		return send(dstName, 0, tag, null);
+	}
+
+	/**
+	 * Sends an event/message carrying three int values to another entity by <tt>delaying</tt> the
+	 * simulation time from the current time. Unlike an <tt>int[]</tt> sent as data, the values are
+	 * stored in the event itself and read with {@link SimEvent#getIntData(int)}.
+	 *
+	 * @param dstId the id number of the destination entity
+	 * @param delay how long from the current simulation time the event should be sent
+	 * @param tag an user-defined number representing the type of an event/message
+	 * @param value0 the first value
+	 * @param value1 the second value
+	 * @param value2 the third value
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
+	 */
+	protected SimEvent send(int dstId, double delay, CloudSimTags tag, int value0, int value1, int value2) {
+		SimEvent ev = send(dstId, delay, tag, null);
+		if (ev != null) {
+			ev.setIntData(value0, value1, value2);
+		}
+		return ev;
+	}
+
+	/**
+	 * Sends an event/message carrying three int values to another entity.
+	 *
+	 * @param dstId the id number of the destination entity
+	 * @param tag an user-defined number representing the type of an event/message
+	 * @param value0 the first value
+	 * @param value1 the second value
+	 * @param value2 the third value
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
+	 * @see #send(int, double, CloudSimTags, int, int, int)
 	 */
-	protected void sendNow(String dstName, CloudSimTags tag) {
-		send(dstName, 0, tag, null);
+	protected SimEvent sendNow(int dstId, CloudSimTags tag, int value0, int value1, int value2) {
+		return send(dstId, 0, tag, value0, value1, value2);
+	}
+
+	/**
+	 * Sends an event/message carrying a long and a double value to another entity by
+	 * <tt>delaying</tt> the simulation time from the current time. The values are read with
+	 * {@link SimEvent#getLongData()} and {@link SimEvent#getDoubleData()}.
+	 *
+	 * @param dstId the id number of the destination entity
+	 * @param delay how long from the current simulation time the event should be sent
+	 * @param tag an user-defined number representing the type of an event/message
+	 * @param longValue the long value
+	 * @param doubleValue the double value
+	 * @return the scheduled event, or <tt>null</tt> if the simulation isn't running
+	 */
+	protected SimEvent send(int dstId, double delay, CloudSimTags tag, long longValue, double doubleValue) {
+		SimEvent ev = send(dstId, delay, tag, null);
+		if (ev != null) {
+			ev.setLongData(longValue);
+			ev.setDoubleData(doubleValue);
+		}
+		return ev;
 	}
 
 	/**
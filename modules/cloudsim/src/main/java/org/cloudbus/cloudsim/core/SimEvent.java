@@ -17,10 +17,10 @@ package org.cloudbus.cloudsim.core;
 public class SimEvent implements Cloneable, Comparable<SimEvent> {
 
 	/** Internal event type. **/
-	private final int etype;
+	private int etype;
 
 	/** The time that this event was scheduled, at which it should occur. **/
-	private final double time;
+	private double time;
 
 	/** Time that the event was removed from the queue to start service. **/
 	private double endWaitingTime;
@@ -32,7 +32,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	private int entDst;
 
 	/** The user defined type of the event. **/
-	private final CloudSimTags tag;
+	private CloudSimTags tag;
 
 	/** 
          * Any data the event is carrying. 
@@ -40,7 +40,7 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
          * But this modification would incur several changes in the simulator core
          * that has to be assessed first.
          **/
-	private final Object data;
+	private Object data;
 
         /**
          * An attribute to help CloudSim to identify the order of received events
@@ -52,6 +52,26 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
          */
 	private long serial = -1;
 
+	/** The simulation time at which the event has been created, used to order the events of a parallel run. */
+	private double creationTime;
+
+	/** Whether the event has been cancelled before being delivered. */
+	private boolean cancelled;
+
+	/** The queue currently holding the event, or <tt>null</tt> if it isn't queued. */
+	private Iterable<SimEvent> queue;
+
+	/** The entry of {@link #queue}'s index listing the event, if any. */
+	private EventQueue.Bucket bucket;
+
+	/** The primitive payload, carried instead of a {@link #data} object that would have to be allocated. */
+	private int intData0, intData1, intData2;
+	private long longData;
+	private double doubleData;
+
+	/** Whether the event carries int values, exposed as an <tt>int[]</tt> by {@link #getData()}. */
+	private boolean hasIntData;
+
 	// Internal event types
 
 	public static final int ENULL = 0;
@@ -77,10 +97,86 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 		this(type, time, src, src, CloudActionTags.BLANK, null);
 	}
 
+	/**
+	 * Reuses a recycled event.
+	 *
+	 * @see SimEventPool
+	 */
+	void reset(int type, double time, int src, int dest, CloudSimTags tag, Object edata) {
+		etype = type;
+		this.time = time;
+		entSrc = src;
+		entDst = dest;
+		this.tag = tag;
+		data = edata;
+		endWaitingTime = -1.0;
+		serial = -1;
+		creationTime = 0;
+		cancelled = false;
+		queue = null;
+		bucket = null;
+		intData0 = intData1 = intData2 = 0;
+		longData = 0;
+		doubleData = 0;
+		hasIntData = false;
+	}
+
+	double getCreationTime() {
+		return creationTime;
+	}
+
+	void setCreationTime(double creationTime) {
+		this.creationTime = creationTime;
+	}
+
+	void setIntData(int value0, int value1, int value2) {
+		intData0 = value0;
+		intData1 = value1;
+		intData2 = value2;
+		hasIntData = true;
+	}
+
+	void setLongData(long value) {
+		longData = value;
+	}
+
+	void setDoubleData(double value) {
+		doubleData = value;
+	}
+
 	protected void setSerial(long serial) {
 		this.serial = serial;
 	}
 
+	/**
+	 * Gets the serial number used to order the events happening at the same time.
+	 *
+	 * @return the serial number
+	 */
+	long getSerial() {
+		return serial;
+	}
+
+	Iterable<SimEvent> getQueue() {
+		return queue;
+	}
+
+	void setQueue(Iterable<SimEvent> queue) {
+		this.queue = queue;
+	}
+
+	EventQueue.Bucket getBucket() {
+		return bucket;
+	}
+
+	void setBucket(EventQueue.Bucket bucket) {
+		this.bucket = bucket;
+	}
+
+	void setCancelled() {
+		cancelled = true;
+	}
+
 	/**
 	 * Sets the time that the event was removed from the queue to start service. 
 	 * 
@@ -192,16 +288,98 @@ public class SimEvent implements Cloneable, Comparable<SimEvent> {
 	}
 
 	/**
-	 * Get the data passed in this event.
+	 * Checks if the event has been cancelled, e.g. through {@link CloudSim#cancel(SimEvent)},
+	 * before being delivered.
+	 *
+	 * @return <tt>true</tt> if the event has been cancelled
+	 */
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Get the data passed in this event. If the event carries int values instead of a data
+	 * object, they are returned in a new <tt>int[]</tt>; use {@link #getIntData(int)} to read
+	 * them without allocating.
 	 * 
 	 * @return A reference to the data
 	 */
 	public Object getData() {
+		if (data == null && hasIntData) {
+			return new int[] { intData0, intData1, intData2 };
+		}
 		return data;
 	}
 
+	/**
+	 * Checks if the event carries int values.
+	 *
+	 * @return <tt>true</tt> if the event has been sent with int values
+	 * @see #getIntData(int)
+	 */
+	public boolean hasIntData() {
+		return hasIntData;
+	}
+
+	/**
+	 * Gets one of the three int values carried by the event. The values of an event sent with an
+	 * <tt>int[]</tt> as data can be read this way too.
+	 *
+	 * @param index the index of the value (0, 1 or 2)
+	 * @return the value
+	 */
+	public int getIntData(int index) {
+		if (!hasIntData && data instanceof int[] values) {
+			return values[index];
+		}
+		return switch (index) {
+			case 0 -> intData0;
+			case 1 -> intData1;
+			case 2 -> intData2;
+			default -> throw new IndexOutOfBoundsException(index);
+		};
+	}
+
+	/**
+	 * Gets the long value carried by the event.
+	 *
+	 * @return the value, 0 if none has been sent
+	 */
+	public long getLongData() {
+		return longData;
+	}
+
+	/**
+	 * Gets the double value carried by the event.
+	 *
+	 * @return the value, 0 if none has been sent
+	 */
+	public double getDoubleData() {
+		return doubleData;
+	}
+
+	/**
+	 * Creates a copy of the event carrying other data, e.g. to handle each of the items of an event
+	 * carrying a list of them as an event of its own.
+	 *
+	 * @param data the data of the copy
+	 * @return the copy, not queued and with the same time, entities and tag as this event
+	 */
+	public SimEvent withData(Object data) {
+		SimEvent copy = new SimEvent(etype, time, entSrc, entDst, tag, data);
+		copy.setEndWaitingTime(endWaitingTime);
+		copy.setSerial(serial);
+		return copy;
+	}
+
 	@Override
 	public Object clone() {
-		return new SimEvent(etype, time, entSrc, entDst, tag, data);
+		SimEvent copy = new SimEvent(etype, time, entSrc, entDst, tag, data);
+		if (hasIntData) {
+			copy.setIntData(intData0, intData1, intData2);
+		}
+		copy.setLongData(longData);
+		copy.setDoubleData(doubleData);
+		return copy;
 	}
 }
@@ -0,0 +1,72 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+/**
+ * A recycler of {@link SimEvent} objects. Once enabled with
+ * {@link SimulationContext#setEventPoolingEnabled(boolean)}, the events are taken from the pool
+ * when they are sent and given back after they have been processed, so that a long simulation
+ * doesn't allocate one object per event.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+final class SimEventPool {
+
+	/** The maximum number of idle events kept by the pool. */
+	private static final int MAX_IDLE = 1 << 16;
+
+	/** The idle events, used as a stack. */
+	private SimEvent[] idle = new SimEvent[64];
+
+	/** The number of idle events. */
+	private int size = 0;
+
+	/**
+	 * Gets an event from the pool, or a new one if the pool is empty.
+	 *
+	 * @return the event, holding the given values
+	 */
+	SimEvent obtain(int type, double time, int src, int dest, CloudSimTags tag, Object data) {
+		if (size == 0) {
+			return new SimEvent(type, time, src, dest, tag, data);
+		}
+		SimEvent ev = idle[--size];
+		idle[size] = null;
+		ev.reset(type, time, src, dest, tag, data);
+		return ev;
+	}
+
+	/**
+	 * Gives an event back to the pool. The event must not be referenced any more.
+	 *
+	 * @param ev the event
+	 */
+	void release(SimEvent ev) {
+		if (size == idle.length) {
+			if (size == MAX_IDLE) {
+				return;
+			}
+			SimEvent[] larger = new SimEvent[size * 2];
+			System.arraycopy(idle, 0, larger, 0, size);
+			idle = larger;
+		}
+		// drop the references to the payload right away
+		ev.reset(SimEvent.ENULL, 0, -1, -1, null, null);
+		idle[size++] = ev;
+	}
+
+	/**
+	 * Gets the number of idle events.
+	 *
+	 * @return the number of idle events
+	 */
+	int size() {
+		return size;
+	}
+}
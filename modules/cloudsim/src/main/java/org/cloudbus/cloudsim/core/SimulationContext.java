@@ -0,0 +1,2143 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.NetworkTopology;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.UtilizationModelNull;
+import org.cloudbus.cloudsim.UtilizationModelPlanetLabInMemory;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.power.models.PowerModel;
+
+/**
+ * Holds the whole state of one simulation: the entities, the future event queue, the clock,
+ * the wait predicates, the {@link CloudInformationService} and the {@link NetworkTopology}.
+ * <p>
+ * The static API of {@link CloudSim} is a facade that forwards every call to the context bound
+ * to the calling thread, or to the default context if none is bound. Several contexts can
+ * therefore run side by side in the same JVM, one per thread, e.g.:
+ * <pre>
+ * SimulationContext ctx = new SimulationContext();
+ * pool.submit(() -&gt; ctx.call(() -&gt; {
+ *     CloudSim.init(1, null, false);
+ *     // create datacenters, brokers, ...
+ *     return CloudSim.startSimulation();
+ * }));
+ * </pre>
+ * Entities are bound to the context that was current when they were created.
+ *
+ * @since CloudSim Toolkit 7.0
+ * @see CloudSim#getSimulationContext()
+ */
+public class SimulationContext {
+
+	/** The Constant NOT_FOUND. */
+	private static final int NOT_FOUND = -1;
+
+	/** The id of CIS entity. */
+	private int cisId = -1;
+
+	/** The id of CloudSimShutdown entity. */
+	private int shutdownId = -1;
+
+	/** The CIS object. */
+	private CloudInformationService cis = null;
+
+	/** The trace flag. */
+	private boolean traceFlag = false;
+
+	/** The calendar. */
+	private Calendar calendar = null;
+
+	/** The termination time. */
+	private double terminateAt = -1;
+
+	/** The minimal time between events. Events within shorter periods after the last event are discarded. */
+	private double minTimeBetweenEvents = 0.01;
+
+	/** The time window within which the events are dispatched together, or 0. */
+	private double timeQuantum;
+
+	/** The stores of the events scheduled ahead, still holding events. */
+	private final List<OffHeapEventStore<?>> eventStores = new ArrayList<>();
+
+	/** The entities. */
+	private List<SimEntity> entities;
+
+	/** The ids of the entities that may have deferred events to process in the next clock tick. */
+	private BitSet activeEntities;
+
+	/** The future event queue. */
+	protected EventQueue future;
+
+	/** The type of future event list used by {@link #future}. */
+	private FutureEventList.Type futureEventListType = FutureEventList.Type.BINARY_HEAP;
+
+	/** The recycler of the events, or <tt>null</tt> if the events aren't pooled. */
+	private SimEventPool eventPool = null;
+
+	/** The current simulation clock. */
+	private double clock;
+
+	/** Flag for checking if the simulation is running. */
+	private boolean running;
+
+	/** The entities by name. */
+	private Map<String, SimEntity> entitiesByName;
+
+	/** The predicates used in entity wait methods. */
+	private Map<Integer, Predicate> waitPredicates;
+
+	/** Whether the simulation is paused, set from any thread. */
+	private volatile boolean paused = false;
+
+	/** The time at which to pause the simulation, or -1 if none. */
+	private double pauseAt = -1;
+
+	/** The monitor signalled when the simulation is resumed. */
+	private final Object pauseMonitor = new Object();
+
+	/** The controller driving the simulation from another thread, or <tt>null</tt> if none. */
+	private SimulationController controller = null;
+
+	/** The abrupt terminate. */
+	private boolean abruptTerminate = false;
+
+	/** The network topology used to delay the messages exchanged by the entities of this context. */
+	private final NetworkTopology networkTopology = new NetworkTopology();
+
+	/** The logical process of each entity of a parallel simulation, by entity id. */
+	private int[] partition = new int[0];
+
+	/** The logical processes of the running parallel simulation, or <tt>null</tt>. */
+	private LogicalProcess[] logicalProcesses;
+
+	/** The logical process run by the calling thread during a parallel simulation. */
+	private final ThreadLocal<LogicalProcess> currentLogicalProcess = new ThreadLocal<>();
+
+	/** Whether an entity has terminated the running parallel simulation. */
+	private boolean stopRequested = false;
+
+	/** The threads running the entities of a clock tick, or <tt>null</tt> to run them in turn. */
+	private ForkJoinPool tickPool = null;
+
+	/** Whether the entities of the current clock tick are running on {@link #tickPool}. */
+	private boolean dispatching = false;
+
+	/** The events sent by the entity running on the calling thread of {@link #tickPool}. */
+	private final ThreadLocal<TickOutbox> currentOutbox = new ThreadLocal<>();
+
+	/** The time of the checkpoint to write, or -1 if none. */
+	private double checkpointAt = -1;
+
+	/** What to do at the checkpoint. */
+	private Consumer<SimulationContext> checkpointAction = null;
+
+	/** Whether to stop the simulation once the checkpoint is written. */
+	private boolean stopAtCheckpoint = false;
+
+	/** Whether the checkpoint is written to a file, rather than run as an action. */
+	private boolean checkpointToFile = false;
+
+	/** The metrics of the simulation, or <tt>null</tt> if they aren't recorded. */
+	private SimulationMetrics metrics = null;
+
+	/** The trace recording the dispatched events, or <tt>null</tt> if none. */
+	private EventTraceWriter eventTrace = null;
+
+	/** The types whose objects the forks share rather than copy. */
+	private final Set<Class<?>> sharedTypes = new LinkedHashSet<>(List.of(PowerModel.class, UtilizationModelFull.class,
+			UtilizationModelNull.class, UtilizationModelPlanetLabInMemory.class));
+
+	/** The events sent by an entity while the entities of a clock tick run in parallel. */
+	private static final class TickOutbox {
+		/** The events, in the order they have been sent. */
+		private final List<SimEvent> sent = new ArrayList<>();
+		/** The events sent with priority, in the order they have been sent. */
+		private final List<SimEvent> sentFirst = new ArrayList<>();
+	}
+
+	// ======== CONTEXT BINDING ===============//
+
+	/**
+	 * Runs a task with this context bound to the calling thread, so that the static
+	 * {@link CloudSim} API and every entity created by the task refer to this context.
+	 * The previously bound context is restored afterwards.
+	 *
+	 * @param task the task to run
+	 * @return the task result
+	 * @throws Exception the exception thrown by the task
+	 */
+	public <T> T call(Callable<T> task) throws Exception {
+		SimulationContext previous = CloudSim.bindSimulationContext(this);
+		try {
+			return task.call();
+		} finally {
+			CloudSim.bindSimulationContext(previous);
+		}
+	}
+
+	/**
+	 * Runs a task with this context bound to the calling thread.
+	 *
+	 * @param task the task to run
+	 * @see #call(Callable)
+	 */
+	public void execute(Runnable task) {
+		SimulationContext previous = CloudSim.bindSimulationContext(this);
+		try {
+			task.run();
+		} finally {
+			CloudSim.bindSimulationContext(previous);
+		}
+	}
+
+	// ======== INITIALISATION ===============//
+
+	/**
+	 * Initialises all the common attributes.
+	 *
+	 * @param _calendar the _calendar
+	 * @param _traceFlag the _trace flag
+	 * @param numUser number of users
+	 * @throws Exception This happens when creating this entity before initialising CloudSim package
+	 *             or this entity name is <tt>null</tt> or empty
+	 */
+	private void initCommonVariable(Calendar _calendar, boolean _traceFlag, int numUser)
+			throws Exception {
+		initialize();
+		// NOTE: the order for the below 3 lines are important
+		traceFlag = _traceFlag;
+
+		// Set the current Wall clock time as the starting time of
+		// simulation
+		if (_calendar == null) {
+			calendar = Calendar.getInstance();
+		} else {
+			calendar = _calendar;
+		}
+
+		// creates a CloudSimShutdown object
+		CloudSimShutdown shutdown = new CloudSimShutdown("CloudSimShutdown", numUser);
+		shutdownId = shutdown.getId();
+	}
+
+	/**
+	 * Initialises the simulation parameters of this context.
+	 *
+	 * @param numUser the number of User Entities created
+	 * @param cal starting time for this simulation
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @see CloudSim#init(int, Calendar, boolean)
+	 */
+	public void init(int numUser, Calendar cal, boolean traceFlag) {
+		execute(() -> {
+			try {
+				initCommonVariable(cal, traceFlag, numUser);
+
+				// create a GIS object
+				cis = new CloudInformationService("CloudInformationService");
+
+				// set all the above entity IDs
+				cisId = cis.getId();
+			} catch (Exception s) {
+				Log.println("CloudSim.init(): The simulation has been terminated due to an unexpected error");
+				Log.println(s.getMessage());
+			}
+		});
+	}
+
+	/**
+	 * Initialises the simulation parameters of this context.
+	 *
+	 * @param numUser the number of User Entities created
+	 * @param cal starting time for this simulation
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param minTimeBetweenEvents the minimal period between events
+	 * @see CloudSim#init(int, Calendar, boolean, double)
+	 */
+	public void init(int numUser, Calendar cal, boolean traceFlag, double minTimeBetweenEvents) {
+		if (minTimeBetweenEvents <= 0) {
+			throw new IllegalArgumentException("The minimal time between events should be positive, but is:" + minTimeBetweenEvents);
+		}
+
+		init(numUser, cal, traceFlag);
+		this.minTimeBetweenEvents = minTimeBetweenEvents;
+	}
+
+	/**
+	 * Initialises the simulation parameters of this context, using the given type of future
+	 * event list.
+	 *
+	 * @param numUser the number of User Entities created
+	 * @param cal starting time for this simulation
+	 * @param traceFlag <tt>true</tt> if CloudSim trace need to be written
+	 * @param futureEventListType the type of future event list
+	 * @see CloudSim#init(int, Calendar, boolean, FutureEventList.Type)
+	 */
+	public void init(int numUser, Calendar cal, boolean traceFlag, FutureEventList.Type futureEventListType) {
+		this.futureEventListType = futureEventListType;
+		init(numUser, cal, traceFlag);
+	}
+
+	/**
+	 * Gets the type of future event list used by this context.
+	 *
+	 * @return the type of future event list
+	 */
+	public FutureEventList.Type getFutureEventListType() {
+		return futureEventListType;
+	}
+
+	/**
+	 * Enables or disables the pooling of the events. When enabled, the events are recycled once
+	 * they have been processed by their destination entity, so that the simulation allocates
+	 * (almost) no event object. The entities must then not keep any reference to an event after
+	 * {@link SimEntity#processEvent(SimEvent)} returns, including the handles returned by the
+	 * <tt>send</tt> and <tt>schedule</tt> methods. Events removed with
+	 * {@link SimEntity#selectEvent(Predicate)} and cancelled events are never recycled.
+	 * <p>
+	 * The pooling is disabled again at the end of each simulation.
+	 *
+	 * @param enabled <tt>true</tt> to recycle the events
+	 */
+	public void setEventPoolingEnabled(boolean enabled) {
+		if (!enabled) {
+			eventPool = null;
+		} else if (eventPool == null) {
+			eventPool = new SimEventPool();
+		}
+	}
+
+	/**
+	 * Checks if the events are pooled.
+	 *
+	 * @return <tt>true</tt> if the events are recycled
+	 * @see #setEventPoolingEnabled(boolean)
+	 */
+	public boolean isEventPoolingEnabled() {
+		return eventPool != null;
+	}
+
+	/**
+	 * Sets the time quantum of the simulation. The events falling within a quantum of the next
+	 * event are then dispatched in the same clock tick, in time order, and the clock advances once,
+	 * to the time of the last of them. The entities process them as a batch, e.g. a
+	 * {@link org.cloudbus.cloudsim.Datacenter} updates the processing of its cloudlets once for a
+	 * burst of submissions. The events are delayed by less than a quantum, and a tick never
+	 * dispatches the events after a time the simulation is to pause at, given to
+	 * {@link #pauseSimulation(double)} or {@link SimulationController#runUntil(double)}.
+	 * <p>
+	 * A quantum of 0, the default, dispatches the events of a single time per tick. The parallel
+	 * runs ignore the quantum. It is reset to 0 at the end of each simulation.
+	 *
+	 * @param timeQuantum the time quantum, or 0
+	 * @throws IllegalArgumentException if the quantum is negative
+	 */
+	public void setTimeQuantum(double timeQuantum) {
+		if (timeQuantum < 0) {
+			throw new IllegalArgumentException("The time quantum can't be negative, but is:" + timeQuantum);
+		}
+		this.timeQuantum = timeQuantum;
+	}
+
+	/**
+	 * Gets the time quantum of the simulation.
+	 *
+	 * @return the time quantum, or 0 if the events of a single time are dispatched per tick
+	 * @see #setTimeQuantum(double)
+	 */
+	public double getTimeQuantum() {
+		return timeQuantum;
+	}
+
+	/**
+	 * Adds a store of events scheduled ahead, which are moved to the future events as the clock
+	 * gets near them. The events already in the store are delivered as if they were sent now, and
+	 * those added to it later as if they were sent when added.
+	 *
+	 * @param store the store
+	 * @throws IllegalStateException if this context hasn't been initialised, runs in parallel, or
+	 *             the store has already been added to a simulation
+	 * @see OffHeapEventStore
+	 */
+	public void addEventStore(OffHeapEventStore<?> store) {
+		if (future == null || logicalProcesses != null) {
+			throw new IllegalStateException("The event stores are for the initialised sequential simulations");
+		}
+		store.bind(this, reserveSerials(store.size()));
+		eventStores.add(store);
+	}
+
+	/**
+	 * Moves the events of a store added to this context to the future events again, once events
+	 * are added to it after all its previous ones were moved.
+	 *
+	 * @param store the store
+	 */
+	void resumeEventStore(OffHeapEventStore<?> store) {
+		if (!eventStores.contains(store)) {
+			eventStores.add(store);
+		}
+	}
+
+	/**
+	 * Reserves the serial numbers of events to be added to the future events later on.
+	 *
+	 * @param count the number of events
+	 * @return the first serial number
+	 */
+	long reserveSerials(long count) {
+		return future.reserveSerials(count);
+	}
+
+	/**
+	 * Runs the entities that have events to process in the same clock tick on several threads.
+	 * The events they send are kept aside until all of them are done, then queued in ascending
+	 * entity id order, so that the simulation gives the same results as when they run in turn.
+	 * This pays off when many entities wake up at the same time, e.g. every scheduling interval.
+	 * <p>
+	 * The entities processing events at the same time must not share mutable state, must only
+	 * cancel the events they sent themselves and can't create new entities. A termination
+	 * requested by an entity takes effect at the end of the tick. The event pooling is suspended
+	 * while the entities run in parallel. The parallel dispatch is disabled again at the end of
+	 * each simulation.
+	 *
+	 * @param numThreads the number of threads, or 1 to run the entities in turn
+	 * @see #setEventPoolingEnabled(boolean)
+	 */
+	public void setParallelDispatch(int numThreads) {
+		if (numThreads < 1) {
+			throw new IllegalArgumentException("The number of threads should be positive, but is:" + numThreads);
+		}
+		if (tickPool != null) {
+			tickPool.shutdown();
+		}
+		tickPool = numThreads > 1 ? new ForkJoinPool(numThreads) : null;
+	}
+
+	/**
+	 * Gets the number of threads running the entities of a clock tick.
+	 *
+	 * @return the number of threads, 1 if the entities run in turn
+	 * @see #setParallelDispatch(int)
+	 */
+	public int getParallelDispatch() {
+		return tickPool != null ? tickPool.getParallelism() : 1;
+	}
+
+	/**
+	 * Creates an event, or takes one from the pool if the events are pooled.
+	 */
+	private SimEvent newEvent(int type, double time, int src, int dest, CloudSimTags tag, Object data) {
+		SimEventPool eventPool = logicalProcesses != null ? currentLogicalProcess().eventPool
+				: dispatching ? null : this.eventPool;
+		if (eventPool != null) {
+			return eventPool.obtain(type, time, src, dest, tag, data);
+		}
+		return new SimEvent(type, time, src, dest, tag, data);
+	}
+
+	/**
+	 * Gives a processed event back to the pool, if the events are pooled.
+	 *
+	 * @param ev the event
+	 */
+	void recycle(SimEvent ev) {
+		SimEventPool eventPool = logicalProcesses != null ? currentLogicalProcess().eventPool
+				: dispatching ? null : this.eventPool;
+		if (eventPool != null && !ev.isCancelled()) {
+			eventPool.release(ev);
+		}
+	}
+
+	/**
+	 * Initialise the simulation for stand alone simulations.
+	 */
+	protected void initialize() {
+		Log.println("Initialising...");
+		entities = new ArrayList<>();
+		activeEntities = new BitSet();
+		entitiesByName = new LinkedHashMap<>();
+		future = new EventQueue(futureEventListType);
+		eventStores.clear();
+		// the entities of a parallel simulation wait from several threads
+		waitPredicates = new ConcurrentHashMap<>();
+		partition = new int[0];
+		clock = 0;
+		running = false;
+		metrics = SimulationMetrics.ENABLED ? new SimulationMetrics() : null;
+	}
+
+	/**
+	 * Starts the execution of the simulation of this context.
+	 *
+	 * @return the last clock time
+	 * @throws NullPointerException if this context hasn't been initialised
+	 * @see CloudSim#startSimulation()
+	 */
+	public double startSimulation() throws NullPointerException {
+		Log.printlnConcat("Starting CloudSim version ", CloudSim.getVersion());
+		try {
+			double clock = run();
+			resetAttributes();
+			return clock;
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+			throw new NullPointerException("CloudSim.startCloudSimulation() :"
+					+ " Error - you haven't initialized CloudSim.");
+		}
+	}
+
+	/**
+	 * Starts the execution of the simulation of this context as a parallel simulation, where each
+	 * logical process (see {@link #setLogicalProcess(int, int)}) runs on its own thread. The
+	 * synchronisation is conservative, so the entities process the same events in the same order
+	 * as in {@link #startSimulation()}:
+	 * <ul>
+	 * <li>with a positive <tt>lookahead</tt>, the logical processes run all their events within
+	 * a window of that length from the earliest event of the simulation, then exchange the events
+	 * sent to each other. Every event sent from one logical process to another must therefore
+	 * be delayed by at least <tt>lookahead</tt>, e.g. by the latency of the
+	 * {@link NetworkTopology}; an {@link IllegalStateException} is thrown otherwise;</li>
+	 * <li>with a <tt>lookahead</tt> of 0, the logical processes run one clock tick at a time, in
+	 * lock-step. The events can have any delay, but only the logical processes with events at
+	 * the same time work in parallel.</li>
+	 * </ul>
+	 * The entities of different logical processes must only interact through events, and must
+	 * not share mutable objects. The entities can't be created while the simulation runs, the
+	 * simulation can't be paused, and the events sent to another logical process can only be
+	 * cancelled until the end of the current window. A termination requested by an entity takes
+	 * effect at the end of the current window or tick, so that with a positive lookahead the other
+	 * logical processes may have run a little further than in a sequential run.
+	 *
+	 * @param numThreads the number of threads
+	 * @param lookahead the minimum delay of the events exchanged by logical processes
+	 * @return the last clock time
+	 * @throws NullPointerException if this context hasn't been initialised
+	 * @see CloudSim#startParallelSimulation(int, double)
+	 */
+	public double startParallelSimulation(int numThreads, double lookahead) throws NullPointerException {
+		if (numThreads < 1) {
+			throw new IllegalArgumentException("The number of threads should be positive, but is:" + numThreads);
+		}
+		if (!(lookahead >= 0) || lookahead == Double.POSITIVE_INFINITY) {
+			throw new IllegalArgumentException("The lookahead should be finite and non-negative, but is:" + lookahead);
+		}
+
+		Log.printlnConcat("Starting CloudSim version ", CloudSim.getVersion());
+		SimulationContext previous = CloudSim.bindSimulationContext(this);
+		ExecutorService executor = numThreads > 1 ? Executors.newFixedThreadPool(numThreads) : null;
+		try {
+			double clock = runParallel(executor, lookahead);
+			resetAttributes();
+			return clock;
+		} catch (IllegalArgumentException e) {
+			e.printStackTrace();
+			throw new NullPointerException("CloudSim.startCloudSimulation() :"
+					+ " Error - you haven't initialized CloudSim.");
+		} finally {
+			if (executor != null) {
+				executor.shutdownNow();
+			}
+			logicalProcesses = null;
+			CloudSim.bindSimulationContext(previous);
+		}
+	}
+
+	/**
+	 * Resets the simulation attributes once the simulation is over.
+	 */
+	private void resetAttributes() {
+		cisId = -1;
+		shutdownId = -1;
+		cis = null;
+		calendar = null;
+		traceFlag = false;
+		futureEventListType = FutureEventList.Type.BINARY_HEAP;
+		timeQuantum = 0;
+		eventPool = null;
+		if (tickPool != null) {
+			tickPool.shutdown();
+			tickPool = null;
+		}
+		checkpointAt = -1;
+		checkpointAction = null;
+		checkpointToFile = false;
+		eventTrace = null;
+		controller = null;
+		eventStores.clear();
+	}
+
+	/**
+	 * Requests a checkpoint of the simulation: once all the events up to the given time are
+	 * processed, the whole state of this context is written to a file, i.e. the clock, the future
+	 * events and every entity with all the objects it refers to (hosts, guests, cloudlets,
+	 * schedulers, policies, random generators, ...). {@link #restoreCheckpoint(Path)} reads it
+	 * back as a new context, which goes on with the same events in the same order as this one.
+	 * A long warm-up can thus be simulated once, and several scenarios started from its end.
+	 * <p>
+	 * Only the sequential simulation writes checkpoints, and the state held outside this context
+	 * isn't part of them: the static fields (e.g. the {@link Log} settings or the id counters of
+	 * the examples) and the objects only referred to by the caller. The objects of the classes of
+	 * the simulation are restored without running their constructors. The {@link java.util.HashMap}
+	 * and {@link java.util.HashSet} objects iterate in the same order after the restore; those
+	 * whose keys use the identity hash code, whose values change, are restored as a
+	 * {@link java.util.LinkedHashMap} or a {@link java.util.LinkedHashSet}.
+	 * <p>
+	 * The objects that can't be written, e.g. the threads, are looked for when the checkpoint is
+	 * requested and when the simulation starts, rather than once it has run up to the checkpoint.
+	 *
+	 * @param time the simulation time of the checkpoint
+	 * @param file the file to write
+	 * @param stop whether to stop the simulation once the checkpoint is written
+	 * @throws IllegalStateException if the simulation refers to an object that can't be written
+	 * @see CloudSim#setCheckpoint(double, Path, boolean)
+	 */
+	public void setCheckpoint(double time, Path file, boolean stop) {
+		requestCheckpoint(time, ctx -> ctx.writeCheckpoint(file), stop, true);
+	}
+
+	/**
+	 * Requests a checkpoint of the simulation: once all the events up to the given time are
+	 * processed, an action is run on this context, e.g. to {@link #fork()} it. As for the
+	 * checkpoints written to a file, the objects that can't be forked are looked for when the
+	 * checkpoint is requested and when the simulation starts: the shared types
+	 * (see {@link #addSharedType(Class)}) are to be added beforehand.
+	 *
+	 * @param time the simulation time of the checkpoint
+	 * @param action the action
+	 * @param stop whether to stop the simulation once the action is run
+	 * @throws IllegalStateException if the simulation refers to an object that can't be forked
+	 * @see #setCheckpoint(double, Path, boolean)
+	 */
+	public void setCheckpoint(double time, Consumer<SimulationContext> action, boolean stop) {
+		requestCheckpoint(time, action, stop, false);
+	}
+
+	private void requestCheckpoint(double time, Consumer<SimulationContext> action, boolean stop, boolean toFile) {
+		if (time < clock) {
+			throw new IllegalArgumentException("The checkpoint time should not be in the past, but is:" + time);
+		}
+		checkCopyable(toFile);
+		checkpointAt = time;
+		checkpointAction = action;
+		stopAtCheckpoint = stop;
+		checkpointToFile = toFile;
+	}
+
+	/**
+	 * Checks that the state of this context can be copied by a checkpoint or a fork.
+	 *
+	 * @param toFile whether the state is written to a file, or else forked
+	 * @throws IllegalStateException if an object can't be copied
+	 */
+	private void checkCopyable(boolean toFile) {
+		java.util.function.Predicate<Class<?>> shared = toFile ? type -> false : new ObjectCopier(sharedTypes)::isShared;
+		withCopiedState(() -> {
+			ObjectGraph.check(this, shared);
+			return null;
+		});
+	}
+
+	/**
+	 * Runs a task on the state of this context copied by the checkpoints and the forks: neither
+	 * the threads, the pending checkpoint, the trace nor the controller are part of it.
+	 *
+	 * @param task the task
+	 * @return the result of the task
+	 */
+	private <T> T withCopiedState(Supplier<T> task) {
+		ForkJoinPool pool = tickPool;
+		Consumer<SimulationContext> action = checkpointAction;
+		EventTraceWriter trace = eventTrace;
+		SimulationController control = controller;
+		tickPool = null;
+		checkpointAction = null;
+		eventTrace = null;
+		controller = null;
+		try {
+			return task.get();
+		} finally {
+			tickPool = pool;
+			checkpointAction = action;
+			eventTrace = trace;
+			controller = control;
+		}
+	}
+
+	/**
+	 * Reads the checkpoint of a simulation. Calling {@link #startSimulation()} on the returned
+	 * context resumes the simulation; its entities can be looked up by name with
+	 * {@link #getEntity(String)} beforehand.
+	 *
+	 * @param file the file written by the simulation
+	 * @return the context of the simulation, as it was at the checkpoint
+	 * @throws IOException if the file can't be read or isn't a checkpoint of this version of the
+	 *             simulation classes
+	 * @see #setCheckpoint(double, Path, boolean)
+	 */
+	public static SimulationContext restoreCheckpoint(Path file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(file))))) {
+			if (new SnapshotReader(in).read() instanceof SimulationContext ctx) {
+				return ctx;
+			}
+			throw new InvalidObjectException(file + " isn't the checkpoint of a simulation");
+		}
+	}
+
+	/**
+	 * Writes the checkpoint requested by {@link #setCheckpoint(double, Path, boolean)}.
+	 */
+	private void writeCheckpoint(Path file) {
+		if (!eventStores.isEmpty()) {
+			throw new IllegalStateException("A simulation holding stored events can't be checkpointed");
+		}
+		boolean written = false;
+		try {
+			withCopiedState(() -> {
+				try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(file))))) {
+					new SnapshotWriter(out).write(this);
+				} catch (IOException e) {
+					throw new UncheckedIOException("Can't write the checkpoint " + file, e);
+				}
+				return null;
+			});
+			written = true;
+		} finally {
+			if (!written) {
+				// no partial checkpoint is left behind
+				try {
+					Files.deleteIfExists(file);
+				} catch (IOException e) {
+					printMessage("Simulation: Can't delete the partial checkpoint " + file);
+				}
+			}
+		}
+		printMessage(clock + ": Simulation: Checkpoint written to " + file);
+	}
+
+	/**
+	 * Copies this simulation, so that the copy goes on with the same events in the same order as
+	 * this one, independently of it. The forks of a simulation can be reconfigured, e.g. with
+	 * another allocation or selection policy of a datacenter looked up with
+	 * {@link #getEntity(String)}, then run side by side on several threads with
+	 * {@link #startSimulation()}.
+	 * <p>
+	 * The simulation is copied as it is between two clock ticks: before it starts, or when an
+	 * action of {@link #setCheckpoint(double, Consumer, boolean)} runs. All its objects are copied
+	 * except the immutable ones, which the forks share: the strings, the enums, the records of
+	 * immutable objects, the lambdas that capture nothing and the objects of the shared types
+	 * (see {@link #addSharedType(Class)}). The objects of the JDK that are neither collections nor
+	 * maps are copied with Java serialization, and the threads of {@link #setParallelDispatch(int)}
+	 * aren't copied. As for the checkpoints, the state held outside this context isn't copied.
+	 *
+	 * @return the copy of this simulation
+	 * @throws IllegalStateException if the simulation is running in parallel, or an object can't
+	 *             be copied
+	 */
+	public SimulationContext fork() {
+		if (logicalProcesses != null || dispatching) {
+			throw new IllegalStateException("A parallel simulation can't be forked");
+		}
+		if (!eventStores.isEmpty()) {
+			throw new IllegalStateException("A simulation holding stored events can't be forked");
+		}
+		return withCopiedState(() -> new ObjectCopier(sharedTypes).copy(this));
+	}
+
+	/**
+	 * Makes the forks of this simulation share the objects of a type rather than copy them. The
+	 * objects must not change once the simulation is forked, and must be safe to use from several
+	 * threads. The power models and the utilization models of the {@link UtilizationModelFull},
+	 * {@link UtilizationModelNull} and {@link UtilizationModelPlanetLabInMemory} classes are shared
+	 * by default.
+	 *
+	 * @param type the type, whose subtypes are shared as well
+	 * @see #fork()
+	 */
+	public void addSharedType(Class<?> type) {
+		sharedTypes.add(type);
+	}
+
+	/**
+	 * Gets the metrics of the simulation, recorded when the JVM is started with
+	 * <tt>-Dcloudsim.metrics=true</tt>. They are kept once the simulation is over, until it is
+	 * initialised again.
+	 *
+	 * @return the metrics, or <tt>null</tt> if they aren't recorded
+	 * @see SimulationMetrics
+	 */
+	public SimulationMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Records the events dispatched by the simulation in a trace, to be read back and replayed
+	 * with {@link EventTraceReader}. The trace is kept by this context until the end of the
+	 * simulation, and closed by the caller.
+	 *
+	 * @param trace the trace, or <tt>null</tt> to stop recording
+	 */
+	public void setEventTrace(EventTraceWriter trace) {
+		eventTrace = trace;
+	}
+
+	/**
+	 * Gets the trace recording the dispatched events.
+	 *
+	 * @return the trace, or <tt>null</tt> if none
+	 * @see #setEventTrace(EventTraceWriter)
+	 */
+	public EventTraceWriter getEventTrace() {
+		return eventTrace;
+	}
+
+	/**
+	 * Makes an entity process events outside of a simulation run, e.g. replayed from a trace. The
+	 * clock follows the events, and the events sent by the entity are dropped.
+	 *
+	 * @param entity the entity
+	 * @param events the events to process, in time order
+	 * @return the number of events processed
+	 * @see EventTraceReader#replay(SimEntity, int, java.util.function.Function)
+	 */
+	int replay(SimEntity entity, Iterator<SimEvent> events) {
+		if (future == null) {
+			throw new IllegalStateException("The simulation should be initialised to replay events");
+		}
+		if (running) {
+			throw new IllegalStateException("The events can't be replayed while the simulation runs");
+		}
+		SimulationContext previous = CloudSim.bindSimulationContext(this);
+		double start = clock;
+		running = true;
+		int count = 0;
+		try {
+			while (events.hasNext()) {
+				SimEvent ev = events.next();
+				if (ev.eventTime() < clock) {
+					throw new IllegalArgumentException("Past event detected.");
+				}
+				clock = ev.eventTime();
+				entity.processEvent(ev);
+				count++;
+				while (future.poll() != null) {
+					// the entity is alone, nobody gets its events
+				}
+			}
+		} finally {
+			running = false;
+			clock = start;
+			CloudSim.bindSimulationContext(previous);
+		}
+		return count;
+	}
+
+	/**
+	 * Assigns an entity to a logical process of the parallel simulation. The entities are all in
+	 * the logical process 0 by default.
+	 *
+	 * @param entityId the entity id
+	 * @param logicalProcess the index of the logical process
+	 * @see #startParallelSimulation(int, double)
+	 */
+	public void setLogicalProcess(int entityId, int logicalProcess) {
+		if (logicalProcess < 0) {
+			throw new IllegalArgumentException("The logical process index can't be negative, but is:" + logicalProcess);
+		}
+		if (running) {
+			throw new IllegalStateException("The entities can't be moved while the simulation runs");
+		}
+		if (entityId >= partition.length) {
+			partition = Arrays.copyOf(partition, Math.max(entityId + 1, 2 * partition.length));
+		}
+		partition[entityId] = logicalProcess;
+	}
+
+	/**
+	 * Gets the logical process of an entity.
+	 *
+	 * @param entityId the entity id
+	 * @return the index of the logical process
+	 * @see #setLogicalProcess(int, int)
+	 */
+	public int getLogicalProcess(int entityId) {
+		return entityId >= 0 && entityId < partition.length ? partition[entityId] : 0;
+	}
+
+	/**
+	 * Stops the simulation of this context.
+	 *
+	 * @throws NullPointerException if the simulation can't be stopped
+	 * @see CloudSim#stopSimulation()
+	 */
+	public void stopSimulation() throws NullPointerException {
+		try {
+			runStop();
+		} catch (IllegalArgumentException e) {
+			throw new NullPointerException("CloudSim.stopCloudSimulation() : "
+					+ "Error - can't stop Cloud Simulation.");
+		}
+	}
+
+	/**
+	 * Terminates the simulation.
+	 */
+	public void terminateSimulation() {
+		if (logicalProcesses != null || dispatching) {
+			// the other logical processes stop at the next barrier
+			stopRequested = true;
+		} else {
+			running = false;
+		}
+		printMessage("Simulation: Reached termination time.");
+	}
+
+	/**
+	 * Terminates the simulation at a given time.
+	 *
+	 * @param time the time at which the simulation has to be terminated
+	 * @return true, if successful otherwise.
+	 */
+	public boolean terminateSimulation(double time) {
+		if (time <= clock()) {
+			return false;
+		} else {
+			terminateAt = time;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the minimum time between events.
+	 *
+	 * @return the minimum time between events.
+	 */
+	public double getMinTimeBetweenEvents() {
+		return minTimeBetweenEvents;
+	}
+
+	/**
+	 * Gets a new copy of initial simulation Calendar.
+	 *
+	 * @return a new copy of Calendar object or if the context hasn't been initialized
+	 */
+	public Calendar getSimulationCalendar() {
+		// make a new copy
+		Calendar clone = calendar;
+		if (calendar != null) {
+			clone = (Calendar) calendar.clone();
+		}
+
+		return clone;
+	}
+
+	/**
+	 * Gets the entity ID of <tt>CloudInformationService</tt>.
+	 *
+	 * @return the Entity ID or if it is not found
+	 */
+	public int getCloudInfoServiceEntityId() {
+		return cisId;
+	}
+
+	/**
+	 * Gets the list of all Cloud resources registered at the CIS.
+	 *
+	 * @return A List containing CloudResource ID or if a CIS entity hasn't been created before
+	 */
+	public List<Integer> getCloudResourceList() {
+		if (cis == null) {
+			return null;
+		}
+
+		return cis.getList();
+	}
+
+	/**
+	 * Gets the network topology of this context.
+	 *
+	 * @return the network topology
+	 */
+	public NetworkTopology getNetworkTopology() {
+		return networkTopology;
+	}
+
+	/**
+	 * Checks if the trace flag has been set at initialisation.
+	 *
+	 * @return the trace flag
+	 */
+	public boolean isTraceEnabled() {
+		return traceFlag;
+	}
+
+	// ======== SIMULATION METHODS ===============//
+
+	/**
+	 * Get the current simulation time.
+	 *
+	 * @return the simulation time
+	 */
+	public double clock() {
+		if (logicalProcesses != null) {
+			LogicalProcess lp = currentLogicalProcess.get();
+			if (lp != null) {
+				return lp.clock;
+			}
+		}
+		return clock;
+	}
+
+	/**
+	 * Gets the logical process run by the calling thread.
+	 *
+	 * @return the logical process
+	 * @throws IllegalStateException if the calling thread doesn't run a logical process
+	 */
+	private LogicalProcess currentLogicalProcess() {
+		LogicalProcess lp = currentLogicalProcess.get();
+		if (lp == null) {
+			throw new IllegalStateException("The events of a parallel simulation can only be handled by its entities");
+		}
+		return lp;
+	}
+
+	/**
+	 * Get the current number of entities in the simulation.
+	 *
+	 * @return The number of entities
+	 */
+	public int getNumEntities() {
+		return entities.size();
+	}
+
+	/**
+	 * Get the entity with a given id.
+	 *
+	 * @param id the entity's unique id number
+	 * @return The entity, or if it could not be found
+	 */
+	public SimEntity getEntity(int id) {
+		return entities.get(id);
+	}
+
+	/**
+	 * Get the entity with a given name.
+	 *
+	 * @param name The entity's name
+	 * @return The entity
+	 */
+	public SimEntity getEntity(String name) {
+		return entitiesByName.get(name);
+	}
+
+	/**
+	 * Get the id of an entity with a given name.
+	 *
+	 * @param name The entity's name
+	 * @return The entity's unique id number
+	 */
+	public int getEntityId(String name) {
+		SimEntity obj = entitiesByName.get(name);
+		if (obj == null) {
+			return NOT_FOUND;
+		} else {
+			return obj.getId();
+		}
+	}
+
+	/**
+	 * Gets name of the entity given its entity ID.
+	 *
+	 * @param entityID the entity ID
+	 * @return the Entity name or if this object does not have one
+	 */
+	public String getEntityName(int entityID) {
+		try {
+			return getEntity(entityID).getName();
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns a list of entities created for the simulation.
+	 *
+	 * @return the entity list
+	 */
+	public List<SimEntity> getEntityList() {
+		// create a new list to prevent the user from changing
+		// the list of entities used by Simulation
+		return new LinkedList<>(entities);
+	}
+
+	/**
+	 * Add a new entity to the simulation.
+	 *
+	 * @param e The new entity
+	 */
+	public void addEntity(SimEntity e) {
+		SimEvent evt;
+		if (running && (logicalProcesses != null || dispatching)) {
+			throw new UnsupportedOperationException("The entities can't be created while a parallel simulation runs");
+		}
+		if (running) {
+			// Post an event to make this entity
+			evt = newEvent(SimEvent.CREATE, clock, 1, 0, CloudActionTags.BLANK, e);
+			future.addEvent(evt);
+		}
+		if (e.getId() == -1) { // Only add once!
+			int id = entities.size();
+			e.setId(id);
+			entities.add(e);
+			entitiesByName.put(e.getName(), e);
+		}
+	}
+
+	/**
+	 * Marks an entity as having deferred events to process in the next clock tick.
+	 *
+	 * @param id the entity id
+	 */
+	void activate(int id) {
+		if (logicalProcesses != null) {
+			logicalProcesses[getLogicalProcess(id)].activeEntities.set(id);
+		} else if (activeEntities != null && id >= 0) {
+			if (dispatching) {
+				synchronized (activeEntities) {
+					activeEntities.set(id);
+				}
+			} else {
+				activeEntities.set(id);
+			}
+		}
+	}
+
+	/**
+	 * Internal method used to add a new entity to the simulation when the simulation is running.
+	 *
+	 * @param e The new entity
+	 */
+	protected void addEntityDynamically(SimEntity e) {
+		if (e == null) {
+			throw new IllegalArgumentException("Adding null entity.");
+		} else {
+			printMessage("Adding: " + e.getName());
+		}
+		e.startEntity();
+	}
+
+	/**
+	 * Internal method used to run one tick of the simulation.
+	 *
+	 * @return true if there are events to be processed, false if event queue is empty
+	 */
+	private boolean runClockTick() {
+		if (tickPool != null) {
+			runEntitiesInParallel();
+		} else {
+			// only the entities that received events are visited, in ascending id order as before
+			SimEntity ent;
+			for (int i = activeEntities.nextSetBit(0); i >= 0; i = activeEntities.nextSetBit(i + 1)) {
+				activeEntities.clear(i);
+				ent = entities.get(i);
+				if (ent.getState() == SimEntity.EntityStatus.RUNNABLE) {
+					ent.run();
+				}
+			}
+		}
+
+		// all the events up to the clock are processed, and the next ones not dispatched yet
+		if (controller != null) {
+			controller.tickBoundary();
+		}
+
+		if (!eventStores.isEmpty()) {
+			moveStoredEvents();
+		}
+
+		if (future.isEmpty()) {
+			running = false;
+			printMessage(clock + ": Simulation: No more future events");
+			return false;
+		}
+
+		// the events of the next time, and those within the time quantum after it, not beyond a
+		// time to pause at
+		double first = future.peek().eventTime();
+		double clk = first + timeQuantum;
+		if (timeQuantum > 0) {
+			double bound = controller != null ? controller.getUntil() : Double.POSITIVE_INFINITY;
+			if (pauseAt != -1) {
+				bound = Math.min(bound, pauseAt);
+			}
+			clk = Math.min(clk, Math.max(first, bound));
+		}
+		int count = 0;
+		while (!future.isEmpty() && future.peek().eventTime() <= clk) {
+			dispatchEvent(future.poll());
+			count++;
+		}
+		if (controller != null) {
+			controller.dispatched(count);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Moves the stored events within the horizon of their store from the next event to the future
+	 * events, with the serial numbers reserved for them.
+	 */
+	private void moveStoredEvents() {
+		double next = nextEventTime();
+		for (Iterator<OffHeapEventStore<?>> it = eventStores.iterator(); it.hasNext();) {
+			OffHeapEventStore<?> store = it.next();
+			// the events of the tick are all moved, whatever the horizon
+			double until = next + Math.max(store.getHorizon(), timeQuantum);
+			while (store.nextTime() <= until) {
+				future.add(store.poll());
+			}
+			if (store.size() == 0) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * Runs the entities of the current clock tick on {@link #tickPool}, then queues the events
+	 * they sent as if they had run in turn.
+	 */
+	private void runEntitiesInParallel() {
+		List<SimEntity> runnable = new ArrayList<>();
+		for (int i = activeEntities.nextSetBit(0); i >= 0; i = activeEntities.nextSetBit(i + 1)) {
+			activeEntities.clear(i);
+			SimEntity ent = entities.get(i);
+			if (ent.getState() == SimEntity.EntityStatus.RUNNABLE) {
+				runnable.add(ent);
+			}
+		}
+		if (runnable.size() < 2) {
+			for (SimEntity ent : runnable) {
+				ent.run();
+			}
+			return;
+		}
+
+		TickOutbox[] outboxes = new TickOutbox[runnable.size()];
+		List<Callable<Void>> tasks = new ArrayList<>(runnable.size());
+		for (int i = 0; i < outboxes.length; i++) {
+			TickOutbox outbox = outboxes[i] = new TickOutbox();
+			SimEntity ent = runnable.get(i);
+			tasks.add(() -> {
+				SimulationContext previous = CloudSim.bindSimulationContext(this);
+				currentOutbox.set(outbox);
+				try {
+					ent.run();
+				} finally {
+					currentOutbox.remove();
+					CloudSim.bindSimulationContext(previous);
+				}
+				return null;
+			});
+		}
+
+		dispatching = true;
+		RuntimeException failure = null;
+		try {
+			for (Future<Void> result : tickPool.invokeAll(tasks)) {
+				try {
+					result.get();
+				} catch (ExecutionException e) {
+					if (failure == null) {
+						failure = e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+					}
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failure = new IllegalStateException("Interrupted clock tick", e);
+		} finally {
+			dispatching = false;
+		}
+		if (failure != null) {
+			throw failure;
+		}
+
+		// the serial numbers follow the entity ids, as in a sequential tick
+		for (TickOutbox outbox : outboxes) {
+			for (SimEvent ev : outbox.sent) {
+				future.addEvent(ev);
+			}
+			for (SimEvent ev : outbox.sentFirst) {
+				future.addEventFirst(ev);
+			}
+		}
+		if (stopRequested) {
+			stopRequested = false;
+			running = false;
+		}
+	}
+
+	/**
+	 * Gets the events sent by the entity running on the calling thread of {@link #tickPool}.
+	 *
+	 * @return the events
+	 */
+	private TickOutbox currentOutbox() {
+		TickOutbox outbox = currentOutbox.get();
+		if (outbox == null) {
+			throw new IllegalStateException("The events can only be sent by the entities while they run in parallel");
+		}
+		return outbox;
+	}
+
+	/**
+	 * The state bound to the thread running an entity, taken over by the thread of a
+	 * {@link ProcessEntity} while it runs in its place.
+	 *
+	 * @param outbox the events sent by the entity while the entities run in parallel, or <tt>null</tt>
+	 * @param logicalProcess the logical process of the entity in a parallel simulation, or <tt>null</tt>
+	 */
+	record EntityThreadState(TickOutbox outbox, LogicalProcess logicalProcess) {
+	}
+
+	/**
+	 * Gets the state bound to the calling thread, which runs an entity.
+	 *
+	 * @return the state
+	 */
+	EntityThreadState captureEntityThreadState() {
+		return new EntityThreadState(currentOutbox.get(), currentLogicalProcess.get());
+	}
+
+	/**
+	 * Binds the state of the thread running an entity to the calling thread.
+	 *
+	 * @param state the state, as captured on the thread running the entity
+	 */
+	void restoreEntityThreadState(EntityThreadState state) {
+		if (state.outbox() != null) {
+			currentOutbox.set(state.outbox());
+		} else {
+			currentOutbox.remove();
+		}
+		if (state.logicalProcess() != null) {
+			currentLogicalProcess.set(state.logicalProcess());
+		} else {
+			currentLogicalProcess.remove();
+		}
+	}
+
+	/**
+	 * Cancels an event kept aside by the entity running on the calling thread of {@link #tickPool}.
+	 *
+	 * @param outbox the events sent by the entity
+	 * @param ev the event
+	 * @return <tt>true</tt> if the event was kept aside
+	 */
+	private static boolean cancel(TickOutbox outbox, SimEvent ev) {
+		if (outbox.sent.remove(ev) || outbox.sentFirst.remove(ev)) {
+			ev.setCancelled();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Cancels the events kept aside by the entity running on the calling thread of
+	 * {@link #tickPool} that match a condition.
+	 *
+	 * @param outbox the events sent by the entity
+	 * @param condition the condition
+	 * @return <tt>true</tt> if at least one event has been cancelled
+	 */
+	private static boolean cancelAll(TickOutbox outbox, java.util.function.Predicate<SimEvent> condition) {
+		java.util.function.Predicate<SimEvent> cancel = ev -> {
+			if (condition.test(ev)) {
+				ev.setCancelled();
+				return true;
+			}
+			return false;
+		};
+		boolean cancelled = outbox.sent.removeIf(cancel);
+		return outbox.sentFirst.removeIf(cancel) || cancelled;
+	}
+
+	/**
+	 * Internal method used to stop the simulation.
+	 */
+	public void runStop() {
+		printMessage("Simulation completed.");
+	}
+
+	/**
+	 * Used to pause an entity for some time.
+	 *
+	 * @param srcId the entity source id
+	 * @param delay the delay
+	 */
+	public void pause(int srcId, double delay) {
+		SimEvent e = newEvent(SimEvent.HOLD_DONE, clock() + delay, srcId, srcId, CloudActionTags.BLANK, null);
+		if (logicalProcesses != null) {
+			currentLogicalProcess().send(e, logicalProcesses[getLogicalProcess(srcId)], false);
+		} else if (dispatching) {
+			currentOutbox().sent.add(e);
+		} else {
+			future.addEvent(e);
+		}
+		entities.get(srcId).setState(SimEntity.EntityStatus.HOLDING);
+	}
+
+	/**
+	 * Used to send an event from one entity to another.
+	 *
+	 * @param srcId the src
+	 * @param dstId the dest
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data the data
+	 * @return the scheduled event, which can be used to cancel it
+	 */
+	public SimEvent send(int srcId, int dstId, double delay, CloudSimTags tag, Object data) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+		if (delay >= Double.MAX_VALUE) {
+			throw new RuntimeException("Send delay can't be infinite.");
+		}
+
+		SimEvent e = newEvent(SimEvent.SEND, clock() + delay, srcId, dstId, tag, data);
+		if (logicalProcesses != null) {
+			currentLogicalProcess().send(e, logicalProcesses[getLogicalProcess(dstId)], false);
+		} else if (dispatching) {
+			currentOutbox().sent.add(e);
+		} else {
+			future.addEvent(e);
+		}
+		return e;
+	}
+
+	/**
+	 * Used to send an event from one entity to another, with priority in the queue.
+	 *
+	 * @param srcId the src
+	 * @param dstId the dest
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data the data
+	 * @return the scheduled event, which can be used to cancel it
+	 */
+	public SimEvent sendFirst(int srcId, int dstId, double delay, CloudSimTags tag, Object data) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+
+		SimEvent e = newEvent(SimEvent.SEND, clock() + delay, srcId, dstId, tag, data);
+		if (logicalProcesses != null) {
+			currentLogicalProcess().send(e, logicalProcesses[getLogicalProcess(dstId)], true);
+		} else if (dispatching) {
+			currentOutbox().sentFirst.add(e);
+		} else {
+			future.addEventFirst(e);
+		}
+		return e;
+	}
+
+	/**
+	 * Sets an entity's state to be waiting.
+	 *
+	 * @param srcId the src
+	 * @param p the p
+	 */
+	public void wait(int srcId, Predicate p) {
+		entities.get(srcId).setState(SimEntity.EntityStatus.WAITING);
+		if (p != CloudSim.SIM_ANY) {
+			// If a predicate has been used store it in order to check it
+			waitPredicates.put(srcId, p);
+		}
+	}
+
+	/**
+	 * Removes from the event queue the first event sent by an entity that matches a predicate.
+	 *
+	 * @param srcId the entity source id
+	 * @param p the p
+	 * @return the sim event
+	 */
+	public SimEvent cancel(int srcId, Predicate p) {
+		if (logicalProcesses != null) {
+			LogicalProcess lp = currentLogicalProcess();
+			SimEvent first = lp.future.findFirst(srcId, p);
+			SimEvent sent = lp.outbox.findFirst(srcId, p);
+			if (sent != null && (first == null || LogicalProcess.ORDER.compare(sent, first) < 0)) {
+				first = sent;
+			}
+			cancel(first);
+			return first;
+		}
+		if (dispatching) {
+			// at the same time, the events sent first come before the queued events, which come
+			// before the events sent during this tick
+			TickOutbox outbox = currentOutbox();
+			SimEvent first = null;
+			for (SimEvent ev : outbox.sentFirst) {
+				if (ev.getSourceId() == srcId && p.match(ev) && (first == null || ev.eventTime() < first.eventTime())) {
+					first = ev;
+				}
+			}
+			SimEvent queued;
+			synchronized (future) {
+				queued = future.findFirst(srcId, p);
+			}
+			if (queued != null && (first == null || queued.eventTime() < first.eventTime())) {
+				first = queued;
+			}
+			for (SimEvent ev : outbox.sent) {
+				if (ev.getSourceId() == srcId && p.match(ev) && (first == null || ev.eventTime() < first.eventTime())) {
+					first = ev;
+				}
+			}
+			if (first != null && !cancel(outbox, first)) {
+				synchronized (future) {
+					future.cancel(first);
+				}
+			}
+			return first;
+		}
+		return future.cancelFirst(srcId, p);
+	}
+
+	/**
+	 * Removes an event from the event queue.
+	 *
+	 * @param ev the event, as returned by {@link #send(int, int, double, CloudSimTags, Object)}
+	 * @return true if the event was still waiting in the queue
+	 */
+	public boolean cancel(SimEvent ev) {
+		if (logicalProcesses != null) {
+			LogicalProcess lp = currentLogicalProcess();
+			return lp.future.cancel(ev) || lp.outbox.cancel(ev);
+		}
+		if (dispatching) {
+			if (cancel(currentOutbox(), ev)) {
+				return true;
+			}
+			synchronized (future) {
+				return future.cancel(ev);
+			}
+		}
+		return future.cancel(ev);
+	}
+
+	/**
+	 * Removes all events that match a given predicate from the future event queue.
+	 *
+	 * @param srcId the entity source id
+	 * @param p the p
+	 * @return true, if at least one event has been cancelled
+	 */
+	public boolean cancelAll(int srcId, Predicate p) {
+		if (logicalProcesses != null) {
+			LogicalProcess lp = currentLogicalProcess();
+			return lp.future.cancelAll(srcId, p) + lp.outbox.cancelAll(srcId, p) > 0;
+		}
+		if (dispatching) {
+			boolean cancelled = cancelAll(currentOutbox(), ev -> ev.getSourceId() == srcId && p.match(ev));
+			synchronized (future) {
+				return future.cancelAll(srcId, p) > 0 || cancelled;
+			}
+		}
+		return future.cancelAll(srcId, p) > 0;
+	}
+
+	/**
+	 * Removes all events sent by an entity with a given tag from the future event queue,
+	 * in a time proportional to the number of removed events.
+	 *
+	 * @param srcId the entity source id
+	 * @param tag the tag
+	 * @return true, if at least one event has been cancelled
+	 */
+	public boolean cancelAll(int srcId, CloudSimTags tag) {
+		if (logicalProcesses != null) {
+			LogicalProcess lp = currentLogicalProcess();
+			return lp.future.cancelAll(srcId, tag) + lp.outbox.cancelAll(srcId, tag) > 0;
+		}
+		if (dispatching) {
+			boolean cancelled = cancelAll(currentOutbox(), ev -> ev.getSourceId() == srcId && ev.getTag() == tag);
+			synchronized (future) {
+				return future.cancelAll(srcId, tag) > 0 || cancelled;
+			}
+		}
+		return future.cancelAll(srcId, tag) > 0;
+	}
+
+	/**
+	 * Dispatch event to destination entity
+	 *
+	 * @param e the e
+	 */
+	private void dispatchEvent(SimEvent e) {
+		// Update the system's clock
+		if (e.eventTime() < clock) {
+			throw new IllegalArgumentException("Past event detected.");
+		}
+		clock = e.eventTime();
+
+		if (e.getType() == SimEvent.CREATE) {
+			if (eventTrace != null) {
+				eventTrace.record(e);
+			}
+			addEntityDynamically((SimEntity) e.getData());
+			recycle(e);
+		} else {
+			deliver(e, activeEntities);
+		}
+	}
+
+	/**
+	 * Delivers an event to its destination entity.
+	 *
+	 * @param e the event
+	 * @param activeEntities the ids of the entities with deferred events to process, to update
+	 */
+	void deliver(SimEvent e, BitSet activeEntities) {
+		if (eventTrace != null) {
+			eventTrace.record(e);
+		}
+		int dstId = e.getDestinationId();
+		int srcId = e.getSourceId();
+		SimEntity destEnt = entities.get(dstId);
+
+		switch (e.getType()) {
+			case SimEvent.ENULL -> throw new IllegalArgumentException("Event has a null type.");
+			case SimEvent.CREATE -> throw new UnsupportedOperationException("The entities can't be created while a parallel simulation runs");
+			case SimEvent.SEND -> {
+                if (destEnt.getState() == SimEntity.EntityStatus.WAITING) { // NOTE: this branch is never used
+                    Predicate p = waitPredicates.get(dstId);
+
+                    if ((p == null) || (p.match(e))) {
+                        destEnt.setState(SimEntity.EntityStatus.RUNNABLE);
+                        waitPredicates.remove(dstId);
+                    }
+                }
+				destEnt.getIncomingEvents().add(e);
+				activeEntities.set(dstId);
+            }
+			case SimEvent.HOLD_DONE -> {
+				entities.get(srcId).setState(SimEntity.EntityStatus.RUNNABLE);
+				recycle(e);
+			}
+			default -> {
+			}
+		}
+	}
+
+	/**
+	 * Internal method used to start the simulation.
+	 */
+	public void runStart() {
+		if (checkpointAt != -1) {
+			// the entities may have been created after the checkpoint was requested
+			checkCopyable(checkpointToFile);
+		}
+		running = true;
+		if (SimulationMetrics.ENABLED && metrics != null) {
+			metrics.register();
+		}
+		// Start all the entities
+		for (SimEntity ent : entities) {
+			ent.startEntity();
+		}
+
+		printMessage("Entities started.");
+	}
+
+	/**
+	 * Check if the simulation is still running.
+	 *
+	 * @return if the simulation is still running, otherwise
+	 */
+	public boolean running() {
+		return running;
+	}
+
+	/**
+	 * Pauses the simulation.
+	 *
+	 * @return true, if successful otherwise.
+	 */
+	public boolean pauseSimulation() {
+		paused = true;
+		return paused;
+	}
+
+	/**
+	 * Pauses the simulation at a given time.
+	 *
+	 * @param time the time at which the simulation has to be paused
+	 * @return true, if successful otherwise.
+	 */
+	public boolean pauseSimulation(long time) {
+		return pauseSimulation((double) time);
+	}
+
+	/**
+	 * Pauses the simulation at a given time.
+	 *
+	 * @param time the time at which the simulation has to be paused
+	 * @return true, if successful otherwise.
+	 * @see SimulationController
+	 */
+	public boolean pauseSimulation(double time) {
+		if (time <= clock) {
+			return false;
+		} else {
+			pauseAt = time;
+		}
+		return true;
+	}
+
+	/**
+	 * Resumes the simulation that has previously been paused.
+	 *
+	 * @return if the simulation has been restarted or or otherwise.
+	 */
+	public boolean resumeSimulation() {
+		synchronized (pauseMonitor) {
+			paused = false;
+
+			if (pauseAt <= clock) {
+				pauseAt = -1;
+			}
+			pauseMonitor.notifyAll();
+		}
+
+		return !paused;
+	}
+
+	/**
+	 * Start the simulation running. The context is bound to the calling thread until the
+	 * simulation finishes, so that the static {@link CloudSim} API used by the entities
+	 * refers to this context.
+	 *
+	 * @return the last clock value
+	 */
+	public double run() {
+		SimulationContext previous = CloudSim.bindSimulationContext(this);
+		try {
+			return runLoop();
+		} finally {
+			CloudSim.bindSimulationContext(previous);
+		}
+	}
+
+	/**
+	 * The main simulation loop.
+	 *
+	 * @return the last clock value
+	 */
+	private double runLoop() {
+		if (!running) {
+			runStart();
+		}
+		while (true) {
+			if (!runClockTick() || abruptTerminate) {
+				break;
+			}
+			if (SimulationMetrics.ENABLED && metrics != null) {
+				metrics.recordTick(clock, future.size());
+			}
+
+			// the events of the new clock time are delivered, but not processed yet
+			if (checkpointAt != -1 && clock > checkpointAt) {
+				Consumer<SimulationContext> action = checkpointAction;
+				// the request isn't part of the state
+				checkpointAt = -1;
+				checkpointAction = null;
+				action.accept(this);
+				if (stopAtCheckpoint) {
+					terminateSimulation();
+					break;
+				}
+			}
+
+			// this block allows termination of simulation at a specific time
+			if (terminateAt > 0.0 && clock >= terminateAt) {
+				terminateSimulation();
+				clock = terminateAt;
+				break;
+			}
+
+			double next = nextEventTime();
+			if (pauseAt != -1
+					&& ((next != Double.POSITIVE_INFINITY && clock <= pauseAt && pauseAt <= next)
+							|| next == Double.POSITIVE_INFINITY && pauseAt <= clock)) {
+				clock = pauseAt;
+				pauseSimulation();
+			}
+
+			synchronized (pauseMonitor) {
+				while (paused) {
+					try {
+						pauseMonitor.wait();
+					} catch (InterruptedException e) {
+						// an interrupted simulation goes on, leaving the interrupt to the caller
+						Thread.currentThread().interrupt();
+						paused = false;
+					}
+				}
+			}
+		}
+
+		double clock = clock();
+
+		finishSimulation();
+		runStop();
+
+		return clock;
+	}
+
+	/**
+	 * The main loop of a parallel simulation.
+	 *
+	 * @param executor the threads running the logical processes, or <tt>null</tt> to run them on the calling thread
+	 * @param lookahead the minimum delay of the events exchanged by logical processes
+	 * @return the last clock value
+	 */
+	private double runParallel(ExecutorService executor, double lookahead) {
+		if (running) {
+			throw new IllegalStateException("The simulation is already running");
+		}
+		if (controller != null) {
+			throw new IllegalStateException("A parallel simulation can't be controlled");
+		}
+		if (!eventStores.isEmpty()) {
+			throw new IllegalStateException("The event stores are for the sequential simulations");
+		}
+
+		int count = 1;
+		for (SimEntity ent : entities) {
+			LogicalProcess.checkEntityId(ent.getId());
+			count = Math.max(count, getLogicalProcess(ent.getId()) + 1);
+		}
+		LogicalProcess[] lps = new LogicalProcess[count];
+		for (int i = 0; i < count; i++) {
+			lps[i] = new LogicalProcess(i, this, eventPool != null);
+		}
+		for (SimEntity ent : entities) {
+			lps[getLogicalProcess(ent.getId())].entities.add(ent);
+		}
+
+		// the events sent before the start
+		List<SimEvent> sent = new ArrayList<>();
+		future.forEach(sent::add);
+		future = new EventQueue(futureEventListType);
+		for (SimEvent ev : sent) {
+			lps[getLogicalProcess(ev.getDestinationId())].schedule(ev);
+		}
+
+		logicalProcesses = lps;
+		running = true;
+		if (SimulationMetrics.ENABLED && metrics != null) {
+			metrics.register();
+		}
+		runLogicalProcesses(executor, Arrays.asList(lps), LogicalProcess::start);
+		exchange(lps, Double.NEGATIVE_INFINITY);
+		printMessage("Entities started.");
+
+		double lastTime = 0;
+		int phase = 0;
+		double finalClock;
+		while (true) {
+			double time = Double.POSITIVE_INFINITY;
+			for (LogicalProcess lp : lps) {
+				time = Math.min(time, lp.nextEventTime());
+			}
+			if (time == Double.POSITIVE_INFINITY) {
+				finalClock = lastClock(lps);
+				printMessage(finalClock + ": Simulation: No more future events");
+				break;
+			}
+			if (terminateAt > 0.0 && time >= terminateAt) {
+				printMessage("Simulation: Reached termination time.");
+				finalClock = terminateAt;
+				break;
+			}
+
+			List<LogicalProcess> ready = new ArrayList<>();
+			if (lookahead > 0) {
+				double end = terminateAt > 0.0 ? Math.min(time + lookahead, terminateAt) : time + lookahead;
+				for (LogicalProcess lp : lps) {
+					if (lp.nextEventTime() < end) {
+						ready.add(lp);
+					}
+				}
+				runLogicalProcesses(executor, ready, lp -> lp.runWindow(end));
+				exchange(lps, end);
+			} else {
+				// one clock tick of the sequential run
+				phase = time == lastTime ? phase + 1 : 0;
+				lastTime = time;
+				double now = time;
+				int tick = phase;
+				for (LogicalProcess lp : lps) {
+					if (lp.nextEventTime() == now) {
+						ready.add(lp);
+					}
+				}
+				runLogicalProcesses(executor, ready, lp -> lp.runStep(now, tick));
+				exchange(lps, time);
+				if (SimulationMetrics.ENABLED && metrics != null) {
+					metrics.recordClock(time);
+				}
+			}
+
+			if (abruptTerminate || stopRequested) {
+				// a sequential run stops once the events of the next time are dispatched
+				double next = Double.POSITIVE_INFINITY;
+				for (LogicalProcess lp : lps) {
+					next = Math.min(next, lp.nextEventTime());
+				}
+				finalClock = next == Double.POSITIVE_INFINITY ? lastClock(lps) : next;
+				break;
+			}
+		}
+
+		logicalProcesses = null;
+		running = false;
+		stopRequested = false;
+		clock = finalClock;
+		finishSimulation();
+		runStop();
+
+		return finalClock;
+	}
+
+	/**
+	 * Gets the latest clock of the logical processes.
+	 */
+	private static double lastClock(LogicalProcess[] lps) {
+		double clock = 0;
+		for (LogicalProcess lp : lps) {
+			clock = Math.max(clock, lp.clock);
+		}
+		return clock;
+	}
+
+	/**
+	 * Runs a task on each of some logical processes, in parallel, and waits for all of them.
+	 *
+	 * @param executor the threads running the logical processes, or <tt>null</tt> to run them on the calling thread
+	 * @param lps the logical processes
+	 * @param task the task
+	 */
+	private void runLogicalProcesses(ExecutorService executor, List<LogicalProcess> lps, Consumer<LogicalProcess> task) {
+		if (executor == null || lps.size() == 1) {
+			// no need to wake up another thread
+			for (LogicalProcess lp : lps) {
+				runLogicalProcess(lp, task);
+			}
+			return;
+		}
+
+		List<Future<?>> results = new ArrayList<>(lps.size());
+		for (LogicalProcess lp : lps) {
+			results.add(executor.submit(() -> runLogicalProcess(lp, task)));
+		}
+		RuntimeException failure = null;
+		for (Future<?> result : results) {
+			try {
+				result.get();
+			} catch (ExecutionException e) {
+				if (failure == null) {
+					failure = e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted parallel simulation", e);
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Runs a task on a logical process, with this context and the logical process bound to the
+	 * calling thread.
+	 */
+	private void runLogicalProcess(LogicalProcess lp, Consumer<LogicalProcess> task) {
+		SimulationContext previous = CloudSim.bindSimulationContext(this);
+		currentLogicalProcess.set(lp);
+		try {
+			task.accept(lp);
+		} finally {
+			currentLogicalProcess.remove();
+			CloudSim.bindSimulationContext(previous);
+		}
+	}
+
+	/**
+	 * Moves the events sent to other logical processes to their destination.
+	 *
+	 * @param lps the logical processes
+	 * @param bound the time up to which the logical processes may have run
+	 * @throws IllegalStateException if an event is earlier than the bound
+	 */
+	private void exchange(LogicalProcess[] lps, double bound) {
+		for (LogicalProcess lp : lps) {
+			SimEvent ev;
+			while ((ev = lp.outbox.poll()) != null) {
+				if (ev.eventTime() < bound) {
+					throw new IllegalStateException("Lookahead violation: " + getEntityName(ev.getSourceId())
+							+ " sent an event at " + ev.getCreationTime() + " for " + getEntityName(ev.getDestinationId())
+							+ " at " + ev.eventTime() + ", in another logical process that may have run until " + bound);
+				}
+				lps[getLogicalProcess(ev.getDestinationId())].future.add(ev);
+			}
+		}
+	}
+
+	/**
+	 * Internal method that allows the entities to terminate.
+	 */
+	private void finishSimulation() {
+		// Allow all entities to exit their body method
+		if (!abruptTerminate) {
+			for (SimEntity ent : entities) {
+				if (ent.getState() != SimEntity.EntityStatus.FINISHED) {
+					ent.run();
+				}
+			}
+		}
+
+		for (SimEntity ent : entities) {
+			ent.shutdownEntity();
+		}
+
+		if (SimulationMetrics.ENABLED && metrics != null) {
+			metrics.recordClock(clock);
+			metrics.unregister();
+			Log.print(metrics.dump());
+		}
+
+		// reset all the simulation attributes
+		entities = null;
+		activeEntities = null;
+		entitiesByName = null;
+		future = null;
+		clock = 0L;
+		running = false;
+
+		waitPredicates = null;
+		paused = false;
+		pauseAt = -1;
+		abruptTerminate = false;
+	}
+
+	/**
+	 * Abruptally terminate.
+	 */
+	public void abruptallyTerminate() {
+		abruptTerminate = true;
+	}
+
+	/**
+	 * Prints a message about the progress of the simulation.
+	 *
+	 * @param message the message
+	 */
+	private void printMessage(String message) {
+		Log.println(message);
+	}
+
+	/**
+	 * Checks if is paused.
+	 *
+	 * @return true, if is paused
+	 */
+	public boolean isPaused() {
+		return paused;
+	}
+
+	/**
+	 * Sets the controller driving the simulation.
+	 *
+	 * @param controller the controller, or <tt>null</tt> if none
+	 */
+	void setController(SimulationController controller) {
+		if (running) {
+			throw new IllegalStateException("The simulation is already running");
+		}
+		this.controller = controller;
+	}
+
+	/**
+	 * Gets the time of the next event to dispatch.
+	 *
+	 * @return the time, or {@link Double#POSITIVE_INFINITY} if there is no more event
+	 */
+	double nextEventTime() {
+		double time = future.isEmpty() ? Double.POSITIVE_INFINITY : future.peek().eventTime();
+		for (OffHeapEventStore<?> store : eventStores) {
+			time = Math.min(time, store.nextTime());
+		}
+		return time;
+	}
+
+	/**
+	 * Advances the clock between two clock ticks, e.g. to the time a simulation is paused at.
+	 *
+	 * @param time the new clock, not beyond the next event
+	 */
+	void advanceClock(double time) {
+		if (time < clock || time > nextEventTime()) {
+			throw new IllegalArgumentException("The clock can't be moved to " + time);
+		}
+		clock = time;
+	}
+
+}
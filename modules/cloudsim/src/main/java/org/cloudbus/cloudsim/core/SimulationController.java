@@ -0,0 +1,388 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Drives a simulation from another thread, for interactive use or to co-simulate it with
+ * another simulator. The simulation runs in its own thread and can be paused at a simulation
+ * time or after a number of events, inspected while paused, fed with external events, and
+ * resumed.
+ * <p>
+ * The simulation only pauses between two clock ticks, when all the events up to the clock have
+ * been processed and the next ones not dispatched yet. The events injected by other threads are
+ * queued and merged into the future event queue there, so that they never race with the entities.
+ * The threads waiting for the simulation are woken up by a condition, not by polling.
+ * <p>
+ * A controller is created once the entities of the simulation exist, and {@link #start() started}
+ * in place of {@link SimulationContext#startSimulation()}. The simulation starts paused, at the
+ * first clock tick. Parallel simulations can't be controlled.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public final class SimulationController {
+
+	/** An event sent by another thread, waiting for the next tick boundary. */
+	private record Injection(int srcId, int dstId, double delay, CloudSimTags tag, Object data) {
+	}
+
+	/** The simulation controlled. */
+	private final SimulationContext simulation;
+
+	/** The events sent by other threads, not merged yet. */
+	private final Queue<Injection> injections = new ConcurrentLinkedQueue<>();
+
+	/** The lock guarding the state of the controller. */
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/** Signalled whenever the simulation pauses, resumes or finishes. */
+	private final Condition changed = lock.newCondition();
+
+	/** The thread running the simulation. */
+	private Thread thread;
+
+	/** Whether the simulation has to pause at the next tick boundary. */
+	private boolean pauseRequested = true;
+
+	/** The time not to go beyond. */
+	private double until = Double.POSITIVE_INFINITY;
+
+	/** The number of events still to process before pausing. */
+	private long remainingEvents = Long.MAX_VALUE;
+
+	/** The number of events dispatched since the last tick boundary. */
+	private long dispatched;
+
+	/** Whether the simulation is paused. */
+	private boolean paused;
+
+	/** Whether the simulation is finished. */
+	private boolean finished;
+
+	/** The clock when the simulation last paused, or its final clock. */
+	private double clock;
+
+	/** The error that ended the simulation, if any. */
+	private Throwable failure;
+
+	/**
+	 * Creates a controller for a simulation that is not running.
+	 *
+	 * @param simulation the simulation
+	 * @throws IllegalStateException if the simulation is running
+	 */
+	public SimulationController(SimulationContext simulation) {
+		this.simulation = simulation;
+		simulation.setController(this);
+	}
+
+	/**
+	 * Starts the simulation in a new thread, paused at its first clock tick.
+	 *
+	 * @throws IllegalStateException if the simulation has already been started
+	 */
+	public void start() {
+		lock.lock();
+		try {
+			if (thread != null) {
+				throw new IllegalStateException("The simulation has already been started");
+			}
+			thread = new Thread(this::runSimulation, "SimulationController");
+			thread.setDaemon(true);
+			thread.start();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void runSimulation() {
+		double end = 0;
+		Throwable error = null;
+		try {
+			end = simulation.startSimulation();
+		} catch (Throwable e) {
+			error = e;
+		}
+		lock.lock();
+		try {
+			clock = end;
+			failure = error;
+			finished = true;
+			paused = false;
+			changed.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Called by the simulation thread between two clock ticks: merges the injected events, and
+	 * waits there while the simulation has to pause.
+	 */
+	void tickBoundary() {
+		lock.lock();
+		try {
+			remainingEvents -= dispatched;
+			dispatched = 0;
+			while (true) {
+				mergeInjections();
+				double next = simulation.nextEventTime();
+				if (!pauseRequested && next <= until && remainingEvents > 0) {
+					return;
+				}
+				if (!pauseRequested && next > until && until >= simulation.clock()) {
+					// nothing happens until then
+					simulation.advanceClock(until);
+				}
+				pauseRequested = false;
+				paused = true;
+				clock = simulation.clock();
+				changed.signalAll();
+				while (paused) {
+					try {
+						changed.await();
+					} catch (InterruptedException e) {
+						// an interrupted simulation goes on to its end, leaving the interrupt to the caller
+						Thread.currentThread().interrupt();
+						paused = false;
+						until = Double.POSITIVE_INFINITY;
+						remainingEvents = Long.MAX_VALUE;
+					}
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Called by the simulation thread after a clock tick.
+	 *
+	 * @param count the number of events dispatched during the tick
+	 */
+	void dispatched(int count) {
+		lock.lock();
+		try {
+			dispatched += count;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the time not to go beyond, which bounds the time quantum of the next clock tick.
+	 *
+	 * @return the time, or {@link Double#POSITIVE_INFINITY} if none
+	 */
+	double getUntil() {
+		lock.lock();
+		try {
+			return until;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void mergeInjections() {
+		Injection injection;
+		while ((injection = injections.poll()) != null) {
+			simulation.send(injection.srcId(), injection.dstId(), injection.delay(), injection.tag(), injection.data());
+		}
+	}
+
+	/**
+	 * Resumes the simulation up to a given time, and waits until it pauses there. The clock is
+	 * then the given time, unless the simulation finished before.
+	 *
+	 * @param time the simulation time to pause at
+	 * @return the clock once paused or finished
+	 * @throws IllegalArgumentException if the time is before the clock
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public double runUntil(double time) throws InterruptedException {
+		lock.lock();
+		try {
+			if (!finished && time < clock) {
+				throw new IllegalArgumentException("The simulation is already at " + clock);
+			}
+			resume(time, Long.MAX_VALUE);
+			awaitPaused();
+			return clock;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Resumes the simulation for a number of events, and waits until it pauses. The simulation
+	 * pauses at the first tick boundary after the events have been processed, so that it processes
+	 * more events when several share the last clock time.
+	 *
+	 * @param events the number of events to process
+	 * @return the clock once paused or finished
+	 * @throws IllegalArgumentException if the number of events isn't positive
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public double step(int events) throws InterruptedException {
+		if (events <= 0) {
+			throw new IllegalArgumentException("The number of events must be positive");
+		}
+		lock.lock();
+		try {
+			resume(Double.POSITIVE_INFINITY, events);
+			awaitPaused();
+			return clock;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Asks the simulation to pause at the next tick boundary, without waiting for it.
+	 *
+	 * @see #awaitPaused()
+	 */
+	public void pause() {
+		lock.lock();
+		try {
+			pauseRequested = true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Resumes the simulation until it finishes or is paused again, without waiting for it.
+	 */
+	public void resume() {
+		lock.lock();
+		try {
+			resume(Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private void resume(double time, long events) {
+		until = time;
+		remainingEvents = events;
+		pauseRequested = false;
+		paused = false;
+		changed.signalAll();
+	}
+
+	/**
+	 * Waits until the simulation pauses or finishes.
+	 *
+	 * @return true if the simulation is paused, false if it finished
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public boolean awaitPaused() throws InterruptedException {
+		lock.lock();
+		try {
+			while (!paused && !finished) {
+				changed.await();
+			}
+			return paused;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Resumes the simulation and waits until it finishes.
+	 *
+	 * @return the final clock
+	 * @throws IllegalStateException if the simulation failed
+	 * @throws InterruptedException if the calling thread is interrupted while waiting
+	 */
+	public double awaitFinished() throws InterruptedException {
+		lock.lock();
+		try {
+			resume(Double.POSITIVE_INFINITY, Long.MAX_VALUE);
+			while (!finished) {
+				changed.await();
+			}
+			if (failure != null) {
+				throw new IllegalStateException("The simulation failed", failure);
+			}
+			return clock;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Sends an event from one entity to another, from any thread. The event is merged into the
+	 * simulation at the next tick boundary, and its delay counts from the clock there.
+	 *
+	 * @param srcId the id of the source entity
+	 * @param dstId the id of the destination entity
+	 * @param delay the delay
+	 * @param tag the tag
+	 * @param data the data
+	 * @throws IllegalArgumentException if the delay is negative
+	 * @throws IllegalStateException if the simulation is finished
+	 */
+	public void inject(int srcId, int dstId, double delay, CloudSimTags tag, Object data) {
+		if (delay < 0) {
+			throw new IllegalArgumentException("Send delay can't be negative.");
+		}
+		if (isFinished()) {
+			throw new IllegalStateException("The simulation is finished");
+		}
+		injections.add(new Injection(srcId, dstId, delay, tag, data));
+	}
+
+	/**
+	 * Gets the clock when the simulation last paused, or its final clock once finished.
+	 *
+	 * @return the clock
+	 */
+	public double getClock() {
+		lock.lock();
+		try {
+			return clock;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Checks if the simulation is paused.
+	 *
+	 * @return true, if paused
+	 */
+	public boolean isPaused() {
+		lock.lock();
+		try {
+			return paused;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Checks if the simulation is finished.
+	 *
+	 * @return true, if finished
+	 */
+	public boolean isFinished() {
+		lock.lock();
+		try {
+			return finished;
+		} finally {
+			lock.unlock();
+		}
+	}
+}
@@ -0,0 +1,287 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.cloudbus.cloudsim.Log;
+
+/**
+ * Counts the events processed by the entities of a simulation and times their handling, by
+ * entity class and by tag, and follows the depth of the future event queue.
+ * <p>
+ * The metrics are only recorded when the JVM is started with <tt>-Dcloudsim.metrics=true</tt>.
+ * The switch is read once, in a constant that the JIT compiler folds, so that the simulation
+ * runs as fast without metrics as if they didn't exist. When enabled, each simulation gets new
+ * metrics, available through {@link SimulationContext#getMetrics()}, registered as a platform
+ * MXBean while the simulation runs, and dumped to the {@link Log} when it finishes.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public final class SimulationMetrics implements SimulationMetricsMXBean {
+
+	/** Whether the metrics are recorded. */
+	public static final boolean ENABLED = Boolean.getBoolean("cloudsim.metrics");
+
+	/** The beginning of the JMX names of the metrics, followed by a unique <tt>name</tt> key. */
+	public static final String OBJECT_NAME_PREFIX = "org.cloudbus.cloudsim:type=SimulationMetrics";
+
+	/** The number of metrics created so far, to name them. */
+	private static final AtomicInteger instances = new AtomicInteger();
+
+	/** The durations of the event handlers, by entity class. */
+	private final Map<Class<?>, LatencyHistogram> byEntityClass = new ConcurrentHashMap<>();
+
+	/** The durations of the event handlers, by tag. */
+	private final Map<CloudSimTags, LatencyHistogram> byTag = new ConcurrentHashMap<>();
+
+	/** The JMX name of the metrics. */
+	private final ObjectName objectName;
+
+	/** The simulation time reached. */
+	private volatile double clock;
+
+	/** The depth of the future event queue at the last clock tick. */
+	private volatile int queueDepth;
+
+	/** The greatest depth of the future event queue. */
+	private volatile int maxQueueDepth;
+
+	/**
+	 * Creates empty metrics.
+	 */
+	public SimulationMetrics() {
+		try {
+			objectName = new ObjectName(OBJECT_NAME_PREFIX + ",name=simulation-" + instances.incrementAndGet());
+		} catch (JMException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Records the handling of an event.
+	 *
+	 * @param entity the entity that processed the event
+	 * @param tag the tag of the event
+	 * @param nanos the duration of {@link SimEntity#processEvent(SimEvent)}
+	 */
+	void recordHandler(SimEntity entity, CloudSimTags tag, long nanos) {
+		histogram(byEntityClass, entity.getClass()).record(nanos);
+		if (tag != null) {
+			histogram(byTag, tag).record(nanos);
+		}
+	}
+
+	private static <K> LatencyHistogram histogram(Map<K, LatencyHistogram> histograms, K key) {
+		LatencyHistogram histogram = histograms.get(key);
+		return histogram != null ? histogram : histograms.computeIfAbsent(key, k -> new LatencyHistogram());
+	}
+
+	/**
+	 * Records the state of the simulation at the end of a clock tick.
+	 *
+	 * @param clock the simulation time
+	 * @param futureQueueDepth the number of events in the future event queue
+	 */
+	void recordTick(double clock, int futureQueueDepth) {
+		this.clock = clock;
+		queueDepth = futureQueueDepth;
+		if (futureQueueDepth > maxQueueDepth) {
+			maxQueueDepth = futureQueueDepth;
+		}
+	}
+
+	/**
+	 * Records the simulation time reached, when the depth of the queue isn't known.
+	 *
+	 * @param clock the simulation time
+	 */
+	void recordClock(double clock) {
+		this.clock = clock;
+	}
+
+	/**
+	 * Registers the metrics in the platform MBean server.
+	 */
+	void register() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		} catch (JMException e) {
+			Log.println("SimulationMetrics: can't register " + objectName + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Unregisters the metrics from the platform MBean server.
+	 */
+	void unregister() {
+		try {
+			if (ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)) {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+			}
+		} catch (JMException e) {
+			Log.println("SimulationMetrics: can't unregister " + objectName + ": " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Gets the JMX name of the metrics.
+	 *
+	 * @return the name
+	 */
+	public ObjectName getObjectName() {
+		return objectName;
+	}
+
+	/**
+	 * Gets the durations of the event handlers of the entities of a class.
+	 *
+	 * @param entityClass the class of the entities
+	 * @return the histogram of the durations, or <tt>null</tt> if they processed no event
+	 */
+	public LatencyHistogram getHandlerLatency(Class<? extends SimEntity> entityClass) {
+		return byEntityClass.get(entityClass);
+	}
+
+	/**
+	 * Gets the durations of the handling of the events of a tag.
+	 *
+	 * @param tag the tag
+	 * @return the histogram of the durations, or <tt>null</tt> if no event had the tag
+	 */
+	public LatencyHistogram getHandlerLatency(CloudSimTags tag) {
+		return byTag.get(tag);
+	}
+
+	private static String tagName(CloudSimTags tag) {
+		return tag instanceof Enum<?> constant ? constant.getDeclaringClass().getSimpleName() + "." + constant.name()
+				: tag.toString();
+	}
+
+	@Override
+	public long getEventCount() {
+		long count = 0;
+		for (LatencyHistogram histogram : byEntityClass.values()) {
+			count += histogram.getCount();
+		}
+		return count;
+	}
+
+	@Override
+	public double getClock() {
+		return clock;
+	}
+
+	@Override
+	public double getEventsPerSimulatedSecond() {
+		double time = clock;
+		return time > 0 ? getEventCount() / time : 0;
+	}
+
+	@Override
+	public int getFutureQueueDepth() {
+		return queueDepth;
+	}
+
+	@Override
+	public int getMaxFutureQueueDepth() {
+		return maxQueueDepth;
+	}
+
+	@Override
+	public Map<String, Long> getEventCountsByEntityClass() {
+		return byEntityClass(LatencyHistogram::getCount);
+	}
+
+	@Override
+	public Map<String, Long> getEventCountsByTag() {
+		return byTag(LatencyHistogram::getCount);
+	}
+
+	@Override
+	public Map<String, Long> getHandlerNanosByEntityClass() {
+		return byEntityClass(LatencyHistogram::getTotal);
+	}
+
+	@Override
+	public Map<String, Long> getHandlerNanosByTag() {
+		return byTag(LatencyHistogram::getTotal);
+	}
+
+	private Map<String, Long> byEntityClass(ToLongFunction<LatencyHistogram> value) {
+		Map<String, Long> values = new TreeMap<>();
+		byEntityClass.forEach((type, histogram) -> values.put(type.getName(), value.applyAsLong(histogram)));
+		return values;
+	}
+
+	private Map<String, Long> byTag(ToLongFunction<LatencyHistogram> value) {
+		Map<String, Long> values = new TreeMap<>();
+		byTag.forEach((tag, histogram) -> values.put(tagName(tag), value.applyAsLong(histogram)));
+		return values;
+	}
+
+	@Override
+	public long getHandlerNanosAtPercentile(String key, double percentile) {
+		for (Map.Entry<Class<?>, LatencyHistogram> entry : byEntityClass.entrySet()) {
+			if (entry.getKey().getName().equals(key)) {
+				return entry.getValue().getValueAtPercentile(percentile);
+			}
+		}
+		for (Map.Entry<CloudSimTags, LatencyHistogram> entry : byTag.entrySet()) {
+			if (tagName(entry.getKey()).equals(key)) {
+				return entry.getValue().getValueAtPercentile(percentile);
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public String dump() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Simulation metrics: %d events in %.2f simulated seconds (%.2f events/s), "
+				+ "future queue depth %d (max %d)%n", getEventCount(), clock, getEventsPerSimulatedSecond(), queueDepth,
+				maxQueueDepth));
+		sb.append(String.format("%-60s %10s %14s %10s %10s %10s %12s%n", "Entity class / tag", "events", "total ms", "mean ns",
+				"p50 ns", "p99 ns", "max ns"));
+		Map<String, LatencyHistogram> rows = new TreeMap<>();
+		byEntityClass.forEach((type, histogram) -> rows.put(type.getName(), histogram));
+		dumpRows(sb, rows);
+		rows.clear();
+		byTag.forEach((tag, histogram) -> rows.put(tagName(tag), histogram));
+		dumpRows(sb, rows);
+		return sb.toString();
+	}
+
+	private static void dumpRows(StringBuilder sb, Map<String, LatencyHistogram> rows) {
+		rows.entrySet().stream()
+				.sorted(Comparator.comparingLong((Map.Entry<String, LatencyHistogram> row) -> row.getValue().getTotal()).reversed())
+				.forEach(row -> {
+					LatencyHistogram h = row.getValue();
+					sb.append(String.format("%-60s %10d %14.3f %10.0f %10d %10d %12d%n", row.getKey(), h.getCount(),
+							h.getTotal() / 1e6, h.getMean(), h.getValueAtPercentile(50), h.getValueAtPercentile(99), h.getMax()));
+				});
+	}
+
+	@Override
+	public void reset() {
+		byEntityClass.clear();
+		byTag.clear();
+		queueDepth = 0;
+		maxQueueDepth = 0;
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.util.Map;
+
+/**
+ * The management interface of the {@link SimulationMetrics} of a simulation, registered in the
+ * platform MBean server under {@link SimulationMetrics#OBJECT_NAME_PREFIX} while the simulation
+ * runs. The entity classes are given by their full name, the tags as
+ * <tt>EnumClass.CONSTANT</tt>, and the durations in nanoseconds.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public interface SimulationMetricsMXBean {
+
+	/**
+	 * Gets the number of events processed by the entities.
+	 *
+	 * @return the number of events
+	 */
+	long getEventCount();
+
+	/**
+	 * Gets the simulation time reached.
+	 *
+	 * @return the clock
+	 */
+	double getClock();
+
+	/**
+	 * Gets the number of events processed per second of simulation time.
+	 *
+	 * @return the rate, 0 until the clock advances
+	 */
+	double getEventsPerSimulatedSecond();
+
+	/**
+	 * Gets the number of events in the future event queue at the last clock tick.
+	 *
+	 * @return the depth of the queue
+	 */
+	int getFutureQueueDepth();
+
+	/**
+	 * Gets the greatest number of events in the future event queue at a clock tick.
+	 *
+	 * @return the greatest depth of the queue
+	 */
+	int getMaxFutureQueueDepth();
+
+	/**
+	 * Gets the number of events processed by the entities of each class.
+	 *
+	 * @return the numbers of events, by entity class
+	 */
+	Map<String, Long> getEventCountsByEntityClass();
+
+	/**
+	 * Gets the number of events processed with each tag.
+	 *
+	 * @return the numbers of events, by tag
+	 */
+	Map<String, Long> getEventCountsByTag();
+
+	/**
+	 * Gets the time spent in the event handlers of the entities of each class.
+	 *
+	 * @return the total durations, by entity class
+	 */
+	Map<String, Long> getHandlerNanosByEntityClass();
+
+	/**
+	 * Gets the time spent handling the events of each tag.
+	 *
+	 * @return the total durations, by tag
+	 */
+	Map<String, Long> getHandlerNanosByTag();
+
+	/**
+	 * Gets a percentile of the durations of the event handler of an entity class, or of the
+	 * handling of a tag.
+	 *
+	 * @param key the entity class or the tag
+	 * @param percentile the percentage, between 0 and 100
+	 * @return the duration, or -1 if the key is unknown
+	 */
+	long getHandlerNanosAtPercentile(String key, double percentile);
+
+	/**
+	 * Describes all the metrics, one entity class or tag per line.
+	 *
+	 * @return the description
+	 */
+	String dump();
+
+	/**
+	 * Forgets the metrics recorded so far.
+	 */
+	void reset();
+}
@@ -0,0 +1,407 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.StreamCorruptedException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.cloudbus.cloudsim.core.ObjectGraph.Layout;
+
+/**
+ * Reads an object graph written by {@link SnapshotWriter}.
+ * <p>
+ * The objects are created empty when they are first referred to, then filled in the order their
+ * content has been written. The collections and maps are filled last, once all the objects that
+ * their elements' hash codes and orders may depend on have their fields set.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+final class SnapshotReader {
+
+	/** An object whose content hasn't been read yet. */
+	private record Pending(Object target, Layout layout, Object backing) {
+	}
+
+	/** The input. */
+	private final DataInputStream in;
+
+	/** The objects read so far, by handle. */
+	private final List<Object> handles = new ArrayList<>();
+
+	/** The classes read so far, by index. */
+	private final List<Class<?>> classes = new ArrayList<>();
+
+	/** The objects created but not filled yet, in the order their content comes. */
+	private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+
+	/** The collections and maps to fill once all the objects are read. */
+	private final List<Runnable> fills = new ArrayList<>();
+
+	SnapshotReader(DataInputStream in) {
+		this.in = in;
+	}
+
+	/**
+	 * Reads an object and everything it refers to.
+	 *
+	 * @return the object
+	 * @throws IOException if the input fails or isn't a snapshot of this version of the simulation
+	 */
+	Object read() throws IOException {
+		if (in.readInt() != SnapshotWriter.MAGIC) {
+			throw new StreamCorruptedException("Not a simulation snapshot");
+		}
+		int version = in.readInt();
+		if (version != SnapshotWriter.VERSION) {
+			throw new StreamCorruptedException("Unsupported snapshot version " + version);
+		}
+
+		Object root = readValue();
+		Pending next;
+		while ((next = pending.poll()) != null) {
+			readBody(next);
+		}
+		// the inner collections are created after the outer ones, and filled first
+		for (int i = fills.size() - 1; i >= 0; i--) {
+			fills.get(i).run();
+		}
+		return root;
+	}
+
+	private Object readValue() throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+			case SnapshotWriter.NULL:
+				return null;
+			case SnapshotWriter.REFERENCE:
+				return handles.get(readVarint());
+			case SnapshotWriter.CONSTANT:
+				return ObjectGraph.CONSTANTS.get(readVarint());
+			case SnapshotWriter.STRING:
+				return newHandle(readString());
+			case SnapshotWriter.INTEGER:
+				return in.readInt();
+			case SnapshotWriter.LONG:
+				return in.readLong();
+			case SnapshotWriter.DOUBLE:
+				return in.readDouble();
+			case SnapshotWriter.FLOAT:
+				return in.readFloat();
+			case SnapshotWriter.BOOLEAN:
+				return in.readBoolean();
+			case SnapshotWriter.SHORT:
+				return in.readShort();
+			case SnapshotWriter.BYTE:
+				return in.readByte();
+			case SnapshotWriter.CHARACTER:
+				return in.readChar();
+			case SnapshotWriter.ENUM:
+				return readClass().getEnumConstants()[readVarint()];
+			case SnapshotWriter.CLASS:
+				return readClass();
+			case SnapshotWriter.RECORD:
+				return readRecord();
+			case SnapshotWriter.SERIALIZED:
+				return newHandle(deserialize());
+			case SnapshotWriter.THREAD_LOCAL:
+				return newHandle(new ThreadLocal<>());
+			case SnapshotWriter.NEW:
+				return readNew();
+			default:
+				throw new StreamCorruptedException("Unknown tag " + tag);
+		}
+	}
+
+	private Object readRecord() throws IOException {
+		Layout layout = ObjectGraph.layout(readClass());
+		Object[] components = new Object[layout.fields.length];
+		for (int i = 0; i < components.length; i++) {
+			components[i] = readValue();
+		}
+		return newHandle(layout.newInstance(components));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Object readNew() throws IOException {
+		Class<?> type = readClass();
+		Layout layout = ObjectGraph.layout(type);
+		Object target;
+		Object backing = null;
+		switch (layout.kind) {
+			case OBJECT, EXTENDED_COLLECTION -> target = layout.newInstance();
+			case ARRAY -> target = Array.newInstance(type.getComponentType(), readVarint());
+			case FIXED_LIST -> {
+				Object[] array = new Object[readVarint()];
+				backing = array;
+				target = Arrays.asList(array);
+			}
+			case SORTED_COLLECTION, SORTED_MAP -> target = layout.newInstance((Comparator<?>) readValue());
+			case ENUM_MAP -> target = new EnumMap(readClass());
+			case COLLECTION -> target = type == HashSet.class ? newHashSet(readVarint()) : layout.newInstance();
+			case MAP -> target = type == HashMap.class ? newHashMap(readVarint()) : layout.newInstance();
+			case UNMODIFIABLE_LIST -> {
+				backing = new ArrayList<>();
+				target = Collections.unmodifiableList((List<?>) backing);
+			}
+			case UNMODIFIABLE_SET -> {
+				backing = new LinkedHashSet<>();
+				target = Collections.unmodifiableSet((Set<?>) backing);
+			}
+			case UNMODIFIABLE_MAP -> {
+				backing = new LinkedHashMap<>();
+				target = Collections.unmodifiableMap((Map<?, ?>) backing);
+			}
+			case SYNCHRONIZED_LIST -> {
+				backing = new ArrayList<>();
+				target = Collections.synchronizedList((List<?>) backing);
+			}
+			case SYNCHRONIZED_SET -> {
+				backing = new LinkedHashSet<>();
+				target = Collections.synchronizedSet((Set<?>) backing);
+			}
+			case SYNCHRONIZED_MAP -> {
+				backing = new LinkedHashMap<>();
+				target = Collections.synchronizedMap((Map<?, ?>) backing);
+			}
+			default -> throw new InvalidClassException(type.getName(), "unexpected class in a snapshot");
+		}
+		newHandle(target);
+		pending.add(new Pending(target, layout, backing != null ? backing : target));
+		return target;
+	}
+
+	/**
+	 * Creates a set filled in the order it was written: a {@link HashSet} of the given capacity,
+	 * or a {@link LinkedHashSet} if the capacity is 0 because the keys use the identity hash code.
+	 */
+	private static Set<?> newHashSet(int capacity) {
+		return capacity == 0 ? new LinkedHashSet<>() : new HashSet<>(capacity);
+	}
+
+	/**
+	 * Creates a map filled in the order it was written: a {@link HashMap} of the given capacity,
+	 * or a {@link LinkedHashMap} if the capacity is 0 because the keys use the identity hash code.
+	 */
+	private static Map<?, ?> newHashMap(int capacity) {
+		return capacity == 0 ? new LinkedHashMap<>() : new HashMap<>(capacity);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void readBody(Pending next) throws IOException {
+		switch (next.layout.kind) {
+			case OBJECT -> readFields(next);
+			case EXTENDED_COLLECTION -> {
+				readFields(next);
+				readElements(next);
+			}
+			case ARRAY -> readArray(next.target);
+			case FIXED_LIST -> {
+				Object[] array = (Object[]) next.backing;
+				readVarint();
+				for (int i = 0; i < array.length; i++) {
+					array[i] = readValue();
+				}
+			}
+			case MAP, SORTED_MAP, ENUM_MAP, UNMODIFIABLE_MAP, SYNCHRONIZED_MAP -> {
+				Object[] entries = new Object[2 * readVarint()];
+				for (int i = 0; i < entries.length; i++) {
+					entries[i] = readValue();
+				}
+				Map map = (Map) next.backing;
+				fills.add(() -> {
+					for (int i = 0; i < entries.length; i += 2) {
+						map.put(entries[i], entries[i + 1]);
+					}
+				});
+			}
+			default -> readElements(next);
+		}
+	}
+
+	private void readFields(Pending next) throws IOException {
+		for (Field field : next.layout.fields) {
+			readField(field, next.target);
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void readElements(Pending next) throws IOException {
+		Object[] elements = new Object[readVarint()];
+		for (int i = 0; i < elements.length; i++) {
+			elements[i] = readValue();
+		}
+		Collection collection = (Collection) next.backing;
+		fills.add(() -> Collections.addAll(collection, elements));
+	}
+
+	private void readField(Field field, Object obj) throws IOException {
+		try {
+			Class<?> type = field.getType();
+			if (!type.isPrimitive()) {
+				field.set(obj, readValue());
+			} else if (type == int.class) {
+				field.setInt(obj, in.readInt());
+			} else if (type == long.class) {
+				field.setLong(obj, in.readLong());
+			} else if (type == double.class) {
+				field.setDouble(obj, in.readDouble());
+			} else if (type == boolean.class) {
+				field.setBoolean(obj, in.readBoolean());
+			} else if (type == float.class) {
+				field.setFloat(obj, in.readFloat());
+			} else if (type == short.class) {
+				field.setShort(obj, in.readShort());
+			} else if (type == byte.class) {
+				field.setByte(obj, in.readByte());
+			} else {
+				field.setChar(obj, in.readChar());
+			}
+		} catch (IllegalAccessException | IllegalArgumentException e) {
+			throw new InvalidClassException(field.getDeclaringClass().getName(), "can't restore field " + field.getName() + ": " + e);
+		}
+	}
+
+	private void readArray(Object array) throws IOException {
+		Class<?> type = array.getClass().getComponentType();
+		if (!type.isPrimitive()) {
+			Object[] values = (Object[]) array;
+			for (int i = 0; i < values.length; i++) {
+				values[i] = readValue();
+			}
+		} else if (type == double.class) {
+			double[] values = (double[]) array;
+			for (int i = 0; i < values.length; i++) {
+				values[i] = in.readDouble();
+			}
+		} else if (type == int.class) {
+			int[] values = (int[]) array;
+			for (int i = 0; i < values.length; i++) {
+				values[i] = in.readInt();
+			}
+		} else if (type == long.class) {
+			long[] values = (long[]) array;
+			for (int i = 0; i < values.length; i++) {
+				values[i] = in.readLong();
+			}
+		} else if (type == boolean.class) {
+			boolean[] values = (boolean[]) array;
+			for (int i = 0; i < values.length; i++) {
+				values[i] = in.readBoolean();
+			}
+		} else if (type == byte.class) {
+			in.readFully((byte[]) array);
+		} else if (type == float.class) {
+			float[] values = (float[]) array;
+			for (int i = 0; i < values.length; i++) {
+				values[i] = in.readFloat();
+			}
+		} else if (type == short.class) {
+			short[] values = (short[]) array;
+			for (int i = 0; i < values.length; i++) {
+				values[i] = in.readShort();
+			}
+		} else {
+			char[] values = (char[]) array;
+			for (int i = 0; i < values.length; i++) {
+				values[i] = in.readChar();
+			}
+		}
+	}
+
+	private Object deserialize() throws IOException {
+		byte[] bytes = new byte[readVarint()];
+		in.readFully(bytes);
+		try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(bytes)) {
+			@Override
+			protected Class<?> resolveClass(java.io.ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+				return Class.forName(desc.getName(), false, classLoader());
+			}
+		}) {
+			return stream.readObject();
+		} catch (ClassNotFoundException e) {
+			throw new InvalidClassException(e.getMessage(), "class not found");
+		}
+	}
+
+	private Object newHandle(Object value) {
+		handles.add(value);
+		return value;
+	}
+
+	private Class<?> readClass() throws IOException {
+		int index = readVarint();
+		if (index < classes.size()) {
+			return classes.get(index);
+		}
+		String name = readString();
+		Class<?> type = switch (name) {
+			case "int" -> int.class;
+			case "long" -> long.class;
+			case "double" -> double.class;
+			case "boolean" -> boolean.class;
+			case "float" -> float.class;
+			case "short" -> short.class;
+			case "byte" -> byte.class;
+			case "char" -> char.class;
+			case "void" -> void.class;
+			default -> {
+				try {
+					yield Class.forName(name, false, classLoader());
+				} catch (ClassNotFoundException e) {
+					throw new InvalidClassException(name, "class not found");
+				}
+			}
+		};
+		classes.add(type);
+		return type;
+	}
+
+	private static ClassLoader classLoader() {
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		return loader != null ? loader : SnapshotReader.class.getClassLoader();
+	}
+
+	private String readString() throws IOException {
+		byte[] bytes = new byte[readVarint()];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private int readVarint() throws IOException {
+		int value = 0;
+		for (int shift = 0; ; shift += 7) {
+			byte b = in.readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+}
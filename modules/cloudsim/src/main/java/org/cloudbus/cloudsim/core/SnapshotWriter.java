@@ -0,0 +1,403 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.SortedMap;
+
+import org.cloudbus.cloudsim.core.ObjectGraph.Kind;
+import org.cloudbus.cloudsim.core.ObjectGraph.Layout;
+
+/**
+ * Writes an object graph in the binary snapshot format read by {@link SnapshotReader}.
+ * <p>
+ * Each object is written once. The first reference to an object of the simulation only tells
+ * its class, and the object itself (its fields, or its elements) is written after the object
+ * that refers to it, in breadth-first order; the following references are handles. The graph
+ * can thus be as deep as needed, and have any cycle.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+final class SnapshotWriter {
+
+	/** The first bytes of a snapshot. */
+	static final int MAGIC = 0x43534E50;
+
+	/** The version of the snapshot format. */
+	static final int VERSION = 1;
+
+	static final byte NULL = 0;
+	static final byte REFERENCE = 1;
+	static final byte STRING = 2;
+	static final byte INTEGER = 3;
+	static final byte LONG = 4;
+	static final byte DOUBLE = 5;
+	static final byte FLOAT = 6;
+	static final byte BOOLEAN = 7;
+	static final byte SHORT = 8;
+	static final byte BYTE = 9;
+	static final byte CHARACTER = 10;
+	static final byte ENUM = 11;
+	static final byte CLASS = 12;
+	static final byte NEW = 13;
+	static final byte RECORD = 14;
+	static final byte SERIALIZED = 15;
+	static final byte THREAD_LOCAL = 16;
+	static final byte CONSTANT = 17;
+
+	/** The output. */
+	private final DataOutputStream out;
+
+	/** The handles of the objects already written. */
+	private final Map<Object, Integer> handles = new IdentityHashMap<>();
+
+	/** The indexes of the classes already written. */
+	private final Map<Class<?>, Integer> classes = new HashMap<>();
+
+	/** The objects referred to but not written yet. */
+	private final ArrayDeque<Object> pending = new ArrayDeque<>();
+
+	/** The field being written, to explain the failures. */
+	private Field location;
+
+	SnapshotWriter(DataOutputStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * Writes an object and everything it refers to.
+	 *
+	 * @param root the object
+	 * @throws IOException if the output fails, or {@link NotSerializableException} if an object
+	 *             can't be written
+	 */
+	void write(Object root) throws IOException {
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		writeValue(root);
+		Object obj;
+		while ((obj = pending.poll()) != null) {
+			writeBody(obj);
+		}
+		out.flush();
+	}
+
+	private void writeValue(Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL);
+			return;
+		}
+		Integer handle = handles.get(value);
+		if (handle != null) {
+			out.writeByte(REFERENCE);
+			writeVarint(handle);
+			return;
+		}
+		int constant = constantIndex(value);
+		if (constant >= 0) {
+			out.writeByte(CONSTANT);
+			writeVarint(constant);
+			return;
+		}
+
+		Layout layout = ObjectGraph.layout(value.getClass());
+		switch (layout.kind) {
+			case STRING -> {
+				out.writeByte(STRING);
+				writeString((String) value);
+				newHandle(value);
+			}
+			case BOXED -> writeBoxed(value);
+			case ENUM -> {
+				out.writeByte(ENUM);
+				writeClass(((Enum<?>) value).getDeclaringClass());
+				writeVarint(((Enum<?>) value).ordinal());
+			}
+			case CLASS -> {
+				out.writeByte(CLASS);
+				writeClass((Class<?>) value);
+			}
+			case RECORD -> {
+				out.writeByte(RECORD);
+				writeClass(layout.type);
+				for (Field field : layout.fields) {
+					location = field;
+					writeValue(get(field, value));
+				}
+				// the reader builds the record once it has the components
+				newHandle(value);
+			}
+			case SERIALIZED -> {
+				out.writeByte(SERIALIZED);
+				byte[] bytes = serialize(value);
+				writeVarint(bytes.length);
+				out.write(bytes);
+				newHandle(value);
+			}
+			case THREAD_LOCAL -> {
+				out.writeByte(THREAD_LOCAL);
+				newHandle(value);
+			}
+			case UNSUPPORTED -> throw new NotSerializableException(value.getClass().getName() + " is " + layout.reason
+					+ (location != null ? " (referred to by " + location + ")" : ""));
+			default -> writeNew(value, layout);
+		}
+	}
+
+	/**
+	 * Writes the first reference to an object whose content comes later.
+	 */
+	private void writeNew(Object value, Layout layout) throws IOException {
+		if (layout.kind == Kind.ENUM_MAP && ((EnumMap<?, ?>) value).isEmpty()) {
+			// the key type of an empty map is only known to its serialized form
+			out.writeByte(SERIALIZED);
+			byte[] bytes = serialize(value);
+			writeVarint(bytes.length);
+			out.write(bytes);
+			newHandle(value);
+			return;
+		}
+
+		out.writeByte(NEW);
+		writeClass(layout.type);
+		switch (layout.kind) {
+			case ARRAY -> writeVarint(Array.getLength(value));
+			case FIXED_LIST -> writeVarint(((Collection<?>) value).size());
+			case SORTED_COLLECTION -> writeValue(ObjectGraph.comparator(value));
+			case SORTED_MAP -> writeValue(((SortedMap<?, ?>) value).comparator());
+			case ENUM_MAP -> writeClass(((EnumMap<?, ?>) value).keySet().iterator().next().getDeclaringClass());
+			case COLLECTION -> {
+				if (layout.type == HashSet.class) {
+					writeHashCapacity((Collection<?>) value);
+				}
+			}
+			case MAP -> {
+				if (layout.type == HashMap.class) {
+					writeHashCapacity(((Map<?, ?>) value).keySet());
+				}
+			}
+			default -> {
+			}
+		}
+		newHandle(value);
+		pending.add(value);
+	}
+
+	/**
+	 * Writes the capacity of a {@link HashSet} or {@link HashMap}, or 0 if its keys use the
+	 * identity hash code: it is then read back as a linked set or map, in the same order.
+	 */
+	private void writeHashCapacity(Collection<?> keys) throws IOException {
+		writeVarint(ObjectGraph.identityHashed(keys) ? 0 : ObjectGraph.hashCapacity(keys));
+	}
+
+	/**
+	 * Writes the content of an object.
+	 */
+	private void writeBody(Object obj) throws IOException {
+		Layout layout = ObjectGraph.layout(obj.getClass());
+		switch (layout.kind) {
+			case OBJECT -> writeFields(layout, obj);
+			case EXTENDED_COLLECTION -> {
+				writeFields(layout, obj);
+				writeElements((Collection<?>) obj);
+			}
+			case ARRAY -> writeArray(obj);
+			case MAP, SORTED_MAP, ENUM_MAP, UNMODIFIABLE_MAP, SYNCHRONIZED_MAP -> {
+				Map<?, ?> map = (Map<?, ?>) obj;
+				writeVarint(map.size());
+				for (Map.Entry<?, ?> entry : map.entrySet()) {
+					writeValue(entry.getKey());
+					writeValue(entry.getValue());
+				}
+			}
+			default -> writeElements((Collection<?>) obj);
+		}
+	}
+
+	private void writeFields(Layout layout, Object obj) throws IOException {
+		for (Field field : layout.fields) {
+			location = field;
+			writeField(field, obj);
+		}
+	}
+
+	private void writeElements(Collection<?> collection) throws IOException {
+		// the priority queues are written in heap order, and rebuilt as they were
+		writeVarint(collection.size());
+		for (Object element : collection) {
+			writeValue(element);
+		}
+	}
+
+	private void writeField(Field field, Object obj) throws IOException {
+		try {
+			Class<?> type = field.getType();
+			if (!type.isPrimitive()) {
+				writeValue(field.get(obj));
+			} else if (type == int.class) {
+				out.writeInt(field.getInt(obj));
+			} else if (type == long.class) {
+				out.writeLong(field.getLong(obj));
+			} else if (type == double.class) {
+				out.writeDouble(field.getDouble(obj));
+			} else if (type == boolean.class) {
+				out.writeBoolean(field.getBoolean(obj));
+			} else if (type == float.class) {
+				out.writeFloat(field.getFloat(obj));
+			} else if (type == short.class) {
+				out.writeShort(field.getShort(obj));
+			} else if (type == byte.class) {
+				out.writeByte(field.getByte(obj));
+			} else {
+				out.writeChar(field.getChar(obj));
+			}
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private void writeArray(Object array) throws IOException {
+		Class<?> type = array.getClass().getComponentType();
+		if (!type.isPrimitive()) {
+			for (Object element : (Object[]) array) {
+				writeValue(element);
+			}
+		} else if (type == double.class) {
+			for (double v : (double[]) array) {
+				out.writeDouble(v);
+			}
+		} else if (type == int.class) {
+			for (int v : (int[]) array) {
+				out.writeInt(v);
+			}
+		} else if (type == long.class) {
+			for (long v : (long[]) array) {
+				out.writeLong(v);
+			}
+		} else if (type == boolean.class) {
+			for (boolean v : (boolean[]) array) {
+				out.writeBoolean(v);
+			}
+		} else if (type == byte.class) {
+			out.write((byte[]) array);
+		} else if (type == float.class) {
+			for (float v : (float[]) array) {
+				out.writeFloat(v);
+			}
+		} else if (type == short.class) {
+			for (short v : (short[]) array) {
+				out.writeShort(v);
+			}
+		} else {
+			for (char v : (char[]) array) {
+				out.writeChar(v);
+			}
+		}
+	}
+
+	private void writeBoxed(Object value) throws IOException {
+		if (value instanceof Integer v) {
+			out.writeByte(INTEGER);
+			out.writeInt(v);
+		} else if (value instanceof Long v) {
+			out.writeByte(LONG);
+			out.writeLong(v);
+		} else if (value instanceof Double v) {
+			out.writeByte(DOUBLE);
+			out.writeDouble(v);
+		} else if (value instanceof Float v) {
+			out.writeByte(FLOAT);
+			out.writeFloat(v);
+		} else if (value instanceof Boolean v) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean(v);
+		} else if (value instanceof Short v) {
+			out.writeByte(SHORT);
+			out.writeShort(v);
+		} else if (value instanceof Byte v) {
+			out.writeByte(BYTE);
+			out.writeByte(v);
+		} else {
+			out.writeByte(CHARACTER);
+			out.writeChar((Character) value);
+		}
+	}
+
+	private static Object get(Field field, Object obj) {
+		try {
+			return field.get(obj);
+		} catch (IllegalAccessException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private byte[] serialize(Object value) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream stream = new ObjectOutputStream(bytes)) {
+			stream.writeObject(value);
+		} catch (NotSerializableException e) {
+			throw new NotSerializableException(value.getClass().getName() + " refers to " + e.getMessage()
+					+ (location != null ? " (referred to by " + location + ")" : ""));
+		}
+		return bytes.toByteArray();
+	}
+
+	private static int constantIndex(Object value) {
+		for (int i = 0; i < ObjectGraph.CONSTANTS.size(); i++) {
+			if (ObjectGraph.CONSTANTS.get(i) == value) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private void newHandle(Object value) {
+		handles.put(value, handles.size());
+	}
+
+	private void writeClass(Class<?> type) throws IOException {
+		Integer index = classes.get(type);
+		if (index != null) {
+			writeVarint(index);
+			return;
+		}
+		writeVarint(classes.size());
+		classes.put(type, classes.size());
+		writeString(type.getName());
+	}
+
+	private void writeString(String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarint(bytes.length);
+		out.write(bytes);
+	}
+
+	private void writeVarint(int value) throws IOException {
+		while ((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+/**
+ * An event read from a trace written by {@link EventTraceWriter}.
+ *
+ * @param time the time of the event
+ * @param serial the serial number ordering the events happening at the same time
+ * @param type the internal type of the event, e.g. {@link SimEvent#SEND}
+ * @param source the id of the source entity
+ * @param destination the id of the destination entity
+ * @param tag the tag of the event
+ * @param dataType the class name of the data object, or <tt>null</tt> if there was none
+ * @param hasIntData whether the event carried int values
+ * @param intData0 the first int value
+ * @param intData1 the second int value
+ * @param intData2 the third int value
+ * @param longData the long value
+ * @param doubleData the double value
+ * @since CloudSim Toolkit 7.0
+ */
+public record TracedEvent(double time, long serial, int type, int source, int destination, CloudSimTags tag,
+		String dataType, boolean hasIntData, int intData0, int intData1, int intData2, long longData, double doubleData) {
+
+	/**
+	 * Rebuilds the event, to be processed by an entity.
+	 *
+	 * @param destination the id of the destination entity
+	 * @param data the data object of the event
+	 * @return the event
+	 */
+	SimEvent toSimEvent(int destination, Object data) {
+		SimEvent ev = new SimEvent(type, time, source, destination, tag, data);
+		ev.setSerial(serial);
+		if (hasIntData) {
+			ev.setIntData(intData0, intData1, intData2);
+		}
+		ev.setLongData(longData);
+		ev.setDoubleData(doubleData);
+		return ev;
+	}
+}
@@ -21,6 +21,9 @@ import org.cloudbus.cloudsim.core.SimEvent;
  * the criteria to select received events.
  * 
  * Some standard predicates are provided.<br/>
+ * The queues recognise the standard predicates, whose tags and sources they look up in their
+ * indexes instead of matching every event: the subclasses of the standard predicates must not
+ * change what they match.<br/>
  * The idea of simulation predicates was copied from SimJava 2.
  * 
  * @author Marcos Dias de Assuncao
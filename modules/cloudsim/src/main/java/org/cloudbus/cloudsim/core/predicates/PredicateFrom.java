@@ -42,6 +42,15 @@ public class PredicateFrom extends Predicate {
 		ids = sourceIds.clone();
 	}
 
+	/**
+	 * Gets the ids of the source entities selected by this predicate.
+	 *
+	 * @return a copy of the {@link #ids}
+	 */
+	public int[] getSourceIds() {
+		return ids.clone();
+	}
+
 	/**
 	 * Matches any event received from the registered sources.
 	 * 
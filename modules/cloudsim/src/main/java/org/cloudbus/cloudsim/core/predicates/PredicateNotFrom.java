@@ -41,6 +41,15 @@ public class PredicateNotFrom extends Predicate {
 		ids = sourceIds.clone();
 	}
 
+	/**
+	 * Gets the ids of the source entities excluded by this predicate.
+	 *
+	 * @return a copy of the {@link #ids}
+	 */
+	public int[] getSourceIds() {
+		return ids.clone();
+	}
+
 	/**
 	 * Matches any event <b>not</b> received from the registered sources.
 	 * 
@@ -42,6 +42,15 @@ public class PredicateNotType extends Predicate {
 		this.tags = tags.clone();
 	}
 
+	/**
+	 * Gets the tags excluded by this predicate.
+	 *
+	 * @return a copy of the {@link #tags}
+	 */
+	public CloudSimTags[] getTags() {
+		return tags.clone();
+	}
+
 	/**
 	 * Matches any event that hasn't one of the specified {@link #tags}.
 	 * 
@@ -0,0 +1,28 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An update of the processing of the cloudlets of a datacenter.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+@Name("org.cloudbus.cloudsim.CloudletProcessing")
+@Label("Cloudlet Processing Update")
+@Description("The update of the processing of the cloudlets running in a datacenter")
+public final class CloudletProcessingEvent extends SimulationEvent {
+
+	/** The name of the datacenter. */
+	@Label("Datacenter")
+	public String datacenter;
+}
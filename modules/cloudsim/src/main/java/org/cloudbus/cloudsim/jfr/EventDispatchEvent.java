@@ -0,0 +1,43 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The processing of an event by an entity. There are many of them, so that they are disabled by
+ * default, and enabled in the recording settings as <tt>org.cloudbus.cloudsim.EventDispatch</tt>.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+@Name("org.cloudbus.cloudsim.EventDispatch")
+@Label("Event Dispatch")
+@Description("The processing of a simulation event by its destination entity")
+@Enabled(false)
+public final class EventDispatchEvent extends SimulationEvent {
+
+	/** The name of the destination entity. */
+	@Label("Entity")
+	public String entity;
+
+	/** The class of the destination entity. */
+	@Label("Entity Class")
+	public Class<?> entityClass;
+
+	/** The tag of the event. */
+	@Label("Tag")
+	public String tag;
+
+	/** The id of the source entity. */
+	@Label("Source")
+	public int source;
+}
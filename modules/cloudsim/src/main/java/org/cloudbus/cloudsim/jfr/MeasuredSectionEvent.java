@@ -0,0 +1,29 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A section of code timed with {@link org.cloudbus.cloudsim.util.ExecutionTimeMeasurer}, e.g. a
+ * phase of the optimization of the VM allocation.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+@Name("org.cloudbus.cloudsim.MeasuredSection")
+@Label("Measured Section")
+@Description("A section of code timed by the execution time measurer, e.g. a phase of the VM allocation optimization")
+public final class MeasuredSectionEvent extends SimulationEvent {
+
+	/** The name of the section. */
+	@Label("Section")
+	public String section;
+}
@@ -0,0 +1,32 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The forwarding of the packets processed by a switch of a network datacenter.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+@Name("org.cloudbus.cloudsim.PacketForwarding")
+@Label("Packet Forwarding")
+@Description("The forwarding of the packets processed by a switch to hosts and other switches")
+public final class PacketForwardingEvent extends SimulationEvent {
+
+	/** The name of the switch. */
+	@Label("Switch")
+	public String switchName;
+
+	/** The number of packets forwarded. */
+	@Label("Packets")
+	public int packets;
+}
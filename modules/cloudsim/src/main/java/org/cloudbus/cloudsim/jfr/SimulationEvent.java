@@ -0,0 +1,33 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * A JDK Flight Recorder event of a simulation, stamped with the simulation time so that the
+ * wall-clock hot spots can be lined up against the simulated time, e.g. in JDK Mission Control.
+ * <p>
+ * The events are used in the usual way: created, begun and ended around the recorded code, their
+ * fields set and committed only if {@link #shouldCommit()}. When the recorder doesn't record them,
+ * this costs about nothing: the JIT compiler removes the unused event objects.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+@Category("CloudSim")
+@StackTrace(false)
+public abstract class SimulationEvent extends Event {
+
+	/** The simulation time. */
+	@Label("Simulation Clock")
+	public double clock;
+}
@@ -0,0 +1,36 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The placement of a new VM (or any guest) on a host of a datacenter.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+@Name("org.cloudbus.cloudsim.VmCreation")
+@Label("VM Creation")
+@Description("The placement of a new guest on a host of a datacenter")
+public final class VmCreationEvent extends SimulationEvent {
+
+	/** The name of the datacenter. */
+	@Label("Datacenter")
+	public String datacenter;
+
+	/** The id of the guest. */
+	@Label("Guest")
+	public int guest;
+
+	/** The id of the host, or -1 if the guest couldn't be placed. */
+	@Label("Host")
+	public int host;
+}
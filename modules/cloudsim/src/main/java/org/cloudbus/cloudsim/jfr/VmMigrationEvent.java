@@ -0,0 +1,36 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The end of the migration of a VM (or any guest) to another host of a datacenter.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+@Name("org.cloudbus.cloudsim.VmMigration")
+@Label("VM Migration")
+@Description("The move of a migrating guest to its destination host")
+public final class VmMigrationEvent extends SimulationEvent {
+
+	/** The name of the datacenter. */
+	@Label("Datacenter")
+	public String datacenter;
+
+	/** The id of the guest. */
+	@Label("Guest")
+	public int guest;
+
+	/** The id of the destination host. */
+	@Label("Host")
+	public int host;
+}
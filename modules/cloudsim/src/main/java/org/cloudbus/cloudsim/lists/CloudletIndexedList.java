@@ -0,0 +1,435 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.lists;
+
+import java.util.AbstractSequentialList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.UnaryOperator;
+
+import org.cloudbus.cloudsim.Cloudlet;
+
+/**
+ * A linked list of cloudlets indexed by their ids, so that a cloudlet is found, and removed, in
+ * constant time rather than by walking the list. It is otherwise used as a {@link java.util.LinkedList}:
+ * adding at the end and removing the first cloudlet are constant time, and so is removing a
+ * cloudlet through an iterator or by reference.
+ * <p>
+ * A cloudlet found by id is the first one with that id in the list, as with
+ * {@link CloudletList#getById(java.util.List, int)}, and the cloudlets equal to each other are
+ * expected to have the same id. The ids are expected to be unique in the list, as they are in the
+ * lists of a cloudlet scheduler: some lookups of an id held by several cloudlets walk the list
+ * again. The id of a cloudlet must not change while it is in the list.
+ *
+ * @param <T> the type of the cloudlets
+ * @since CloudSim Toolkit 7.0
+ * @see CloudletList#removeById(java.util.List, int)
+ */
+public class CloudletIndexedList<T extends Cloudlet> extends AbstractSequentialList<T> {
+
+	/** A node of the list. */
+	private static final class Node<T> {
+		private T item;
+		private Node<T> prev;
+		private Node<T> next;
+
+		Node(T item) {
+			this.item = item;
+		}
+	}
+
+	/** The first node, or <tt>null</tt> if the list is empty. */
+	private Node<T> head;
+
+	/** The last node, or <tt>null</tt> if the list is empty. */
+	private Node<T> tail;
+
+	/** The number of cloudlets. */
+	private int size;
+
+	/** The first node of each id. */
+	private final Map<Integer, Node<T>> index = new HashMap<>();
+
+	/** The number of cloudlets of each id held by several ones, beyond the first one. */
+	private final Map<Integer, Integer> duplicates = new HashMap<>();
+
+	/**
+	 * Creates an empty list.
+	 */
+	public CloudletIndexedList() {
+	}
+
+	/**
+	 * Creates a list of the cloudlets of a collection, in its iteration order.
+	 *
+	 * @param cloudlets the cloudlets
+	 */
+	public CloudletIndexedList(Collection<? extends T> cloudlets) {
+		for (T cloudlet : cloudlets) {
+			linkBefore(cloudlet, null);
+		}
+	}
+
+	/**
+	 * Gets the first cloudlet with a given id.
+	 *
+	 * @param id the id of the cloudlet
+	 * @return the cloudlet, or <tt>null</tt> if not found
+	 */
+	public T getById(int id) {
+		Node<T> node = index.get(id);
+		return node == null ? null : node.item;
+	}
+
+	/**
+	 * Removes the first cloudlet with a given id.
+	 *
+	 * @param id the id of the cloudlet
+	 * @return the cloudlet removed, or <tt>null</tt> if not found
+	 */
+	public T removeById(int id) {
+		Node<T> node = index.get(id);
+		if (node == null) {
+			return null;
+		}
+		unlink(node);
+		return node.item;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean add(T cloudlet) {
+		linkBefore(cloudlet, null);
+		return true;
+	}
+
+	@Override
+	public boolean contains(Object o) {
+		return find(o) != null;
+	}
+
+	@Override
+	public boolean remove(Object o) {
+		Node<T> node = find(o);
+		if (node == null) {
+			return false;
+		}
+		unlink(node);
+		return true;
+	}
+
+	@Override
+	public boolean removeAll(Collection<?> c) {
+		boolean modified = false;
+		for (Object o : c) {
+			while (remove(o)) {
+				modified = true;
+			}
+		}
+		return modified;
+	}
+
+	@Override
+	public void clear() {
+		head = tail = null;
+		size = 0;
+		index.clear();
+		duplicates.clear();
+		modCount++;
+	}
+
+	/**
+	 * Sorts the cloudlets in place, then indexes them again at once, rather than through
+	 * {@link ListIterator#set(Object)} as {@link java.util.List#sort(Comparator)} does, which may walk the
+	 * list for each cloudlet moved.
+	 */
+	@Override
+	@SuppressWarnings("unchecked")
+	public void sort(Comparator<? super T> c) {
+		Object[] items = toArray();
+		Arrays.sort(items, (Comparator<Object>) c);
+		int i = 0;
+		for (Node<T> n = head; n != null; n = n.next) {
+			n.item = (T) items[i++];
+		}
+		reindex();
+	}
+
+	@Override
+	public void replaceAll(UnaryOperator<T> operator) {
+		for (Node<T> n = head; n != null; n = n.next) {
+			n.item = operator.apply(n.item);
+		}
+		reindex();
+	}
+
+	@Override
+	public ListIterator<T> listIterator(int position) {
+		if (position < 0 || position > size) {
+			throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + size);
+		}
+		return new Iter(position);
+	}
+
+	/**
+	 * Finds the first node holding a cloudlet equal to an object, among those of its id.
+	 *
+	 * @return the node, or <tt>null</tt> if not found
+	 */
+	private Node<T> find(Object o) {
+		if (!(o instanceof Cloudlet cl)) {
+			return null;
+		}
+		int id = cl.getCloudletId();
+		Node<T> node = index.get(id);
+		if (node == null || node.item.equals(o)) {
+			return node;
+		}
+		if (duplicates.containsKey(id)) {
+			for (node = node.next; node != null; node = node.next) {
+				if (node.item.getCloudletId() == id && node.item.equals(o)) {
+					return node;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Inserts a cloudlet before a node, or at the end.
+	 */
+	private Node<T> linkBefore(T cloudlet, Node<T> successor) {
+		Node<T> node = new Node<>(cloudlet);
+		Node<T> predecessor = successor == null ? tail : successor.prev;
+		node.prev = predecessor;
+		node.next = successor;
+		if (predecessor == null) {
+			head = node;
+		} else {
+			predecessor.next = node;
+		}
+		if (successor == null) {
+			tail = node;
+		} else {
+			successor.prev = node;
+		}
+		size++;
+		modCount++;
+		addToIndex(node);
+		return node;
+	}
+
+	/**
+	 * Removes a node from the list.
+	 */
+	private void unlink(Node<T> node) {
+		removeFromIndex(node);
+		if (node.prev == null) {
+			head = node.next;
+		} else {
+			node.prev.next = node.next;
+		}
+		if (node.next == null) {
+			tail = node.prev;
+		} else {
+			node.next.prev = node.prev;
+		}
+		node.prev = node.next = null;
+		size--;
+		modCount++;
+	}
+
+	/**
+	 * Indexes a node just linked, or just given another cloudlet.
+	 */
+	private void addToIndex(Node<T> node) {
+		int id = node.item.getCloudletId();
+		Node<T> first = index.putIfAbsent(id, node);
+		if (first == null) {
+			return;
+		}
+		duplicates.merge(id, 1, Integer::sum);
+		if (node == tail) {
+			return;
+		}
+		// inserted in the middle: the first node of the id is the one met first from the head
+		for (Node<T> n = head; n != null; n = n.next) {
+			if (n == node || n == first) {
+				index.put(id, n);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Indexes all the nodes again, after their cloudlets have been replaced.
+	 */
+	private void reindex() {
+		index.clear();
+		duplicates.clear();
+		for (Node<T> n = head; n != null; n = n.next) {
+			if (index.putIfAbsent(n.item.getCloudletId(), n) != null) {
+				duplicates.merge(n.item.getCloudletId(), 1, Integer::sum);
+			}
+		}
+		modCount++;
+	}
+
+	/**
+	 * Removes a node about to be unlinked from the index.
+	 */
+	private void removeFromIndex(Node<T> node) {
+		int id = node.item.getCloudletId();
+		Integer count = duplicates.get(id);
+		if (count == null) {
+			index.remove(id);
+			return;
+		}
+		if (count == 1) {
+			duplicates.remove(id);
+		} else {
+			duplicates.put(id, count - 1);
+		}
+		if (index.get(id) == node) {
+			for (Node<T> n = node.next; n != null; n = n.next) {
+				if (n.item.getCloudletId() == id) {
+					index.put(id, n);
+					return;
+				}
+			}
+		}
+	}
+
+	/** An iterator over the list, supporting all the optional operations. */
+	private class Iter implements ListIterator<T> {
+		/** The node returned by {@link #next()}, <tt>null</tt> at the end. */
+		private Node<T> next;
+
+		/** The node last returned, <tt>null</tt> if removed or none. */
+		private Node<T> lastReturned;
+
+		private int nextIndex;
+
+		private int expectedModCount = modCount;
+
+		Iter(int position) {
+			if (position > size / 2) {
+				next = null;
+				nextIndex = size;
+				while (nextIndex > position) {
+					next = next == null ? tail : next.prev;
+					nextIndex--;
+				}
+			} else {
+				next = head;
+				nextIndex = 0;
+				while (nextIndex < position) {
+					next = next.next;
+					nextIndex++;
+				}
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return nextIndex < size;
+		}
+
+		@Override
+		public T next() {
+			checkForComodification();
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			lastReturned = next;
+			next = next.next;
+			nextIndex++;
+			return lastReturned.item;
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return nextIndex > 0;
+		}
+
+		@Override
+		public T previous() {
+			checkForComodification();
+			if (!hasPrevious()) {
+				throw new NoSuchElementException();
+			}
+			next = next == null ? tail : next.prev;
+			lastReturned = next;
+			nextIndex--;
+			return lastReturned.item;
+		}
+
+		@Override
+		public int nextIndex() {
+			return nextIndex;
+		}
+
+		@Override
+		public int previousIndex() {
+			return nextIndex - 1;
+		}
+
+		@Override
+		public void remove() {
+			checkForComodification();
+			if (lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			if (next == lastReturned) {
+				next = lastReturned.next;
+			} else {
+				nextIndex--;
+			}
+			unlink(lastReturned);
+			lastReturned = null;
+			expectedModCount = modCount;
+		}
+
+		@Override
+		public void set(T cloudlet) {
+			checkForComodification();
+			if (lastReturned == null) {
+				throw new IllegalStateException();
+			}
+			removeFromIndex(lastReturned);
+			lastReturned.item = cloudlet;
+			addToIndex(lastReturned);
+		}
+
+		@Override
+		public void add(T cloudlet) {
+			checkForComodification();
+			lastReturned = null;
+			linkBefore(cloudlet, next);
+			nextIndex++;
+			expectedModCount = modCount;
+		}
+
+		private void checkForComodification() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+}
@@ -30,6 +30,9 @@ public class CloudletList {
 	 * @return a Cloudlet with the given ID or $null if not found
 	 */
 	public static <T extends Cloudlet> T getById(List<T> cloudletList, int id) {
+		if (cloudletList instanceof CloudletIndexedList<T> indexed) {
+			return indexed.getById(id);
+		}
 		for (T cl : cloudletList) {
 			if (cl.getCloudletId() == id) {
 				return cl;
@@ -82,6 +85,22 @@ public class CloudletList {
 		}
 		return -1;
 	}
+
+	/**
+	 * Removes the first cloudlet with a given id, in constant time from a
+	 * {@link CloudletIndexedList}.
+	 *
+	 * @param cloudletList the list of existing cloudlets
+	 * @param id the cloudlet id
+	 * @return the cloudlet removed, or $null if not found
+	 */
+	public static <T extends Cloudlet> T removeById(List<T> cloudletList, int id) {
+		if (cloudletList instanceof CloudletIndexedList<T> indexed) {
+			return indexed.removeById(id);
+		}
+		int position = getPositionById(cloudletList, id);
+		return position >= 0 ? cloudletList.remove(position) : null;
+	}
 	
 	/**
 	 * Sorts the Cloudlets in a list based on their lengths.
@@ -16,7 +16,7 @@ import java.util.Map.Entry;
 
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.core.*;
-import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.cloudbus.cloudsim.jfr.PacketForwardingEvent;
 
 /**
  * This class represents a Network Switch in a Datacenter network.
@@ -150,7 +150,19 @@ public class Switch extends SimEntity {
         } else if (tag == CloudActionTags.NETWORK_PKT_DOWN) {
             processPacketDown(ev);
         } else if (tag == CloudActionTags.NETWORK_PKT_FORWARD) {
+            PacketForwardingEvent recorded = new PacketForwardingEvent();
+            if (recorded.isEnabled()) {
+                recorded.packets = countPackets(pktsToDownlinkSwitches) + countPackets(pktsToUplinkSwitches)
+                        + countPackets(pktsToHosts);
+            }
+            recorded.begin();
             forwardProcessedPackets();
+            recorded.end();
+            if (recorded.shouldCommit()) {
+                recorded.clock = CloudSim.clock();
+                recorded.switchName = getName();
+                recorded.commit();
+            }
         } else if (tag == CloudActionTags.NETWORK_PKT_REACHED_HOST) {
             storePacketInHost(ev);
         } else if (tag == CloudActionTags.NETWORK_ATTACH_HOST) {
@@ -182,7 +194,7 @@ public class Switch extends SimEntity {
 	protected void processPacketDown(SimEvent ev) {
 		NetworkPacket npkt = (NetworkPacket) ev.getData();
 		int recvVMid = npkt.pkt.receiverGuestId;
-		CloudSim.cancelAll(getId(), new PredicateType(CloudActionTags.NETWORK_PKT_FORWARD));
+		CloudSim.cancelAll(getId(), CloudActionTags.NETWORK_PKT_FORWARD);
 		schedule(getId(), switchingDelay, CloudActionTags.NETWORK_PKT_FORWARD);
 
 		// packet is to be received by the host
@@ -208,7 +220,7 @@ public class Switch extends SimEntity {
 		NetworkPacket npkt = (NetworkPacket) ev.getData();
 		int recvVMid = npkt.pkt.receiverGuestId;
 
-		CloudSim.cancelAll(getId(), new PredicateType(CloudActionTags.NETWORK_PKT_FORWARD));
+		CloudSim.cancelAll(getId(), CloudActionTags.NETWORK_PKT_FORWARD);
 		schedule(getId(), switchingDelay, CloudActionTags.NETWORK_PKT_FORWARD);
 
 		// Packet is to be sent from an host
@@ -299,6 +311,14 @@ public class Switch extends SimEntity {
 		}
 	}
 
+	private static int countPackets(Map<Integer, List<NetworkPacket>> packets) {
+		int count = 0;
+		for (List<NetworkPacket> list : packets.values()) {
+			count += list.size();
+		}
+		return count;
+	}
+
 	/**
 	 * Forwards the processed packets to their respective destinations:
 	 * an host, a downlink switch, or a uplink switch.
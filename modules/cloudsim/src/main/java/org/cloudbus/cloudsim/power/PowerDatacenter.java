@@ -10,16 +10,21 @@ package org.cloudbus.cloudsim.power;
 
 import java.util.List;
 
+import org.cloudbus.cloudsim.Cloudlet;
 import org.cloudbus.cloudsim.Datacenter;
 import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.HostStateHistoryEntry;
 import org.cloudbus.cloudsim.Log;
 import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.UtilizationModel;
 import org.cloudbus.cloudsim.Vm;
 import org.cloudbus.cloudsim.VmAllocationPolicy;
+import org.cloudbus.cloudsim.VmStateHistoryEntry;
 import org.cloudbus.cloudsim.VmAllocationPolicy.GuestMapping;
 import org.cloudbus.cloudsim.core.CloudActionTags;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.GuestEntity;
+import org.cloudbus.cloudsim.core.HostEntity;
 import org.cloudbus.cloudsim.core.SimEvent;
 import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
@@ -36,6 +41,12 @@ import org.cloudbus.cloudsim.core.predicates.PredicateType;
  * Issue 13, Pages: 1397-1420, John Wiley &amp; Sons, Ltd, New York, USA, 2012</a>
  * </ul>
  * 
+ * When migrations are disabled and the next change of the data center is known in advance, from
+ * the estimated finish times of the cloudlets and the {@link UtilizationModel#getNextChangeTime(double)
+ * utilization models} of their CPU, the data center skips the scheduling intervals up to it. The
+ * skipped intervals are accounted for as if they had been processed, with the same energy and
+ * state history entries, once the clock gets past them.
+ * 
  * @author Anton Beloglazov
  * @since CloudSim Toolkit 2.0
  */
@@ -53,6 +64,15 @@ public class PowerDatacenter extends Datacenter {
 	/** The VM migration count. */
 	private int migrationCount;
 
+	/** Indicates if the scheduling intervals in which nothing changes are skipped. */
+	private boolean fastForward;
+
+	/** The time of the next scheduling interval to account for, while skipping intervals. */
+	private double nextIntervalTime = -1;
+
+	/** The time of the scheduling interval the data center skips to, or -1 if it doesn't. */
+	private double fastForwardTime = -1;
+
 	/**
 	 * Instantiates a new PowerDatacenter.
 	 * 
@@ -75,12 +95,36 @@ public class PowerDatacenter extends Datacenter {
 		setDisableMigrations(false);
 		setCloudletSubmitted(-1);
 		setMigrationCount(0);
+		setFastForward(true);
+	}
+
+	@Override
+	public void processEvent(SimEvent ev) {
+		if (fastForwardTime != -1) {
+			processSkippedIntervals(CloudSim.clock());
+			if (ev.getTag() != CloudActionTags.VM_DATACENTER_EVENT) {
+				// the event may change the state: back to the next interval
+				CloudSim.cancelAll(getId(), CloudActionTags.VM_DATACENTER_EVENT);
+				send(getId(), nextIntervalTime - CloudSim.clock(), CloudActionTags.VM_DATACENTER_EVENT);
+			}
+			fastForwardTime = -1;
+		}
+		super.processEvent(ev);
+	}
+
+	@Override
+	public void shutdownEntity() {
+		if (fastForwardTime != -1) {
+			processSkippedIntervals(CloudSim.clock());
+			fastForwardTime = -1;
+		}
+		super.shutdownEntity();
 	}
 
 	@Override
 	protected void updateCloudletProcessing() {
 		if (getCloudletSubmitted() == -1 || getCloudletSubmitted() == CloudSim.clock()) {
-			CloudSim.cancelAll(getId(), new PredicateType(CloudActionTags.VM_DATACENTER_EVENT));
+			CloudSim.cancelAll(getId(), CloudActionTags.VM_DATACENTER_EVENT);
 			schedule(getId(), getSchedulingInterval(), CloudActionTags.VM_DATACENTER_EVENT);
 			return;
 		}
@@ -90,6 +134,7 @@ public class PowerDatacenter extends Datacenter {
 		if (currentTime > getLastProcessTime()) {
 			Log.print(currentTime + " ");
 
+			int vmCount = getVmList().size();
 			double minTime = updateCloudetProcessingWithoutSchedulingFutureEventsForce();
 
 			if (!isDisableMigrations()) {
@@ -135,8 +180,21 @@ public class PowerDatacenter extends Datacenter {
 
 			// schedules an event to the next time
 			if (minTime != Double.MAX_VALUE) {
-				CloudSim.cancelAll(getId(), new PredicateType(CloudActionTags.VM_DATACENTER_EVENT));
-				send(getId(), getSchedulingInterval(), CloudActionTags.VM_DATACENTER_EVENT);
+				CloudSim.cancelAll(getId(), CloudActionTags.VM_DATACENTER_EVENT);
+				double nextTime = currentTime + getSchedulingInterval();
+				double time = nextTime;
+				// the hosts of the deallocated VMs have yet to update their state
+				if (isFastForward() && getVmList().size() == vmCount) {
+					double quiescenceEndTime = getQuiescenceEndTime(minTime);
+					while (time < quiescenceEndTime) {
+						time += getSchedulingInterval();
+					}
+				}
+				if (time > nextTime) {
+					nextIntervalTime = nextTime;
+					fastForwardTime = time;
+				}
+				send(getId(), time - currentTime, CloudActionTags.VM_DATACENTER_EVENT);
 			}
 
 			setLastProcessTime(currentTime);
@@ -246,6 +304,84 @@ public class PowerDatacenter extends Datacenter {
 		return minTime;
 	}
 
+	/**
+	 * Gets the time until which the state of the data center can't change, after its cloudlets
+	 * have been processed: no migration can start, no VM is in migration, no cloudlet finishes
+	 * and the CPU utilization of the cloudlets stays the same.
+	 * 
+	 * @param minTime the expected time of completion of the next cloudlet
+	 * @return the time the state may change at, not after the current time if it may change at
+	 *         any time
+	 */
+	protected double getQuiescenceEndTime(double minTime) {
+		double currentTime = CloudSim.clock();
+		if (!isDisableMigrations()) {
+			return currentTime;
+		}
+		double endTime = minTime;
+		for (PowerHost host : this.<PowerHost> getHostList()) {
+			if (host.getStateHistory().isEmpty() || !host.getGuestsMigratingIn().isEmpty()) {
+				return currentTime;
+			}
+			for (GuestEntity vm : host.getGuestList()) {
+				if (vm.isInMigration() || vm.getStateHistory().isEmpty()
+						|| (vm instanceof HostEntity nested && !nested.getGuestList().isEmpty())
+						|| !vm.getCloudletScheduler().getCloudletWaitingList().isEmpty()) {
+					return currentTime;
+				}
+				for (Cloudlet cloudlet : vm.getCloudletScheduler().getCloudletExecList()) {
+					endTime = Math.min(endTime, cloudlet.getUtilizationModelCpu().getNextChangeTime(currentTime));
+				}
+			}
+		}
+		return endTime;
+	}
+
+	/**
+	 * Accounts for the skipped scheduling intervals up to a given time, as processing them would
+	 * have: the hosts and VMs keep the state of the last processing.
+	 * 
+	 * @param time the time
+	 */
+	private void processSkippedIntervals(double time) {
+		while (nextIntervalTime < fastForwardTime && nextIntervalTime <= time) {
+			double timeDiff = nextIntervalTime - getLastProcessTime();
+			double timeFrameDatacenterEnergy = 0.0;
+			for (PowerHost host : this.<PowerHost> getHostList()) {
+				for (GuestEntity vm : host.getGuestList()) {
+					VmStateHistoryEntry state = vm.getStateHistory().getLast();
+					vm.addStateHistoryEntry(
+							nextIntervalTime,
+							state.getAllocatedMips(),
+							state.getRequestedMips(),
+							state.isInMigration());
+					if (vm instanceof PowerVm powerVm
+							&& nextIntervalTime - powerVm.getPreviousTime() >= powerVm.getSchedulingInterval()) {
+						powerVm.addUtilizationHistoryValue(powerVm.getTotalUtilizationOfCpu(nextIntervalTime));
+						powerVm.setPreviousTime(nextIntervalTime);
+					}
+				}
+				HostStateHistoryEntry state = host.getStateHistory().getLast();
+				host.addStateHistoryEntry(
+						nextIntervalTime,
+						state.getAllocatedMips(),
+						state.getRequestedMips(),
+						state.isActive());
+
+				if (timeDiff > 0) {
+					double utilizationOfCpu = host.getUtilizationOfCpu();
+					timeFrameDatacenterEnergy += host.getEnergyLinearInterpolation(
+							utilizationOfCpu,
+							utilizationOfCpu,
+							timeDiff);
+				}
+			}
+			setPower(getPower() + timeFrameDatacenterEnergy);
+			setLastProcessTime(nextIntervalTime);
+			nextIntervalTime += getSchedulingInterval();
+		}
+	}
+
 	@Override
 	protected void processVmMigrate(SimEvent ev, boolean ack) {
 		updateCloudetProcessingWithoutSchedulingFutureEvents();
@@ -332,6 +468,24 @@ public class PowerDatacenter extends Datacenter {
 		this.cloudletSubmitted = cloudletSubmitted;
 	}
 
+	/**
+	 * Checks if the scheduling intervals in which nothing changes are skipped.
+	 * 
+	 * @return true, if they are skipped; false otherwise
+	 */
+	public boolean isFastForward() {
+		return fastForward;
+	}
+
+	/**
+	 * Enables or disables skipping the scheduling intervals in which nothing changes.
+	 * 
+	 * @param fastForward true to skip them; false to process every interval
+	 */
+	public void setFastForward(boolean fastForward) {
+		this.fastForward = fastForward;
+	}
+
 	/**
 	 * Gets the migration count.
 	 * 
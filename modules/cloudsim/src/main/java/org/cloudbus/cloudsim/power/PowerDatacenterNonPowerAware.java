@@ -20,7 +20,6 @@ import org.cloudbus.cloudsim.VmAllocationPolicy.GuestMapping;
 import org.cloudbus.cloudsim.core.CloudActionTags;
 import org.cloudbus.cloudsim.core.CloudSim;
 import org.cloudbus.cloudsim.core.GuestEntity;
-import org.cloudbus.cloudsim.core.predicates.PredicateType;
 
 /**
  * PowerDatacenterNonPowerAware is a class that represents a <b>non-power</b> aware data center in the
@@ -64,7 +63,7 @@ public class PowerDatacenterNonPowerAware extends PowerDatacenter {
 	@Override
 	protected void updateCloudletProcessing() {
 		if (getCloudletSubmitted() == -1 || getCloudletSubmitted() == CloudSim.clock()) {
-			CloudSim.cancelAll(getId(), new PredicateType(CloudActionTags.VM_DATACENTER_EVENT));
+			CloudSim.cancelAll(getId(), CloudActionTags.VM_DATACENTER_EVENT);
 			schedule(getId(), getSchedulingInterval(), CloudActionTags.VM_DATACENTER_EVENT);
 			return;
 		}
@@ -170,7 +169,7 @@ public class PowerDatacenterNonPowerAware extends PowerDatacenter {
 
 			// schedules an event to the next time
 			if (minTime != Double.MAX_VALUE) {
-				CloudSim.cancelAll(getId(), new PredicateType(CloudActionTags.VM_DATACENTER_EVENT));
+				CloudSim.cancelAll(getId(), CloudActionTags.VM_DATACENTER_EVENT);
 				// CloudSim.cancelAll(getId(), CloudSim.SIM_ANY);
 				send(getId(), getSchedulingInterval(), CloudActionTags.VM_DATACENTER_EVENT);
 			}
@@ -11,6 +11,9 @@ package org.cloudbus.cloudsim.util;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.jfr.MeasuredSectionEvent;
+
 /**
  * Measurement of execution times of CloudSim's methods.
  * 
@@ -29,8 +32,13 @@ public class ExecutionTimeMeasurer {
          * //@TODO The name of the attribute doesn't match with what it stores.
          * It in fact stores the method/process start time,
          * no the time it spent executing.
+         * Each thread has its own map, so that simulations running side by side
+         * don't mix their measures.
          */
-	private final static Map<String, Long> executionTimes = new HashMap<>();
+	private final static ThreadLocal<Map<String, Long>> executionTimes = ThreadLocal.withInitial(HashMap::new);
+
+	/** The sections being measured that the flight recorder records, by name. */
+	private final static ThreadLocal<Map<String, MeasuredSectionEvent>> recordedSections = ThreadLocal.withInitial(HashMap::new);
 
 	/**
 	 * Start measuring the execution time of a method/process.
@@ -42,6 +50,12 @@ public class ExecutionTimeMeasurer {
 	 */
 	public static void start(String name) {
 		getExecutionTimes().put(name, System.currentTimeMillis());
+		MeasuredSectionEvent recorded = new MeasuredSectionEvent();
+		if (recorded.isEnabled()) {
+			recorded.section = name;
+			recordedSections.get().put(name, recorded);
+			recorded.begin();
+		}
 	}
 
 	/**
@@ -54,6 +68,14 @@ public class ExecutionTimeMeasurer {
 	public static double end(String name) {
 		double time = (System.currentTimeMillis() - getExecutionTimes().get(name)) / 1000.0;
 		getExecutionTimes().remove(name);
+		MeasuredSectionEvent recorded = recordedSections.get().remove(name);
+		if (recorded != null) {
+			recorded.end();
+			if (recorded.shouldCommit()) {
+				recorded.clock = CloudSim.clock();
+				recorded.commit();
+			}
+		}
 		return time;
 	}
 
@@ -64,7 +86,7 @@ public class ExecutionTimeMeasurer {
          * @see #executionTimes
 	 */
 	public static Map<String, Long> getExecutionTimes() {
-		return executionTimes;
+		return executionTimes.get();
 	}
 
 }
@@ -0,0 +1,293 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the processor-sharing scheduler finishes the cloudlets when equally sharing the VM
+ * would, while only writing their progress to them once, and that it behaves as
+ * {@link CloudletSchedulerTimeShared} does.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class CloudletSchedulerProcessorSharingTest {
+
+	private static final int CLOUDLETS = 1000;
+
+	private static final double MIPS = 1000;
+
+	@BeforeEach
+	public void setUp() {
+		Log.disable();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Log.enable();
+	}
+
+	/** A cloudlet counting the updates of its progress. */
+	private static class CountingCloudlet extends Cloudlet {
+		private int progressUpdates;
+
+		CountingCloudlet(int id, long length, UtilizationModel utilizationModel) {
+			super(id, length, 1, 300, 300, utilizationModel, utilizationModel, utilizationModel);
+		}
+
+		@Override
+		public void updateCloudletFinishedSoFar(long miLength) {
+			progressUpdates++;
+			super.updateCloudletFinishedSoFar(miLength);
+		}
+	}
+
+	private static List<CountingCloudlet> run() throws Exception {
+		CloudSim.init(1, null, false);
+		DatacenterBroker broker = new DatacenterBroker("Broker");
+
+		List<Pe> peList = new ArrayList<>();
+		peList.add(new Pe(0, new PeProvisionerSimple(MIPS)));
+		List<Host> hosts = new ArrayList<>();
+		hosts.add(new Host(0, new RamProvisionerSimple(4096), new BwProvisionerSimple(1000000), 1000000, peList,
+				new VmSchedulerTimeShared(peList)));
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux", "Xen", hosts, 10.0,
+				3.0, 0.05, 0.001, 0.0);
+		new Datacenter("Datacenter", characteristics, new VmAllocationPolicySimple(hosts), new LinkedList<Storage>(), 0);
+
+		List<Vm> vms = new ArrayList<>();
+		vms.add(new Vm(0, broker.getId(), MIPS, 1, 512, 1000, 2500, "Xen", new CloudletSchedulerProcessorSharing()));
+		List<CountingCloudlet> cloudlets = new ArrayList<>();
+		UtilizationModelFull full = new UtilizationModelFull();
+		for (int i = 0; i < CLOUDLETS; i++) {
+			CountingCloudlet cloudlet = new CountingCloudlet(i, 1000 + 100 * i, full);
+			cloudlet.setUserId(broker.getId());
+			cloudlet.setGuestId(0);
+			cloudlets.add(cloudlet);
+		}
+		broker.submitGuestList(vms);
+		broker.submitCloudletList(cloudlets);
+
+		CloudSim.startSimulation();
+		return cloudlets;
+	}
+
+	@Test
+	public void testFinishTimesOfProcessorSharing() throws Exception {
+		List<CountingCloudlet> cloudlets = new SimulationContext().call(CloudletSchedulerProcessorSharingTest::run);
+
+		// all the cloudlets start together: while the k shortest ones are finished, the
+		// others share the VM until the next one finishes
+		double start = cloudlets.getFirst().getExecStartTime();
+		double expected = start;
+		long previousLength = 0;
+		for (int k = 0; k < CLOUDLETS; k++) {
+			CountingCloudlet cloudlet = cloudlets.get(k);
+			expected += (cloudlet.getCloudletLength() - previousLength) * (CLOUDLETS - k) / MIPS;
+			previousLength = cloudlet.getCloudletLength();
+
+			assertEquals(Cloudlet.CloudletStatus.SUCCESS, cloudlet.getStatus(), "cloudlet " + k);
+			assertEquals(expected, cloudlet.getExecFinishTime(), 1e-3, "cloudlet " + k);
+			assertTrue(cloudlet.progressUpdates <= 1, cloudlet.progressUpdates + " progress updates of cloudlet " + k);
+		}
+	}
+
+	@Test
+	public void testPauseAndResume() throws Exception {
+		new SimulationContext().call(() -> {
+			CloudSim.init(1, null, false);
+			CloudletSchedulerProcessorSharing scheduler = new CloudletSchedulerProcessorSharing();
+			UtilizationModelFull full = new UtilizationModelFull();
+			Cloudlet first = new Cloudlet(0, 10_000, 1, 300, 300, full, full, full);
+			Cloudlet second = new Cloudlet(1, 10_000, 1, 300, 300, full, full, full);
+			first.setResourceParameter(0, 0, 0);
+			second.setResourceParameter(0, 0, 0);
+
+			scheduler.updateCloudletsProcessing(0, mipsShare());
+			scheduler.cloudletSubmit(first);
+			scheduler.cloudletSubmit(second);
+			// both run at half the MIPS of the VM
+			assertEquals(20, scheduler.updateCloudletsProcessing(0, mipsShare()), 1e-9);
+			assertEquals(20, scheduler.updateCloudletsProcessing(10, mipsShare()), 1e-9);
+
+			// paused after 5000 MI: the other one runs alone
+			assertTrue(scheduler.cloudletPause(0));
+			assertEquals(5000, first.getCloudletFinishedSoFar() / Consts.MILLION);
+			assertEquals(Cloudlet.CloudletStatus.PAUSED, scheduler.getCloudletStatus(0));
+			assertEquals(15, scheduler.updateCloudletsProcessing(10, mipsShare()), 1e-9);
+			assertEquals(0, scheduler.updateCloudletsProcessing(15, mipsShare()), 1e-9);
+			assertEquals(Cloudlet.CloudletStatus.SUCCESS, second.getStatus());
+			assertSame(second, scheduler.getNextFinishedCloudlet());
+
+			// resumed alone: the remaining 5000 MI at the MIPS of the VM
+			scheduler.cloudletResume(0);
+			assertEquals(20, scheduler.updateCloudletsProcessing(15, mipsShare()), 1e-9);
+			assertEquals(0, scheduler.updateCloudletsProcessing(20, mipsShare()), 1e-9);
+			assertEquals(Cloudlet.CloudletStatus.SUCCESS, first.getStatus());
+			assertSame(first, scheduler.getNextFinishedCloudlet());
+			return null;
+		});
+	}
+
+	/** A scenario run on a scheduler, giving the values to compare by name. */
+	private interface Scenario {
+		void run(CloudletScheduler scheduler, Map<String, Double> results);
+	}
+
+	/**
+	 * Runs a scenario on a time-shared and a processor-sharing scheduler, and checks that it gives
+	 * the same values.
+	 */
+	private static void assertSameAsTimeShared(Scenario scenario) throws Exception {
+		Map<String, Double> expected = run(scenario, new CloudletSchedulerTimeShared());
+		Map<String, Double> actual = run(scenario, new CloudletSchedulerProcessorSharing());
+		assertEquals(expected.keySet(), actual.keySet());
+		for (String name : expected.keySet()) {
+			assertEquals(expected.get(name), actual.get(name), 1e-6, name);
+		}
+	}
+
+	private static Map<String, Double> run(Scenario scenario, CloudletScheduler scheduler) throws Exception {
+		return new SimulationContext().call(() -> {
+			CloudSim.init(1, null, false);
+			Map<String, Double> results = new TreeMap<>();
+			scenario.run(scheduler, results);
+			return results;
+		});
+	}
+
+	private static Cloudlet submit(CloudletScheduler scheduler, int id, long length, int pes) {
+		UtilizationModelFull full = new UtilizationModelFull();
+		Cloudlet cloudlet = new Cloudlet(id, length, pes, 300, 300, full, full, full);
+		cloudlet.setResourceParameter(0, 0, 0);
+		scheduler.cloudletSubmit(cloudlet);
+		return cloudlet;
+	}
+
+	/**
+	 * Updates a scheduler from a time on, at the times it gives, until its cloudlets are finished,
+	 * and gives the time each one finished at.
+	 */
+	private static void finish(CloudletScheduler scheduler, double time, int pes, double mips,
+			Map<String, Double> results) {
+		double next = time;
+		do {
+			time = next;
+			scheduler.updateCloudletsProcessing(time, mipsShare(pes, mips));
+			// the time-shared scheduler counts the PEs of the cloudlets just finished until the next update
+			next = scheduler.updateCloudletsProcessing(time, mipsShare(pes, mips));
+			for (Cloudlet cl; (cl = scheduler.getNextFinishedCloudlet()) != null;) {
+				results.put("finish " + cl.getCloudletId(), time);
+			}
+		} while (next != 0);
+	}
+
+	@Test
+	public void testMultiPeCloudletsAsTimeShared() throws Exception {
+		assertSameAsTimeShared((scheduler, results) -> {
+			// 7 PEs requested on 4: each one runs at 4/7 of the MIPS of a PE
+			scheduler.updateCloudletsProcessing(0, mipsShare(4, MIPS));
+			submit(scheduler, 0, 10_000, 2);
+			submit(scheduler, 1, 5_000, 1);
+			submit(scheduler, 2, 20_000, 1);
+			submit(scheduler, 3, 8_000, 3);
+			finish(scheduler, 0, 4, MIPS, results);
+			assertEquals(8.75, results.get("finish 1"), 1e-6);
+		});
+	}
+
+	@Test
+	public void testCancelAsTimeShared() throws Exception {
+		assertSameAsTimeShared((scheduler, results) -> {
+			scheduler.updateCloudletsProcessing(0, mipsShare(2, MIPS));
+			submit(scheduler, 0, 10_000, 1);
+			submit(scheduler, 1, 10_000, 2);
+			submit(scheduler, 2, 30_000, 1);
+			scheduler.updateCloudletsProcessing(0, mipsShare(2, MIPS));
+			scheduler.updateCloudletsProcessing(10, mipsShare(2, MIPS));
+
+			Cloudlet canceled = scheduler.cloudletCancel(1);
+			assertEquals(Cloudlet.CloudletStatus.CANCELED, canceled.getStatus());
+			results.put("progress 1", (double) canceled.getCloudletFinishedSoFar() / Consts.MILLION);
+			assertNull(scheduler.cloudletCancel(1));
+			finish(scheduler, 10, 2, MIPS, results);
+		});
+	}
+
+	@Test
+	public void testMigrateAsTimeShared() throws Exception {
+		assertSameAsTimeShared((scheduler, results) -> {
+			scheduler.updateCloudletsProcessing(0, mipsShare(1, MIPS));
+			submit(scheduler, 0, 10_000, 1);
+			submit(scheduler, 1, 20_000, 1);
+			submit(scheduler, 2, 30_000, 1);
+			scheduler.updateCloudletsProcessing(0, mipsShare(1, MIPS));
+			scheduler.updateCloudletsProcessing(15, mipsShare(1, MIPS));
+
+			Cloudlet migrated = scheduler.migrateCloudlet();
+			results.put("migrated", (double) migrated.getCloudletId());
+			results.put("progress " + migrated.getCloudletId(), (double) migrated.getCloudletFinishedSoFar() / Consts.MILLION);
+			assertEquals(2, scheduler.runningCloudlets());
+			finish(scheduler, 15, 1, MIPS, results);
+		});
+	}
+
+	@Test
+	public void testEstimatedFinishTimeAfterCapacityChangeAsTimeShared() throws Exception {
+		assertSameAsTimeShared((scheduler, results) -> {
+			scheduler.updateCloudletsProcessing(0, mipsShare(1, MIPS));
+			Cloudlet first = submit(scheduler, 0, 10_000, 1);
+			Cloudlet second = submit(scheduler, 1, 20_000, 1);
+			scheduler.updateCloudletsProcessing(0, mipsShare(1, MIPS));
+			scheduler.updateCloudletsProcessing(10, mipsShare(1, MIPS));
+
+			// the VM gets half its MIPS: 250 MIPS for each cloudlet
+			scheduler.updateCloudletsProcessing(10, mipsShare(1, MIPS / 2));
+			results.put("estimate 0", scheduler.getEstimatedFinishTime(first, 10));
+			results.put("estimate 1", scheduler.getEstimatedFinishTime(second, 10));
+			assertEquals(30, results.get("estimate 0"), 1e-6);
+			assertEquals(70, results.get("estimate 1"), 1e-6);
+
+			// and then a second PE: each cloudlet runs on one
+			scheduler.updateCloudletsProcessing(20, mipsShare(1, MIPS / 2));
+			scheduler.updateCloudletsProcessing(20, mipsShare(2, MIPS));
+			results.put("estimate 0 with 2 PEs", scheduler.getEstimatedFinishTime(first, 20));
+			results.put("estimate 1 with 2 PEs", scheduler.getEstimatedFinishTime(second, 20));
+			finish(scheduler, 20, 2, MIPS, results);
+			assertEquals(results.get("estimate 0 with 2 PEs"), results.get("finish 0"), 1e-6);
+		});
+	}
+
+	private static List<Double> mipsShare() {
+		return mipsShare(1, MIPS);
+	}
+
+	private static List<Double> mipsShare(int pes, double mips) {
+		List<Double> mipsShare = new ArrayList<>();
+		for (int i = 0; i < pes; i++) {
+			mipsShare.add(mips);
+		}
+		return mipsShare;
+	}
+}
@@ -0,0 +1,273 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.EX.DatacenterBrokerEX;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a datacenter processes a burst of cloudlet submissions as a batch when the
+ * simulation has a time quantum or when they are sent in a batch, that its incremental processing
+ * only updates the hosts that need it, and that it only checks the guests with finished cloudlets.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class DatacenterTest {
+
+	private static final int VMS = 4;
+
+	private static final int CLOUDLETS = 2000;
+
+	@BeforeEach
+	public void setUp() {
+		Log.disable();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Log.enable();
+	}
+
+	/** A datacenter counting the sweeps over its hosts. */
+	private static class CountingDatacenter extends Datacenter {
+		private int sweeps;
+
+		CountingDatacenter(String name, DatacenterCharacteristics characteristics, List<Host> hosts) throws Exception {
+			super(name, characteristics, new VmAllocationPolicySimple(hosts), new LinkedList<Storage>(), 0);
+		}
+
+		@Override
+		protected void updateCloudletProcessing() {
+			sweeps++;
+			super.updateCloudletProcessing();
+		}
+	}
+
+	/** A sweep count, and the cloudlets' finish times. */
+	private record Results(int sweeps, List<String> finishTimes) {
+	}
+
+	private static Results run(double timeQuantum, boolean batchSubmission) throws Exception {
+		CloudSim.init(1, null, false);
+		CloudSim.setTimeQuantum(timeQuantum);
+		DatacenterBroker broker = new DatacenterBroker("Broker");
+		broker.setBatchSubmission(batchSubmission);
+
+		List<Host> hosts = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			List<Pe> peList = new ArrayList<>();
+			for (int j = 0; j < 2; j++) {
+				peList.add(new Pe(j, new PeProvisionerSimple(1000)));
+			}
+			hosts.add(new Host(i, new RamProvisionerSimple(4096), new BwProvisionerSimple(1000000), 1000000, peList,
+					new VmSchedulerTimeShared(peList)));
+		}
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux", "Xen", hosts, 10.0,
+				3.0, 0.05, 0.001, 0.0);
+		CountingDatacenter datacenter = new CountingDatacenter("Datacenter", characteristics, hosts);
+
+		List<Vm> vms = new ArrayList<>();
+		for (int i = 0; i < VMS; i++) {
+			vms.add(new Vm(i, broker.getId(), 1000, 1, 512, 1000, 2500, "Xen", new CloudletSchedulerSpaceShared()));
+		}
+		List<Cloudlet> cloudlets = new ArrayList<>();
+		UtilizationModelFull full = new UtilizationModelFull();
+		for (int i = 0; i < CLOUDLETS; i++) {
+			Cloudlet cloudlet = new Cloudlet(i, 1000 + 10 * (i % 7), 1, 300, 300, full, full, full);
+			cloudlet.setUserId(broker.getId());
+			cloudlet.setGuestId(i % VMS);
+			cloudlets.add(cloudlet);
+		}
+		broker.submitGuestList(vms);
+		broker.submitCloudletList(cloudlets);
+
+		int sweepsBefore = datacenter.sweeps;
+		CloudSim.startSimulation();
+		List<String> finishTimes = new ArrayList<>();
+		for (Cloudlet cloudlet : broker.<Cloudlet>getCloudletReceivedList()) {
+			finishTimes.add(cloudlet.getCloudletId() + " " + cloudlet.getExecFinishTime());
+		}
+		return new Results(datacenter.sweeps - sweepsBefore, finishTimes);
+	}
+
+	/** A host counting its updates. */
+	private static class CountingHost extends Host {
+		private int updates;
+
+		CountingHost(int id, List<Pe> peList) {
+			super(id, new RamProvisionerSimple(4096), new BwProvisionerSimple(1000000), 1000000, peList,
+					new VmSchedulerTimeShared(peList));
+		}
+
+		@Override
+		public double updateCloudletsProcessing(double currentTime) {
+			updates++;
+			return super.updateCloudletsProcessing(currentTime);
+		}
+	}
+
+	/** A scheduler counting the checks of its finished cloudlets. */
+	private static class CountingScheduler extends CloudletSchedulerTimeShared {
+		private int checks;
+
+		@Override
+		public boolean isFinishedCloudlets() {
+			checks++;
+			return super.isFinishedCloudlets();
+		}
+	}
+
+	/** The host update and finished cloudlet check counts, and the cloudlets' finish times by id. */
+	private record ProcessingResults(int updates, int checks, List<Double> finishTimes) {
+	}
+
+	private static ProcessingResults runManyHosts(boolean incremental) throws Exception {
+		CloudSim.init(1, null, false);
+		DatacenterBroker broker = new DatacenterBroker("Broker");
+
+		List<CountingHost> hosts = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			List<Pe> peList = new ArrayList<>();
+			peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+			hosts.add(new CountingHost(i, peList));
+		}
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux", "Xen", hosts, 10.0,
+				3.0, 0.05, 0.001, 0.0);
+		Datacenter datacenter = new Datacenter("Datacenter", characteristics, new VmAllocationPolicySimple(hosts),
+				new LinkedList<Storage>(), 0);
+		datacenter.setIncrementalProcessing(incremental);
+
+		List<Vm> vms = new ArrayList<>();
+		List<CountingScheduler> schedulers = new ArrayList<>();
+		for (int i = 0; i < hosts.size(); i++) {
+			schedulers.add(new CountingScheduler());
+			vms.add(new Vm(i, broker.getId(), 1000, 1, 512, 1000, 2500, "Xen", schedulers.get(i)));
+		}
+		List<Cloudlet> cloudlets = new ArrayList<>();
+		UtilizationModelFull full = new UtilizationModelFull();
+		for (int i = 0; i < 400; i++) {
+			Cloudlet cloudlet = new Cloudlet(i, 4000 + 1000 * (i % 13), 1, 300, 300, full, full, full);
+			cloudlet.setUserId(broker.getId());
+			cloudlet.setGuestId(i % vms.size());
+			cloudlets.add(cloudlet);
+		}
+		broker.submitGuestList(vms);
+		broker.submitCloudletList(cloudlets);
+
+		CloudSim.startSimulation();
+		List<Double> finishTimes = new ArrayList<>();
+		for (Cloudlet cloudlet : cloudlets) {
+			if (broker.getCloudletReceivedList().contains(cloudlet)) {
+				finishTimes.add(cloudlet.getExecFinishTime());
+			}
+		}
+		return new ProcessingResults(hosts.stream().mapToInt(host -> host.updates).sum(),
+				schedulers.stream().mapToInt(scheduler -> scheduler.checks).sum(), finishTimes);
+	}
+
+	@Test
+	public void testIncrementalProcessing() throws Exception {
+		ProcessingResults sweeping = new SimulationContext().call(() -> runManyHosts(false));
+		ProcessingResults incremental = new SimulationContext().call(() -> runManyHosts(true));
+
+		assertEquals(400, sweeping.finishTimes().size());
+		assertEquals(400, incremental.finishTimes().size());
+		// the sweeps triggered by the other hosts make the finish times a little more precise
+		for (int i = 0; i < 400; i++) {
+			assertEquals(sweeping.finishTimes().get(i), incremental.finishTimes().get(i), 0.05, "cloudlet " + i);
+		}
+		assertTrue(incremental.updates() < sweeping.updates() / 5,
+				incremental.updates() + " host updates, " + sweeping.updates() + " when sweeping");
+	}
+
+	@Test
+	public void testOnlyGuestsWithFinishedCloudletsChecked() throws Exception {
+		ProcessingResults results = new SimulationContext().call(() -> runManyHosts(false));
+
+		assertEquals(400, results.finishTimes().size());
+		// a check per finished cloudlet, and a last one per drained scheduler
+		assertTrue(results.checks() <= 2 * 400, results.checks() + " checks");
+	}
+
+	@Test
+	public void testBurstOfSubmissionsIsBatched() throws Exception {
+		Results unbatched = new SimulationContext().call(() -> run(0, false));
+		Results batched = new SimulationContext().call(() -> run(1e-6, false));
+
+		assertEquals(CLOUDLETS, unbatched.finishTimes().size());
+		assertEquals(unbatched.finishTimes(), batched.finishTimes());
+		assertTrue(unbatched.sweeps() > CLOUDLETS);
+		assertTrue(batched.sweeps() < unbatched.sweeps() - CLOUDLETS,
+				batched.sweeps() + " sweeps, " + unbatched.sweeps() + " unbatched");
+	}
+
+	@Test
+	public void testBatchSubmission() throws Exception {
+		Results unbatched = new SimulationContext().call(() -> run(0, false));
+		Results batched = new SimulationContext().call(() -> run(0, true));
+
+		assertEquals(CLOUDLETS, batched.finishTimes().size());
+		assertEquals(unbatched.finishTimes(), batched.finishTimes());
+		assertTrue(batched.sweeps() < unbatched.sweeps() - CLOUDLETS,
+				batched.sweeps() + " sweeps, " + unbatched.sweeps() + " one cloudlet at a time");
+	}
+
+	@Test
+	public void testBatchSubmissionOfBrokerWithLifeLength() throws Exception {
+		List<Cloudlet> received = new SimulationContext().call(() -> {
+			CloudSim.init(1, null, false);
+			// the broker overrides the return of the cloudlets to stay alive for its life length
+			DatacenterBrokerEX broker = new DatacenterBrokerEX("Broker", 1000);
+			broker.setBatchSubmission(true);
+
+			List<Pe> peList = new ArrayList<>();
+			peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+			List<Host> hosts = new ArrayList<>();
+			hosts.add(new Host(0, new RamProvisionerSimple(4096), new BwProvisionerSimple(1000000), 1000000, peList,
+					new VmSchedulerTimeShared(peList)));
+			DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux", "Xen", hosts,
+					10.0, 3.0, 0.05, 0.001, 0.0);
+			new Datacenter("Datacenter", characteristics, new VmAllocationPolicySimple(hosts), new LinkedList<Storage>(), 0);
+
+			List<Vm> vms = new ArrayList<>();
+			vms.add(new Vm(0, broker.getId(), 1000, 1, 512, 1000, 2500, "Xen", new CloudletSchedulerTimeShared()));
+			List<Cloudlet> first = new ArrayList<>();
+			List<Cloudlet> second = new ArrayList<>();
+			UtilizationModelFull full = new UtilizationModelFull();
+			for (int i = 0; i < 20; i++) {
+				Cloudlet cloudlet = new Cloudlet(i, 1000, 1, 300, 300, full, full, full);
+				cloudlet.setUserId(broker.getId());
+				cloudlet.setGuestId(0);
+				(i < 10 ? first : second).add(cloudlet);
+			}
+			broker.submitGuestList(vms);
+			broker.submitCloudletList(first);
+			// sent once the first cloudlets have all returned
+			broker.submitCloudletList(second, 500);
+
+			CloudSim.startSimulation();
+			return broker.<Cloudlet>getCloudletReceivedList();
+		});
+
+		assertEquals(20, received.size());
+	}
+}
@@ -35,4 +35,16 @@ public class UtilizationModelPlanetLabInMemoryTest {
 				0.01);
 		assertEquals(0.51, utilizationModel.getUtilization(287 * SCHEDULING_INTERVAL), 0);
 	}
+
+	@Test
+	public void testGetNextChangeTime() {
+		assertEquals(0, utilizationModel.getNextChangeTime(0), 0);
+		assertEquals(0, utilizationModel.getNextChangeTime(0.2 * SCHEDULING_INTERVAL), 0);
+		// samples 54 to 56 are the same
+		assertEquals(56 * SCHEDULING_INTERVAL, utilizationModel.getNextChangeTime(54 * SCHEDULING_INTERVAL), 0);
+		assertEquals(56 * SCHEDULING_INTERVAL, utilizationModel.getNextChangeTime(55.5 * SCHEDULING_INTERVAL), 0);
+		assertEquals(56 * SCHEDULING_INTERVAL, utilizationModel.getNextChangeTime(56 * SCHEDULING_INTERVAL), 0);
+		// the last sample is a copy of the previous one
+		assertEquals(288 * SCHEDULING_INTERVAL, utilizationModel.getNextChangeTime(287 * SCHEDULING_INTERVAL), 0);
+	}
 }
@@ -0,0 +1,210 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateAny;
+import org.cloudbus.cloudsim.core.predicates.PredicateFrom;
+import org.cloudbus.cloudsim.core.predicates.PredicateNone;
+import org.cloudbus.cloudsim.core.predicates.PredicateNotFrom;
+import org.cloudbus.cloudsim.core.predicates.PredicateNotType;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @since CloudSim Toolkit 7.0
+ */
+public class DeferredQueueTest {
+
+	private static final CloudSimTags[] TAGS = {
+			CloudActionTags.BLANK, CloudActionTags.VM_MIGRATE, CloudActionTags.VM_DATACENTER_EVENT };
+
+	private long serial = 0;
+
+	private SimEvent newEvent(double time, CloudSimTags tag) {
+		SimEvent ev = new SimEvent(SimEvent.SEND, time, 0, 0, tag, null);
+		ev.setSerial(serial++);
+		return ev;
+	}
+
+	/** Fills a queue with events of the three tags in turn. */
+	private List<SimEvent> fill(DeferredQueue queue, int n) {
+		List<SimEvent> added = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			SimEvent ev = newEvent(i / 10, TAGS[i % 3]);
+			queue.add(ev);
+			added.add(ev);
+		}
+		return added;
+	}
+
+	@Test
+	public void testArrivalOrder() {
+		DeferredQueue queue = new DeferredQueue();
+		List<SimEvent> added = fill(queue, 100);
+		assertEquals(100, queue.size());
+
+		// interleave polls and additions so that the ring buffer wraps around
+		for (int i = 0; i < 50; i++) {
+			assertSame(added.remove(0), queue.poll());
+			added.addAll(fill(queue, 1));
+		}
+		for (SimEvent ev : added) {
+			assertSame(ev, queue.poll());
+		}
+		assertTrue(queue.isEmpty());
+		assertNull(queue.poll());
+	}
+
+	@Test
+	public void testSelectByTag() {
+		DeferredQueue queue = new DeferredQueue();
+		List<SimEvent> added = fill(queue, 30);
+
+		assertEquals(10, queue.count(new PredicateType(CloudActionTags.VM_MIGRATE)));
+		assertEquals(20, queue.count(new PredicateNotType(CloudActionTags.VM_MIGRATE)));
+		assertSame(added.get(1), queue.find(new PredicateType(CloudActionTags.VM_MIGRATE), false));
+
+		// the oldest event of any of the tags
+		PredicateType migrateOrEvent = new PredicateType(
+				new CloudSimTags[] { CloudActionTags.VM_DATACENTER_EVENT, CloudActionTags.VM_MIGRATE });
+		assertSame(added.get(1), queue.find(migrateOrEvent, true));
+		assertSame(added.get(2), queue.find(migrateOrEvent, true));
+		assertSame(added.get(4), queue.find(migrateOrEvent, false));
+		assertEquals(28, queue.size());
+
+		// the events added after the first search by tag are indexed too
+		added.addAll(fill(queue, 3));
+		assertEquals(10, queue.count(new PredicateType(CloudActionTags.VM_MIGRATE)));
+
+		added.remove(2);
+		added.remove(1);
+		for (SimEvent ev : added) {
+			assertSame(ev, queue.poll());
+		}
+		assertNull(queue.find(migrateOrEvent, false));
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		DeferredQueue queue = new DeferredQueue();
+		List<SimEvent> added = fill(queue, 20);
+
+		Iterator<SimEvent> it = queue.iterator();
+		int i = 0;
+		while (it.hasNext()) {
+			assertSame(added.get(i++), it.next());
+			if (i % 2 == 0) {
+				it.remove();
+			}
+		}
+		assertEquals(10, queue.size());
+		for (int j = 0; j < 20; j += 2) {
+			assertSame(added.get(j), queue.poll());
+		}
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testSelectBehindTheHead() {
+		DeferredQueue queue = new DeferredQueue();
+		SimEvent waiting = newEvent(0, CloudActionTags.BLANK);
+		queue.add(waiting);
+		queue.find(new PredicateFrom(0), false);
+
+		// the events selected behind an unmatched head don't pile up in the buffer
+		Predicate migrate = new PredicateType(CloudActionTags.VM_MIGRATE);
+		for (int i = 0; i < 10000; i++) {
+			SimEvent ev = newEvent(i, CloudActionTags.VM_MIGRATE);
+			queue.add(ev);
+			assertSame(ev, queue.find(i % 2 == 0 ? migrate : scanned(migrate), true));
+		}
+		assertEquals(1, queue.size());
+		assertTrue(queue.capacity() <= 16);
+		assertEquals(1, queue.count(new PredicateFrom(0)));
+		assertEquals(0, queue.count(migrate));
+		assertSame(waiting, queue.poll());
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testOverridingPredicate() {
+		DeferredQueue queue = new DeferredQueue();
+		List<SimEvent> added = fill(queue, 30);
+		// a user predicate narrowing a standard one is matched against the events
+		Predicate late = new PredicateType(CloudActionTags.VM_MIGRATE) {
+			@Override
+			public boolean match(SimEvent ev) {
+				return super.match(ev) && ev.eventTime() >= 2;
+			}
+		};
+		assertEquals(3, queue.count(late));
+		assertSame(added.get(22), queue.find(late, true));
+		assertEquals(2, queue.count(late));
+		assertEquals(9, queue.count(new PredicateType(CloudActionTags.VM_MIGRATE)));
+
+		Predicate none = new PredicateNone() {
+			@Override
+			public boolean match(SimEvent ev) {
+				return ev.getTag() == CloudActionTags.BLANK;
+			}
+		};
+		assertEquals(10, queue.count(none));
+		assertSame(added.get(0), queue.find(none, false));
+	}
+
+	/** Hides a predicate from the indexes, so that the events are matched one by one. */
+	private static Predicate scanned(Predicate p) {
+		return new Predicate() {
+			@Override
+			public boolean match(SimEvent event) {
+				return p.match(event);
+			}
+		};
+	}
+
+	@Test
+	public void testIndexedPredicates() {
+		DeferredQueue queue = new DeferredQueue();
+		for (int i = 0; i < 60; i++) {
+			SimEvent ev = new SimEvent(SimEvent.SEND, i / 10, i % 4, 0, TAGS[i % 3], null);
+			ev.setSerial(serial++);
+			queue.add(ev);
+		}
+		Predicate[] predicates = {
+				new PredicateType(CloudActionTags.VM_MIGRATE),
+				new PredicateNotType(new CloudSimTags[] { CloudActionTags.BLANK, CloudActionTags.BLANK }),
+				new PredicateFrom(new int[] { 3, 1, 3 }),
+				new PredicateNotFrom(0),
+				new PredicateFrom(7),
+				new PredicateAny(),
+				new PredicateNone() };
+
+		// the indexed look-ups agree with the scans, while events leave from the head and the middle
+		while (!queue.isEmpty()) {
+			for (Predicate p : predicates) {
+				assertEquals(queue.count(scanned(p)), queue.count(p));
+				assertSame(queue.find(scanned(p), false), queue.find(p, false));
+			}
+			queue.find(new PredicateFrom(2), true);
+			queue.poll();
+		}
+		for (Predicate p : predicates) {
+			assertEquals(0, queue.count(p));
+			assertNull(queue.find(p, true));
+		}
+	}
+}
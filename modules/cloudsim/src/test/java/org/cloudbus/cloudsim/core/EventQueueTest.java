@@ -0,0 +1,224 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.predicates.Predicate;
+import org.cloudbus.cloudsim.core.predicates.PredicateFrom;
+import org.cloudbus.cloudsim.core.predicates.PredicateNotFrom;
+import org.cloudbus.cloudsim.core.predicates.PredicateNotType;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the cancellation of the events of an {@link EventQueue}.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class EventQueueTest {
+
+	/** An entity that cancels part of the events it sends to itself. */
+	private static class CancellingEntity extends SimEntity {
+		private final List<SimEvent> received = new ArrayList<>();
+		private SimEvent handle;
+
+		CancellingEntity(String name) {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+			for (int i = 1; i <= 100; i++) {
+				schedule(getId(), i, CloudActionTags.VM_DATACENTER_EVENT);
+				schedule(getId(), i, CloudActionTags.NETWORK_PKT_FORWARD);
+			}
+			handle = schedule(getId(), 50, CloudActionTags.BLANK);
+
+			assertTrue(CloudSim.cancelAll(getId(), CloudActionTags.VM_DATACENTER_EVENT));
+			assertFalse(CloudSim.cancelAll(getId(), CloudActionTags.VM_DATACENTER_EVENT));
+			assertTrue(cancelEvent(handle));
+			assertFalse(cancelEvent(handle));
+			assertTrue(handle.isCancelled());
+
+			SimEvent first = cancelEvent(new PredicateType(CloudActionTags.NETWORK_PKT_FORWARD));
+			assertEquals(1.0, first.eventTime());
+			assertTrue(first.isCancelled());
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			received.add(ev);
+			assertFalse(cancelEvent(ev));
+		}
+	}
+
+	/** An entity that reschedules a single timer on every event, as network switches do. */
+	private static class TimerEntity extends SimEntity {
+		private int fired = 0;
+		private int rounds;
+
+		TimerEntity(String name, int rounds) {
+			super(name);
+			this.rounds = rounds;
+		}
+
+		@Override
+		public void startEntity() {
+			schedule(getId(), 1, CloudActionTags.BLANK);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (ev.getTag() == CloudActionTags.NETWORK_PKT_FORWARD) {
+				fired++;
+				return;
+			}
+			if (--rounds > 0) {
+				// many packets arrive, only the timer of the last one survives
+				for (int i = 0; i < 3; i++) {
+					CloudSim.cancelAll(getId(), CloudActionTags.NETWORK_PKT_FORWARD);
+					schedule(getId(), 0.5, CloudActionTags.NETWORK_PKT_FORWARD);
+				}
+				schedule(getId(), 1, CloudActionTags.BLANK);
+			}
+		}
+	}
+
+	@BeforeEach
+	public void setUp() {
+		Log.disable();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Log.enable();
+	}
+
+	@Test
+	public void testCancellation() {
+		for (FutureEventList.Type type : FutureEventList.Type.values()) {
+			CloudSim.init(0, null, false, type);
+			CancellingEntity entity = new CancellingEntity("Entity");
+			CloudSim.startSimulation();
+
+			assertEquals(99, entity.received.size());
+			double time = 1;
+			for (SimEvent ev : entity.received) {
+				assertEquals(CloudActionTags.NETWORK_PKT_FORWARD, ev.getTag());
+				assertEquals(++time, ev.eventTime());
+				assertFalse(ev.isCancelled());
+			}
+		}
+	}
+
+	@Test
+	public void testRescheduledTimer() {
+		for (FutureEventList.Type type : FutureEventList.Type.values()) {
+			CloudSim.init(0, null, false, type);
+			TimerEntity entity = new TimerEntity("Timer", 10000);
+			CloudSim.startSimulation();
+			assertEquals(9999, entity.fired);
+		}
+	}
+
+	@Test
+	public void testTombstones() {
+		EventQueue queue = new EventQueue();
+		List<SimEvent> kept = new ArrayList<>();
+		for (int i = 0; i < 1000; i++) {
+			SimEvent ev = new SimEvent(SimEvent.SEND, i, i % 2, 0, i % 3 == 0 ? CloudActionTags.BLANK : CloudActionTags.VM_DATACENTER_EVENT, null);
+			queue.addEvent(ev);
+			if (i % 2 == 1 || i % 3 == 0) {
+				kept.add(ev);
+			}
+		}
+
+		int cancelled = queue.cancelAll(0, new PredicateType(CloudActionTags.VM_DATACENTER_EVENT));
+		assertEquals(1000 - kept.size(), cancelled);
+		assertEquals(kept.size(), queue.size());
+		assertSame(kept.get(0), queue.peek());
+
+		int seen = 0;
+		for (SimEvent ev : queue) {
+			assertSame(queue, ev.getQueue());
+			seen++;
+		}
+		assertEquals(kept.size(), seen);
+
+		// removing through the iterator doesn't cancel the event
+		Iterator<SimEvent> iter = queue.iterator();
+		SimEvent removed = iter.next();
+		iter.remove();
+		assertFalse(removed.isCancelled());
+		assertFalse(queue.cancel(removed));
+		assertEquals(kept.size() - 1, queue.size());
+
+		assertEquals(kept.size() - 1, queue.cancelAll(1, CloudSim.SIM_ANY) + queue.cancelAll(0, CloudSim.SIM_ANY));
+		assertTrue(queue.isEmpty());
+		assertNull(queue.peek());
+	}
+
+	@Test
+	public void testCancelByIndexedPredicates() {
+		EventQueue queue = new EventQueue();
+		for (int i = 0; i < 300; i++) {
+			queue.addEvent(new SimEvent(SimEvent.SEND, i, i % 3, 0,
+					i % 2 == 0 ? CloudActionTags.BLANK : CloudActionTags.VM_DATACENTER_EVENT, null));
+		}
+
+		// the first event of source 1 without the tag BLANK is at time 1
+		assertEquals(1, queue.findFirst(1, new PredicateNotType(CloudActionTags.BLANK)).eventTime());
+		assertNull(queue.findFirst(1, new PredicateFrom(2)));
+		assertEquals(1, queue.findFirst(1, new PredicateNotFrom(2)).eventTime());
+
+		assertEquals(50, queue.cancelAll(0, new PredicateNotType(CloudActionTags.BLANK)));
+		assertEquals(0, queue.cancelAll(0, new PredicateNotFrom(new int[] { 2, 0 })));
+		assertEquals(50, queue.cancelAll(0, new PredicateFrom(0)));
+		assertEquals(100, queue.cancelAll(1, new PredicateNotFrom(0)));
+		assertEquals(100, queue.size());
+		for (SimEvent ev : queue) {
+			assertEquals(2, ev.getSourceId());
+		}
+	}
+
+	@Test
+	public void testCancelByOverridingPredicate() {
+		EventQueue queue = new EventQueue();
+		for (int i = 0; i < 100; i++) {
+			queue.addEvent(new SimEvent(SimEvent.SEND, i, 0, 0, CloudActionTags.VM_DATACENTER_EVENT, i));
+		}
+
+		// a user predicate narrowing a standard one is matched against the events
+		Predicate even = new PredicateFrom(0) {
+			@Override
+			public boolean match(SimEvent ev) {
+				return super.match(ev) && (Integer) ev.getData() % 2 == 0;
+			}
+		};
+		assertEquals(1, queue.findFirst(0, new PredicateType(CloudActionTags.VM_DATACENTER_EVENT) {
+			@Override
+			public boolean match(SimEvent ev) {
+				return super.match(ev) && ev.eventTime() > 0;
+			}
+		}).eventTime());
+		assertEquals(50, queue.cancelAll(0, even));
+		assertEquals(50, queue.size());
+		for (SimEvent ev : queue) {
+			assertEquals(1, (Integer) ev.getData() % 2);
+		}
+	}
+}
@@ -0,0 +1,207 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.DatacenterBroker;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that the event traces are read back as they have been recorded, and that an entity
+ * replaying its events behaves as it did in the traced simulation.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class EventTraceTest {
+
+	private static final int CLOUDLETS = 12;
+
+	private static final int TICKS = 50;
+
+	@TempDir
+	Path folder;
+
+	@BeforeEach
+	public void setUp() {
+		Log.disable();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Log.enable();
+	}
+
+	/** An entity sending itself events with primitive payloads. */
+	private static class Ticker extends SimEntity {
+		private int received;
+		private long sum;
+		private double lastTime;
+
+		Ticker(String name) {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+			send(getId(), 1, CloudActionTags.BLANK, 1, 2, 3);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			received++;
+			sum += ev.hasIntData() ? ev.getIntData(0) + ev.getIntData(1) + ev.getIntData(2)
+					: ev.getLongData() + (long) ev.getDoubleData();
+			lastTime = CloudSim.clock();
+			if (received < TICKS) {
+				if (received % 2 == 0) {
+					send(getId(), 1.5, CloudActionTags.BLANK, received, 2 * received, 3);
+				} else {
+					send(getId(), 0.5, CloudActionTags.BLANK, 10L * received, 0.5 * received);
+				}
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+	/**
+	 * Creates a datacenter running a few cloudlets, and a ticker.
+	 */
+	private static void createScenario() throws Exception {
+		CloudSim.init(1, null, false);
+		DatacenterBroker broker = new DatacenterBroker("Broker");
+		new Ticker("Ticker");
+
+		List<Host> hosts = new ArrayList<>();
+		for (int i = 0; i < 2; i++) {
+			List<Pe> peList = new ArrayList<>();
+			peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+			hosts.add(new Host(i, new RamProvisionerSimple(4096), new BwProvisionerSimple(1000000), 1000000, peList,
+					new VmSchedulerTimeShared(peList)));
+		}
+
+		Random random = new Random(3);
+		List<Vm> vms = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			vms.add(new Vm(i, broker.getId(), 250, 1, 512, 1000, 1000, "Xen", new CloudletSchedulerTimeShared()));
+		}
+		List<Cloudlet> cloudlets = new ArrayList<>();
+		UtilizationModelFull full = new UtilizationModelFull();
+		for (int i = 0; i < CLOUDLETS; i++) {
+			Cloudlet cloudlet = new Cloudlet(i, 1000 + random.nextInt(10_000), 1, 300, 300, full, full, full);
+			cloudlet.setUserId(broker.getId());
+			cloudlets.add(cloudlet);
+		}
+
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux", "Xen", hosts, 10.0, 3.0, 0.05,
+				0.001, 0.0);
+		new Datacenter("Datacenter", characteristics, new VmAllocationPolicySimple(hosts), new LinkedList<Storage>(), 0);
+
+		broker.submitGuestList(vms);
+		broker.submitCloudletList(cloudlets);
+	}
+
+	@Test
+	public void testReadBack() throws Exception {
+		Path directory = folder.resolve("trace");
+		SimulationContext ctx = new SimulationContext();
+		long recorded = ctx.call(() -> {
+			createScenario();
+			int brokerId = CloudSim.getEntityId("Broker");
+			// small segments, so that the trace spans several of them
+			try (EventTraceWriter trace = new EventTraceWriter(directory, 16)) {
+				CloudSim.setEventTrace(trace);
+				CloudSim.startSimulation();
+				assertNull(ctx.getEventTrace());
+				assertTrue(trace.getRecordCount() > 16);
+
+				try (EventTraceReader reader = new EventTraceReader(directory)) {
+					assertEquals(trace.getRecordCount(), reader.size());
+					assertEquals(trace.getRecordCount(), reader.stream().count());
+
+					double time = 0;
+					long returned = 0;
+					for (TracedEvent ev : reader) {
+						assertTrue(ev.time() >= time);
+						time = ev.time();
+						if (ev.tag() == CloudActionTags.CLOUDLET_RETURN) {
+							assertEquals(brokerId, ev.destination());
+							assertEquals(Cloudlet.class.getName(), ev.dataType());
+							returned++;
+						}
+					}
+					assertEquals(CLOUDLETS, returned);
+				}
+				return trace.getRecordCount();
+			}
+		});
+		int segments = (int) ((recorded + 15) / 16);
+		assertTrue(Files.exists(directory.resolve(EventTraceWriter.segmentName(segments - 1))));
+		assertFalse(Files.exists(directory.resolve(EventTraceWriter.segmentName(segments))));
+	}
+
+	@Test
+	public void testReplayInIsolation() throws Exception {
+		Path directory = folder.resolve("trace");
+		SimulationContext traced = new SimulationContext();
+		Ticker original = traced.call(() -> {
+			createScenario();
+			Ticker ticker = (Ticker) CloudSim.getEntity("Ticker");
+			try (EventTraceWriter trace = new EventTraceWriter(directory)) {
+				CloudSim.setEventTrace(trace);
+				CloudSim.startSimulation();
+			}
+			return ticker;
+		});
+		assertEquals(TICKS, original.received);
+
+		// only the ticker is set up, without running anything
+		SimulationContext isolated = new SimulationContext();
+		Ticker ticker = isolated.call(() -> {
+			CloudSim.init(0, null, false);
+			return new Ticker("Ticker");
+		});
+		try (EventTraceReader reader = new EventTraceReader(directory)) {
+			assertEquals(TICKS, reader.replay(ticker, original.getId(), ev -> null));
+		}
+		assertEquals(original.received, ticker.received);
+		assertEquals(original.sum, ticker.sum);
+		assertEquals(original.lastTime, ticker.lastTime);
+		assertFalse(isolated.running());
+		assertEquals(0, isolated.clock());
+	}
+}
@@ -0,0 +1,238 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.DoubleSupplier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that every {@link FutureEventList} returns the events in the order of
+ * {@link SimEvent#compareTo(SimEvent)}.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class FutureEventListTest {
+
+	private static final int OPERATIONS = 50000;
+
+	private long serial = 0;
+
+	private SimEvent newEvent(double time) {
+		SimEvent ev = new SimEvent(SimEvent.SEND, time, 0, 0, CloudActionTags.BLANK, null);
+		ev.setSerial(serial++);
+		return ev;
+	}
+
+	/**
+	 * Runs a hold model (poll one event, schedule one later event) against the binary heap
+	 * used as a reference.
+	 */
+	private void checkHoldModel(FutureEventList.Type type, int initialSize, DoubleSupplier increment) {
+		FutureEventList list = type.create();
+		PriorityQueue<SimEvent> reference = new PriorityQueue<>();
+
+		for (int i = 0; i < initialSize; i++) {
+			SimEvent ev = newEvent(increment.getAsDouble());
+			list.add(ev);
+			reference.add(ev);
+		}
+
+		for (int i = 0; i < OPERATIONS; i++) {
+			assertSame(reference.peek(), list.peek());
+			SimEvent expected = reference.poll();
+			assertSame(expected, list.poll());
+
+			SimEvent ev = newEvent(expected.eventTime() + increment.getAsDouble());
+			list.add(ev);
+			reference.add(ev);
+			assertEquals(reference.size(), list.size());
+		}
+
+		while (!reference.isEmpty()) {
+			assertSame(reference.poll(), list.poll());
+		}
+		assertTrue(list.isEmpty());
+		assertNull(list.poll());
+	}
+
+	@Test
+	public void testExponentialIncrements() {
+		for (FutureEventList.Type type : FutureEventList.Type.values()) {
+			Random random = new Random(1);
+			checkHoldModel(type, 1000, () -> -Math.log(1 - random.nextDouble()));
+		}
+	}
+
+	@Test
+	public void testBimodalIncrements() {
+		for (FutureEventList.Type type : FutureEventList.Type.values()) {
+			Random random = new Random(2);
+			checkHoldModel(type, 5000, () -> random.nextDouble() < 0.9 ? random.nextDouble() * 0.01 : 100 + random.nextDouble());
+		}
+	}
+
+	@Test
+	public void testSimultaneousEvents() {
+		for (FutureEventList.Type type : FutureEventList.Type.values()) {
+			Random random = new Random(3);
+			// a scheduling interval: most events happen at the same few instants
+			checkHoldModel(type, 2000, () -> random.nextInt(4) * 300.0);
+		}
+	}
+
+	@Test
+	public void testSameTimeEvents() {
+		for (FutureEventList.Type type : FutureEventList.Type.values()) {
+			// quadratic in the number of events if the events of the same time aren't appended in O(1)
+			assertTimeoutPreemptively(Duration.ofSeconds(10), () -> checkHoldModel(type, 100000, () -> 0),
+					type.name());
+		}
+	}
+
+	@Test
+	public void testGrowingQueueBehindFarFutureEvent() {
+		for (FutureEventList.Type type : FutureEventList.Type.values()) {
+			checkGrowingQueue(type);
+		}
+	}
+
+	/**
+	 * Polls a few close events and a far-future one into the structure, then grows the queue
+	 * with a hold model scheduling two events per event polled, all before the far-future one.
+	 */
+	private void checkGrowingQueue(FutureEventList.Type type) {
+		Random random = new Random(5);
+		FutureEventList list = type.create();
+		PriorityQueue<SimEvent> reference = new PriorityQueue<>();
+		for (int i = 0; i < 10; i++) {
+			SimEvent ev = newEvent(random.nextDouble());
+			list.add(ev);
+			reference.add(ev);
+		}
+		SimEvent outlier = newEvent(1e9);
+		list.add(outlier);
+		reference.add(outlier);
+
+		while (reference.size() < 100000) {
+			SimEvent expected = reference.poll();
+			assertSame(expected, list.poll());
+			for (int i = 0; i < 2; i++) {
+				SimEvent ev = newEvent(expected.eventTime() + -Math.log(1 - random.nextDouble()));
+				list.add(ev);
+				reference.add(ev);
+			}
+			if (list instanceof LadderEventList ladder) {
+				// the events added in front of the rungs must not pile up in the sorted bottom list
+				assertTrue(ladder.bottomSize() <= 1000, ladder.bottomSize() + " events in the bottom list");
+			}
+		}
+
+		while (!reference.isEmpty()) {
+			assertSame(reference.poll(), list.poll());
+		}
+		assertTrue(list.isEmpty());
+	}
+
+	@Test
+	public void testLowerSerialAtTopBoundary() {
+		for (FutureEventList.Type type : FutureEventList.Type.values()) {
+			FutureEventList list = type.create();
+			PriorityQueue<SimEvent> reference = new PriorityQueue<>();
+			for (int i = 0; i < 20; i++) {
+				SimEvent ev = newEvent(1 + i % 2);
+				list.add(ev);
+				reference.add(ev);
+			}
+			assertSame(reference.poll(), list.poll());
+
+			// serials reserved before the events in the structure, at the time of the latest ones
+			for (long s = 0; s < 5; s++) {
+				SimEvent ev = new SimEvent(SimEvent.SEND, 2, 0, 0, CloudActionTags.BLANK, null);
+				ev.setSerial(-1 - s);
+				list.add(ev);
+				reference.add(ev);
+			}
+			while (!reference.isEmpty()) {
+				assertSame(reference.poll(), list.poll(), type.name());
+			}
+			assertTrue(list.isEmpty());
+		}
+	}
+
+	@Test
+	public void testAddEventFirstAtTopBoundary() {
+		for (FutureEventList.Type type : FutureEventList.Type.values()) {
+			FutureEventList list = type.create();
+			EventQueue queue = new EventQueue(list, Comparator.naturalOrder());
+			for (int i = 0; i < 20; i++) {
+				queue.addEvent(new SimEvent(SimEvent.SEND, 1 + i % 2, 0, 0, CloudActionTags.BLANK, null));
+			}
+			for (int i = 0; i < 10; i++) {
+				assertEquals(1, list.poll().eventTime());
+			}
+
+			// as sendFirst does at the time of the latest events
+			SimEvent first = new SimEvent(SimEvent.SEND, 2, 0, 0, CloudActionTags.BLANK, null);
+			queue.addEventFirst(first);
+			assertSame(first, list.poll(), type.name());
+		}
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		for (FutureEventList.Type type : FutureEventList.Type.values()) {
+			checkIteratorRemove(type);
+		}
+	}
+
+	private void checkIteratorRemove(FutureEventList.Type type) {
+		Random random = new Random(4);
+		FutureEventList list = type.create();
+		PriorityQueue<SimEvent> reference = new PriorityQueue<>();
+		for (int i = 0; i < 10000; i++) {
+			SimEvent ev = newEvent(random.nextDouble() * 1000);
+			list.add(ev);
+			reference.add(ev);
+		}
+		// move part of the events down the structure
+		for (int i = 0; i < 100; i++) {
+			assertSame(reference.poll(), list.poll());
+		}
+
+		List<SimEvent> removed = new ArrayList<>();
+		Iterator<SimEvent> it = list.iterator();
+		int seen = 0;
+		while (it.hasNext()) {
+			SimEvent ev = it.next();
+			seen++;
+			if (ev.getSerial() % 3 == 0) {
+				it.remove();
+				removed.add(ev);
+			}
+		}
+		assertEquals(reference.size(), seen);
+		reference.removeAll(removed);
+		assertEquals(reference.size(), list.size());
+
+		while (!reference.isEmpty()) {
+			assertSame(reference.poll(), list.poll());
+		}
+		assertTrue(list.isEmpty());
+	}
+}
@@ -0,0 +1,176 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the events of an off-heap store are delivered as if they had been sent up front,
+ * while only those near the clock are held by the future events.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class OffHeapEventStoreTest {
+
+	/** More events than a chunk of the store holds. */
+	private static final int ARRIVALS = 150_000;
+
+	@BeforeEach
+	public void setUp() {
+		Log.disable();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Log.enable();
+	}
+
+	/** The data of an arrival. */
+	private record Job(int id, long length) {
+	}
+
+	/** The codec of the arrivals. */
+	private static class JobCodec implements OffHeapEventStore.Codec<Job> {
+		@Override
+		public int size() {
+			return 12;
+		}
+
+		@Override
+		public void write(Job data, ByteBuffer buffer, int offset) {
+			buffer.putInt(offset, data.id());
+			buffer.putLong(offset + 4, data.length());
+		}
+
+		@Override
+		public Job read(ByteBuffer buffer, int offset) {
+			return new Job(buffer.getInt(offset), buffer.getLong(offset + 4));
+		}
+	}
+
+	/** An entity noting the events it receives, and sending itself some at the same times. */
+	private static class SinkEntity extends SimEntity {
+		private final List<String> log = new ArrayList<>();
+		private OffHeapEventStore<Job> store;
+		private long storedAtFirstEvent = -1;
+
+		SinkEntity(String name) {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (store != null && storedAtFirstEvent == -1) {
+				storedAtFirstEvent = store.size();
+			}
+			log.add(CloudSim.clock() + ":" + ev.getTag() + ":" + ev.getData());
+			if (ev.getData() instanceof Job job && job.id() % 3 == 0) {
+				schedule(getId(), 1, CloudActionTags.BLANK, job.id());
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+	private static double arrivalTime(int i) {
+		return i / 4 + 0.5 * (i % 4 / 2);
+	}
+
+	@Test
+	public void testAsSentUpFront() throws Exception {
+		SimulationContext sent = new SimulationContext();
+		SinkEntity sentSink = sent.call(() -> {
+			CloudSim.init(0, null, false);
+			SinkEntity sink = new SinkEntity("Sink");
+			for (int i = 0; i < ARRIVALS; i++) {
+				sent.send(sink.getId(), sink.getId(), arrivalTime(i), CloudActionTags.CLOUDLET_SUBMIT, new Job(i, i * 10L));
+			}
+			return sink;
+		});
+		double sentClock = sent.call(sent::startSimulation);
+
+		SimulationContext stored = new SimulationContext();
+		OffHeapEventStore<Job> store = new OffHeapEventStore<>(new JobCodec(), 2);
+		SinkEntity storedSink = stored.call(() -> {
+			CloudSim.init(0, null, false);
+			SinkEntity sink = new SinkEntity("Sink");
+			sink.store = store;
+			// half of the events added before the store is added to the simulation, half after
+			for (int i = 0; i < ARRIVALS; i++) {
+				if (i == ARRIVALS / 2) {
+					stored.addEventStore(store);
+				}
+				store.add(arrivalTime(i), sink.getId(), sink.getId(), CloudActionTags.CLOUDLET_SUBMIT, new Job(i, i * 10L));
+			}
+			return sink;
+		});
+		assertThrows(IllegalStateException.class, () -> stored.addEventStore(store));
+		double storedClock = stored.call(stored::startSimulation);
+
+		assertEquals(sentSink.log, storedSink.log);
+		assertEquals(sentClock, storedClock);
+		assertEquals(ARRIVALS + ARRIVALS / 3, storedSink.log.size());
+		assertTrue(storedSink.storedAtFirstEvent > ARRIVALS - 100, storedSink.storedAtFirstEvent + " events still stored");
+		assertEquals(0, store.size());
+	}
+
+	@Test
+	public void testAddedAfterDrained() throws Exception {
+		SimulationContext context = new SimulationContext();
+		OffHeapEventStore<Job> store = new OffHeapEventStore<>(new JobCodec(), 0);
+		SinkEntity sink = context.call(() -> {
+			CloudSim.init(0, null, false);
+			SinkEntity s = new SinkEntity("Sink") {
+				@Override
+				public void processEvent(SimEvent ev) {
+					super.processEvent(ev);
+					// the store is drained when its only event is delivered
+					if (ev.getData() instanceof Job job && job.id() < 2) {
+						store.add(CloudSim.clock() + 50, getId(), getId(), CloudActionTags.CLOUDLET_SUBMIT,
+								new Job(job.id() + 1, 0));
+					}
+				}
+			};
+			store.add(100, s.getId(), s.getId(), CloudActionTags.CLOUDLET_SUBMIT, new Job(1, 0));
+			context.addEventStore(store);
+			return s;
+		});
+		double clock = context.call(context::startSimulation);
+
+		assertEquals(List.of("100.0:CLOUDLET_SUBMIT:Job[id=1, length=0]", "150.0:CLOUDLET_SUBMIT:Job[id=2, length=0]"),
+				sink.log);
+		assertEquals(150, clock);
+		assertEquals(0, store.size());
+	}
+
+	@Test
+	public void testTimeOrder() {
+		OffHeapEventStore<Job> store = new OffHeapEventStore<>(new JobCodec(), 0);
+		store.add(1, 0, 0, CloudActionTags.BLANK, new Job(0, 0));
+		store.add(1, 0, 0, CloudActionTags.BLANK, new Job(1, 0));
+		assertThrows(IllegalArgumentException.class, () -> store.add(0.5, 0, 0, CloudActionTags.BLANK, new Job(2, 0)));
+		assertEquals(2, store.size());
+		assertThrows(IllegalArgumentException.class, () -> new OffHeapEventStore<>(new JobCodec(), -1));
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Log;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a parallel simulation processes the same events in the same order as the
+ * sequential one.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class ParallelSimulationTest {
+
+	private static final int NODES = 8;
+
+	/**
+	 * An entity that sends events to itself and to random peers. Its random generator is drawn
+	 * in processing order, so any difference in the order shows up in the log.
+	 */
+	private static class NodeEntity extends SimEntity {
+		private final List<String> log = new ArrayList<>();
+		private final Random random;
+		private final double minPeerDelay;
+		private final List<NodeEntity> peers;
+		private int budget = 300;
+
+		NodeEntity(String name, long seed, double minPeerDelay, List<NodeEntity> peers) {
+			super(name);
+			random = new Random(seed);
+			this.minPeerDelay = minPeerDelay;
+			this.peers = peers;
+		}
+
+		@Override
+		public void startEntity() {
+			schedule(getId(), 0, CloudActionTags.BLANK, 0);
+			schedule(peers.get(random.nextInt(peers.size())).getId(), minPeerDelay, CloudActionTags.VM_DATACENTER_EVENT, 0);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (ev.getTag() == CloudActionTags.NETWORK_PKT_FORWARD) {
+				// the events sent first at the same time have no order, even in a sequential run
+				log.add(CloudSim.clock() + " " + ev.getTag());
+				return;
+			}
+			log.add(CloudSim.clock() + " " + ev.getSourceId() + " " + ev.getTag() + " " + ev.getData());
+			if (budget-- <= 0) {
+				return;
+			}
+
+			// ties at the same time, from the same and from different entities
+			schedule(getId(), random.nextInt(3), CloudActionTags.BLANK, budget);
+			for (int i = random.nextInt(3); i > 0; i--) {
+				int peer = peers.get(random.nextInt(peers.size())).getId();
+				schedule(peer, minPeerDelay + random.nextInt(3), CloudActionTags.VM_DATACENTER_EVENT, budget);
+			}
+
+			switch (random.nextInt(8)) {
+				case 0 -> pause(1);
+				case 1 -> {
+					schedule(getId(), 2, CloudActionTags.NETWORK_PKT_FORWARD, budget);
+					CloudSim.cancelAll(getId(), CloudActionTags.NETWORK_PKT_FORWARD);
+				}
+				case 2 -> scheduleFirst(getId(), 0, CloudActionTags.NETWORK_PKT_FORWARD, budget);
+				default -> {
+				}
+			}
+		}
+	}
+
+	@BeforeEach
+	public void setUp() {
+		Log.disable();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Log.enable();
+	}
+
+	/**
+	 * Runs the scenario and returns the logs of the nodes, followed by the last clock time.
+	 *
+	 * @param threads the number of threads, or 0 for a sequential run
+	 */
+	private static List<List<String>> run(int threads, double lookahead, double minPeerDelay) {
+		CloudSim.init(0, null, false);
+		List<NodeEntity> nodes = new ArrayList<>();
+		for (int i = 0; i < NODES; i++) {
+			nodes.add(new NodeEntity("Node" + i, i, minPeerDelay, nodes));
+		}
+
+		double clock;
+		if (threads == 0) {
+			clock = CloudSim.startSimulation();
+		} else {
+			for (int i = 0; i < NODES; i++) {
+				CloudSim.setLogicalProcess(nodes.get(i).getId(), i % threads);
+			}
+			clock = CloudSim.startParallelSimulation(threads, lookahead);
+		}
+
+		List<List<String>> logs = new ArrayList<>();
+		for (NodeEntity node : nodes) {
+			assertFalse(node.log.isEmpty());
+			logs.add(node.log);
+		}
+		logs.add(List.of(Double.toString(clock)));
+		return logs;
+	}
+
+	@Test
+	public void testWindows() {
+		List<List<String>> sequential = run(0, 0, 5);
+		assertEquals(sequential, run(4, 5, 5));
+		assertEquals(sequential, run(3, 2.5, 5));
+	}
+
+	@Test
+	public void testLockStep() {
+		List<List<String>> sequential = run(0, 0, 0);
+		assertEquals(sequential, run(4, 0, 0));
+		assertEquals(sequential, run(1, 0, 0));
+	}
+
+	@Test
+	public void testParallelDispatch() {
+		List<List<String>> sequential = run(0, 0, 0);
+		CloudSim.init(0, null, false);
+		List<NodeEntity> nodes = new ArrayList<>();
+		for (int i = 0; i < NODES; i++) {
+			nodes.add(new NodeEntity("Node" + i, i, 0, nodes));
+		}
+		CloudSim.setParallelDispatch(4);
+		CloudSim.setEventPoolingEnabled(true);
+		double clock = CloudSim.startSimulation();
+		assertEquals(1, CloudSim.getSimulationContext().getParallelDispatch());
+
+		for (int i = 0; i < NODES; i++) {
+			assertEquals(sequential.get(i), nodes.get(i).log);
+		}
+		assertEquals(sequential.get(NODES), List.of(Double.toString(clock)));
+	}
+
+	@Test
+	public void testTerminationTime() throws Exception {
+		// the termination time outlives the simulation, so keep it out of the default context
+		new SimulationContext().call(() -> {
+			CloudSim.init(0, null, false);
+			List<NodeEntity> nodes = new ArrayList<>();
+			for (int i = 0; i < NODES; i++) {
+				nodes.add(new NodeEntity("Node" + i, i, 5, nodes));
+			}
+			for (int i = 0; i < NODES; i++) {
+				CloudSim.setLogicalProcess(nodes.get(i).getId(), i % 2);
+			}
+			CloudSim.terminateSimulation(50);
+			assertEquals(50.0, CloudSim.startParallelSimulation(2, 5));
+			for (NodeEntity node : nodes) {
+				String last = node.log.get(node.log.size() - 1);
+				assertTrue(Double.parseDouble(last.substring(0, last.indexOf(' '))) < 50);
+			}
+			return null;
+		});
+	}
+
+	@Test
+	public void testLookaheadViolation() throws Exception {
+		new SimulationContext().call(() -> {
+			CloudSim.init(0, null, false);
+			List<NodeEntity> nodes = new ArrayList<>();
+			for (int i = 0; i < NODES; i++) {
+				nodes.add(new NodeEntity("Node" + i, i, 1, nodes));
+				CloudSim.setLogicalProcess(nodes.get(i).getId(), i % 2);
+			}
+			assertThrows(IllegalStateException.class, () -> CloudSim.startParallelSimulation(2, 5));
+			return null;
+		});
+	}
+}
@@ -0,0 +1,197 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.core.predicates.PredicateType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the process entities hold and wait for events as the equivalent event handlers
+ * would, and that they are unwound when the simulation finishes.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class ProcessEntityTest {
+
+	@BeforeEach
+	public void setUp() {
+		Log.disable();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Log.enable();
+	}
+
+	/** An event handler answering each request after a second. */
+	private static class EchoEntity extends SimEntity {
+		EchoEntity(String name) {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			send(ev.getSourceId(), 1, CloudActionTags.RETURN_ACC_STATISTICS_BY_CATEGORY, ev.getData());
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+	/** A process sending requests to the echo, and holding between them. */
+	private static class ClientProcess extends ProcessEntity {
+		private final List<String> log = new ArrayList<>();
+
+		ClientProcess(String name) {
+			super(name);
+		}
+
+		@Override
+		protected void body() {
+			int echo = getSimulationContext().getEntityId("Echo");
+			for (int i = 0; i < 3; i++) {
+				sendNow(echo, CloudActionTags.BLANK, i);
+				// an unrelated event, left deferred
+				schedule(getId(), 0.5, CloudActionTags.INSIGNIFICANT);
+				SimEvent reply = await(new PredicateType(CloudActionTags.RETURN_ACC_STATISTICS_BY_CATEGORY));
+				log.add(CloudSim.clock() + ":" + reply.getData());
+				hold(2.5);
+			}
+			log.add(CloudSim.clock() + ":" + waiting(new PredicateType(CloudActionTags.INSIGNIFICANT)));
+		}
+	}
+
+	@Test
+	public void testHoldAndAwait() throws Exception {
+		SimulationContext ctx = new SimulationContext();
+		ClientProcess client = ctx.call(() -> {
+			CloudSim.init(0, null, false);
+			new EchoEntity("Echo");
+			return new ClientProcess("Client");
+		});
+		double clock = ctx.call(CloudSim::startSimulation);
+		assertEquals(List.of("1.0:0", "4.5:1", "8.0:2", "10.5:3"), client.log);
+		assertTrue(client.isFinished());
+		assertEquals(10.5, clock);
+	}
+
+	/** A process waiting for an event that never comes. */
+	private static class WaitingProcess extends ProcessEntity {
+		private boolean unwound;
+
+		WaitingProcess(String name) {
+			super(name);
+		}
+
+		@Override
+		protected void body() {
+			try {
+				hold(1);
+				await(new PredicateType(CloudActionTags.BLANK));
+			} finally {
+				unwound = true;
+			}
+		}
+	}
+
+	@Test
+	public void testUnwoundAtTheEnd() throws Exception {
+		SimulationContext ctx = new SimulationContext();
+		WaitingProcess process = ctx.call(() -> {
+			CloudSim.init(0, null, false);
+			return new WaitingProcess("Waiting");
+		});
+		assertEquals(1, ctx.call(CloudSim::startSimulation));
+		assertTrue(process.unwound);
+		assertFalse(process.isFinished());
+	}
+
+	/** A process holding for pseudo-random periods. */
+	private static class SleeperProcess extends ProcessEntity {
+		private final long[] sums;
+		private final int index;
+
+		SleeperProcess(String name, long[] sums, int index) {
+			super(name);
+			this.sums = sums;
+			this.index = index;
+		}
+
+		@Override
+		protected void body() {
+			for (int i = 0; i < 5; i++) {
+				hold(1 + (index * 7 + i) % 4);
+				sums[index] += (long) CloudSim.clock();
+			}
+		}
+	}
+
+	@Test
+	public void testManyProcesses() throws Exception {
+		int count = 10_000;
+		long[] sums = new long[count];
+		SimulationContext ctx = new SimulationContext();
+		ctx.call(() -> {
+			CloudSim.init(0, null, false);
+			for (int i = 0; i < count; i++) {
+				new SleeperProcess("Sleeper" + i, sums, i);
+			}
+			return null;
+		});
+		ctx.call(CloudSim::startSimulation);
+		for (int i = 0; i < count; i++) {
+			long clock = 0;
+			long sum = 0;
+			for (int j = 0; j < 5; j++) {
+				clock += 1 + (i * 7 + j) % 4;
+				sum += clock;
+			}
+			assertEquals(sum, sums[i], "process " + i);
+		}
+	}
+
+	/** A process failing after a while. */
+	private static class FailingProcess extends ProcessEntity {
+		FailingProcess(String name) {
+			super(name);
+		}
+
+		@Override
+		protected void body() {
+			hold(1);
+			throw new IllegalStateException("failed");
+		}
+	}
+
+	@Test
+	public void testFailure() throws Exception {
+		SimulationContext ctx = new SimulationContext();
+		FailingProcess process = ctx.call(() -> {
+			CloudSim.init(0, null, false);
+			return new FailingProcess("Failing");
+		});
+		IllegalStateException e = assertThrows(IllegalStateException.class, () -> ctx.call(CloudSim::startSimulation));
+		assertEquals("failed", e.getMessage());
+		assertTrue(process.isFinished());
+		assertThrows(IllegalStateException.class, () -> process.hold(1));
+	}
+}
@@ -0,0 +1,55 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @since CloudSim Toolkit 7.0
+ */
+public class SimEventTest {
+
+	@Test
+	public void testIntData() {
+		SimEvent ev = new SimEvent(SimEvent.SEND, 1, 0, 1, CloudActionTags.VM_CREATE_ACK, null);
+		assertFalse(ev.hasIntData());
+		ev.setIntData(3, 4, CloudSimTags.TRUE);
+
+		assertTrue(ev.hasIntData());
+		assertEquals(4, ev.getIntData(1));
+		assertThrows(IndexOutOfBoundsException.class, () -> ev.getIntData(3));
+		// readers of the former int[] payload still work
+		assertArrayEquals(new int[] { 3, 4, CloudSimTags.TRUE }, (int[]) ev.getData());
+
+		SimEvent legacy = new SimEvent(SimEvent.SEND, 1, 0, 1, CloudActionTags.VM_CREATE_ACK, new int[] { 5, 6, 7 });
+		assertEquals(7, legacy.getIntData(2));
+	}
+
+	@Test
+	public void testPoolReset() {
+		SimEventPool pool = new SimEventPool();
+		SimEvent ev = pool.obtain(SimEvent.SEND, 1, 0, 1, CloudActionTags.BLANK, "data");
+		ev.setIntData(1, 2, 3);
+		ev.setDoubleData(0.5);
+		pool.release(ev);
+		assertEquals(1, pool.size());
+
+		SimEvent reused = pool.obtain(SimEvent.SEND, 2, 1, 0, CloudActionTags.VM_MIGRATE, null);
+		assertSame(ev, reused);
+		assertEquals(0, pool.size());
+		assertEquals(2, reused.eventTime());
+		assertEquals(CloudActionTags.VM_MIGRATE, reused.getTag());
+		assertNull(reused.getData());
+		assertFalse(reused.hasIntData());
+		assertEquals(0, reused.getDoubleData());
+		assertFalse(reused.isCancelled());
+	}
+}
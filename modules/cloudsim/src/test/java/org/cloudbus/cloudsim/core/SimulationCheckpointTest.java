@@ -0,0 +1,370 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StreamCorruptedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerDynamicWorkload;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.DatacenterBroker;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.UtilizationModelNull;
+import org.cloudbus.cloudsim.UtilizationModelPlanetLabInMemory;
+import org.cloudbus.cloudsim.UtilizationModelPlanetLabInMemoryTest;
+import org.cloudbus.cloudsim.UtilizationModelStochastic;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.VmSchedulerTimeSharedOverSubscription;
+import org.cloudbus.cloudsim.power.PowerDatacenter;
+import org.cloudbus.cloudsim.power.PowerHost;
+import org.cloudbus.cloudsim.power.PowerVm;
+import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyMigrationLocalRegression;
+import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyMigrationStaticThreshold;
+import org.cloudbus.cloudsim.power.models.PowerModelLinear;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.selectionPolicies.SelectionPolicyMinimumMigrationTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that a simulation restored from a checkpoint goes on as the original one.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class SimulationCheckpointTest {
+
+	private static final double SCHEDULING_INTERVAL = 300;
+
+	private static final int HOSTS = 8;
+
+	private static final int VMS = 16;
+
+	private static final int CLOUDLETS = 48;
+
+	@TempDir
+	Path folder;
+
+	@BeforeEach
+	public void setUp() {
+		Log.disable();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Log.enable();
+	}
+
+	/**
+	 * Creates a datacenter running cloudlets of random lengths with a stochastic workload.
+	 */
+	private static void createScenario() throws Exception {
+		CloudSim.init(1, null, false);
+		DatacenterBroker broker = new DatacenterBroker("Broker");
+
+		List<Host> hosts = new ArrayList<>();
+		for (int i = 0; i < HOSTS; i++) {
+			List<Pe> peList = new ArrayList<>();
+			for (int j = 0; j < 2; j++) {
+				peList.add(new Pe(j, new PeProvisionerSimple(1860)));
+			}
+			hosts.add(new Host(i, new RamProvisionerSimple(4096), new BwProvisionerSimple(1000000), 1000000, peList,
+					new VmSchedulerTimeShared(peList)));
+		}
+
+		Random random = new Random(42);
+		List<Vm> vms = new ArrayList<>();
+		List<Cloudlet> cloudlets = new ArrayList<>();
+		for (int i = 0; i < VMS; i++) {
+			int mips = i % 2 == 0 ? 1000 : 500;
+			vms.add(new Vm(i, broker.getId(), mips, 1, 613, 100000, 2500, "Xen", new CloudletSchedulerTimeShared()));
+		}
+		for (int i = 0; i < CLOUDLETS; i++) {
+			Cloudlet cloudlet = new Cloudlet(i, 100_000 + random.nextInt(10_000_000), 1, 300, 300, new UtilizationModelFull(),
+					new UtilizationModelStochastic(i), new UtilizationModelStochastic(CLOUDLETS + i));
+			cloudlet.setUserId(broker.getId());
+			cloudlet.setGuestId(i % VMS);
+			cloudlets.add(cloudlet);
+		}
+
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux", "Xen", hosts, 10.0, 3.0, 0.05,
+				0.001, 0.0);
+		new Datacenter("Datacenter", characteristics, new VmAllocationPolicySimple(hosts), new LinkedList<Storage>(),
+				SCHEDULING_INTERVAL);
+
+		broker.submitGuestList(vms);
+		broker.submitCloudletList(cloudlets);
+	}
+
+	/**
+	 * Runs a simulation and gets its results.
+	 */
+	private static List<String> results(SimulationContext ctx) {
+		DatacenterBroker broker = (DatacenterBroker) ctx.getEntity("Broker");
+		double clock = ctx.startSimulation();
+		List<String> results = new ArrayList<>();
+		results.add(Double.toString(clock));
+		for (Cloudlet cloudlet : broker.<Cloudlet>getCloudletReceivedList()) {
+			results.add(cloudlet.getCloudletId() + " " + cloudlet.getGuestId() + " " + cloudlet.getExecFinishTime() + " "
+					+ cloudlet.getActualCPUTime());
+		}
+		return results;
+	}
+
+	@Test
+	public void testRestoreGoesOnAsTheOriginal() throws Exception {
+		SimulationContext original = new SimulationContext();
+		List<String> expected = original.call(() -> {
+			createScenario();
+			return results(original);
+		});
+		assertEquals(CLOUDLETS + 1, expected.size());
+		double checkpoint = Math.floor(Double.parseDouble(expected.get(0)) / 2);
+
+		Path file = folder.resolve("warm-up.ckpt");
+		SimulationContext warmUp = new SimulationContext();
+		double stopped = warmUp.call(() -> {
+			createScenario();
+			CloudSim.setCheckpoint(checkpoint, file, true);
+			return CloudSim.startSimulation();
+		});
+		assertTrue(stopped > checkpoint && stopped < Double.parseDouble(expected.get(0)));
+
+		// the same warm-up can be resumed several times
+		for (int i = 0; i < 2; i++) {
+			SimulationContext restored = SimulationContext.restoreCheckpoint(file);
+			assertEquals(expected, results(restored));
+		}
+	}
+
+	/**
+	 * Creates a power datacenter consolidating VMs with PlanetLab workloads, migrating them off
+	 * the hosts whose utilization the local regression predicts to be too high.
+	 */
+	static void createPowerScenario() throws Exception {
+		CloudSim.init(1, null, false);
+		DatacenterBroker broker = new DatacenterBroker("Broker");
+
+		List<PowerHost> hosts = new ArrayList<>();
+		for (int i = 0; i < HOSTS / 2; i++) {
+			List<Pe> peList = new ArrayList<>();
+			for (int j = 0; j < 2; j++) {
+				peList.add(new Pe(j, new PeProvisionerSimple(1860)));
+			}
+			hosts.add(new PowerHost(i, new RamProvisionerSimple(4096), new BwProvisionerSimple(1000000), 1000000, peList,
+					new VmSchedulerTimeSharedOverSubscription(peList), new PowerModelLinear(135, 0.6)));
+		}
+
+		String trace = SimulationCheckpointTest.class.getClassLoader()
+				.getResource(UtilizationModelPlanetLabInMemoryTest.FILE).getPath();
+		UtilizationModelNull none = new UtilizationModelNull();
+		List<Vm> vms = new ArrayList<>();
+		List<Cloudlet> cloudlets = new ArrayList<>();
+		for (int i = 0; i < VMS / 2; i++) {
+			int mips = i % 2 == 0 ? 1000 : 500;
+			PowerVm vm = new PowerVm(i, broker.getId(), mips, 1, 613, 100000, 2500, 1, "Xen",
+					new CloudletSchedulerDynamicWorkload(mips, 1), SCHEDULING_INTERVAL);
+			// keeps the VMs without nested guests from being deallocated
+			vm.setInWaiting(true);
+			vms.add(vm);
+			Cloudlet cloudlet = new Cloudlet(i, 500L * 21600, 1, 300, 300,
+					new UtilizationModelPlanetLabInMemory(trace, SCHEDULING_INTERVAL), none, none);
+			cloudlet.setUserId(broker.getId());
+			cloudlet.setGuestId(i);
+			cloudlets.add(cloudlet);
+		}
+
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux", "Xen", hosts, 10.0, 3.0, 0.05,
+				0.001, 0.0);
+		PowerVmAllocationPolicyMigrationStaticThreshold fallback = new PowerVmAllocationPolicyMigrationStaticThreshold(hosts,
+				new SelectionPolicyMinimumMigrationTime<>(), 0.7);
+		PowerDatacenter datacenter = new PowerDatacenter("Datacenter", characteristics,
+				new PowerVmAllocationPolicyMigrationLocalRegression(hosts, new SelectionPolicyMinimumMigrationTime<>(), 1.2,
+						SCHEDULING_INTERVAL, fallback),
+				new LinkedList<Storage>(), SCHEDULING_INTERVAL);
+		datacenter.setDisableMigrations(false);
+
+		broker.submitGuestList(vms);
+		broker.submitCloudletList(cloudlets);
+		CloudSim.terminateSimulation(43200);
+	}
+
+	/**
+	 * Runs a power simulation and gets its results.
+	 */
+	static List<String> powerResults(SimulationContext ctx) {
+		DatacenterBroker broker = (DatacenterBroker) ctx.getEntity("Broker");
+		PowerDatacenter datacenter = (PowerDatacenter) ctx.getEntity("Datacenter");
+		double clock = ctx.startSimulation();
+		List<String> results = new ArrayList<>();
+		results.add(Double.toString(clock));
+		results.add("energy " + datacenter.getPower());
+		results.add("migrations " + datacenter.getMigrationCount());
+		for (Cloudlet cloudlet : broker.<Cloudlet>getCloudletReceivedList()) {
+			results.add(cloudlet.getCloudletId() + " " + cloudlet.getExecFinishTime());
+		}
+		return results;
+	}
+
+	@Test
+	public void testRestorePowerDatacenter() throws Exception {
+		SimulationContext original = new SimulationContext();
+		List<String> expected = original.call(() -> {
+			createPowerScenario();
+			return powerResults(original);
+		});
+		assertNotEquals("migrations 0", expected.get(2));
+
+		Path file = folder.resolve("power.ckpt");
+		SimulationContext warmUp = new SimulationContext();
+		warmUp.call(() -> {
+			createPowerScenario();
+			// while VMs are migrating
+			CloudSim.setCheckpoint(605, file, true);
+			return CloudSim.startSimulation();
+		});
+
+		SimulationContext restored = SimulationContext.restoreCheckpoint(file);
+		assertEquals(expected, powerResults(restored));
+	}
+
+	/** An entity that refers to an object that can't be copied. */
+	private static class ThreadEntity extends SimEntity {
+		@SuppressWarnings("unused")
+		private final Thread thread = Thread.currentThread();
+
+		ThreadEntity(String name) {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+			schedule(getId(), 10, CloudActionTags.BLANK);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+		}
+	}
+
+	@Test
+	public void testUnsupportedState() throws Exception {
+		Path file = folder.resolve("thread.ckpt");
+		new SimulationContext().call(() -> {
+			CloudSim.init(0, null, false);
+			new ThreadEntity("Thread");
+			IllegalStateException e = assertThrows(IllegalStateException.class, () -> CloudSim.setCheckpoint(0, file, true));
+			assertTrue(e.getMessage().contains("thread"));
+			return null;
+		});
+
+		// the entities created once the checkpoint is requested are checked when the simulation starts
+		new SimulationContext().call(() -> {
+			CloudSim.init(0, null, false);
+			CloudSim.setCheckpoint(0, file, true);
+			new ThreadEntity("Thread");
+			IllegalStateException e = assertThrows(IllegalStateException.class, CloudSim::startSimulation);
+			assertTrue(e.getMessage().contains("thread"));
+			assertEquals(0, CloudSim.clock());
+			assertFalse(Files.exists(file));
+			return null;
+		});
+	}
+
+	/** A key using the identity hash code. */
+	private static class Key {
+		private final int id;
+
+		Key(int id) {
+			this.id = id;
+		}
+	}
+
+	/**
+	 * An entity without a no-arg constructor, noting the order in which it iterates a map keyed
+	 * by identity.
+	 */
+	private static class IdentityMapEntity extends SimEntity {
+		private final Map<Key, Integer> map = new HashMap<>();
+		private final List<String> log = new ArrayList<>();
+
+		IdentityMapEntity(String name, int size) {
+			super(name);
+			for (int i = 0; i < size; i++) {
+				map.put(new Key(i), i);
+			}
+		}
+
+		@Override
+		public void startEntity() {
+			for (int i = 1; i <= 4; i++) {
+				schedule(getId(), 10 * i, CloudActionTags.BLANK);
+			}
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			StringBuilder order = new StringBuilder(CloudSim.clock() + ":");
+			for (Key key : map.keySet()) {
+				order.append(' ').append(key.id);
+			}
+			log.add(order.toString());
+		}
+	}
+
+	@Test
+	public void testIdentityHashedMap() throws Exception {
+		Path file = folder.resolve("identity.ckpt");
+		SimulationContext original = new SimulationContext();
+		IdentityMapEntity entity = original.call(() -> {
+			CloudSim.init(0, null, false);
+			IdentityMapEntity e = new IdentityMapEntity("Entity", 1000);
+			CloudSim.setCheckpoint(25, file, false);
+			CloudSim.startSimulation();
+			return e;
+		});
+		assertEquals(4, entity.log.size());
+
+		SimulationContext restored = SimulationContext.restoreCheckpoint(file);
+		IdentityMapEntity restoredEntity = (IdentityMapEntity) restored.getEntity("Entity");
+		restored.startSimulation();
+		assertEquals(entity.log, restoredEntity.log);
+	}
+
+	@Test
+	public void testNotACheckpoint() throws Exception {
+		Path file = folder.resolve("empty.ckpt");
+		try (GZIPOutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+			out.write(new byte[8]);
+		}
+		assertThrows(StreamCorruptedException.class, () -> SimulationContext.restoreCheckpoint(file));
+	}
+}
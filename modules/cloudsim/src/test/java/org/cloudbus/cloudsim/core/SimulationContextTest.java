@@ -0,0 +1,255 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cloudbus.cloudsim.Log;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @since CloudSim Toolkit 7.0
+ */
+public class SimulationContextTest {
+
+	private static final int ROUNDS = 1000;
+
+	/** An entity that bounces an event back to its peer until the rounds are over. */
+	private static class PingEntity extends SimEntity {
+		private final double delay;
+		private int peerId = -1;
+		private int received = 0;
+
+		PingEntity(String name, double delay) {
+			super(name);
+			this.delay = delay;
+		}
+
+		@Override
+		public void startEntity() {
+			if (peerId >= 0) {
+				schedule(peerId, delay, CloudActionTags.BLANK, 1);
+			}
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			received++;
+			int hops = (Integer) ev.getData();
+			if (hops < ROUNDS) {
+				schedule(ev.getSourceId(), delay, CloudActionTags.BLANK, hops + 1);
+			}
+		}
+	}
+
+	/** An entity that holds after its first event, leaving the others in its deferred queue. */
+	private static class HoldingEntity extends SimEntity {
+		private final List<Double> processedAt = new ArrayList<>();
+
+		HoldingEntity(String name) {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+			for (int i = 0; i < 3; i++) {
+				schedule(getId(), 1, CloudActionTags.BLANK);
+			}
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			processedAt.add(CloudSim.clock());
+			if (processedAt.size() == 1) {
+				pause(5);
+			}
+		}
+	}
+
+	/** An entity that sends itself events at given times, and notes when it processes them. */
+	private static class BurstEntity extends SimEntity {
+		private final double[] times;
+		private final List<String> processed = new ArrayList<>();
+
+		BurstEntity(String name, double... times) {
+			super(name);
+			this.times = times;
+		}
+
+		@Override
+		public void startEntity() {
+			for (int i = 0; i < times.length; i++) {
+				schedule(getId(), times[i], CloudActionTags.BLANK, i);
+			}
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			processed.add(ev.getData() + "@" + CloudSim.clock());
+		}
+	}
+
+	@BeforeEach
+	public void setUp() {
+		Log.disable();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Log.enable();
+	}
+
+	private static double runPingPong(double delay) {
+		CloudSim.init(0, null, false);
+		PingEntity ping = new PingEntity("Ping", delay);
+		PingEntity pong = new PingEntity("Pong", delay);
+		ping.peerId = pong.getId();
+		assertSame(CloudSim.getSimulationContext(), ping.getSimulationContext());
+		double clock = CloudSim.startSimulation();
+		assertEquals(ROUNDS, ping.received + pong.received);
+		return clock;
+	}
+
+	@Test
+	public void testDefaultContext() {
+		assertSame(CloudSim.getDefaultSimulationContext(), CloudSim.getSimulationContext());
+		assertEquals(ROUNDS * 1.0, runPingPong(1.0), 0);
+	}
+
+	@Test
+	public void testContextIsBoundOnlyWhileCalling() throws Exception {
+		SimulationContext ctx = new SimulationContext();
+		assertSame(ctx, ctx.call(CloudSim::getSimulationContext));
+		assertSame(CloudSim.getDefaultSimulationContext(), CloudSim.getSimulationContext());
+	}
+
+	@Test
+	public void testConcurrentContexts() throws Exception {
+		int n = 8;
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		List<Future<Double>> results = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			final double delay = i + 1;
+			SimulationContext ctx = new SimulationContext();
+			results.add(pool.submit(() -> ctx.call(() -> runPingPong(delay))));
+		}
+
+		for (int i = 0; i < n; i++) {
+			assertEquals(ROUNDS * (i + 1.0), results.get(i).get(), 0);
+		}
+		pool.shutdown();
+	}
+
+	@Test
+	public void testEntitiesAreBoundToTheirContext() throws Exception {
+		SimulationContext ctx = new SimulationContext();
+		ctx.init(0, null, false);
+		PingEntity entity = ctx.call(() -> new PingEntity("Ping", 1));
+
+		assertSame(ctx, entity.getSimulationContext());
+		assertSame(entity, ctx.getEntity("Ping"));
+		assertEquals(3, ctx.getNumEntities());
+	}
+
+	@Test
+	public void testDeferredEventsAreProcessedAfterHolding() {
+		CloudSim.init(0, null, false);
+		HoldingEntity entity = new HoldingEntity("Holder");
+		CloudSim.startSimulation();
+		assertEquals(List.of(1.0, 6.0, 6.0), entity.processedAt);
+	}
+
+	@Test
+	public void testEventPooling() throws Exception {
+		SimulationContext ctx = new SimulationContext();
+		double clock = ctx.call(() -> {
+			CloudSim.init(0, null, false);
+			CloudSim.setEventPoolingEnabled(true);
+			PingEntity ping = new PingEntity("Ping", 1.0);
+			PingEntity pong = new PingEntity("Pong", 1.0);
+			ping.peerId = pong.getId();
+			SimEvent first = CloudSim.send(pong.getId(), ping.getId(), 0.5, CloudActionTags.BLANK, ROUNDS);
+			assertTrue(ctx.isEventPoolingEnabled());
+			double last = CloudSim.startSimulation();
+			// the first event has been processed by Ping and reused for a later event
+			assertNotEquals(0.5, first.eventTime());
+			assertEquals(ROUNDS + 1, ping.received + pong.received);
+			return last;
+		});
+		assertEquals(ROUNDS * 1.0, clock, 0);
+		assertFalse(ctx.isEventPoolingEnabled());
+	}
+
+	@Test
+	public void testTimeQuantum() throws Exception {
+		SimulationContext ctx = new SimulationContext();
+		BurstEntity entity = ctx.call(() -> {
+			CloudSim.init(0, null, false);
+			CloudSim.setTimeQuantum(0.01);
+			return new BurstEntity("Burst", 1.004, 1, 1.009, 1.02, 1.011);
+		});
+		assertThrows(IllegalArgumentException.class, () -> ctx.setTimeQuantum(-1));
+		assertEquals(1.02, ctx.call(CloudSim::startSimulation));
+		// the events within the quantum after the first one are processed at once, in time order
+		assertEquals(List.of("1@1.009", "0@1.009", "2@1.009", "4@1.02", "3@1.02"), entity.processed);
+		assertEquals(0, ctx.getTimeQuantum());
+	}
+
+	@Test
+	public void testTimeQuantumStopsAtPause() throws Exception {
+		SimulationContext ctx = new SimulationContext();
+		BurstEntity entity = ctx.call(() -> {
+			CloudSim.init(0, null, false);
+			CloudSim.setTimeQuantum(1);
+			return new BurstEntity("Burst", 10, 10.5, 30);
+		});
+		assertTrue(ctx.pauseSimulation(10.2));
+		Thread thread = new Thread(() -> ctx.run());
+		thread.start();
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!ctx.isPaused() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		}
+		// the quantum after the event at 10 stops at the pause time
+		assertTrue(ctx.isPaused());
+		assertEquals(10.2, ctx.clock());
+		assertEquals(10.5, ctx.nextEventTime());
+		ctx.resumeSimulation();
+		thread.join(10_000);
+		assertFalse(thread.isAlive());
+		assertEquals(List.of("0@10.2", "1@10.5", "2@30.0"), entity.processed);
+	}
+
+	@Test
+	public void testTimeQuantumStopsAtRunUntil() throws Exception {
+		SimulationContext ctx = new SimulationContext();
+		BurstEntity entity = ctx.call(() -> {
+			CloudSim.init(0, null, false);
+			CloudSim.setTimeQuantum(1);
+			return new BurstEntity("Burst", 10, 10.5, 30);
+		});
+		SimulationController controller = new SimulationController(ctx);
+		controller.start();
+		assertEquals(10.2, controller.runUntil(10.2));
+		assertEquals(List.of("0@10.0"), entity.processed);
+		assertEquals(10.3, controller.runUntil(10.3));
+		assertEquals(11, controller.runUntil(11));
+		assertEquals(List.of("0@10.0", "1@10.5"), entity.processed);
+		assertEquals(30, controller.awaitFinished());
+		assertEquals(List.of("0@10.0", "1@10.5", "2@30.0"), entity.processed);
+	}
+}
@@ -0,0 +1,169 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Log;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a simulation driven from another thread pauses where it is asked to, and processes
+ * the events injected while paused.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class SimulationControllerTest {
+
+	private static final int TICKS = 10;
+
+	@BeforeEach
+	public void setUp() {
+		Log.disable();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Log.enable();
+	}
+
+	/** An entity ticking every second, and noting the external events it receives. */
+	private static class TimerEntity extends SimEntity {
+		private int ticks;
+		private final List<Double> external = new ArrayList<>();
+
+		TimerEntity(String name) {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+			schedule(getId(), 1, CloudActionTags.BLANK);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if ("external".equals(ev.getData())) {
+				external.add(CloudSim.clock());
+			} else if (++ticks < TICKS) {
+				schedule(getId(), 1, CloudActionTags.BLANK);
+			}
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+	private static TimerEntity createTimer(SimulationContext ctx) throws Exception {
+		return ctx.call(() -> {
+			CloudSim.init(0, null, false);
+			return new TimerEntity("Timer");
+		});
+	}
+
+	@Test
+	public void testRunUntilStepAndInject() throws Exception {
+		SimulationContext ctx = new SimulationContext();
+		TimerEntity timer = createTimer(ctx);
+		SimulationController controller = new SimulationController(ctx);
+		controller.start();
+		assertTrue(controller.awaitPaused());
+		assertEquals(0, controller.getClock());
+		assertEquals(0, timer.ticks);
+
+		assertEquals(3.5, controller.runUntil(3.5));
+		assertEquals(3, timer.ticks);
+		assertThrows(IllegalArgumentException.class, () -> controller.runUntil(2));
+
+		assertEquals(4, controller.step(1));
+		assertEquals(4, timer.ticks);
+
+		controller.inject(timer.getId(), timer.getId(), 0.25, CloudActionTags.BLANK, "external");
+		assertEquals(4.5, controller.runUntil(4.5));
+		assertEquals(List.of(4.25), timer.external);
+		assertEquals(4, timer.ticks);
+
+		// once the timer stops, the simulation waits at the given time for external events
+		assertEquals(20, controller.runUntil(20));
+		assertTrue(controller.isPaused());
+		assertEquals(TICKS, timer.ticks);
+		controller.inject(timer.getId(), timer.getId(), 1, CloudActionTags.BLANK, "external");
+		assertEquals(21, controller.awaitFinished());
+		assertEquals(List.of(4.25, 21.0), timer.external);
+		assertTrue(controller.isFinished());
+		assertFalse(controller.awaitPaused());
+		assertThrows(IllegalStateException.class,
+				() -> controller.inject(timer.getId(), timer.getId(), 0, CloudActionTags.BLANK, "external"));
+	}
+
+	@Test
+	public void testPauseAndResume() throws Exception {
+		SimulationContext ctx = new SimulationContext();
+		TimerEntity timer = createTimer(ctx);
+		SimulationController controller = new SimulationController(ctx);
+		controller.start();
+		controller.resume();
+		controller.pause();
+		assertTrue(controller.awaitPaused());
+		assertTrue(timer.ticks < TICKS);
+		assertEquals(TICKS, controller.awaitFinished());
+		assertEquals(TICKS, timer.ticks);
+		assertThrows(IllegalStateException.class, controller::start);
+	}
+
+	@Test
+	public void testLegacyPauseAtFractionalTime() throws Exception {
+		SimulationContext ctx = new SimulationContext();
+		TimerEntity timer = createTimer(ctx);
+		assertTrue(ctx.pauseSimulation(2.5));
+		Thread thread = new Thread(() -> ctx.run());
+		thread.start();
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!ctx.isPaused() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		}
+		assertTrue(ctx.isPaused());
+		assertEquals(2.5, ctx.clock());
+		assertEquals(2, timer.ticks);
+		ctx.resumeSimulation();
+		thread.join(10_000);
+		assertFalse(thread.isAlive());
+		assertEquals(TICKS, timer.ticks);
+	}
+
+	@Test
+	public void testInterruptedPauseGoesOn() throws Exception {
+		SimulationContext ctx = new SimulationContext();
+		TimerEntity timer = createTimer(ctx);
+		assertTrue(ctx.pauseSimulation(2.5));
+		boolean[] interrupted = new boolean[1];
+		Thread thread = new Thread(() -> {
+			ctx.run();
+			interrupted[0] = Thread.currentThread().isInterrupted();
+		});
+		thread.start();
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (!ctx.isPaused() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(1);
+		}
+		assertTrue(ctx.isPaused());
+		thread.interrupt();
+		thread.join(10_000);
+		assertFalse(thread.isAlive());
+		assertEquals(TICKS, timer.ticks);
+		// the interrupt is left for the thread to see
+		assertTrue(interrupted[0]);
+	}
+}
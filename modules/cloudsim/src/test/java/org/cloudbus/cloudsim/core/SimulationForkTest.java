@@ -0,0 +1,298 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.DatacenterBroker;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.UtilizationModelStochastic;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.power.PowerDatacenter;
+import org.cloudbus.cloudsim.power.PowerVmAllocationPolicyMigrationLocalRegression;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the forks of a simulation go on as the original one, independently of it.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class SimulationForkTest {
+
+	private static final int HOSTS = 4;
+
+	private static final int VMS = 8;
+
+	private static final int CLOUDLETS = 24;
+
+	@BeforeEach
+	public void setUp() {
+		Log.disable();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Log.enable();
+	}
+
+	/** A broker of the user, without a no-arg constructor, counting the events it processes. */
+	private static class CountingBroker extends DatacenterBroker {
+		private final Map<CloudSimTags, Integer> counts = new HashMap<>();
+
+		CountingBroker(String name) throws Exception {
+			super(name);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			counts.merge(ev.getTag(), 1, Integer::sum);
+			super.processEvent(ev);
+		}
+	}
+
+	/** A broker of the user referring to an object that can't be copied. */
+	private static class ThreadBroker extends DatacenterBroker {
+		@SuppressWarnings("unused")
+		private final Thread thread = Thread.currentThread();
+
+		ThreadBroker(String name) throws Exception {
+			super(name);
+		}
+	}
+
+	/** Creates a broker. */
+	private interface BrokerFactory {
+		DatacenterBroker create(String name) throws Exception;
+	}
+
+	/**
+	 * Creates a datacenter running cloudlets of random lengths.
+	 */
+	private static void createScenario() throws Exception {
+		createScenario(DatacenterBroker::new);
+	}
+
+	/**
+	 * Creates a datacenter running cloudlets of random lengths, submitted by a broker.
+	 */
+	private static void createScenario(BrokerFactory brokers) throws Exception {
+		CloudSim.init(1, null, false);
+		DatacenterBroker broker = brokers.create("Broker");
+
+		List<Host> hosts = new ArrayList<>();
+		for (int i = 0; i < HOSTS; i++) {
+			List<Pe> peList = new ArrayList<>();
+			for (int j = 0; j < 2; j++) {
+				peList.add(new Pe(j, new PeProvisionerSimple(1860)));
+			}
+			hosts.add(new Host(i, new RamProvisionerSimple(4096), new BwProvisionerSimple(1000000), 1000000, peList,
+					new VmSchedulerTimeShared(peList)));
+		}
+
+		Random random = new Random(7);
+		List<Vm> vms = new ArrayList<>();
+		for (int i = 0; i < VMS; i++) {
+			vms.add(new Vm(i, broker.getId(), 500 + 100 * i, 1, 613, 100000, 2500, "Xen", new CloudletSchedulerTimeShared()));
+		}
+		List<Cloudlet> cloudlets = new ArrayList<>();
+		UtilizationModelFull full = new UtilizationModelFull();
+		for (int i = 0; i < CLOUDLETS; i++) {
+			Cloudlet cloudlet = new Cloudlet(i, 100_000 + random.nextInt(5_000_000), 1, 300, 300, full,
+					new UtilizationModelStochastic(i), full);
+			cloudlet.setUserId(broker.getId());
+			cloudlet.setGuestId(i % VMS);
+			cloudlets.add(cloudlet);
+		}
+
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux", "Xen", hosts, 10.0, 3.0, 0.05,
+				0.001, 0.0);
+		new Datacenter("Datacenter", characteristics, new VmAllocationPolicySimple(hosts), new LinkedList<Storage>(), 100);
+
+		broker.submitGuestList(vms);
+		broker.submitCloudletList(cloudlets);
+	}
+
+	/**
+	 * Runs a simulation and gets its results.
+	 */
+	private static List<String> results(SimulationContext ctx) {
+		DatacenterBroker broker = (DatacenterBroker) ctx.getEntity("Broker");
+		double clock = ctx.startSimulation();
+		List<String> results = new ArrayList<>();
+		results.add(Double.toString(clock));
+		for (Cloudlet cloudlet : broker.<Cloudlet>getCloudletReceivedList()) {
+			results.add(cloudlet.getCloudletId() + " " + cloudlet.getGuestId() + " " + cloudlet.getExecFinishTime());
+		}
+		return results;
+	}
+
+	@Test
+	public void testForksGoOnAsTheOriginal() throws Exception {
+		SimulationContext reference = new SimulationContext();
+		List<String> expected = reference.call(() -> {
+			createScenario();
+			return results(reference);
+		});
+		assertEquals(CLOUDLETS + 1, expected.size());
+		double checkpoint = Math.floor(Double.parseDouble(expected.get(0)) / 2);
+
+		SimulationContext original = new SimulationContext();
+		List<SimulationContext> forks = new ArrayList<>();
+		List<DatacenterBroker> originalBroker = new ArrayList<>();
+		List<String> results = original.call(() -> {
+			createScenario();
+			original.setCheckpoint(checkpoint, ctx -> {
+				for (int i = 0; i < 3; i++) {
+					forks.add(ctx.fork());
+				}
+				originalBroker.add((DatacenterBroker) ctx.getEntity("Broker"));
+			}, false);
+			return results(original);
+		});
+		assertEquals(expected, results);
+		assertEquals(3, forks.size());
+
+		// the mutable objects are copied, the immutable ones shared
+		DatacenterBroker broker = (DatacenterBroker) forks.get(0).getEntity("Broker");
+		assertNotSame(originalBroker.get(0), broker);
+		Cloudlet originalCloudlet = originalBroker.get(0).<Cloudlet>getCloudletSubmittedList().get(0);
+		Cloudlet cloudlet = broker.<Cloudlet>getCloudletSubmittedList().get(0);
+		assertNotSame(originalCloudlet, cloudlet);
+		assertEquals(originalCloudlet.getCloudletId(), cloudlet.getCloudletId());
+		assertNotSame(originalCloudlet.getUtilizationModelRam(), cloudlet.getUtilizationModelRam());
+		assertSame(originalCloudlet.getUtilizationModelCpu(), cloudlet.getUtilizationModelCpu());
+
+		ExecutorService executor = Executors.newFixedThreadPool(forks.size());
+		try {
+			List<Future<List<String>>> runs = new ArrayList<>();
+			for (SimulationContext fork : forks) {
+				runs.add(executor.submit(() -> results(fork)));
+			}
+			for (Future<List<String>> run : runs) {
+				assertEquals(expected, run.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testForkPowerDatacenter() throws Exception {
+		SimulationContext reference = new SimulationContext();
+		List<String> expected = reference.call(() -> {
+			SimulationCheckpointTest.createPowerScenario();
+			return SimulationCheckpointTest.powerResults(reference);
+		});
+
+		// forked while VMs are migrating, one fork with a more aggressive consolidation
+		SimulationContext original = new SimulationContext();
+		List<SimulationContext> forks = new ArrayList<>();
+		List<String> results = original.call(() -> {
+			SimulationCheckpointTest.createPowerScenario();
+			original.setCheckpoint(605, ctx -> {
+				for (int i = 0; i < 2; i++) {
+					forks.add(ctx.fork());
+				}
+			}, false);
+			return SimulationCheckpointTest.powerResults(original);
+		});
+		assertEquals(expected, results);
+
+		PowerDatacenter datacenter = (PowerDatacenter) forks.get(1).getEntity("Datacenter");
+		((PowerVmAllocationPolicyMigrationLocalRegression) datacenter.getVmAllocationPolicy()).setSafetyParameter(0.8);
+		ExecutorService executor = Executors.newFixedThreadPool(forks.size());
+		try {
+			Future<List<String>> same = executor.submit(() -> SimulationCheckpointTest.powerResults(forks.get(0)));
+			Future<List<String>> consolidated = executor.submit(() -> SimulationCheckpointTest.powerResults(forks.get(1)));
+			assertEquals(expected, same.get());
+			assertEquals(expected.get(0), consolidated.get().get(0));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testForkBeforeStart() throws Exception {
+		SimulationContext original = new SimulationContext();
+		SimulationContext fork = original.call(() -> {
+			createScenario();
+			return original.fork();
+		});
+		assertFalse(fork.running());
+		assertEquals(original.getNumEntities(), fork.getNumEntities());
+
+		List<String> results = original.call(() -> results(original));
+		assertEquals(results, results(fork));
+	}
+
+	@Test
+	public void testForkUserEntity() throws Exception {
+		SimulationContext reference = new SimulationContext();
+		List<CountingBroker> referenceBroker = new ArrayList<>();
+		List<String> expected = reference.call(() -> {
+			createScenario(CountingBroker::new);
+			referenceBroker.add((CountingBroker) reference.getEntity("Broker"));
+			return results(reference);
+		});
+		double checkpoint = Math.floor(Double.parseDouble(expected.get(0)) / 2);
+
+		// a broker of the user is forked as the built-in entities are, with no constructor to add
+		SimulationContext original = new SimulationContext();
+		List<SimulationContext> forks = new ArrayList<>();
+		original.call(() -> {
+			createScenario(CountingBroker::new);
+			original.setCheckpoint(checkpoint, ctx -> forks.add(ctx.fork()), false);
+			return results(original);
+		});
+		assertEquals(1, forks.size());
+
+		SimulationContext fork = forks.get(0);
+		CountingBroker broker = (CountingBroker) fork.getEntity("Broker");
+		assertEquals(expected, results(fork));
+		assertEquals(referenceBroker.get(0).counts, broker.counts);
+	}
+
+	@Test
+	public void testUnsupportedState() throws Exception {
+		SimulationContext original = new SimulationContext();
+		original.call(() -> {
+			createScenario(ThreadBroker::new);
+			// found when the fork is requested, not once the simulation has run up to it
+			IllegalStateException e = assertThrows(IllegalStateException.class,
+					() -> original.setCheckpoint(1000, ctx -> ctx.fork(), false));
+			assertTrue(e.getMessage().contains("thread"));
+			return null;
+		});
+	}
+}
@@ -0,0 +1,183 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.core;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import javax.management.MBeanServer;
+import javax.management.openmbean.TabularData;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.DatacenterBroker;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the latency histograms and the metrics of the simulations, as seen through JMX. The
+ * metrics of a whole simulation are only checked when the tests run with
+ * <tt>-Dcloudsim.metrics=true</tt>, as the build does in a surefire execution of this test alone.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class SimulationMetricsTest {
+
+	@BeforeEach
+	public void setUp() {
+		Log.disable();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Log.enable();
+	}
+
+	@Test
+	public void testHistogramPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0, histogram.getValueAtPercentile(50));
+		for (long i = 1; i <= 100_000; i++) {
+			histogram.record(i);
+		}
+		assertEquals(100_000, histogram.getCount());
+		assertEquals(100_000, histogram.getMax());
+		assertEquals(50_000.5, histogram.getMean(), 1e-9);
+		assertEquals(50_000, histogram.getValueAtPercentile(50), 50_000 * 0.07);
+		assertEquals(99_000, histogram.getValueAtPercentile(99), 99_000 * 0.07);
+		assertEquals(100_000, histogram.getValueAtPercentile(100));
+		assertEquals(1, histogram.getValueAtPercentile(0));
+
+		// the small values are exact
+		histogram.reset();
+		histogram.record(7);
+		histogram.record(-3);
+		assertEquals(0, histogram.getValueAtPercentile(50));
+		assertEquals(7, histogram.getValueAtPercentile(100));
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+		assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(101));
+	}
+
+	/** An entity doing nothing. */
+	private static class IdleEntity extends SimEntity {
+		IdleEntity(String name) {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+	@Test
+	public void testMXBean() throws Exception {
+		SimulationMetrics metrics = new SimulationMetrics();
+		SimEntity entity = new SimulationContext().call(() -> {
+			CloudSim.init(0, null, false);
+			return new IdleEntity("Idle");
+		});
+		for (int i = 1; i <= 10; i++) {
+			metrics.recordHandler(entity, CloudActionTags.BLANK, 1000 * i);
+		}
+		metrics.recordHandler(entity, CloudActionTags.VM_CREATE, 500);
+		metrics.recordTick(4, 3);
+		metrics.recordTick(5, 2);
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		metrics.register();
+		try {
+			assertEquals(11L, server.getAttribute(metrics.getObjectName(), "EventCount"));
+			assertEquals(11 / 5.0, server.getAttribute(metrics.getObjectName(), "EventsPerSimulatedSecond"));
+			assertEquals(2, server.getAttribute(metrics.getObjectName(), "FutureQueueDepth"));
+			assertEquals(3, server.getAttribute(metrics.getObjectName(), "MaxFutureQueueDepth"));
+			TabularData byTag = (TabularData) server.getAttribute(metrics.getObjectName(), "EventCountsByTag");
+			assertEquals(2, byTag.size());
+			assertEquals(10L, byTag.get(new Object[] { "CloudActionTags.BLANK" }).get("value"));
+			Object p99 = server.invoke(metrics.getObjectName(), "getHandlerNanosAtPercentile",
+					new Object[] { IdleEntity.class.getName(), 99.0 }, new String[] { String.class.getName(), double.class.getName() });
+			assertEquals(10_000L, p99);
+		} finally {
+			metrics.unregister();
+		}
+		assertFalse(server.isRegistered(metrics.getObjectName()));
+
+		assertEquals(Long.valueOf(500), metrics.getHandlerNanosByTag().get("CloudActionTags.VM_CREATE"));
+		assertEquals(-1, metrics.getHandlerNanosAtPercentile("unknown", 50));
+		assertTrue(metrics.dump().contains(IdleEntity.class.getName()));
+		metrics.reset();
+		assertEquals(0, metrics.getEventCount());
+	}
+
+	@Test
+	public void testSimulationMetrics() throws Exception {
+		assumeTrue(SimulationMetrics.ENABLED, "the metrics are disabled");
+		SimulationContext ctx = new SimulationContext();
+		ctx.call(() -> {
+			CloudSim.init(1, null, false);
+			DatacenterBroker broker = new DatacenterBroker("Broker");
+			List<Pe> peList = new ArrayList<>();
+			peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+			List<Host> hosts = new ArrayList<>();
+			hosts.add(new Host(0, new RamProvisionerSimple(4096), new BwProvisionerSimple(10000), 100000, peList,
+					new VmSchedulerTimeShared(peList)));
+			new Datacenter("Datacenter", new DatacenterCharacteristics("x86", "Linux", "Xen", hosts, 10.0, 3.0, 0.05, 0.001, 0.0),
+					new VmAllocationPolicySimple(hosts), new LinkedList<Storage>(), 0);
+
+			List<Vm> vms = new ArrayList<>();
+			vms.add(new Vm(0, broker.getId(), 1000, 1, 512, 1000, 1000, "Xen", new CloudletSchedulerTimeShared()));
+			List<Cloudlet> cloudlets = new ArrayList<>();
+			UtilizationModelFull full = new UtilizationModelFull();
+			for (int i = 0; i < 5; i++) {
+				Cloudlet cloudlet = new Cloudlet(i, 10_000, 1, 300, 300, full, full, full);
+				cloudlet.setUserId(broker.getId());
+				cloudlets.add(cloudlet);
+			}
+			broker.submitGuestList(vms);
+			broker.submitCloudletList(cloudlets);
+
+			SimulationMetrics metrics = ctx.getMetrics();
+			assertNotNull(metrics);
+			CloudSim.startSimulation();
+			assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(metrics.getObjectName()));
+			assertEquals(5L, metrics.getEventCountsByTag().get("CloudActionTags.CLOUDLET_RETURN"));
+			assertEquals(5, metrics.getHandlerLatency(CloudActionTags.CLOUDLET_RETURN).getCount());
+			assertTrue(metrics.getEventCountsByEntityClass().get(Datacenter.class.getName()) > 5);
+			assertTrue(metrics.getEventsPerSimulatedSecond() > 0);
+			return null;
+		});
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.jfr;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerTimeShared;
+import org.cloudbus.cloudsim.Datacenter;
+import org.cloudbus.cloudsim.DatacenterBroker;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.Host;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.Vm;
+import org.cloudbus.cloudsim.VmAllocationPolicySimple;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.util.ExecutionTimeMeasurer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that the simulations emit their flight recorder events, stamped with the simulation
+ * time.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class FlightRecorderEventsTest {
+
+	private static final int VMS = 3;
+
+	@TempDir
+	Path folder;
+
+	@BeforeEach
+	public void setUp() {
+		Log.disable();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Log.enable();
+	}
+
+	private static void runScenario() throws Exception {
+		CloudSim.init(1, null, false);
+		DatacenterBroker broker = new DatacenterBroker("Broker");
+		List<Pe> peList = new ArrayList<>();
+		peList.add(new Pe(0, new PeProvisionerSimple(1000)));
+		List<Host> hosts = new ArrayList<>();
+		hosts.add(new Host(0, new RamProvisionerSimple(4096), new BwProvisionerSimple(10000), 100000, peList,
+				new VmSchedulerTimeShared(peList)));
+		new Datacenter("Datacenter", new DatacenterCharacteristics("x86", "Linux", "Xen", hosts, 10.0, 3.0, 0.05, 0.001, 0.0),
+				new VmAllocationPolicySimple(hosts), new LinkedList<Storage>(), 0);
+
+		List<Vm> vms = new ArrayList<>();
+		for (int i = 0; i < VMS; i++) {
+			vms.add(new Vm(i, broker.getId(), 250, 1, 512, 1000, 1000, "Xen", new CloudletSchedulerTimeShared()));
+		}
+		List<Cloudlet> cloudlets = new ArrayList<>();
+		UtilizationModelFull full = new UtilizationModelFull();
+		for (int i = 0; i < 6; i++) {
+			Cloudlet cloudlet = new Cloudlet(i, 10_000, 1, 300, 300, full, full, full);
+			cloudlet.setUserId(broker.getId());
+			cloudlets.add(cloudlet);
+		}
+		broker.submitGuestList(vms);
+		broker.submitCloudletList(cloudlets);
+
+		CloudSim.startSimulation();
+	}
+
+	@Test
+	public void testRecordedEvents() throws Exception {
+		Path file = folder.resolve("simulation.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable(EventDispatchEvent.class).withoutThreshold();
+			recording.enable(CloudletProcessingEvent.class).withoutThreshold();
+			recording.enable(VmCreationEvent.class).withoutThreshold();
+			recording.enable(MeasuredSectionEvent.class).withoutThreshold();
+			recording.start();
+
+			new SimulationContext().call(() -> {
+				runScenario();
+				return null;
+			});
+			ExecutionTimeMeasurer.start("section");
+			ExecutionTimeMeasurer.end("section");
+
+			recording.stop();
+			recording.dump(file);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		List<RecordedEvent> dispatches = events.stream()
+				.filter(ev -> ev.getEventType().getName().equals("org.cloudbus.cloudsim.EventDispatch")).toList();
+		assertFalse(dispatches.isEmpty());
+		assertTrue(dispatches.stream().anyMatch(ev -> "CLOUDLET_RETURN".equals(ev.getString("tag"))
+				&& "Broker".equals(ev.getString("entity")) && ev.getDouble("clock") > 0));
+
+		List<RecordedEvent> creations = events.stream()
+				.filter(ev -> ev.getEventType().getName().equals("org.cloudbus.cloudsim.VmCreation")).toList();
+		assertEquals(VMS, creations.size());
+		for (RecordedEvent creation : creations) {
+			assertEquals("Datacenter", creation.getString("datacenter"));
+			assertEquals(0, creation.getInt("host"));
+		}
+
+		assertTrue(events.stream().anyMatch(ev -> ev.getEventType().getName().equals("org.cloudbus.cloudsim.CloudletProcessing")));
+		assertTrue(events.stream().anyMatch(ev -> ev.getEventType().getName().equals("org.cloudbus.cloudsim.MeasuredSection")
+				&& "section".equals(ev.getString("section"))));
+	}
+}
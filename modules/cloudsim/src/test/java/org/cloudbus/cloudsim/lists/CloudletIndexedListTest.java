@@ -0,0 +1,149 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.lists;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Random;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a list of cloudlets indexed by id behaves as a {@link LinkedList}, including when
+ * several cloudlets have the same id.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class CloudletIndexedListTest {
+
+	private static Cloudlet cloudlet(int id) {
+		UtilizationModelFull full = new UtilizationModelFull();
+		return new Cloudlet(id, 1000, 1, 300, 300, full, full, full);
+	}
+
+	private static void assertSameLists(List<Cloudlet> expected, CloudletIndexedList<Cloudlet> actual, int ids) {
+		assertEquals(expected, actual);
+		assertEquals(expected.size(), actual.size());
+		for (int id = 0; id < ids; id++) {
+			assertSame(CloudletList.getById(expected, id), actual.getById(id), "id " + id);
+		}
+	}
+
+	@Test
+	public void testAsLinkedList() {
+		final int ids = 20;
+		Random random = new Random(42);
+		List<Cloudlet> expected = new LinkedList<>();
+		CloudletIndexedList<Cloudlet> actual = new CloudletIndexedList<>();
+
+		for (int i = 0; i < 5000; i++) {
+			int operation = random.nextInt(8);
+			int id = random.nextInt(ids);
+			if (operation <= 1 || expected.isEmpty()) {
+				Cloudlet cl = cloudlet(id);
+				expected.add(cl);
+				actual.add(cl);
+			} else if (operation == 2) {
+				int position = random.nextInt(expected.size() + 1);
+				Cloudlet cl = cloudlet(id);
+				expected.add(position, cl);
+				actual.add(position, cl);
+			} else if (operation == 3) {
+				int position = random.nextInt(expected.size());
+				assertSame(expected.remove(position), actual.remove(position));
+			} else if (operation == 4) {
+				Cloudlet cl = expected.get(random.nextInt(expected.size()));
+				assertTrue(actual.contains(cl));
+				assertEquals(expected.remove(cl), actual.remove(cl));
+				assertEquals(expected.contains(cl), actual.contains(cl));
+			} else if (operation == 5) {
+				assertSame(CloudletList.removeById(expected, id), CloudletList.removeById(actual, id));
+			} else if (operation == 6) {
+				// removes the cloudlets of an id through the iterators
+				Iterator<Cloudlet> it = expected.iterator();
+				Iterator<Cloudlet> actualIt = actual.iterator();
+				while (it.hasNext()) {
+					Cloudlet cl = it.next();
+					assertSame(cl, actualIt.next());
+					if (cl.getCloudletId() == id) {
+						it.remove();
+						actualIt.remove();
+					}
+				}
+				assertFalse(actualIt.hasNext());
+			} else {
+				int position = random.nextInt(expected.size());
+				Cloudlet cl = cloudlet(id);
+				ListIterator<Cloudlet> it = actual.listIterator(position);
+				it.next();
+				it.set(cl);
+				expected.set(position, cl);
+			}
+			assertSameLists(expected, actual, ids);
+		}
+
+		List<Cloudlet> removed = new ArrayList<>(expected.subList(0, expected.size() / 2));
+		expected.removeAll(removed);
+		actual.removeAll(removed);
+		assertSameLists(expected, actual, ids);
+
+		assertSame(expected.removeFirst(), actual.removeFirst());
+		assertSameLists(expected, actual, ids);
+		actual.clear();
+		assertTrue(actual.isEmpty());
+		assertNull(actual.getById(0));
+	}
+
+	@Test
+	public void testSort() {
+		final int ids = 20;
+		Random random = new Random(42);
+		List<Cloudlet> expected = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			expected.add(cloudlet(random.nextInt(ids)));
+		}
+		CloudletIndexedList<Cloudlet> actual = new CloudletIndexedList<>(expected);
+
+		// the sort is stable: the first cloudlet of an id stays the first one
+		Comparator<Cloudlet> byId = Comparator.comparingInt(Cloudlet::getCloudletId);
+		expected.sort(byId.reversed());
+		actual.sort(byId.reversed());
+		assertSameLists(expected, actual, ids);
+
+		Map<Cloudlet, Cloudlet> halved = new IdentityHashMap<>();
+		for (Cloudlet cl : expected) {
+			halved.put(cl, cl.getCloudletId() % 2 == 0 ? cloudlet(cl.getCloudletId() / 2) : cl);
+		}
+		expected.replaceAll(halved::get);
+		actual.replaceAll(halved::get);
+		assertSameLists(expected, actual, ids);
+
+		// sorting the cloudlets of unique ids doesn't walk the list for each one
+		List<Cloudlet> cloudlets = new ArrayList<>();
+		for (int id = 0; id < 200_000; id++) {
+			cloudlets.add(cloudlet(id));
+		}
+		CloudletIndexedList<Cloudlet> large = new CloudletIndexedList<>(cloudlets);
+		assertTimeoutPreemptively(Duration.ofSeconds(10), () -> large.sort(byId.reversed()));
+		assertEquals(199_999, large.getFirst().getCloudletId());
+		assertSame(cloudlets.get(0), large.getById(0));
+		assertSame(cloudlets.get(0), large.getLast());
+	}
+}
@@ -0,0 +1,223 @@
+/*
+ * Title:        CloudSim Toolkit
+ * Description:  CloudSim (Cloud Simulation) Toolkit for Modeling and Simulation of Clouds
+ * Licence:      GPL - http://www.gnu.org/copyleft/gpl.html
+ *
+ * Copyright (c) 2009-2012, The University of Melbourne, Australia
+ */
+
+package org.cloudbus.cloudsim.power;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.cloudbus.cloudsim.Cloudlet;
+import org.cloudbus.cloudsim.CloudletSchedulerDynamicWorkload;
+import org.cloudbus.cloudsim.DatacenterBroker;
+import org.cloudbus.cloudsim.DatacenterCharacteristics;
+import org.cloudbus.cloudsim.HostStateHistoryEntry;
+import org.cloudbus.cloudsim.Log;
+import org.cloudbus.cloudsim.Pe;
+import org.cloudbus.cloudsim.Storage;
+import org.cloudbus.cloudsim.UtilizationModel;
+import org.cloudbus.cloudsim.UtilizationModelFull;
+import org.cloudbus.cloudsim.UtilizationModelNull;
+import org.cloudbus.cloudsim.UtilizationModelPlanetLabInMemory;
+import org.cloudbus.cloudsim.UtilizationModelPlanetLabInMemoryTest;
+import org.cloudbus.cloudsim.VmAllocationWithSelectionPolicy;
+import org.cloudbus.cloudsim.VmSchedulerTimeShared;
+import org.cloudbus.cloudsim.VmStateHistoryEntry;
+import org.cloudbus.cloudsim.core.CloudActionTags;
+import org.cloudbus.cloudsim.core.CloudSim;
+import org.cloudbus.cloudsim.core.SimEntity;
+import org.cloudbus.cloudsim.core.SimEvent;
+import org.cloudbus.cloudsim.core.SimulationContext;
+import org.cloudbus.cloudsim.power.models.PowerModelLinear;
+import org.cloudbus.cloudsim.provisioners.BwProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.PeProvisionerSimple;
+import org.cloudbus.cloudsim.provisioners.RamProvisionerSimple;
+import org.cloudbus.cloudsim.selectionPolicies.SelectionPolicyFirstFit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a power datacenter skipping the scheduling intervals in which nothing changes ends
+ * up with the energy and the histories of one processing every interval.
+ *
+ * @since CloudSim Toolkit 7.0
+ */
+public class PowerDatacenterTest {
+
+	private static final double SCHEDULING_INTERVAL = 300;
+
+	private static final int HOSTS = 2;
+
+	private static final int VMS = 4;
+
+	@BeforeEach
+	public void setUp() {
+		Log.disable();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		Log.enable();
+	}
+
+	/** A utilization changing in steps of a given length. */
+	private record StepUtilizationModel(double step, double... levels) implements UtilizationModel {
+		@Override
+		public double getUtilization(double time) {
+			return levels[Math.min((int) (time / step), levels.length - 1)];
+		}
+
+		@Override
+		public double getNextChangeTime(double time) {
+			int level = (int) (time / step);
+			return level >= levels.length - 1 ? Double.POSITIVE_INFINITY : (level + 1) * step;
+		}
+	}
+
+	/** A power datacenter counting the scheduling intervals it processes. */
+	private static class CountingDatacenter extends PowerDatacenter {
+		private int intervals;
+
+		CountingDatacenter(String name, DatacenterCharacteristics characteristics, List<PowerHost> hosts)
+				throws Exception {
+			super(name, characteristics, new VmAllocationWithSelectionPolicy(hosts, new SelectionPolicyFirstFit<>()), new LinkedList<Storage>(),
+					SCHEDULING_INTERVAL);
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+			if (ev.getTag() == CloudActionTags.VM_DATACENTER_EVENT) {
+				intervals++;
+			}
+			super.processEvent(ev);
+		}
+	}
+
+	/** An entity querying the datacenter in the middle of a skipped stretch. */
+	private static class QueryEntity extends SimEntity {
+		QueryEntity(String name) {
+			super(name);
+		}
+
+		@Override
+		public void startEntity() {
+			send(getSimulationContext().getEntityId("Datacenter"), 10_000.5, CloudActionTags.RESOURCE_CHARACTERISTICS,
+					getId());
+		}
+
+		@Override
+		public void processEvent(SimEvent ev) {
+		}
+
+		@Override
+		public void shutdownEntity() {
+		}
+	}
+
+	/**
+	 * Creates a datacenter running cloudlets with flat and traced utilizations.
+	 */
+	private static CountingDatacenter createScenario(boolean fastForward) throws Exception {
+		CloudSim.init(1, null, false);
+		DatacenterBroker broker = new DatacenterBroker("Broker");
+		new QueryEntity("Query");
+
+		List<PowerHost> hosts = new ArrayList<>();
+		for (int i = 0; i < HOSTS; i++) {
+			List<Pe> peList = new ArrayList<>();
+			for (int j = 0; j < 2; j++) {
+				peList.add(new Pe(j, new PeProvisionerSimple(2000)));
+			}
+			hosts.add(new PowerHost(i, new RamProvisionerSimple(8192), new BwProvisionerSimple(1000000), 1000000,
+					peList, new VmSchedulerTimeShared(peList), new PowerModelLinear(200, 0.6)));
+		}
+
+		List<PowerVm> vms = new ArrayList<>();
+		for (int i = 0; i < VMS; i++) {
+			PowerVm vm = new PowerVm(i, broker.getId(), 1000, 1, 1024, 1000, 2500, 1, "Xen",
+					new CloudletSchedulerDynamicWorkload(1000, 1), SCHEDULING_INTERVAL);
+			// keeps the VMs without nested guests from being deallocated
+			vm.setInWaiting(true);
+			vms.add(vm);
+		}
+
+		UtilizationModel[] cpu = {
+				new UtilizationModelFull(),
+				new StepUtilizationModel(1000, 0.5, 0.25, 0.75),
+				new StepUtilizationModel(4000, 0.4, 0.6),
+				new UtilizationModelPlanetLabInMemory(PowerDatacenterTest.class.getClassLoader()
+						.getResource(UtilizationModelPlanetLabInMemoryTest.FILE).getPath(), SCHEDULING_INTERVAL) };
+		long[] lengths = { 2_500_000, 1_700_000, 12_000_000, 400_000 };
+		List<Cloudlet> cloudlets = new ArrayList<>();
+		UtilizationModelNull none = new UtilizationModelNull();
+		for (int i = 0; i < VMS; i++) {
+			Cloudlet cloudlet = new Cloudlet(i, lengths[i], 1, 300, 300, cpu[i], none, none);
+			cloudlet.setUserId(broker.getId());
+			cloudlet.setGuestId(i);
+			cloudlets.add(cloudlet);
+		}
+
+		DatacenterCharacteristics characteristics = new DatacenterCharacteristics("x86", "Linux", "Xen", hosts, 10.0,
+				3.0, 0.05, 0.001, 0.0);
+		CountingDatacenter datacenter = new CountingDatacenter("Datacenter", characteristics, hosts);
+		datacenter.setDisableMigrations(true);
+		datacenter.setFastForward(fastForward);
+
+		broker.submitGuestList(vms);
+		broker.submitCloudletList(cloudlets);
+		return datacenter;
+	}
+
+	/**
+	 * Runs a simulation and gets its results.
+	 */
+	private static List<String> results(SimulationContext ctx, CountingDatacenter datacenter) {
+		DatacenterBroker broker = (DatacenterBroker) ctx.getEntity("Broker");
+		double clock = ctx.startSimulation();
+		List<String> results = new ArrayList<>();
+		results.add("clock " + clock);
+		results.add("energy " + datacenter.getPower());
+		for (Cloudlet cloudlet : broker.<Cloudlet>getCloudletReceivedList()) {
+			results.add("cloudlet " + cloudlet.getCloudletId() + " " + cloudlet.getExecFinishTime());
+		}
+		for (PowerHost host : datacenter.<PowerHost>getHostList()) {
+			for (HostStateHistoryEntry state : host.getStateHistory()) {
+				results.add("host " + host.getId() + " " + state.getTime() + " " + state.getAllocatedMips() + " "
+						+ state.getRequestedMips() + " " + state.isActive());
+			}
+		}
+		for (PowerVm vm : broker.<PowerVm>getGuestList()) {
+			for (VmStateHistoryEntry state : vm.getStateHistory()) {
+				results.add("vm " + vm.getId() + " " + state.getTime() + " " + state.getAllocatedMips() + " "
+						+ state.getRequestedMips() + " " + state.isInMigration());
+			}
+			for (double utilization : vm.getUtilizationHistory()) {
+				results.add("vm " + vm.getId() + " " + utilization);
+			}
+		}
+		return results;
+	}
+
+	@Test
+	public void testFastForwardAsSteppingEveryInterval() throws Exception {
+		SimulationContext stepping = new SimulationContext();
+		CountingDatacenter steppingDatacenter = stepping.call(() -> createScenario(false));
+		List<String> expected = stepping.call(() -> results(stepping, steppingDatacenter));
+
+		SimulationContext fastForward = new SimulationContext();
+		CountingDatacenter fastForwardDatacenter = fastForward.call(() -> createScenario(true));
+		List<String> results = fastForward.call(() -> results(fastForward, fastForwardDatacenter));
+
+		assertEquals(expected, results);
+		assertTrue(fastForwardDatacenter.intervals < steppingDatacenter.intervals / 2,
+				fastForwardDatacenter.intervals + " intervals processed, " + steppingDatacenter.intervals + " when stepping");
+	}
+}